@@ -0,0 +1,104 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.benchmarks;
+
+import gov.faa.ang.swac.common.flightmodeling.ScheduleRecord;
+import gov.faa.ang.swac.datalayer.DataAccessException;
+import gov.faa.ang.swac.datalayer.storage.fileio.FileMarshaller;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Round trips of schedule records through FileMarshaller in the text and columnar formats. The projected load reads
+ * two columns of the columnar file, as a task that only needs identities and departure airports would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileMarshallerBenchmark
+{
+	public static enum Format { TEXT, COLUMNAR }
+
+	@Param({ "1", "10", "100", "1000" })
+	public int scale;
+
+	@Param({ "TEXT", "COLUMNAR" })
+	public Format format;
+
+	private List<ScheduleRecord> records;
+	private File saveFile;
+	private File loadFile;
+
+	@Setup
+	public void setUp() throws IOException, DataAccessException
+	{
+		this.records = new SyntheticData(this.scale).scheduleRecords();
+		this.saveFile = File.createTempFile("swac-benchmark", null);
+		this.loadFile = File.createTempFile("swac-benchmark", null);
+		marshaller(this.loadFile).save(this.records);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		this.saveFile.delete();
+		this.loadFile.delete();
+	}
+
+	private FileMarshaller marshaller(File file)
+	{
+		FileMarshaller marshaller = new FileMarshaller(ScheduleRecord.class, file);
+		marshaller.setColumnarFormat(this.format == Format.COLUMNAR);
+		return marshaller;
+	}
+
+	@Benchmark
+	public void save() throws DataAccessException
+	{
+		marshaller(this.saveFile).save(this.records);
+	}
+
+	@Benchmark
+	public List<ScheduleRecord> load() throws DataAccessException
+	{
+		List<ScheduleRecord> output = new ArrayList<ScheduleRecord>();
+		marshaller(this.loadFile).load(output);
+		return output;
+	}
+
+	@Benchmark
+	public List<ScheduleRecord> loadProjected() throws DataAccessException
+	{
+		List<ScheduleRecord> output = new ArrayList<ScheduleRecord>();
+		FileMarshaller marshaller = marshaller(this.loadFile);
+		marshaller.setColumnProjection(Arrays.asList("ID_NUM", "DEP_AIRPORT"));
+		marshaller.load(output);
+		return output;
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.benchmarks;
+
+import gov.faa.ang.swac.common.flightmodeling.ScheduleRecord;
+import gov.faa.ang.swac.uas.scheduler.flight_data.ScheduleRecordCloner;
+import gov.faa.ang.swac.uas.scheduler.forecast.ForecastProcessor;
+import gov.faa.ang.swac.uas.scheduler.forecast.MissionAirportPairKey;
+import gov.faa.ang.swac.uas.scheduler.forecast.clone.ForecastCloner;
+import gov.faa.ang.swac.uas.scheduler.input.UasVfrRecord;
+import gov.faa.ang.swac.uas.scheduler.mathematics.statistics.HQRandom;
+import gov.faa.ang.swac.uas.scheduler.vfr.EnhancedVfrSchedRecCreator;
+import gov.faa.ang.swac.uas.scheduler.vfr.VFRLocalTimeGenerator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The forecast schedule pipeline: cloning base flights up to forecast counts, VFR record creation, and the whole
+ * ForecastProcessor at different levels of parallelism. Cloners and creators hold per-run state (cloned flight lists,
+ * id counters), so each invocation builds its own with the same seeds as a scenario would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForecastBenchmark
+{
+	@Param({ "1", "10", "100", "1000" })
+	public int scale;
+
+	@Param({ "1", "0" })
+	public int parallelism;
+
+	private Map<MissionAirportPairKey, List<ScheduleRecord>> baseSchedule;
+	private Map<MissionAirportPairKey, Integer> forecast;
+	private Map<MissionAirportPairKey, List<UasVfrRecord>> vfrRecords;
+
+	@Setup
+	public void setUp()
+	{
+		SyntheticData data = new SyntheticData(this.scale);
+		this.baseSchedule = data.baseSchedule();
+		this.forecast = data.forecast();
+		this.vfrRecords = data.vfrRecords();
+	}
+
+	private ForecastCloner cloner()
+	{
+		ForecastCloner cloner = new ForecastCloner(new HQRandom(19551105L), new ScheduleRecordCloner(new HQRandom(13453453L)));
+		cloner.setCloneTimeShiftStDev(30.0);
+		return cloner;
+	}
+
+	private EnhancedVfrSchedRecCreator vfrCreator()
+	{
+		return new EnhancedVfrSchedRecCreator(SyntheticData.START_TIME, -1000000, -1, 10.0,
+				new VFRLocalTimeGenerator(new HQRandom(134345L)), this.vfrRecords, -10000000, 7207);
+	}
+
+	@Benchmark
+	public List<ScheduleRecord> process()
+	{
+		ForecastProcessor processor = new ForecastProcessor(this.baseSchedule, this.forecast, cloner(), vfrCreator());
+		processor.setParallelism(this.parallelism);
+		return processor.process(2013, 2025, SyntheticData.START_TIME, SyntheticData.START_TIME.dayAdd(1));
+	}
+
+	@Benchmark
+	public void cloneFlights(Blackhole blackhole)
+	{
+		ForecastCloner cloner = cloner();
+		for (Map.Entry<MissionAirportPairKey, List<ScheduleRecord>> entry : this.baseSchedule.entrySet())
+		{
+			cloner.cloneFlights(entry.getValue(), this.forecast.get(entry.getKey()));
+			blackhole.consume(cloner.getClonedFlights());
+			cloner.clearFlightLists();
+		}
+	}
+
+	@Benchmark
+	public void populateVfr(Blackhole blackhole)
+	{
+		EnhancedVfrSchedRecCreator creator = vfrCreator();
+		for (Map.Entry<MissionAirportPairKey, Integer> entry : this.forecast.entrySet())
+		{
+			blackhole.consume(creator.populateMissionAirportPair(entry.getKey(), entry.getValue()));
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.benchmarks;
+
+import gov.faa.ang.swac.common.geometry.GCPoint;
+import gov.faa.ang.swac.common.geometry.GCUtilities;
+import gov.faa.ang.swac.common.geometry.IndexedSimplePolygon;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Great-circle distances and point-in-polygon tests over a fixed set of points, against polygons of increasing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark
+{
+	private static final int N_POINTS = 1024;
+
+	@Param({ "16", "256", "4096" })
+	public int polygonVertices;
+
+	private GCPoint[] points;
+	private IndexedSimplePolygon polygon;
+
+	@Setup
+	public void setUp()
+	{
+		SyntheticData data = new SyntheticData(1);
+		this.points = data.points(N_POINTS);
+		this.polygon = data.polygon(this.polygonVertices);
+	}
+
+	@Benchmark
+	public double gcDistance()
+	{
+		double total = 0;
+		for (int i = 1; i < this.points.length; i++)
+		{
+			total += GCUtilities.gcDistance(this.points[i - 1], this.points[i]);
+		}
+		return total;
+	}
+
+	@Benchmark
+	public int contains()
+	{
+		int inside = 0;
+		for (GCPoint point : this.points)
+		{
+			if (this.polygon.contains(point))
+			{
+				inside++;
+			}
+		}
+		return inside;
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.benchmarks;
+
+import gov.faa.ang.swac.common.flightmodeling.ScheduleRecord;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Text parsing and formatting of schedule records: the per-line cost of every schedule file read or written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduleRecordBenchmark
+{
+	@Param({ "1", "10", "100", "1000" })
+	public int scale;
+
+	private String text;
+	private List<ScheduleRecord> records;
+
+	@Setup
+	public void setUp()
+	{
+		SyntheticData data = new SyntheticData(this.scale);
+		this.text = data.scheduleText();
+		this.records = data.scheduleRecords();
+	}
+
+	@Benchmark
+	public void readItem(Blackhole blackhole) throws IOException
+	{
+		BufferedReader reader = new BufferedReader(new StringReader(this.text));
+		for (int i = 0; i < this.records.size(); i++)
+		{
+			ScheduleRecord rec = new ScheduleRecord();
+			rec.readItem(reader);
+			blackhole.consume(rec);
+		}
+	}
+
+	@Benchmark
+	public void format(Blackhole blackhole)
+	{
+		for (ScheduleRecord rec : this.records)
+		{
+			blackhole.consume(rec.toString());
+		}
+	}
+}
@@ -0,0 +1,354 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.benchmarks;
+
+import gov.faa.ang.swac.common.datatypes.Altitude;
+import gov.faa.ang.swac.common.datatypes.Latitude;
+import gov.faa.ang.swac.common.datatypes.Longitude;
+import gov.faa.ang.swac.common.datatypes.Timestamp;
+import gov.faa.ang.swac.common.flightmodeling.Aircraft.PhysicalClass;
+import gov.faa.ang.swac.common.flightmodeling.ScheduleRecord;
+import gov.faa.ang.swac.common.geometry.GCPoint;
+import gov.faa.ang.swac.common.geometry.IndexedSimplePolygon;
+import gov.faa.ang.swac.uas.scheduler.airport_data.AirportData;
+import gov.faa.ang.swac.uas.scheduler.airport_data.AirportDataPair;
+import gov.faa.ang.swac.uas.scheduler.forecast.MissionAirportPairKey;
+import gov.faa.ang.swac.uas.scheduler.forecast.trip_distribution.ForecastTripDistAirportDataCount.MissionType;
+import gov.faa.ang.swac.uas.scheduler.input.UasVfrRecord;
+import gov.faa.ang.swac.uas.scheduler.mathematics.statistics.HQRandom;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic synthetic inputs for the benchmarks, sized as a multiple of the data shipped in swac-data. Scale 1
+ * reproduces the shipped record counts (one quarter's schedule, one forecast file, the VFR definitions per airport
+ * pair); scale 1000 is three orders of magnitude beyond them. The same scale and seed always produce the same data,
+ * so results from different runs and machines are comparable.
+ *
+ * @author csmith
+ *
+ */
+public class SyntheticData
+{
+	// Record counts of the shipped swac-data inputs
+	public static final int SHIPPED_SCHEDULE_RECORDS = 38;  // uas_schedule_Q?_*.txt
+	public static final int SHIPPED_FORECAST_PAIRS = 55;    // uas_forecast_*.csv
+	public static final int SHIPPED_VFR_RECORDS = 2;        // uas_vfr.csv, per airport pair
+	public static final int SHIPPED_AIRPORTS = 38778;       // merged_airport_data.txt
+
+	public static final long DEFAULT_SEED = 20130723L;
+	public static final Timestamp START_TIME = new Timestamp(1374537600000L); // 2013-07-23 00:00Z
+
+	private static final String[] AIRCRAFT_TYPES = { "PC12", "T38", "BE9L", "RP01", "RP02", "MQ9", "C17" };
+	private static final String[] CENTERS = { "ZTL", "ZHU", "ZFW", "ZLA", "ZSE", "ZMP", "ZNY", "ZAN" };
+
+	private final int scale;
+	private final long seed;
+
+	public SyntheticData(int scale)
+	{
+		this(scale, DEFAULT_SEED);
+	}
+
+	public SyntheticData(int scale, long seed)
+	{
+		if (scale < 1)
+		{
+			throw new IllegalArgumentException("Scale must be at least 1: " + scale);
+		}
+		this.scale = scale;
+		this.seed = seed;
+	}
+
+	public int getScale()
+	{
+		return this.scale;
+	}
+
+	public int scheduleRecordCount()
+	{
+		return SHIPPED_SCHEDULE_RECORDS * this.scale;
+	}
+
+	public int forecastPairCount()
+	{
+		return SHIPPED_FORECAST_PAIRS * this.scale;
+	}
+
+	/**
+	 * Independent generator for each kind of data, so that e.g. the schedule doesn't change when airports are added
+	 */
+	private HQRandom random(int stream)
+	{
+		return new HQRandom(this.seed).substream(stream);
+	}
+
+	/**
+	 * @return n airports spread over the continental US, with unique codes
+	 */
+	public List<AirportData> airports(int n)
+	{
+		HQRandom random = random(1);
+		List<AirportData> airports = new ArrayList<AirportData>(n);
+		for (int i = 0; i < n; i++)
+		{
+			String code = airportCode(i);
+			airports.add(new AirportData(code, "K" + code,
+					25.0 + 24.0 * random.nextDouble(),
+					-124.0 + 57.0 * random.nextDouble(),
+					random.nextInt(6000), 1, "UNITED STATES",
+					-5.0 - random.nextInt(4),
+					CENTERS[random.nextInt(CENTERS.length)]));
+		}
+		return airports;
+	}
+
+	private static String airportCode(int i)
+	{
+		// Base 26, at least three letters
+		StringBuilder code = new StringBuilder();
+		do
+		{
+			code.append((char) ('A' + i % 26));
+			i /= 26;
+		}
+		while (i > 0 || code.length() < 3);
+		return code.toString();
+	}
+
+	/**
+	 * @return schedule records resembling the shipped UAS schedules, scheduleRecordCount() of them
+	 */
+	public List<ScheduleRecord> scheduleRecords()
+	{
+		HQRandom random = random(2);
+		List<AirportData> airports = airports(Math.max(2, Math.min(SHIPPED_AIRPORTS, scheduleRecordCount() / 4)));
+		int n = scheduleRecordCount();
+		List<ScheduleRecord> records = new ArrayList<ScheduleRecord>(n);
+		for (int i = 0; i < n; i++)
+		{
+			AirportData dep = airports.get(random.nextInt(airports.size()));
+			AirportData arr = random.nextDouble() < 0.8 ? dep : airports.get(random.nextInt(airports.size()));
+			records.add(scheduleRecord(random, 100000000 + 100 * i, dep, arr));
+		}
+		return records;
+	}
+
+	private static ScheduleRecord scheduleRecord(HQRandom random, int idNum, AirportData dep, AirportData arr)
+	{
+		String type = AIRCRAFT_TYPES[random.nextInt(AIRCRAFT_TYPES.length)];
+		ScheduleRecord rec = new ScheduleRecord();
+		rec.idNum = idNum;
+		rec.actDate = START_TIME;
+		rec.aircraftId = "UAS" + (idNum % 1000);
+		rec.flightIndex = idNum / 100;
+		rec.flightPlanType = "ORIGINAL_FLIGHT";
+		rec.gateOutTime = START_TIME.secondAdd(random.nextInt(86400));
+		rec.gateOutTimeFlag = "COMPUTED";
+		rec.runwayOffTime = rec.gateOutTime.minuteAdd(5 + random.nextInt(10));
+		rec.runwayOffTimeFlag = "FILED";
+		rec.runwayOnTime = rec.runwayOffTime.minuteAdd(30 + random.nextInt(720));
+		rec.runwayOnTimeFlag = "FILED";
+		rec.gateInTime = rec.runwayOnTime.minuteAdd(5);
+		rec.filedCruiseAltitude = Altitude.valueOfFeet(100.0 * (50 + random.nextInt(300)));
+		rec.filedSpeed = 100 + random.nextInt(350);
+		rec.depAprtEtms = dep.getFaaCode();
+		rec.arrAprtEtms = arr.getFaaCode();
+		rec.depLatitude = dep.getLatitude();
+		rec.depLongitude = dep.getLongitude();
+		rec.depElevation = dep.getElevation();
+		rec.depAirportCountryCode = dep.getCountryCode();
+		rec.arrLatitude = arr.getLatitude();
+		rec.arrLongitude = arr.getLongitude();
+		rec.arrElevation = arr.getElevation();
+		rec.arrAirportCountryCode = arr.getCountryCode();
+		rec.etmsAircraftType = type;
+		rec.physicalClass = PhysicalClass.values()[random.nextInt(PhysicalClass.values().length)];
+		rec.userClass = "M";
+		rec.flewFlag = "2";
+		rec.airspaceCode = "-1";
+		rec.depAprtIcao = dep.getIcaoCode();
+		rec.arrAprtIcao = arr.getIcaoCode();
+		rec.atoUserClass = MissionType.values()[random.nextInt(MissionType.values().length)].userClass();
+		rec.badaAircraftType = type;
+		rec.badaSource = "ATOP";
+		rec.scheduledFlag = false;
+		rec.etmsFiledWaypointsRaw = waypoints(random, dep, arr, 3 + random.nextInt(20));
+		return rec;
+	}
+
+	/**
+	 * Waypoints in the schedule file format: "lat/lon" pairs in arcminutes, West positive
+	 */
+	private static String waypoints(HQRandom random, AirportData dep, AirportData arr, int n)
+	{
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < n; i++)
+		{
+			double f = (n == 1) ? 0 : i / (double) (n - 1);
+			double lat = dep.getLatitude() + f * (arr.getLatitude() - dep.getLatitude()) + random.nextDouble() - 0.5;
+			double lon = dep.getLongitude() + f * (arr.getLongitude() - dep.getLongitude()) + random.nextDouble() - 0.5;
+			if (i > 0)
+			{
+				builder.append(' ');
+			}
+			builder.append(Math.round(lat * 60)).append('/').append(Math.round(-lon * 60));
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * @return the schedule records as lines of a schedule file (without the header)
+	 */
+	public String scheduleText()
+	{
+		StringBuilder builder = new StringBuilder();
+		for (ScheduleRecord rec : scheduleRecords())
+		{
+			builder.append(rec.toString()).append('\n');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * @return forecastPairCount() distinct mission/airport pairs
+	 */
+	public List<MissionAirportPairKey> missionAirportPairs()
+	{
+		int n = forecastPairCount();
+		List<AirportData> airports = airports(n);
+		MissionType[] missions = MissionType.values();
+		List<MissionAirportPairKey> keys = new ArrayList<MissionAirportPairKey>(n);
+		for (int i = 0; i < n; i++)
+		{
+			// Origins are distinct, so the keys are too; most UAS missions return to their origin
+			AirportData origin = airports.get(i);
+			AirportData destination = (i % 4 == 0) ? airports.get((7 * i + 3) % n) : origin;
+			keys.add(new MissionAirportPairKey(missions[i % missions.length], new AirportDataPair(origin, destination)));
+		}
+		return keys;
+	}
+
+	/**
+	 * @return base-year flights for some of the mission/airport pairs, as grouped by the forecast schedule creator
+	 */
+	public Map<MissionAirportPairKey, List<ScheduleRecord>> baseSchedule()
+	{
+		HQRandom random = random(3);
+		Map<MissionAirportPairKey, List<ScheduleRecord>> schedule = new LinkedHashMap<MissionAirportPairKey, List<ScheduleRecord>>();
+		int idNum = 1;
+		for (MissionAirportPairKey key : missionAirportPairs())
+		{
+			int nBase = random.nextInt(6);
+			if (nBase == 0)
+			{
+				continue;
+			}
+			List<ScheduleRecord> flights = new ArrayList<ScheduleRecord>(nBase);
+			for (int i = 0; i < nBase; i++)
+			{
+				flights.add(scheduleRecord(random, 100 * idNum++, key.airportPair.getOrigin(), key.airportPair.getDestination()));
+			}
+			schedule.put(key, flights);
+		}
+		return schedule;
+	}
+
+	/**
+	 * @return forecast flight counts for every mission/airport pair
+	 */
+	public Map<MissionAirportPairKey, Integer> forecast()
+	{
+		HQRandom random = random(4);
+		Map<MissionAirportPairKey, Integer> forecast = new LinkedHashMap<MissionAirportPairKey, Integer>();
+		for (MissionAirportPairKey key : missionAirportPairs())
+		{
+			forecast.put(key, random.nextInt(150));
+		}
+		return forecast;
+	}
+
+	/**
+	 * @return VFR definitions for every mission/airport pair, parsed from uas_vfr.csv-style lines
+	 */
+	public Map<MissionAirportPairKey, List<UasVfrRecord>> vfrRecords()
+	{
+		HQRandom random = random(5);
+		Map<MissionAirportPairKey, List<UasVfrRecord>> vfrMap = new LinkedHashMap<MissionAirportPairKey, List<UasVfrRecord>>();
+		for (MissionAirportPairKey key : missionAirportPairs())
+		{
+			AirportData origin = key.airportPair.getOrigin();
+			AirportData destination = key.airportPair.getDestination();
+			List<UasVfrRecord> records = new ArrayList<UasVfrRecord>(SHIPPED_VFR_RECORDS);
+			double remaining = 1.0;
+			for (int i = 0; i < SHIPPED_VFR_RECORDS; i++)
+			{
+				double fraction = (i == SHIPPED_VFR_RECORDS - 1) ? remaining : 0.1 * (1 + random.nextInt(5));
+				remaining -= fraction;
+				String line = key.mission.userClass() + "," + origin.getFaaCode() + "," + destination.getFaaCode() + "," +
+						fraction + ",RP0" + (i + 1) + "," + (150 + random.nextInt(100)) + ".0," + (10 + random.nextInt(40)) + ".0," +
+						(2 + random.nextInt(12)) + ".0," + waypoints(random, origin, destination, 4 + random.nextInt(4));
+				records.add(parseVfrRecord(line));
+			}
+			vfrMap.put(key, records);
+		}
+		return vfrMap;
+	}
+
+	private static UasVfrRecord parseVfrRecord(String line)
+	{
+		try
+		{
+			UasVfrRecord rec = new UasVfrRecord();
+			rec.readItem(new BufferedReader(new StringReader(line)));
+			return rec;
+		}
+		catch (IOException ex)
+		{
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * @return n points scattered over the continental US
+	 */
+	public GCPoint[] points(int n)
+	{
+		HQRandom random = random(6);
+		GCPoint[] points = new GCPoint[n];
+		for (int i = 0; i < n; i++)
+		{
+			points[i] = new GCPoint(Latitude.valueOfDegrees(25.0 + 24.0 * random.nextDouble()),
+					Longitude.valueOfDegrees(-124.0 + 57.0 * random.nextDouble()));
+		}
+		return points;
+	}
+
+	/**
+	 * @return a star-shaped (non-convex) polygon with the given number of vertices, centered on the continental US
+	 */
+	public IndexedSimplePolygon polygon(int nVertices)
+	{
+		HQRandom random = random(7);
+		double[] latlons = new double[2 * nVertices];
+		for (int i = 0; i < nVertices; i++)
+		{
+			double angle = 2 * Math.PI * i / nVertices;
+			double radius = 5.0 + 7.0 * random.nextDouble();
+			latlons[2 * i] = 37.0 + radius * Math.sin(angle);
+			latlons[2 * i + 1] = -96.0 + 1.5 * radius * Math.cos(angle);
+		}
+		return new IndexedSimplePolygon(latlons);
+	}
+}
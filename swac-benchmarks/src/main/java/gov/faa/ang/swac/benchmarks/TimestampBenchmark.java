@@ -0,0 +1,72 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.benchmarks;
+
+import gov.faa.ang.swac.common.datatypes.Timestamp;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single Timestamp operations, which sit inside nearly every scheduling loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimestampBenchmark
+{
+	private Timestamp time;
+	private Timestamp other;
+	private String text;
+
+	@Setup
+	public void setUp()
+	{
+		this.time = SyntheticData.START_TIME.secondAdd(45296.5);
+		this.other = SyntheticData.START_TIME.dayAdd(1.25);
+		this.text = this.time.toString();
+	}
+
+	@Benchmark
+	public Timestamp minuteAdd()
+	{
+		return this.time.minuteAdd(17.5);
+	}
+
+	@Benchmark
+	public double minDifference()
+	{
+		return this.other.minDifference(this.time);
+	}
+
+	@Benchmark
+	public String format()
+	{
+		return this.time.toString();
+	}
+
+	@Benchmark
+	public Timestamp parse() throws ParseException
+	{
+		return Timestamp.fromBonnString(this.text);
+	}
+}
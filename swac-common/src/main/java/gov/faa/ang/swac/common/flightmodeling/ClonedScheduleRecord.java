@@ -0,0 +1,236 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ * 
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.common.flightmodeling;
+
+import gov.faa.ang.swac.common.datatypes.Timestamp;
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A copy-on-write clone of a {@link ScheduleRecord}: the same flight with a new id and every time shifted by a fixed
+ * offset. Until it is materialized, only idNum and flightPlanType are set; all other public fields are null and the
+ * values are taken from the (unchanged) base record when the clone is written. Text and columnar output stream
+ * directly from the base record, so clones can be saved and written to file without ever being expanded.<p>
+ * 
+ * The methods of ScheduleRecord answer from the base record, and the ScheduleRecord copy constructor and
+ * {@link FlightPlan} materialize a clone before reading it. Any other code that reads the public fields of a record
+ * that may be a clone must call {@link #materialize()} (or {@link #materialize(List)}) first. Materializing copies
+ * the base record the same way the {@link ScheduleRecord} copy constructor does, and may be done from any thread.
+ */
+public class ClonedScheduleRecord extends ScheduleRecord
+{
+	private static final int[] SHIFTED_COLUMNS = {
+		COLUMN_SCHEMA.indexOf("GATE_OUT_TIME"),
+		COLUMN_SCHEMA.indexOf("RUNWAY_OFF_TIME"),
+		COLUMN_SCHEMA.indexOf("RUNWAY_ON_TIME"),
+		COLUMN_SCHEMA.indexOf("GATE_IN_TIME"),
+		COLUMN_SCHEMA.indexOf("SCHEDULED_DEP_TIME"),
+		COLUMN_SCHEMA.indexOf("SCHEDULED_ARR_TIME") };
+	private static final int ID_NUM_COLUMN = COLUMN_SCHEMA.indexOf("ID_NUM");
+	private static final int FLIGHT_PLAN_TYPE_COLUMN = COLUMN_SCHEMA.indexOf("FLIGHT_TYPE_PLAN");
+
+	// null once materialized; the fields are written before it is cleared
+	private volatile ScheduleRecord base;
+	private final long timeShiftMillis;
+
+	/**
+	 * @param base the record being cloned; it must not be modified while the clone is unmaterialized
+	 * @param idNum id of the clone
+	 * @param flightPlanType flight plan type of the clone; may be shared between clones
+	 * @param timeShiftMillis offset added to the gate, runway and scheduled times of the base record
+	 */
+	public ClonedScheduleRecord(ScheduleRecord base, int idNum, String flightPlanType, long timeShiftMillis)
+	{
+		// Clones of unmaterialized clones refer to the original record
+		if (base instanceof ClonedScheduleRecord)
+		{
+			ClonedScheduleRecord clone = (ClonedScheduleRecord) base;
+			ScheduleRecord original = clone.base;
+			if (original != null)
+			{
+				timeShiftMillis += clone.timeShiftMillis;
+				base = original;
+			}
+		}
+		this.base = base;
+		this.timeShiftMillis = timeShiftMillis;
+		this.idNum = idNum;
+		this.flightPlanType = flightPlanType;
+	}
+
+	public long getTimeShiftMillis()
+	{
+		return this.timeShiftMillis;
+	}
+
+	public boolean isMaterialized()
+	{
+		return this.base == null;
+	}
+
+	/**
+	 * Fill in the public fields of this record from the base record and release the reference to it. Has no effect
+	 * if the record is already materialized.
+	 */
+	public synchronized void materialize()
+	{
+		ScheduleRecord b = this.base;
+		if (b == null)
+		{
+			return;
+		}
+		copyBase(b, this, true);
+		this.base = null;
+	}
+
+	/**
+	 * Materialize every clone in the list; other records are left alone
+	 */
+	public static void materialize(List<? extends ScheduleRecord> records)
+	{
+		for (ScheduleRecord rec : records)
+		{
+			materialize(rec);
+		}
+	}
+
+	/**
+	 * Materialize the record if it is a clone
+	 */
+	static void materialize(ScheduleRecord record)
+	{
+		if (record instanceof ClonedScheduleRecord)
+		{
+			((ClonedScheduleRecord) record).materialize();
+		}
+	}
+
+	/**
+	 * Copy the base record's values, shifted, into target. Unless deep, Timestamps that are not shifted are shared
+	 * with the base record and processed waypoints are not rebuilt.
+	 */
+	private void copyBase(ScheduleRecord b, ScheduleRecord target, boolean deep)
+	{
+		target.idNum = this.idNum;
+		target.actDate = (deep && b.actDate != null) ? new Timestamp(b.actDate) : b.actDate;
+		target.aircraftId = b.aircraftId;
+		target.flightIndex = b.flightIndex;
+		target.flightPlanType = this.flightPlanType;
+		target.gateOutTime = shift(b.gateOutTime);
+		target.gateOutTimeFlag = b.gateOutTimeFlag;
+		target.runwayOffTime = shift(b.runwayOffTime);
+		target.runwayOffTimeFlag = b.runwayOffTimeFlag;
+		target.runwayOnTime = shift(b.runwayOnTime);
+		target.runwayOnTimeFlag = b.runwayOnTimeFlag;
+		target.gateInTime = shift(b.gateInTime);
+		target.filedCruiseAltitude = b.filedCruiseAltitude;
+		target.filedSpeed = b.filedSpeed;
+		target.depAprtEtms = b.depAprtEtms;
+		target.arrAprtEtms = b.arrAprtEtms;
+		target.depLatitude = b.depLatitude;
+		target.depLongitude = b.depLongitude;
+		target.depElevation = b.depElevation;
+		target.depAirportCountryCode = b.depAirportCountryCode;
+		target.arrLatitude = b.arrLatitude;
+		target.arrLongitude = b.arrLongitude;
+		target.arrElevation = b.arrElevation;
+		target.arrAirportCountryCode = b.arrAirportCountryCode;
+		target.etmsAircraftType = b.etmsAircraftType;
+		target.physicalClass = b.physicalClass;
+		target.userClass = b.userClass;
+		target.flewFlag = b.flewFlag;
+		target.airspaceCode = b.airspaceCode;
+		target.depAprtIcao = b.depAprtIcao;
+		target.arrAprtIcao = b.arrAprtIcao;
+		target.atoUserClass = b.atoUserClass;
+		target.badaAircraftType = b.badaAircraftType;
+		target.badaSource = b.badaSource;
+		target.scheduledFlag = b.scheduledFlag;
+		target.scheduledDepTime = shift(b.scheduledDepTime);
+		target.scheduledArrTime = shift(b.scheduledArrTime);
+		target.etmsFiledWaypointsRaw = b.etmsFiledWaypointsRaw;
+		target.field10 = b.field10;
+
+		if (deep &&
+			target.etmsFiledWaypointsRaw != null &&
+			!target.etmsFiledWaypointsRaw.isEmpty())
+		{
+			target.etmsFiledWaypoints = etmsFiledWaypoints(target.etmsFiledWaypointsRaw);
+		}
+	}
+
+	private Timestamp shift(Timestamp time)
+	{
+		return (time == null) ? null : time.milliAdd(this.timeShiftMillis);
+	}
+
+	@Override
+	public String carrierId()
+	{
+		ScheduleRecord b = this.base;
+		return (b == null) ? super.carrierId() : b.carrierId();
+	}
+
+	@Override
+	public String flightId()
+	{
+		ScheduleRecord b = this.base;
+		return (b == null) ? super.flightId() : b.flightId();
+	}
+
+	@Override
+	public String toString()
+	{
+		ScheduleRecord b = this.base;
+		if (b == null)
+		{
+			return super.toString();
+		}
+		ScheduleRecord view = new ScheduleRecord();
+		copyBase(b, view, false);
+		return view.toString();
+	}
+
+	@Override
+	public void writeColumns(ColumnRow row) throws IOException
+	{
+		ScheduleRecord b = this.base;
+		if (b == null)
+		{
+			super.writeColumns(row);
+			return;
+		}
+		b.writeColumns(row);
+		row.setInt(ID_NUM_COLUMN, this.idNum);
+		row.setString(FLIGHT_PLAN_TYPE_COLUMN, this.flightPlanType);
+		for (int c : SHIFTED_COLUMNS)
+		{
+			if (!row.isNull(c))
+			{
+				row.setLong(c, row.getLong(c) + this.timeShiftMillis);
+			}
+		}
+	}
+
+	@Override
+	public void readItem(BufferedReader reader) throws IOException
+	{
+		this.base = null;
+		super.readItem(reader);
+	}
+
+	@Override
+	public void readColumns(ColumnRow row) throws IOException
+	{
+		this.base = null;
+		super.readColumns(row);
+	}
+}
@@ -108,6 +108,7 @@ public class FlightPlan implements Cloneable
 
     private void init(ScheduleRecord scheduleRecord, boolean scheduleTimeOverride)
     {
+        ClonedScheduleRecord.materialize(scheduleRecord);
         setAircraft(new Aircraft(scheduleRecord));
         setFlightLeg(new FlightLeg(scheduleRecord));
           
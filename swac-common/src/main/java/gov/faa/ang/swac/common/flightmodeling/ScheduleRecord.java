@@ -9,16 +9,22 @@ package gov.faa.ang.swac.common.flightmodeling;
 
 import gov.faa.ang.swac.common.datatypes.*;
 import gov.faa.ang.swac.common.flightmodeling.Aircraft.PhysicalClass;
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnRow;
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnSchema;
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnSchema.ColumnType;
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnSerializable;
 import gov.faa.ang.swac.datalayer.storage.fileio.HeaderUtils;
+import gov.faa.ang.swac.datalayer.storage.fileio.LineDelimited;
+import gov.faa.ang.swac.datalayer.storage.fileio.TextRecordTokenizer;
+import gov.faa.ang.swac.datalayer.storage.fileio.TextRecordTokenizer.Format;
 import gov.faa.ang.swac.datalayer.storage.fileio.TextSerializable;
 import gov.faa.ang.swac.datalayer.storage.fileio.WithHeader;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 
 /**
@@ -26,7 +32,7 @@ import java.util.regex.Pattern;
  * The class also contains methods to extract more detailed information from the public members.<p>
  * Ostensibly, each {@link ScheduleRecord} represents a {@link FlightPlan}... that is an {@link Aircraft} and a {@link FlightLeg}.
  */
-public class ScheduleRecord implements TextSerializable, WithHeader
+public class ScheduleRecord implements TextSerializable, LineDelimited, ColumnSerializable, WithHeader
 {
 	private static org.apache.log4j.Logger logger = org.apache.log4j.LogManager.getLogger(ScheduleRecord.class);
 	public static final String SEP = ",";
@@ -79,7 +85,8 @@ public class ScheduleRecord implements TextSerializable, WithHeader
     
     public ScheduleRecord(ScheduleRecord b)
     {
-        idNum = new Integer(b.idNum);
+        ClonedScheduleRecord.materialize(b);
+        idNum = b.idNum;
         if (b.actDate != null)
             actDate = new Timestamp(b.actDate);
         aircraftId = b.aircraftId;
@@ -251,141 +258,128 @@ public class ScheduleRecord implements TextSerializable, WithHeader
 
 	private static enum Field
     {
-        ID_NUM,                   // 0
-        ACT_DATE,
-        AIRCRAFT_ID,
-        FLIGHT_INDEX,
-        FLIGHT_TYPE_PLAN,
-        GATE_OUT_TIME,
-        GATE_OUT_TIME_FLAG,
-        RUNWAY_OFF_TIME,
-        RUNWAY_OFF_TIME_FLAG,
-        RUNWAY_ON_TIME,
-        RUNWAY_ON_TIME_FLAG,      // 10
-        GATE_IN_TIME,
-        FILED_FLIGHT_LEVEL,
-        FILED_SPEED,
-        DEP_AIRPORT,
-        ARR_AIRPORT,
-        DEP_LATITUDE,
-        DEP_LONGITUDE,
-        DEP_ELEVATION,
-        DEP_AIRPORT_COUNTRY_CODE,
-        ARR_LATITUDE,             // 20
-        ARR_LONGITUDE,
-        ARR_ELEVATION,
-        ARR_AIRPORT_COUNTRY_CODE,
-        ETMS_AIRCRAFT_TYPE,
-        PHYSICAL_CLASS,
-        USER_CLASS,
-        FLEW_FLAG,
-        AIRSPACE_CODE,
-        DEP_ICAO,
-        ARR_ICAO,                 // 30
-        ATO_USER_CLASS,
-        BADA_AIRCRAFT_TYPE,
-        BADA_AIRCRAFT_TYPE_SOURCE,
-        SCHEDULED_FLAG,
-        SCHEDULED_DEP_TIME,
-        SCHEDULED_ARR_TIME,
-        ETMS_FILED_WAYPOINTS,
-        FIELD_10;                 // 39
+        ID_NUM(Format.INTEGER, ColumnType.INT),                   // 0
+        ACT_DATE(Format.DATE, ColumnType.LONG),
+        AIRCRAFT_ID(Format.STRING, ColumnType.STRING),
+        FLIGHT_INDEX(Format.INTEGER, ColumnType.INT),
+        FLIGHT_TYPE_PLAN(Format.STRING, ColumnType.STRING),
+        GATE_OUT_TIME(Format.DATE_TIME, ColumnType.LONG),
+        GATE_OUT_TIME_FLAG(Format.STRING, ColumnType.STRING),
+        RUNWAY_OFF_TIME(Format.DATE_TIME, ColumnType.LONG),
+        RUNWAY_OFF_TIME_FLAG(Format.STRING, ColumnType.STRING),
+        RUNWAY_ON_TIME(Format.DATE_TIME, ColumnType.LONG),
+        RUNWAY_ON_TIME_FLAG(Format.STRING, ColumnType.STRING),      // 10
+        GATE_IN_TIME(Format.DATE_TIME, ColumnType.LONG),
+        FILED_FLIGHT_LEVEL(Format.FLOAT, ColumnType.DOUBLE), // Logically should be an integer, but printed as a decimal in the schedule file (converted to integer below)
+        FILED_SPEED(Format.FLOAT, ColumnType.DOUBLE), // Logically should be an integer, but printed as a decimal in the schedule file (converted to integer below)
+        DEP_AIRPORT(Format.WORD, ColumnType.STRING),
+        ARR_AIRPORT(Format.WORD, ColumnType.STRING),
+        DEP_LATITUDE(Format.FLOAT, ColumnType.DOUBLE),
+        DEP_LONGITUDE(Format.FLOAT, ColumnType.DOUBLE),
+        DEP_ELEVATION(Format.INTEGER, ColumnType.INT),
+        DEP_AIRPORT_COUNTRY_CODE(Format.INTEGER, ColumnType.INT),
+        ARR_LATITUDE(Format.FLOAT, ColumnType.DOUBLE),             // 20
+        ARR_LONGITUDE(Format.FLOAT, ColumnType.DOUBLE),
+        ARR_ELEVATION(Format.INTEGER, ColumnType.INT),
+        ARR_AIRPORT_COUNTRY_CODE(Format.INTEGER, ColumnType.INT),
+        ETMS_AIRCRAFT_TYPE(Format.WORD, ColumnType.STRING),
+        PHYSICAL_CLASS(Format.CHAR, ColumnType.STRING),
+        USER_CLASS(Format.STRING, ColumnType.STRING),
+        FLEW_FLAG(Format.STRING, ColumnType.STRING),
+        AIRSPACE_CODE(Format.STRING, ColumnType.STRING),
+        DEP_ICAO(Format.WORD, ColumnType.STRING),
+        ARR_ICAO(Format.WORD, ColumnType.STRING),                 // 30
+        ATO_USER_CLASS(Format.STRING, ColumnType.STRING),
+        BADA_AIRCRAFT_TYPE(Format.WORD, ColumnType.STRING),
+        BADA_AIRCRAFT_TYPE_SOURCE(Format.STRING, ColumnType.STRING),
+        SCHEDULED_FLAG(Format.STRING, ColumnType.INT),
+        SCHEDULED_DEP_TIME(Format.DATE_TIME, ColumnType.LONG),
+        SCHEDULED_ARR_TIME(Format.DATE_TIME, ColumnType.LONG),
+        ETMS_FILED_WAYPOINTS(null, ColumnType.STRING), // "(-?\\d+/-?\\d+ *)*": see matchesWaypoints
+        FIELD_10(Format.STRING, ColumnType.STRING);                 // 39
+        
+        private final Format format;
+        private final ColumnType columnType;
+        
+        private Field(Format format, ColumnType columnType)
+        {
+            this.format = format;
+            this.columnType = columnType;
+        }
     }
 	
-	private static final Pattern[] patterns = compilePatterns();
+	// Columns are named after the text fields; FILED_FLIGHT_LEVEL holds the altitude in feet, SCHEDULED_FLAG holds 1 or 0
+	static final ColumnSchema COLUMN_SCHEMA = createColumnSchema();
 	
-    private static Pattern[] compilePatterns()
-    {
-    	Pattern[] retVal = new Pattern[Field.values().length];
-
-        retVal[Field.ID_NUM.ordinal()] = Pattern.compile(Patterns.INTEGER);
-        retVal[Field.ACT_DATE.ordinal()] = Pattern.compile(Patterns.DATE);
-        retVal[Field.AIRCRAFT_ID.ordinal()] = Pattern.compile(Patterns.STRING);
-        retVal[Field.FLIGHT_INDEX.ordinal()] = Pattern.compile(Patterns.INTEGER);
-        retVal[Field.FLIGHT_TYPE_PLAN.ordinal()] = Pattern.compile(Patterns.STRING);
-        retVal[Field.GATE_OUT_TIME.ordinal()] = Pattern.compile(Patterns.DATE_TIME);
-        retVal[Field.GATE_OUT_TIME_FLAG.ordinal()] = Pattern.compile(Patterns.STRING);
-        retVal[Field.RUNWAY_OFF_TIME.ordinal()] = Pattern.compile(Patterns.DATE_TIME);
-        retVal[Field.RUNWAY_OFF_TIME_FLAG.ordinal()] = Pattern.compile(Patterns.STRING);
-        retVal[Field.RUNWAY_ON_TIME.ordinal()] = Pattern.compile(Patterns.DATE_TIME);
-        retVal[Field.RUNWAY_ON_TIME_FLAG.ordinal()] = Pattern.compile(Patterns.STRING);
-        retVal[Field.GATE_IN_TIME.ordinal()] = Pattern.compile(Patterns.DATE_TIME);
-        retVal[Field.FILED_FLIGHT_LEVEL.ordinal()] = Pattern.compile(Patterns.FLOAT); // Logically should be an integer, but printed as a decimal in the schedule file (converted to integer below)
-        retVal[Field.FILED_SPEED.ordinal()] = Pattern.compile(Patterns.FLOAT); // Logically should be an integer, but printed as a decimal in the schedule file (converted to integer below)
-        retVal[Field.DEP_AIRPORT.ordinal()] = Pattern.compile("(\\S+)");
-        retVal[Field.ARR_AIRPORT.ordinal()] = Pattern.compile("(\\S+)");
-        retVal[Field.DEP_LATITUDE.ordinal()] = Pattern.compile(Patterns.FLOAT);
-        retVal[Field.DEP_LONGITUDE.ordinal()] = Pattern.compile(Patterns.FLOAT);
-        retVal[Field.DEP_ELEVATION.ordinal()] = Pattern.compile(Patterns.INTEGER);
-        retVal[Field.DEP_AIRPORT_COUNTRY_CODE.ordinal()] = Pattern.compile(Patterns.INTEGER);
-        retVal[Field.ARR_LATITUDE.ordinal()] = Pattern.compile(Patterns.FLOAT);
-        retVal[Field.ARR_LONGITUDE.ordinal()] = Pattern.compile(Patterns.FLOAT);
-        retVal[Field.ARR_ELEVATION.ordinal()] = Pattern.compile(Patterns.INTEGER);
-        retVal[Field.ARR_AIRPORT_COUNTRY_CODE.ordinal()] = Pattern.compile(Patterns.INTEGER);
-        retVal[Field.ETMS_AIRCRAFT_TYPE.ordinal()] = Pattern.compile(Patterns.WORD);
-        retVal[Field.PHYSICAL_CLASS.ordinal()] = Pattern.compile("(\\S)");
-        retVal[Field.USER_CLASS.ordinal()] = Pattern.compile(Patterns.STRING);
-        retVal[Field.FLEW_FLAG.ordinal()] = Pattern.compile(Patterns.STRING);
-        retVal[Field.AIRSPACE_CODE.ordinal()] = Pattern.compile(Patterns.STRING);
-        retVal[Field.DEP_ICAO.ordinal()] = Pattern.compile(Patterns.WORD);
-        retVal[Field.ARR_ICAO.ordinal()] = Pattern.compile(Patterns.WORD);
-        retVal[Field.ATO_USER_CLASS.ordinal()] = Pattern.compile(Patterns.STRING);
-        retVal[Field.BADA_AIRCRAFT_TYPE.ordinal()] = Pattern.compile(Patterns.WORD);
-        retVal[Field.BADA_AIRCRAFT_TYPE_SOURCE.ordinal()] = Pattern.compile(Patterns.STRING);
-        retVal[Field.SCHEDULED_FLAG.ordinal()] = Pattern.compile(Patterns.STRING);
-        retVal[Field.SCHEDULED_DEP_TIME.ordinal()] = Pattern.compile(Patterns.DATE_TIME);
-        retVal[Field.SCHEDULED_ARR_TIME.ordinal()] = Pattern.compile(Patterns.DATE_TIME);
-        retVal[Field.ETMS_FILED_WAYPOINTS.ordinal()] = Pattern.compile("(-?\\d+/-?\\d+ *)*");
-        retVal[Field.FIELD_10.ordinal()] = Pattern.compile(Patterns.STRING);
-
-        return retVal;
-    }
+	private static ColumnSchema createColumnSchema()
+	{
+		Field[] fields = Field.values();
+		String[] names = new String[fields.length];
+		ColumnType[] types = new ColumnType[fields.length];
+		for (Field field : fields)
+		{
+			names[field.ordinal()] = field.name();
+			types[field.ordinal()] = field.columnType;
+		}
+		return new ColumnSchema(names, types);
+	}
+	
+	private static final String WAYPOINTS_PATTERN = "(-?\\d+/-?\\d+ *)*";
+	
+	// One tokenizer (and its reusable buffers) per reading thread
+	private static final ThreadLocal<TextRecordTokenizer> tokenizers = new ThreadLocal<TextRecordTokenizer>() {
+		@Override
+		protected TextRecordTokenizer initialValue() {
+			return new TextRecordTokenizer();
+		}
+	};
 	
 	@Override
 	public void readItem(BufferedReader reader) throws IOException
 	{
 		// Create a new ScheduleRecord from the current "line"...
-        String[] currentFields = reader.readLine().split("\\s*,\\s*"); // Split will also strip whitespace from the ends of fields
-        
-        if (!isEmpty(Field.ID_NUM, currentFields)                    && getField(Field.ID_NUM, currentFields).length() > 0)                   { this.idNum                 =             Integer.valueOf( getField(Field.ID_NUM, currentFields) ); }
-        if (!isEmpty(Field.ACT_DATE, currentFields)                  && getField(Field.ACT_DATE, currentFields).length() > 0)                 { this.actDate               =         Timestamp.myValueOf( getField(Field.ACT_DATE, currentFields) ); }
-        if (!isEmpty(Field.AIRCRAFT_ID, currentFields)               && getField(Field.AIRCRAFT_ID, currentFields).length() > 0)              { this.aircraftId            =                              getField(Field.AIRCRAFT_ID, currentFields); }
-        if (!isEmpty(Field.FLIGHT_INDEX, currentFields)              && getField(Field.FLIGHT_INDEX, currentFields).length() > 0)             { this.flightIndex           =             Integer.valueOf( getField(Field.FLIGHT_INDEX, currentFields) ); }
-        if (!isEmpty(Field.FLIGHT_TYPE_PLAN, currentFields)          && getField(Field.FLIGHT_TYPE_PLAN, currentFields).length() > 0)         { this.flightPlanType        =                              getField(Field.FLIGHT_TYPE_PLAN, currentFields); }
-        if (!isEmpty(Field.GATE_OUT_TIME, currentFields)             && getField(Field.GATE_OUT_TIME, currentFields).length() > 0)            { this.gateOutTime           =         Timestamp.myValueOf( getField(Field.GATE_OUT_TIME, currentFields) ); }
-        if (!isEmpty(Field.GATE_OUT_TIME_FLAG, currentFields)        && getField(Field.GATE_OUT_TIME_FLAG, currentFields).length() > 0)       { this.gateOutTimeFlag       =                              getField(Field.GATE_OUT_TIME_FLAG, currentFields); }
-        if (!isEmpty(Field.RUNWAY_OFF_TIME, currentFields)           && getField(Field.RUNWAY_OFF_TIME, currentFields).length() > 0)          { this.runwayOffTime         =         Timestamp.myValueOf( getField(Field.RUNWAY_OFF_TIME, currentFields) ); }
-        if (!isEmpty(Field.RUNWAY_OFF_TIME_FLAG, currentFields)      && getField(Field.RUNWAY_OFF_TIME_FLAG, currentFields).length() > 0)     { this.runwayOffTimeFlag     =                              getField(Field.RUNWAY_OFF_TIME_FLAG, currentFields); }
-        if (!isEmpty(Field.RUNWAY_ON_TIME, currentFields)            && getField(Field.RUNWAY_ON_TIME, currentFields).length() > 0)           { this.runwayOnTime          =         Timestamp.myValueOf( getField(Field.RUNWAY_ON_TIME, currentFields) ); }
-        if (!isEmpty(Field.RUNWAY_ON_TIME_FLAG, currentFields)       && getField(Field.RUNWAY_ON_TIME_FLAG, currentFields).length() > 0)      { this.runwayOnTimeFlag      =                              getField(Field.RUNWAY_ON_TIME_FLAG, currentFields); }
-        if (!isEmpty(Field.GATE_IN_TIME, currentFields)              && getField(Field.GATE_IN_TIME, currentFields).length() > 0)             { this.gateInTime            =         Timestamp.myValueOf( getField(Field.GATE_IN_TIME, currentFields) ); }
-        if (!isEmpty(Field.FILED_FLIGHT_LEVEL, currentFields)        && getField(Field.FILED_FLIGHT_LEVEL, currentFields).length() > 0)       { this.filedCruiseAltitude   = Altitude.valueOfFeet(Double.valueOf( getField(Field.FILED_FLIGHT_LEVEL, currentFields) ) * 100.0); } // Convert flight level to altitude
-        if (!isEmpty(Field.FILED_SPEED, currentFields)               && getField(Field.FILED_SPEED, currentFields).length() > 0)              { this.filedSpeed            =              Double.valueOf( getField(Field.FILED_SPEED, currentFields) ); }
-        if (!isEmpty(Field.DEP_AIRPORT, currentFields)               && getField(Field.DEP_AIRPORT, currentFields).length() > 0)              { this.depAprtEtms            =                              getField(Field.DEP_AIRPORT, currentFields); }
-        if (!isEmpty(Field.ARR_AIRPORT, currentFields)               && getField(Field.ARR_AIRPORT, currentFields).length() > 0)              { this.arrAprtEtms            =                              getField(Field.ARR_AIRPORT, currentFields); }
-        if (!isEmpty(Field.DEP_LATITUDE, currentFields)              && getField(Field.DEP_LATITUDE, currentFields).length() > 0)             { this.depLatitude           =              Double.valueOf( getField(Field.DEP_LATITUDE, currentFields) ); }
-        if (!isEmpty(Field.DEP_LONGITUDE, currentFields)             && getField(Field.DEP_LONGITUDE, currentFields).length() > 0)            { this.depLongitude          =              Double.valueOf( getField(Field.DEP_LONGITUDE, currentFields) ); }
-        if (!isEmpty(Field.DEP_ELEVATION, currentFields)             && getField(Field.DEP_ELEVATION, currentFields).length() > 0)            { this.depElevation          =             Integer.valueOf( getField(Field.DEP_ELEVATION, currentFields) ); }
-        if (!isEmpty(Field.DEP_AIRPORT_COUNTRY_CODE, currentFields)  && getField(Field.DEP_AIRPORT_COUNTRY_CODE, currentFields).length() > 0) { this.depAirportCountryCode =             Integer.valueOf( getField(Field.DEP_AIRPORT_COUNTRY_CODE, currentFields) ); }
-        if (!isEmpty(Field.ARR_LATITUDE, currentFields)              && getField(Field.ARR_LATITUDE, currentFields).length() > 0)             { this.arrLatitude           =              Double.valueOf( getField(Field.ARR_LATITUDE, currentFields) ); }
-        if (!isEmpty(Field.ARR_LONGITUDE, currentFields)             && getField(Field.ARR_LONGITUDE, currentFields).length() > 0)            { this.arrLongitude          =              Double.valueOf( getField(Field.ARR_LONGITUDE, currentFields) ); }
-        if (!isEmpty(Field.ARR_ELEVATION, currentFields)             && getField(Field.ARR_ELEVATION, currentFields).length() > 0)            { this.arrElevation          =             Integer.valueOf( getField(Field.ARR_ELEVATION, currentFields) ); }
-        if (!isEmpty(Field.ARR_AIRPORT_COUNTRY_CODE, currentFields)  && getField(Field.ARR_AIRPORT_COUNTRY_CODE, currentFields).length() > 0) { this.arrAirportCountryCode =             Integer.valueOf( getField(Field.ARR_AIRPORT_COUNTRY_CODE, currentFields) ); }
-        if (!isEmpty(Field.ETMS_AIRCRAFT_TYPE, currentFields)        && getField(Field.ETMS_AIRCRAFT_TYPE, currentFields).length() > 0)       { this.etmsAircraftType      =                              getField(Field.ETMS_AIRCRAFT_TYPE, currentFields); }
-        if (!isEmpty(Field.PHYSICAL_CLASS, currentFields)) { String s = getField(Field.PHYSICAL_CLASS, currentFields); if (s.length() > 0 && !s.equals("-")){ this.physicalClass         =               PhysicalClass.valueOf( s ); }}
-        if (!isEmpty(Field.USER_CLASS, currentFields)                && getField(Field.USER_CLASS, currentFields).length() > 0)               { this.userClass             =                              getField(Field.USER_CLASS, currentFields); }
-        if (!isEmpty(Field.FLEW_FLAG, currentFields)                 && getField(Field.FLEW_FLAG, currentFields).length() > 0)                { this.flewFlag              =                              getField(Field.FLEW_FLAG, currentFields); }
-        if (!isEmpty(Field.AIRSPACE_CODE, currentFields)             && getField(Field.AIRSPACE_CODE, currentFields).length() > 0)            { this.airspaceCode          =                              getField(Field.AIRSPACE_CODE, currentFields); }
-        if (!isEmpty(Field.DEP_ICAO, currentFields)                  && getField(Field.DEP_ICAO, currentFields).length() > 0)                 { this.depAprtIcao               =                              getField(Field.DEP_ICAO, currentFields); }
-        if (!isEmpty(Field.ARR_ICAO, currentFields)                  && getField(Field.ARR_ICAO, currentFields).length() > 0)                 { this.arrAprtIcao               =                              getField(Field.ARR_ICAO, currentFields); }
-        if (!isEmpty(Field.ATO_USER_CLASS, currentFields)            && getField(Field.ATO_USER_CLASS, currentFields).length() > 0)           { this.atoUserClass          =                              getField(Field.ATO_USER_CLASS, currentFields); }
-        if (!isEmpty(Field.BADA_AIRCRAFT_TYPE, currentFields)        && getField(Field.BADA_AIRCRAFT_TYPE, currentFields).length() > 0)       { this.badaAircraftType      =                              getField(Field.BADA_AIRCRAFT_TYPE, currentFields); }
-        if (!isEmpty(Field.BADA_AIRCRAFT_TYPE_SOURCE, currentFields) && getField(Field.BADA_AIRCRAFT_TYPE_SOURCE, currentFields).length() > 0){ this.badaSource            =                              getField(Field.BADA_AIRCRAFT_TYPE_SOURCE, currentFields); }
-        if (!isEmpty(Field.SCHEDULED_FLAG, currentFields)            && getField(Field.SCHEDULED_FLAG, currentFields).length() > 0)           { this.scheduledFlag         =                              getField(Field.SCHEDULED_FLAG, currentFields).compareTo("Y") == 0 ? true:false;  }
-        if (!isEmpty(Field.SCHEDULED_DEP_TIME, currentFields)        && getField(Field.SCHEDULED_DEP_TIME, currentFields).length() > 0)       { this.scheduledDepTime      =         Timestamp.myValueOf( getField(Field.SCHEDULED_DEP_TIME, currentFields) ); }
-        if (!isEmpty(Field.SCHEDULED_ARR_TIME, currentFields)        && getField(Field.SCHEDULED_ARR_TIME, currentFields).length() > 0)       { this.scheduledArrTime      =         Timestamp.myValueOf( getField(Field.SCHEDULED_ARR_TIME, currentFields) ); }
-        if (!isEmpty(Field.ETMS_FILED_WAYPOINTS, currentFields)      && getField(Field.ETMS_FILED_WAYPOINTS, currentFields).length() > 0)     { this.etmsFiledWaypointsRaw =                              getField(Field.ETMS_FILED_WAYPOINTS, currentFields); }
-        if (!isEmpty(Field.FIELD_10, currentFields)                  && getField(Field.FIELD_10, currentFields).length() > 0)                 { this.field10               =                              getField(Field.FIELD_10, currentFields); }
+		TextRecordTokenizer t = tokenizers.get();
+		t.reset(reader.readLine()); // Same fields as split("\\s*,\\s*"): whitespace around the commas is stripped
+		
+        if (hasValue(t, Field.ID_NUM))                    { this.idNum                 =             Integer.valueOf( t.getInt(Field.ID_NUM.ordinal()) ); }
+        if (hasValue(t, Field.ACT_DATE))                  { this.actDate               =                   timestamp( t, Field.ACT_DATE ); }
+        if (hasValue(t, Field.AIRCRAFT_ID))               { this.aircraftId            =                 t.getString( Field.AIRCRAFT_ID.ordinal() ); }
+        if (hasValue(t, Field.FLIGHT_INDEX))              { this.flightIndex           =                    t.getInt( Field.FLIGHT_INDEX.ordinal() ); }
+        if (hasValue(t, Field.FLIGHT_TYPE_PLAN))          { this.flightPlanType        =                 t.getString( Field.FLIGHT_TYPE_PLAN.ordinal() ); }
+        if (hasValue(t, Field.GATE_OUT_TIME))             { this.gateOutTime           =                   timestamp( t, Field.GATE_OUT_TIME ); }
+        if (hasValue(t, Field.GATE_OUT_TIME_FLAG))        { this.gateOutTimeFlag       =                 t.getString( Field.GATE_OUT_TIME_FLAG.ordinal() ); }
+        if (hasValue(t, Field.RUNWAY_OFF_TIME))           { this.runwayOffTime         =                   timestamp( t, Field.RUNWAY_OFF_TIME ); }
+        if (hasValue(t, Field.RUNWAY_OFF_TIME_FLAG))      { this.runwayOffTimeFlag     =                 t.getString( Field.RUNWAY_OFF_TIME_FLAG.ordinal() ); }
+        if (hasValue(t, Field.RUNWAY_ON_TIME))            { this.runwayOnTime          =                   timestamp( t, Field.RUNWAY_ON_TIME ); }
+        if (hasValue(t, Field.RUNWAY_ON_TIME_FLAG))       { this.runwayOnTimeFlag      =                 t.getString( Field.RUNWAY_ON_TIME_FLAG.ordinal() ); }
+        if (hasValue(t, Field.GATE_IN_TIME))              { this.gateInTime            =                   timestamp( t, Field.GATE_IN_TIME ); }
+        if (hasValue(t, Field.FILED_FLIGHT_LEVEL))        { this.filedCruiseAltitude   = Altitude.valueOfFeet( t.getDouble(Field.FILED_FLIGHT_LEVEL.ordinal()) * 100.0); } // Convert flight level to altitude
+        if (hasValue(t, Field.FILED_SPEED))               { this.filedSpeed            =                 t.getDouble( Field.FILED_SPEED.ordinal() ); }
+        if (hasValue(t, Field.DEP_AIRPORT))               { this.depAprtEtms           =                 t.getString( Field.DEP_AIRPORT.ordinal() ); }
+        if (hasValue(t, Field.ARR_AIRPORT))               { this.arrAprtEtms           =                 t.getString( Field.ARR_AIRPORT.ordinal() ); }
+        if (hasValue(t, Field.DEP_LATITUDE))              { this.depLatitude           =                 t.getDouble( Field.DEP_LATITUDE.ordinal() ); }
+        if (hasValue(t, Field.DEP_LONGITUDE))             { this.depLongitude          =                 t.getDouble( Field.DEP_LONGITUDE.ordinal() ); }
+        if (hasValue(t, Field.DEP_ELEVATION))             { this.depElevation          =                    t.getInt( Field.DEP_ELEVATION.ordinal() ); }
+        if (hasValue(t, Field.DEP_AIRPORT_COUNTRY_CODE))  { this.depAirportCountryCode =                    t.getInt( Field.DEP_AIRPORT_COUNTRY_CODE.ordinal() ); }
+        if (hasValue(t, Field.ARR_LATITUDE))              { this.arrLatitude           =                 t.getDouble( Field.ARR_LATITUDE.ordinal() ); }
+        if (hasValue(t, Field.ARR_LONGITUDE))             { this.arrLongitude          =                 t.getDouble( Field.ARR_LONGITUDE.ordinal() ); }
+        if (hasValue(t, Field.ARR_ELEVATION))             { this.arrElevation          =                    t.getInt( Field.ARR_ELEVATION.ordinal() ); }
+        if (hasValue(t, Field.ARR_AIRPORT_COUNTRY_CODE))  { this.arrAirportCountryCode =                    t.getInt( Field.ARR_AIRPORT_COUNTRY_CODE.ordinal() ); }
+        if (hasValue(t, Field.ETMS_AIRCRAFT_TYPE))        { this.etmsAircraftType      =                 t.getString( Field.ETMS_AIRCRAFT_TYPE.ordinal() ); }
+        if (hasValue(t, Field.PHYSICAL_CLASS))            { String s = t.getString(Field.PHYSICAL_CLASS.ordinal()); if (!s.equals("-")) { this.physicalClass = PhysicalClass.valueOf( s ); }}
+        if (hasValue(t, Field.USER_CLASS))                { this.userClass             =                 t.getString( Field.USER_CLASS.ordinal() ); }
+        if (hasValue(t, Field.FLEW_FLAG))                 { this.flewFlag              =                 t.getString( Field.FLEW_FLAG.ordinal() ); }
+        if (hasValue(t, Field.AIRSPACE_CODE))             { this.airspaceCode          =                 t.getString( Field.AIRSPACE_CODE.ordinal() ); }
+        if (hasValue(t, Field.DEP_ICAO))                  { this.depAprtIcao           =                 t.getString( Field.DEP_ICAO.ordinal() ); }
+        if (hasValue(t, Field.ARR_ICAO))                  { this.arrAprtIcao           =                 t.getString( Field.ARR_ICAO.ordinal() ); }
+        if (hasValue(t, Field.ATO_USER_CLASS))            { this.atoUserClass          =                 t.getString( Field.ATO_USER_CLASS.ordinal() ); }
+        if (hasValue(t, Field.BADA_AIRCRAFT_TYPE))        { this.badaAircraftType      =                 t.getString( Field.BADA_AIRCRAFT_TYPE.ordinal() ); }
+        if (hasValue(t, Field.BADA_AIRCRAFT_TYPE_SOURCE)) { this.badaSource            =                 t.getString( Field.BADA_AIRCRAFT_TYPE_SOURCE.ordinal() ); }
+        if (hasValue(t, Field.SCHEDULED_FLAG))            { this.scheduledFlag         =                 t.getString( Field.SCHEDULED_FLAG.ordinal() ).compareTo("Y") == 0 ? true:false;  }
+        if (hasValue(t, Field.SCHEDULED_DEP_TIME))        { this.scheduledDepTime      =                   timestamp( t, Field.SCHEDULED_DEP_TIME ); }
+        if (hasValue(t, Field.SCHEDULED_ARR_TIME))        { this.scheduledArrTime      =                   timestamp( t, Field.SCHEDULED_ARR_TIME ); }
+        if (hasValue(t, Field.ETMS_FILED_WAYPOINTS))      { this.etmsFiledWaypointsRaw =                 t.getString( Field.ETMS_FILED_WAYPOINTS.ordinal() ); }
+        if (hasValue(t, Field.FIELD_10))                  { this.field10               =                 t.getString( Field.FIELD_10.ordinal() ); }
 
         if (this.etmsFiledWaypointsRaw != null &&
             !this.etmsFiledWaypointsRaw.isEmpty())
@@ -394,32 +388,85 @@ public class ScheduleRecord implements TextSerializable, WithHeader
         }
 	}
 	
-	private static boolean isEmpty(Field index, String[] currentFields)
+	/**
+	 * Validates a non-empty field against its format and reports whether it holds a value once trimmed.
+	 */
+	private static boolean hasValue(TextRecordTokenizer t, Field index)
     {
-        if (index.ordinal() < currentFields.length)
+		int i = index.ordinal();
+        if (t.isEmpty(i))
         { 
-            return currentFields[index.ordinal()].isEmpty(); 
+            return false; 
         }
-        return true;
-    }
-
-    private static String getField(Field index, String[] currentFields)
-    {
-        if (index.ordinal() < currentFields.length)
+        
+        boolean valid = (index.format == null) ? matchesWaypoints(t, i) : t.matches(i, index.format);
+        if (!valid)
         {
-            String field = currentFields[index.ordinal()];
-            Matcher fieldMatcher = patterns[index.ordinal()].matcher(field);
-            if (!fieldMatcher.matches())
-            {
-                logger.fatal("Schedule ID " + currentFields[Field.ID_NUM.ordinal()] + ": field " + index.name() + " \"" + field + "\" doesn't match pattern \"" + patterns[index.ordinal()].toString() + "\"!");
-                throw new RuntimeException();
-            }
-
-            return fieldMatcher.group().trim();
+            logger.fatal("Schedule ID " + t.raw(Field.ID_NUM.ordinal()) + ": field " + index.name() + " \"" + t.raw(i) + "\" doesn't match pattern \"" + 
+            		(index.format == null ? WAYPOINTS_PATTERN : index.format.toString()) + "\"!");
+            throw new RuntimeException();
         }
         
-        return "";
+        return t.hasValue(i);
     }
+	
+	private static Timestamp timestamp(TextRecordTokenizer t, Field index)
+	{
+		String s = t.getString(index.ordinal());
+		try
+		{
+			// Validated fields parse with the first formatter Timestamp.myValueOf would try; skip its failed attempts
+			return (index.format == Format.DATE) ? Timestamp.fromBonnDateOnlyString(s) : Timestamp.fromBonnString(s);
+		} catch (ParseException ex)
+		{
+			return Timestamp.myValueOf(s);
+		}
+	}
+	
+	// NFA states for WAYPOINTS_PATTERN
+	private static final int WP_START = 1;        // before a lat/lon pair (accepting)
+	private static final int WP_LAT_SIGN = 2;     // after '-' of latitude
+	private static final int WP_LAT = 4;          // in latitude digits
+	private static final int WP_SLASH = 8;        // after '/'
+	private static final int WP_LON_SIGN = 16;    // after '-' of longitude
+	private static final int WP_LON = 32;         // in longitude digits (accepting)
+	private static final int WP_SPACE = 64;       // in trailing spaces (accepting)
+	private static final int WP_ACCEPT = WP_START | WP_LON | WP_SPACE;
+	
+	/**
+	 * Equivalent to matching WAYPOINTS_PATTERN against the whole field. Adjacent pairs need not be separated
+	 * ("1/23/4" is "1/2" followed by "3/4"), so this tracks the set of live states rather than backtracking.
+	 */
+	private static boolean matchesWaypoints(TextRecordTokenizer t, int field)
+	{
+		char[] b = t.buffer();
+		int states = WP_START;
+		for (int i = t.start(field), end = t.end(field); i < end && states != 0; i++)
+		{
+			char c = b[i];
+			int next = 0;
+			if (c >= '0' && c <= '9')
+			{
+				if ((states & (WP_START | WP_LAT_SIGN | WP_LAT | WP_SPACE | WP_LON)) != 0) next |= WP_LAT;
+				if ((states & (WP_SLASH | WP_LON_SIGN | WP_LON)) != 0) next |= WP_LON;
+			}
+			else if (c == '-')
+			{
+				if ((states & (WP_START | WP_SPACE | WP_LON)) != 0) next |= WP_LAT_SIGN;
+				if ((states & WP_SLASH) != 0) next |= WP_LON_SIGN;
+			}
+			else if (c == '/')
+			{
+				if ((states & WP_LAT) != 0) next |= WP_SLASH;
+			}
+			else if (c == ' ')
+			{
+				if ((states & (WP_LON | WP_SPACE)) != 0) next |= WP_SPACE;
+			}
+			states = next;
+		}
+		return (states & WP_ACCEPT) != 0;
+	}
 
     /**
      * Reads this {@link ScheduleRecord}'s ETMS {@link TrajectoryPoint} {@link String} and returns a {@link List} of {@link TrajectoryPoint}s. 
@@ -467,6 +514,119 @@ public class ScheduleRecord implements TextSerializable, WithHeader
 		writer.println(this.toString());
 	}
 
+	@Override
+	public ColumnSchema getColumnSchema()
+	{
+		return COLUMN_SCHEMA;
+	}
+
+	@Override
+	public void writeColumns(ColumnRow row) throws IOException
+	{
+		if (this.idNum != null)               { row.setInt(Field.ID_NUM.ordinal(), this.idNum); }
+		setTimestamp(row, Field.ACT_DATE, this.actDate);
+		row.setString(Field.AIRCRAFT_ID.ordinal(), this.aircraftId);
+		row.setInt(Field.FLIGHT_INDEX.ordinal(), this.flightIndex);
+		row.setString(Field.FLIGHT_TYPE_PLAN.ordinal(), this.flightPlanType);
+		setTimestamp(row, Field.GATE_OUT_TIME, this.gateOutTime);
+		row.setString(Field.GATE_OUT_TIME_FLAG.ordinal(), this.gateOutTimeFlag);
+		setTimestamp(row, Field.RUNWAY_OFF_TIME, this.runwayOffTime);
+		row.setString(Field.RUNWAY_OFF_TIME_FLAG.ordinal(), this.runwayOffTimeFlag);
+		setTimestamp(row, Field.RUNWAY_ON_TIME, this.runwayOnTime);
+		row.setString(Field.RUNWAY_ON_TIME_FLAG.ordinal(), this.runwayOnTimeFlag);
+		setTimestamp(row, Field.GATE_IN_TIME, this.gateInTime);
+		if (this.filedCruiseAltitude != null) { row.setDouble(Field.FILED_FLIGHT_LEVEL.ordinal(), this.filedCruiseAltitude.feet()); }
+		row.setDouble(Field.FILED_SPEED.ordinal(), this.filedSpeed);
+		row.setString(Field.DEP_AIRPORT.ordinal(), this.depAprtEtms);
+		row.setString(Field.ARR_AIRPORT.ordinal(), this.arrAprtEtms);
+		row.setDouble(Field.DEP_LATITUDE.ordinal(), this.depLatitude);
+		row.setDouble(Field.DEP_LONGITUDE.ordinal(), this.depLongitude);
+		row.setInt(Field.DEP_ELEVATION.ordinal(), this.depElevation);
+		row.setInt(Field.DEP_AIRPORT_COUNTRY_CODE.ordinal(), this.depAirportCountryCode);
+		row.setDouble(Field.ARR_LATITUDE.ordinal(), this.arrLatitude);
+		row.setDouble(Field.ARR_LONGITUDE.ordinal(), this.arrLongitude);
+		row.setInt(Field.ARR_ELEVATION.ordinal(), this.arrElevation);
+		row.setInt(Field.ARR_AIRPORT_COUNTRY_CODE.ordinal(), this.arrAirportCountryCode);
+		row.setString(Field.ETMS_AIRCRAFT_TYPE.ordinal(), this.etmsAircraftType);
+		row.setString(Field.PHYSICAL_CLASS.ordinal(), this.physicalClass == null ? null : this.physicalClass.name());
+		row.setString(Field.USER_CLASS.ordinal(), this.userClass);
+		row.setString(Field.FLEW_FLAG.ordinal(), this.flewFlag);
+		row.setString(Field.AIRSPACE_CODE.ordinal(), this.airspaceCode);
+		row.setString(Field.DEP_ICAO.ordinal(), this.depAprtIcao);
+		row.setString(Field.ARR_ICAO.ordinal(), this.arrAprtIcao);
+		row.setString(Field.ATO_USER_CLASS.ordinal(), this.atoUserClass);
+		row.setString(Field.BADA_AIRCRAFT_TYPE.ordinal(), this.badaAircraftType);
+		row.setString(Field.BADA_AIRCRAFT_TYPE_SOURCE.ordinal(), this.badaSource);
+		if (this.scheduledFlag != null)       { row.setInt(Field.SCHEDULED_FLAG.ordinal(), this.scheduledFlag ? 1 : 0); }
+		setTimestamp(row, Field.SCHEDULED_DEP_TIME, this.scheduledDepTime);
+		setTimestamp(row, Field.SCHEDULED_ARR_TIME, this.scheduledArrTime);
+		row.setString(Field.ETMS_FILED_WAYPOINTS.ordinal(), this.etmsFiledWaypointsRaw);
+		row.setString(Field.FIELD_10.ordinal(), this.field10);
+	}
+
+	@Override
+	public void readColumns(ColumnRow row) throws IOException
+	{
+		if (!row.isNull(Field.ID_NUM.ordinal()))                    { this.idNum                 = Integer.valueOf(row.getInt(Field.ID_NUM.ordinal())); }
+		this.actDate = getTimestamp(row, Field.ACT_DATE);
+		this.aircraftId = row.getString(Field.AIRCRAFT_ID.ordinal());
+		if (!row.isNull(Field.FLIGHT_INDEX.ordinal()))              { this.flightIndex           = row.getInt(Field.FLIGHT_INDEX.ordinal()); }
+		this.flightPlanType = row.getString(Field.FLIGHT_TYPE_PLAN.ordinal());
+		this.gateOutTime = getTimestamp(row, Field.GATE_OUT_TIME);
+		this.gateOutTimeFlag = row.getString(Field.GATE_OUT_TIME_FLAG.ordinal());
+		this.runwayOffTime = getTimestamp(row, Field.RUNWAY_OFF_TIME);
+		this.runwayOffTimeFlag = row.getString(Field.RUNWAY_OFF_TIME_FLAG.ordinal());
+		this.runwayOnTime = getTimestamp(row, Field.RUNWAY_ON_TIME);
+		this.runwayOnTimeFlag = row.getString(Field.RUNWAY_ON_TIME_FLAG.ordinal());
+		this.gateInTime = getTimestamp(row, Field.GATE_IN_TIME);
+		if (!row.isNull(Field.FILED_FLIGHT_LEVEL.ordinal()))        { this.filedCruiseAltitude   = Altitude.valueOfFeet(row.getDouble(Field.FILED_FLIGHT_LEVEL.ordinal())); }
+		if (!row.isNull(Field.FILED_SPEED.ordinal()))               { this.filedSpeed            = row.getDouble(Field.FILED_SPEED.ordinal()); }
+		this.depAprtEtms = row.getString(Field.DEP_AIRPORT.ordinal());
+		this.arrAprtEtms = row.getString(Field.ARR_AIRPORT.ordinal());
+		if (!row.isNull(Field.DEP_LATITUDE.ordinal()))              { this.depLatitude           = row.getDouble(Field.DEP_LATITUDE.ordinal()); }
+		if (!row.isNull(Field.DEP_LONGITUDE.ordinal()))             { this.depLongitude          = row.getDouble(Field.DEP_LONGITUDE.ordinal()); }
+		if (!row.isNull(Field.DEP_ELEVATION.ordinal()))             { this.depElevation          = row.getInt(Field.DEP_ELEVATION.ordinal()); }
+		if (!row.isNull(Field.DEP_AIRPORT_COUNTRY_CODE.ordinal()))  { this.depAirportCountryCode = row.getInt(Field.DEP_AIRPORT_COUNTRY_CODE.ordinal()); }
+		if (!row.isNull(Field.ARR_LATITUDE.ordinal()))              { this.arrLatitude           = row.getDouble(Field.ARR_LATITUDE.ordinal()); }
+		if (!row.isNull(Field.ARR_LONGITUDE.ordinal()))             { this.arrLongitude          = row.getDouble(Field.ARR_LONGITUDE.ordinal()); }
+		if (!row.isNull(Field.ARR_ELEVATION.ordinal()))             { this.arrElevation          = row.getInt(Field.ARR_ELEVATION.ordinal()); }
+		if (!row.isNull(Field.ARR_AIRPORT_COUNTRY_CODE.ordinal()))  { this.arrAirportCountryCode = row.getInt(Field.ARR_AIRPORT_COUNTRY_CODE.ordinal()); }
+		this.etmsAircraftType = row.getString(Field.ETMS_AIRCRAFT_TYPE.ordinal());
+		if (!row.isNull(Field.PHYSICAL_CLASS.ordinal()))            { this.physicalClass         = PhysicalClass.valueOf(row.getString(Field.PHYSICAL_CLASS.ordinal())); }
+		this.userClass = row.getString(Field.USER_CLASS.ordinal());
+		this.flewFlag = row.getString(Field.FLEW_FLAG.ordinal());
+		this.airspaceCode = row.getString(Field.AIRSPACE_CODE.ordinal());
+		this.depAprtIcao = row.getString(Field.DEP_ICAO.ordinal());
+		this.arrAprtIcao = row.getString(Field.ARR_ICAO.ordinal());
+		this.atoUserClass = row.getString(Field.ATO_USER_CLASS.ordinal());
+		this.badaAircraftType = row.getString(Field.BADA_AIRCRAFT_TYPE.ordinal());
+		this.badaSource = row.getString(Field.BADA_AIRCRAFT_TYPE_SOURCE.ordinal());
+		if (!row.isNull(Field.SCHEDULED_FLAG.ordinal()))            { this.scheduledFlag         = row.getInt(Field.SCHEDULED_FLAG.ordinal()) != 0; }
+		this.scheduledDepTime = getTimestamp(row, Field.SCHEDULED_DEP_TIME);
+		this.scheduledArrTime = getTimestamp(row, Field.SCHEDULED_ARR_TIME);
+		this.etmsFiledWaypointsRaw = row.getString(Field.ETMS_FILED_WAYPOINTS.ordinal());
+		this.field10 = row.getString(Field.FIELD_10.ordinal());
+
+		if (this.etmsFiledWaypointsRaw != null &&
+			!this.etmsFiledWaypointsRaw.isEmpty())
+		{
+			this.etmsFiledWaypoints = etmsFiledWaypoints(this.etmsFiledWaypointsRaw);
+		}
+	}
+
+	private static void setTimestamp(ColumnRow row, Field field, Timestamp value)
+	{
+		if (value != null)
+		{
+			row.setLong(field.ordinal(), value.getTime());
+		}
+	}
+
+	private static Timestamp getTimestamp(ColumnRow row, Field field)
+	{
+		return row.isNull(field.ordinal()) ? null : new Timestamp(row.getLong(field.ordinal()));
+	}
+
 	@Override
 	public long readHeader(BufferedReader reader) throws IOException
 	{
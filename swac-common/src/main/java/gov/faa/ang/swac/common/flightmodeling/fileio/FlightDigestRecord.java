@@ -10,6 +10,7 @@ import gov.faa.ang.swac.datalayer.storage.db.PrintCSVQueryBinder;
 import gov.faa.ang.swac.datalayer.storage.db.QueryBinder;
 import gov.faa.ang.swac.datalayer.storage.db.QueryBuilder;
 import gov.faa.ang.swac.datalayer.storage.db.UploadableRecord;
+import gov.faa.ang.swac.datalayer.storage.fileio.LineDelimited;
 import gov.faa.ang.swac.datalayer.storage.fileio.OutputRecord;
 import gov.faa.ang.swac.datalayer.storage.fileio.TextSerializable;
 import gov.faa.ang.swac.datalayer.storage.fileio.WithHeader;
@@ -37,7 +38,7 @@ import java.util.Map;
  * from the flight output report and update the sampleReportLine static variable in this class. Failure to do so may cause 
  * FlightDigestRecordTest to generate a test failure, causing bamboo to invoke the dreaded email of shame.
  */
-public class FlightDigestRecord implements TextSerializable, WithHeader, OutputRecord, UploadableRecord {
+public class FlightDigestRecord implements TextSerializable, LineDelimited, WithHeader, OutputRecord, UploadableRecord {
 	/**
 	 * Sample line of output from a recent flight output report. Replace this with another one after adding or removing a field from the report.
 	 * This variable is used by the FlightDigestRecordTest junit class. Do not delete and keep updated!
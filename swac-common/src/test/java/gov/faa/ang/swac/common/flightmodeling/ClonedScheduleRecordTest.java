@@ -0,0 +1,134 @@
+package gov.faa.ang.swac.common.flightmodeling;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import gov.faa.ang.swac.common.datatypes.Timestamp;
+import gov.faa.ang.swac.datalayer.storage.fileio.FileMarshaller;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClonedScheduleRecordTest
+{
+    private static final double SHIFT_MINS = -17.25;
+
+    private ScheduleRecord base;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.base = new ScheduleRecord();
+        this.base.readItem(new BufferedReader(new StringReader(
+            "20926200,20091005,AMF262,91044,ORIGINAL_FLIGHT,20091006 23:49:24,COMPUTED,20091006 23:58:00,FILED,20091007 00:49:00,FILED,20091007 00:53:18,70.0,169.0,SMX,FAT,34.898916666666665,-120.45744444444445,261,1,36.77619444444444,-119.71813888888889,336,1,PA31,P,F,2,-1,KSMX,KFAT,D Cargo,PA31,ATOP,Y,20091006 23:50:00,,2094/7228 2115/7246 2140/7237")));
+    }
+
+    /**
+     * A clone made the way ScheduleRecordCloner used to: a deep copy with every time shifted
+     */
+    private static ScheduleRecord expectedClone(ScheduleRecord base, int idNum, double shiftMins)
+    {
+        ScheduleRecord rec = new ScheduleRecord(base);
+        rec.idNum = idNum;
+        rec.flightPlanType = "CLONE_" + base.idNum;
+        rec.gateOutTime = base.gateOutTime.minuteAdd(shiftMins);
+        rec.runwayOffTime = base.runwayOffTime.minuteAdd(shiftMins);
+        rec.runwayOnTime = base.runwayOnTime.minuteAdd(shiftMins);
+        rec.gateInTime = base.gateInTime.minuteAdd(shiftMins);
+        rec.scheduledDepTime = base.scheduledDepTime.minuteAdd(shiftMins);
+        return rec;
+    }
+
+    private ClonedScheduleRecord clone(int idNum)
+    {
+        return new ClonedScheduleRecord(this.base, idNum, "CLONE_" + this.base.idNum, Timestamp.minutesToMillis(SHIFT_MINS));
+    }
+
+    @Test
+    public void testWriteWithoutMaterializing()
+    {
+        ClonedScheduleRecord clone = clone(20926201);
+        Assert.assertEquals(expectedClone(this.base, 20926201, SHIFT_MINS).toString(), clone.toString());
+        Assert.assertEquals("AMF", clone.carrierId());
+        Assert.assertFalse(clone.isMaterialized());
+        Assert.assertNull(clone.gateOutTime);
+    }
+
+    @Test
+    public void testMaterialize()
+    {
+        ScheduleRecord expected = expectedClone(this.base, 20926202, SHIFT_MINS);
+        ClonedScheduleRecord clone = clone(20926202);
+        ClonedScheduleRecord.materialize(Arrays.<ScheduleRecord>asList(clone, this.base));
+
+        Assert.assertTrue(clone.isMaterialized());
+        Assert.assertEquals(expected.toString(), clone.toString());
+        Assert.assertEquals(expected.gateOutTime, clone.gateOutTime);
+        Assert.assertEquals(expected.etmsFiledWaypoints, clone.etmsFiledWaypoints);
+        Assert.assertNotSame(this.base.actDate, clone.actDate);
+
+        // Materialized clones no longer follow the base record
+        this.base.aircraftId = "XYZ1";
+        Assert.assertEquals("AMF", clone.carrierId());
+    }
+
+    @Test
+    public void testReadersMaterialize()
+    {
+        ScheduleRecord expected = expectedClone(this.base, 20926204, SHIFT_MINS);
+
+        ClonedScheduleRecord clone = clone(20926204);
+        ScheduleRecord copy = new ScheduleRecord(clone);
+        Assert.assertTrue(clone.isMaterialized());
+        Assert.assertEquals(expected.toString(), copy.toString());
+        Assert.assertEquals(expected.gateOutTime, copy.gateOutTime);
+
+        clone = clone(20926204);
+        FlightPlan plan = new FlightPlan(clone, false);
+        Assert.assertTrue(clone.isMaterialized());
+        Assert.assertEquals(new FlightPlan(expected, false).toString(), plan.toString());
+    }
+
+    @Test
+    public void testCloneOfClone()
+    {
+        ClonedScheduleRecord clone = new ClonedScheduleRecord(clone(20926201), 20926203, "CLONE_20926201", 60000L);
+        Assert.assertEquals(Timestamp.minutesToMillis(SHIFT_MINS) + 60000L, clone.getTimeShiftMillis());
+        Assert.assertEquals(expectedClone(this.base, 20926203, SHIFT_MINS + 1.0).gateInTime, 
+            Timestamp.myValueOf(clone.toString().split(",")[11]));
+    }
+
+    @Test
+    public void testColumnarWithoutMaterializing() throws Exception
+    {
+        List<ScheduleRecord> records = new ArrayList<ScheduleRecord>();
+        records.add(this.base);
+        records.add(clone(20926201));
+        records.add(clone(20926202));
+
+        File file = File.createTempFile("schedule", null);
+        file.deleteOnExit();
+        try
+        {
+            FileMarshaller marshaller = new FileMarshaller(ScheduleRecord.class, file);
+            marshaller.setColumnarFormat(true);
+            marshaller.save(records);
+
+            List<ScheduleRecord> loaded = new ArrayList<ScheduleRecord>();
+            marshaller.load(loaded);
+            Assert.assertEquals(3, loaded.size());
+            Assert.assertEquals(this.base.toString(), loaded.get(0).toString());
+            Assert.assertEquals(expectedClone(this.base, 20926202, SHIFT_MINS).toString(), loaded.get(2).toString());
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+}
@@ -5,13 +5,18 @@
 package gov.faa.ang.swac.common.flightmodeling;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import gov.faa.ang.swac.common.datatypes.Timestamp;
+import gov.faa.ang.swac.datalayer.storage.fileio.FileMarshaller;
+
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -80,4 +85,89 @@ public class ScheduleRecordTest
         Assert.assertTrue(output.equals(input));
         
     }
+    @Test
+    public void testReadFields() throws IOException
+    {
+        ScheduleRecord rec = new ScheduleRecord();
+        rec.readItem(new BufferedReader(new StringReader(
+            "-40910 , 20091006,V_KFTY_13,13,VFR,20091006 18:23:21,CREATED,20091006 18:34:45,CREATED,,,,70.0,,FTY,,33.77913888888889,-84.5213611111111,841,1,,,,,,-,G,,10,KFTY,,D VFR,,,Y,,,2094/7228 -2115/-7246")));
+
+        Assert.assertEquals(Integer.valueOf(-40910), rec.idNum);
+        Assert.assertEquals("V_KFTY_13", rec.aircraftId);
+        Assert.assertEquals(13, rec.flightIndex);
+        Assert.assertEquals("VFR", rec.flightPlanType);
+        Assert.assertEquals(Timestamp.myValueOf("20091006"), rec.actDate);
+        Assert.assertEquals(Timestamp.myValueOf("20091006 18:23:21"), rec.gateOutTime);
+        Assert.assertEquals(Timestamp.myValueOf("20091006 18:34:45"), rec.runwayOffTime);
+        Assert.assertNull(rec.runwayOnTime);
+        Assert.assertEquals(7000.0, rec.filedCruiseAltitude.feet(), 0.0);
+        Assert.assertEquals("FTY", rec.depAprtEtms);
+        Assert.assertNull(rec.arrAprtEtms);
+        Assert.assertEquals(33.77913888888889, rec.depLatitude, 0.0);
+        Assert.assertEquals(-84.5213611111111, rec.depLongitude, 0.0);
+        Assert.assertEquals(841, rec.depElevation);
+        Assert.assertNull(rec.physicalClass);
+        Assert.assertEquals("G", rec.userClass);
+        Assert.assertEquals("D VFR", rec.atoUserClass);
+        Assert.assertTrue(rec.scheduledFlag);
+        Assert.assertEquals("2094/7228 -2115/-7246", rec.etmsFiledWaypointsRaw);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testReadInvalidField() throws IOException
+    {
+        new ScheduleRecord().readItem(new BufferedReader(new StringReader("20926200,20091005,AMF262,91O44")));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testReadInvalidWaypoints() throws IOException
+    {
+        new ScheduleRecord().readItem(new BufferedReader(new StringReader(
+            "1,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,2094/7228 /2115")));
+    }
+    @Test
+    public void testColumnarRoundTrip() throws Exception
+    {
+        String[] lines = {
+            "20926200,20091005,AMF262,91044,ORIGINAL_FLIGHT,20091006 23:49:24,COMPUTED,20091006 23:58:00,FILED,20091007 00:49:00,FILED,20091007 00:53:18,70.0,169.0,SMX,FAT,34.898916666666665,-120.45744444444445,261,1,36.77619444444444,-119.71813888888889,336,1,PA31,P,F,2,-1,KSMX,KFAT,D Cargo,PA31,ATOP,N,,,2094/7228 2115/7246 2140/7237",
+            "-40910,20091006,V_KFTY_13,13,VFR,20091006 18:23:21,CREATED,20091006 18:34:45,CREATED,,,,,,FTY,,33.77913888888889,-84.5213611111111,841,1,,,,,,-,G,,10,KFTY,,D VFR,,,Y,,,",
+        };
+        List<ScheduleRecord> records = new ArrayList<ScheduleRecord>();
+        for (String line : lines)
+        {
+            ScheduleRecord rec = new ScheduleRecord();
+            rec.readItem(new BufferedReader(new StringReader(line)));
+            records.add(rec);
+        }
+
+        File file = File.createTempFile("schedule", null);
+        file.deleteOnExit();
+        try
+        {
+            FileMarshaller marshaller = new FileMarshaller(ScheduleRecord.class, file);
+            marshaller.setColumnarFormat(true);
+            marshaller.save(records);
+
+            List<ScheduleRecord> loaded = new ArrayList<ScheduleRecord>();
+            marshaller.load(loaded);
+            Assert.assertEquals(records.size(), loaded.size());
+            for (int i = 0; i < records.size(); i++)
+            {
+                Assert.assertEquals(records.get(i).toString(), loaded.get(i).toString());
+                Assert.assertEquals(records.get(i).etmsFiledWaypoints, loaded.get(i).etmsFiledWaypoints);
+            }
+
+            marshaller.setColumnProjection(Arrays.asList("ID_NUM", "DEP_AIRPORT"));
+            loaded.clear();
+            marshaller.load(loaded);
+            Assert.assertEquals(Integer.valueOf(20926200), loaded.get(0).idNum);
+            Assert.assertEquals("SMX", loaded.get(0).depAprtEtms);
+            Assert.assertNull(loaded.get(0).aircraftId);
+            Assert.assertNull(loaded.get(0).gateOutTime);
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
 }
@@ -21,6 +21,10 @@ import java.util.TimeZone;
  */
 public final class Main {
 
+    public static final String RESUME_OPTION = "--resume";
+    // Internal: starts a worker process of a coordinating batch. Followed by the coordinator's port, the worker id and the batch name
+    public static final String WORKER_OPTION = "--worker";
+
     private static org.apache.log4j.Logger logger = org.apache.log4j.LogManager.getLogger(Main.class);
 
     private Main() { /* Static only: do not instantiate */ }
@@ -35,7 +39,22 @@ public final class Main {
         TimeZone.setDefault(TimeZone.getTimeZone("GMT"));
 
         try {
+            if (args.length == 4 && WORKER_OPTION.equals(args[0])) {
+                runWorker(args[3], Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+                return;
+            }
+            
+            boolean resume = false;
+            for (String arg : args) {
+                if (RESUME_OPTION.equals(arg)) {
+                    resume = true;
+                }
+            }
+            
             for (String scenarioName : args) {
+                if (RESUME_OPTION.equals(scenarioName)) {
+                    continue;
+                }
                 ScenarioApplicationContext ctx = new ScenarioApplicationContext(scenarioName);
 
                 // Locate scenario configuration directory
@@ -47,7 +66,7 @@ public final class Main {
                     continue;
                 }
                 try {
-                    run(scenarioName, ctx);
+                    run(scenarioName, ctx, resume);
                 } catch (ExitException ex) {
                     logger = org.apache.log4j.LogManager.getLogger(Main.class);
                     ex.printStackTrace();
@@ -73,21 +92,48 @@ public final class Main {
      * SWAC_WORK/scenario
      */
     public static void run(String scenarioName, ScenarioApplicationContext ctx) {
+        run(scenarioName, ctx, false);
+    }
+
+    /**
+     * @param resume if true, skip the scenarios that an earlier, interrupted
+     * run of the batch completed; if false, the Batch's own resume setting applies
+     */
+    public static void run(String scenarioName, ScenarioApplicationContext ctx, boolean resume) {
         try {
             Batch b = BatchManager.create(scenarioName, ctx);
+            if (resume) {
+                b.setResume(true);
+            }
             b.run(ctx);
         } catch (IOException ex) {
             throw new ExitException("Error initializing scenario", ex);
         }
     }
 
+    /**
+     * Runs the scenarios a coordinating batch sends, until it has no more
+     *
+     * @param port the coordinator's loopback port
+     */
+    public static void runWorker(String scenarioName, int port, int workerId) {
+        try {
+            ScenarioApplicationContext ctx = new ScenarioApplicationContext(scenarioName);
+            Batch b = BatchManager.create(scenarioName, ctx);
+            b.runWorker(ctx, port, workerId);
+        } catch (IOException ex) {
+            throw new ExitException("Error initializing scenario", ex);
+        }
+    }
+
     /**
      * Print usage instructions
      */
     public static void usage() {
         System.out.println("Usage:");
-        System.out.println("$ swac.sh <Scenario Configuration File Name> ...");
+        System.out.println("$ swac.sh [" + RESUME_OPTION + "] <Scenario Configuration File Name> ...");
         System.out.println("(Runs one or more scenarios)");
+        System.out.println("(" + RESUME_OPTION + " continues interrupted runs, skipping the scenarios they completed)");
         System.out.println("(Scenario Names: " + BatchManager.listAll() + ")");
     }
 }
@@ -13,7 +13,10 @@ import gov.faa.ang.swac.datalayer.storage.DataMarshaller;
 import java.lang.management.ManagementFactory;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 public abstract class AbstractTask implements Runnable {
 
@@ -78,6 +81,62 @@ public abstract class AbstractTask implements Runnable {
     	this.numInstances = numInstances;
     }
 
+    // Data linkage recorded by TaskConfiguration, from which Job derives the order in which tasks may run. Tasks
+    // that were never linked (status messages, for example) have no linkage and are treated as barriers.
+    private boolean linked;
+    private final Set<DataMarshaller> intermediateInputs = Collections.newSetFromMap(new IdentityHashMap<DataMarshaller, Boolean>());
+    private final Set<DataMarshaller> intermediateOutputs = Collections.newSetFromMap(new IdentityHashMap<DataMarshaller, Boolean>());
+    private boolean usingDataAccessObjects;
+
+    final boolean isLinked() {
+        return this.linked;
+    }
+
+    final void setLinked() {
+        this.linked = true;
+    }
+
+    /**
+     * @return intermediate data read by this task (identity set)
+     */
+    final Set<DataMarshaller> getIntermediateInputs() {
+        return this.intermediateInputs;
+    }
+
+    /**
+     * @return intermediate data written by this task (identity set)
+     */
+    final Set<DataMarshaller> getIntermediateOutputs() {
+        return this.intermediateOutputs;
+    }
+
+    final boolean isUsingDataAccessObjects() {
+        return this.usingDataAccessObjects;
+    }
+
+    final void setUsingDataAccessObjects() {
+        this.usingDataAccessObjects = true;
+    }
+
+    // Set by TaskConfiguration when the batch keeps a result cache and this task's outputs can be restored from it
+    private ResultCache.Entry cachedResult;
+
+    final ResultCache.Entry getCachedResult() {
+        return this.cachedResult;
+    }
+
+    final void setCachedResult(ResultCache.Entry val) {
+        this.cachedResult = val;
+    }
+
+    /**
+     * Forget the recorded linkage so that it doesn't keep intermediate data reachable
+     */
+    final void clearLinkage() {
+        this.intermediateInputs.clear();
+        this.intermediateOutputs.clear();
+    }
+
 //    @Override
 //    protected Object clone() throws CloneNotSupportedException {
 //        throw new CloneNotSupportedException();
@@ -144,22 +203,16 @@ public abstract class AbstractTask implements Runnable {
     }
 
     protected void cleanup() {
-        Method[] methods = this.getClass().getMethods();
-        for (Method method : methods) {
-            Class<?>[] paramType = method.getParameterTypes();
-            if (method.getName().startsWith("set") && paramType.length == 1) {
-                if (DataMarshaller.class.isAssignableFrom(paramType[0])) {
-                    // Single parameter is a DataMarshaller: set with null
-                    try {
-                        method.invoke(this, new Object[]{null});
-                    } catch (IllegalArgumentException e) {
-                        throw new IllegalStateException(e.getMessage(), e);
-                    } catch (IllegalAccessException e) {
-                        throw new IllegalStateException(e.getMessage(), e);
-                    } catch (InvocationTargetException e) {
-                        throw new IllegalStateException(e.getMessage(), e);
-                    }
-                }
+        for (Method method : TaskWiring.forClass(this.getClass()).getMarshallerSetters()) {
+            // Single parameter is a DataMarshaller: set with null
+            try {
+                method.invoke(this, new Object[]{null});
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException(e.getMessage(), e);
             }
         }
     }
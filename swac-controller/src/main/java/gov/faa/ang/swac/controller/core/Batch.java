@@ -9,9 +9,12 @@ import gov.faa.ang.swac.common.datatypes.Timestamp;
 import gov.faa.ang.swac.controller.ExitException;
 import gov.faa.ang.swac.controller.GlobalApplicationContext;
 import gov.faa.ang.swac.controller.ScenarioApplicationContext;
+import gov.faa.ang.swac.controller.ScenarioApplicationContext.ValidationSetting;
 import gov.faa.ang.swac.controller.core.component.TemplateImporter;
+import gov.faa.ang.swac.controller.core.montecarlo.IncrementalReduce;
 import gov.faa.ang.swac.controller.core.montecarlo.replay.CachedScenarioConfiguration;
 import gov.faa.ang.swac.controller.core.montecarlo.replay.ConfigurationCache;
+import gov.faa.ang.swac.controller.core.montecarlo.replay.IndexedConfigurationFile;
 import gov.faa.ang.swac.datalayer.AdHocDataAccess;
 import gov.faa.ang.swac.datalayer.DataAccessException;
 import gov.faa.ang.swac.datalayer.MappedDataAccess;
@@ -23,14 +26,29 @@ import gov.faa.ang.swac.datalayer.identity.IntermediateDataDescriptor;
 import gov.faa.ang.swac.datalayer.storage.DataMarshaller;
 import gov.faa.ang.swac.datalayer.storage.db.JDBCConnectionFactory;
 
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.LogManager;
@@ -65,6 +83,144 @@ public class Batch {
     	executorServiceFactory = val;
     }
     
+    // When Monte Carlo mode is OFF or REPLAY, independent scenarios may be run concurrently on the ExecutorService
+    private boolean parallelScenarios = false;
+    
+    public boolean isParallelScenarios() {
+    	return this.parallelScenarios;
+    }
+    
+    public void setParallelScenarios(boolean val) {
+    	this.parallelScenarios = val;
+    }
+    
+    // In Monte Carlo mode, create each instance Job (and its database) only when the executor has room for it rather than all of them up front
+    private boolean lazyJobCreation = false;
+    
+    public boolean isLazyJobCreation() {
+    	return this.lazyJobCreation;
+    }
+    
+    public void setLazyJobCreation(boolean val) {
+    	this.lazyJobCreation = val;
+    }
+    
+    // Keep the outputs of an interrupted run and skip the scenarios its checkpoint journal records as complete
+    private boolean resume = false;
+    
+    public boolean isResume() {
+    	return this.resume;
+    }
+    
+    public void setResume(boolean val) {
+    	this.resume = val;
+    }
+    
+    private transient CheckpointJournal journal;
+    
+    // Restore the outputs of cacheable tasks whose configuration and inputs match an earlier run instead of running them
+    private boolean resultCache = false;
+    
+    public boolean isResultCache() {
+    	return this.resultCache;
+    }
+    
+    public void setResultCache(boolean val) {
+    	this.resultCache = val;
+    }
+    
+    private transient ResultCache resultStore;
+    
+    /**
+     * @return the store that cacheable tasks are keyed against during this run, or null if results are not cached
+     */
+    public ResultCache getResultStore() {
+    	return this.resultStore;
+    }
+    
+    // Record wall time, CPU time, allocation, GC and record counts for every task and Job, publish them over JMX while
+    // the batch runs, and write them beside the outputs when it ends
+    private boolean taskMetrics = true;
+    
+    public boolean isTaskMetrics() {
+    	return this.taskMetrics;
+    }
+    
+    public void setTaskMetrics(boolean val) {
+    	this.taskMetrics = val;
+    }
+    
+    private transient TaskMetrics metrics;
+    
+    /**
+     * @return the registry that Jobs record themselves in during this run, or null if metrics are not recorded
+     */
+    public TaskMetrics getMetrics() {
+    	return this.metrics;
+    }
+    
+    // Upper bound on the number of scenarios in flight at once when parallelScenarios is set. Zero or less defers to the executor's thread count
+    private int maxConcurrentScenarios = 0;
+    
+    public int getMaxConcurrentScenarios() {
+    	return this.maxConcurrentScenarios;
+    }
+    
+    public void setMaxConcurrentScenarios(int val) {
+    	this.maxConcurrentScenarios = val;
+    }
+    
+    // Start the scenarios predicted to take longest first when they run in parallel, predicting from earlier runs' times and from input sizes.
+    // Ignored unless parallelScenarios or workerProcesses is set
+    private boolean costBasedOrdering = false;
+    
+    public boolean isCostBasedOrdering() {
+    	return this.costBasedOrdering;
+    }
+    
+    public void setCostBasedOrdering(boolean val) {
+    	this.costBasedOrdering = val;
+    }
+    
+    private transient JobCostModel jobCosts;
+    
+    // Number of worker JVMs to run scenarios in, each with its own heap. Zero or less runs every scenario in this JVM
+    private int workerProcesses = 0;
+    
+    public int getWorkerProcesses() {
+    	return this.workerProcesses;
+    }
+    
+    public void setWorkerProcesses(int val) {
+    	this.workerProcesses = val;
+    }
+    
+    // JVM options for worker processes, e.g. heap size and garbage collector, separated by whitespace
+    private String workerJvmArguments = "";
+    
+    public String getWorkerJvmArguments() {
+    	return this.workerJvmArguments;
+    }
+    
+    public void setWorkerJvmArguments(String val) {
+    	this.workerJvmArguments = val;
+    }
+    
+    // Set only in a worker process: the journal entries of the scenario being run, which are reported to the coordinator
+    private transient List<CheckpointJournal.Entry> workerEntries;
+    private transient int workerId = -1;
+    
+    // Number of tasks of one scenario instance that may run at once, in the order allowed by their intermediate data. 1 runs tasks in list order
+    private int taskParallelism = 1;
+    
+    public int getTaskParallelism() {
+    	return this.taskParallelism;
+    }
+    
+    public void setTaskParallelism(int val) {
+    	this.taskParallelism = val;
+    }
+    
     private int scenarioExecutionId;
 
     public int getScenarioExecutionId() {
@@ -178,6 +334,17 @@ public class Batch {
         this.configurationCache = val;
     }
     
+    // Keep the configuration cache in an indexed binary file that is appended per instance and read per scenario, instead of one XML document
+    private boolean indexedConfigurationCache = false;
+    
+    public boolean isIndexedConfigurationCache() {
+    	return this.indexedConfigurationCache;
+    }
+    
+    public void setIndexedConfigurationCache(boolean val) {
+    	this.indexedConfigurationCache = val;
+    }
+    
     private transient MappedDataAccess dao;
 
     public MappedDataAccess getDao() {
@@ -209,28 +376,45 @@ public class Batch {
         try {
         	logger.info("START " + this.batchName);
         	
+        	if (this.taskMetrics) {
+        		this.metrics = new TaskMetrics();
+        		this.metrics.register(this.batchName);
+        	}
         	prepareRun(ctx);
+        	this.journal = new CheckpointJournal(dao.getFile(LOCATION.OUTPUT, CheckpointJournal.FILE_NAME), this.resume);
+        	if (this.costBasedOrdering && (this.parallelScenarios || this.workerProcesses > 0)) {
+        		this.jobCosts = new JobCostModel(dao.getFile(LOCATION.CACHE, JobCostModel.HISTORY_FILE_NAME));
+        	}
         	
-        	List<Job> execQueue = fillExecutionQueue(ctx);
-        	
-        	// Everything is initialized: validate and/or execute the task queue
-        	// NOTE: the integrity of the configuration was checked already - this validation is for the input data
-        	// TODO: If you didn't see the note in ScenarioApplicationContext, we need to get a validation setting into the app from the command line or config, or else this will always default to NORMAL
-                switch (ctx.getValidationSetting()) {
-                    case DEEP_NO_EXECUTE:
-                    	// Validate and skip execution
-                    	deepDataValidate(execQueue,false);
-                        break;
-                    case DEEP:
-                        deepDataValidate(execQueue,true);
-                        // Validation passed: time to run!
-                        //(falls through)
-                    case NORMAL: //falls through
-                    default:
-                    	execute(execQueue);
-                        break;
-                }
+        	if (this.workerProcesses > 0 && this.monteCarloMode != MonteCarloMode.REPLAY && !isDeepValidation(ctx)) {
+        		executeOnWorkers();
+        	} else if (this.monteCarloMode == MonteCarloMode.ON && this.lazyJobCreation && !isDeepValidation(ctx)) {
+        		executeMonteCarloLazily();
+        	} else {
+	        	List<Job> execQueue = fillExecutionQueue(ctx);
+	        	
+	        	// Everything is initialized: validate and/or execute the task queue
+	        	// NOTE: the integrity of the configuration was checked already - this validation is for the input data
+	        	// TODO: If you didn't see the note in ScenarioApplicationContext, we need to get a validation setting into the app from the command line or config, or else this will always default to NORMAL
+	                switch (ctx.getValidationSetting()) {
+	                    case DEEP_NO_EXECUTE:
+	                    	// Validate and skip execution
+	                    	deepDataValidate(execQueue,false);
+	                        break;
+	                    case DEEP:
+	                        deepDataValidate(execQueue,true);
+	                        // Validation passed: time to run!
+	                        //(falls through)
+	                    case NORMAL: //falls through
+	                    default:
+	                    	execute(execQueue);
+	                        break;
+	                }
+        	}
            
+            if (this.resultStore != null) {
+            	logger.info("Result cache: " + this.resultStore.getRestoredCount() + " tasks restored, " + this.resultStore.getStoredCount() + " results stored");
+            }
             logger.info("END " + this.batchName);
 
         }catch (OutOfMemoryError e){
@@ -246,13 +430,91 @@ public class Batch {
             if (ex.getMessage() != null)
             	logger.fatal(ex.getMessage());
             logger.debug(ex.getMessage(), ex);
+        } finally {
+        	closeJournal();
+        	closeMetrics();
+        	closeJobCosts();
         }
     }
     
+    private void closeJobCosts() {
+    	if (this.jobCosts != null) {
+    		File report = dao.getFile(LOCATION.OUTPUT, JobCostModel.REPORT_FILE_NAME);
+    		try {
+    			this.jobCosts.save();
+    			this.jobCosts.writeReport(report);
+    			logger.info("Predicted and actual scenario times written to " + report);
+    		} catch (IOException ex) {
+    			logger.error("Error writing job costs: " + ex.getMessage());
+    		}
+    		this.jobCosts = null;
+    	}
+    }
+    
+    /**
+     * @return the predicted time of the scenario, or if nothing has run before to predict times from, its input size.
+     * Either way the result is only compared with those of the batch's other scenarios.
+     */
+    private long predictCost(ScenarioExecution scenario) {
+    	long inputBytes = scenario.getStaticInputBytes();
+    	long predicted = this.jobCosts.predict(scenario.getScenarioName(), inputBytes);
+    	logger.debug("Scenario " + scenario.getScenarioName() + ": " + inputBytes + " input bytes, predicted " + (predicted < 0 ? "unknown" : predicted + " ms"));
+    	return (predicted < 0) ? inputBytes : predicted;
+    }
+    
+    private void recordCost(ScenarioExecution scenario, long actualMillis) {
+    	if (this.jobCosts == null) {
+    		return;
+    	}
+    	if (!this.jobCosts.isPredicted(scenario.getScenarioName())) {
+    		predictCost(scenario);
+    	}
+    	this.jobCosts.recordActual(scenario.getScenarioName(), actualMillis);
+    }
+    
+    private void closeMetrics() {
+    	if (this.metrics != null) {
+    		this.metrics.unregister();
+    		File csv = dao.getFile(LOCATION.OUTPUT, TaskMetrics.CSV_FILE_NAME);
+    		File json = dao.getFile(LOCATION.OUTPUT, TaskMetrics.JSON_FILE_NAME);
+    		try {
+    			csv.getParentFile().mkdirs();
+    			this.metrics.writeCsv(csv);
+    			this.metrics.writeJson(json);
+    			logger.info("Task metrics written to " + csv + " and " + json);
+    		} catch (IOException ex) {
+    			logger.error("Error writing task metrics: " + ex.getMessage());
+    		}
+    		this.metrics = null;
+    	}
+    }
+    
+    private void closeJournal() {
+    	if (this.journal != null) {
+    		try {
+    			this.journal.close();
+    		} catch (IOException ex) {
+    			logger.error("Error closing checkpoint journal: " + ex.getMessage());
+    		}
+    		this.journal = null;
+    	}
+    }
+    
     private void prepareRun(ScenarioApplicationContext ctx) throws DataAccessException, SQLException {
-            // Clean the output/reports directories
-            dao.clean(LOCATION.OUTPUT);
-            dao.clean(LOCATION.REPORT);
+            // Clean the output/reports directories, unless resuming: then only incomplete scenarios' directories are cleaned as they are initialized
+            if (this.workerEntries != null) {
+            	logger.info("Worker " + this.workerId + " of " + this.batchName + " ready; output directories belong to the coordinator");
+            } else if (this.resume) {
+            	logger.info("Resuming " + this.batchName + " from its checkpoint journal");
+            } else {
+	            dao.clean(LOCATION.OUTPUT);
+	            dao.clean(LOCATION.REPORT);
+            }
+            
+            if (this.resultCache) {
+            	this.resultStore = new ResultCache(dao.getFile(LOCATION.CACHE, ResultCache.DIRECTORY_NAME));
+            	logger.info("Caching task results in " + this.resultStore.getDirectory());
+            }
             
             configMonteCarloSettings(ctx);
 
@@ -289,6 +551,11 @@ public class Batch {
             
     }
     
+    // Deep validation inspects every task, so it requires the whole execution queue up front
+    private static boolean isDeepValidation(ScenarioApplicationContext ctx) {
+    	return ctx.getValidationSetting() == ValidationSetting.DEEP || ctx.getValidationSetting() == ValidationSetting.DEEP_NO_EXECUTE;
+    }
+    
     private List<Job> fillExecutionQueue(ScenarioApplicationContext ctx) throws DataAccessException {
     		ConfigurationCache cache = null;
     		List<Job> execQueue = new ArrayList<Job>();
@@ -310,6 +577,9 @@ public class Batch {
 	                                    baseDate,
 	                                    forecastFiscalYear,
 	                                    classifier);
+	                            if (skipCompletedScenario(exec)) {
+	                            	continue;
+	                            }
 	                        	execQueue.addAll(exec.initializeMonteCarlo(this.sampleSize, this.innerLoopCount, this.randomSeed, this.databaseConnectionFactory, cache));
 	                        }
 	                    }
@@ -330,6 +600,9 @@ public class Batch {
 	                                    baseDate,
 	                                    forecastFiscalYear,
 	                                    classifier);
+	                            if (skipCompletedScenario(exec)) {
+	                            	continue;
+	                            }
 	                            execQueue.addAll(exec.initializeNormal(this.databaseConnectionFactory));
 	                        }
 	                    }
@@ -351,11 +624,14 @@ public class Batch {
 		                        config.getBaseDate(),
 		                        config.getForecastFiscalYear(),
 		                        config.getClassifier());
-		                execQueue.addAll(exec.initializeReplay(cache, this.databaseConnectionFactory, this.scenarioExecutionId));
+		            	if (!skipCompletedScenario(exec)) {
+		            		execQueue.addAll(exec.initializeReplay(cache, this.databaseConnectionFactory, this.scenarioExecutionId));
+		            	}
 	                }
 	                else{
-	                	logger.error("ScenarioExecutionId: " + this.scenarioExecutionId + " could not be found! Verify Id exists in ConfigurationCache.xml");
+	                	logger.error("ScenarioExecutionId: " + this.scenarioExecutionId + " could not be found! Verify Id exists in " + this.configurationCache.toString());
 	                }
+	                closeConfigurationCache(cache);
 	                
 	            	break;
 	            default:
@@ -395,7 +671,7 @@ public class Batch {
         }
     }
 
-	private void execute(List<Job> execQueue) throws Exception {
+	void execute(List<Job> execQueue) throws Exception {
 		switch (this.monteCarloMode)
         {
             case ON:
@@ -405,7 +681,11 @@ public class Batch {
                 break;
             case OFF:
             case REPLAY:
-            	executeSerially(execQueue);
+            	if (this.parallelScenarios) {
+            		executeScenariosOnExecutor(execQueue);
+            	} else {
+            		executeSerially(execQueue);
+            	}
                 break;
             default:
             	throw new IllegalStateException("This should be unreachable code: Check MonteCarloMode enum");
@@ -414,11 +694,179 @@ public class Batch {
 		
 	private void executeSerially(List<Job> execQueue) {
         while (execQueue.size() > 0) {
-            Job t = execQueue.remove(0);
-            t.run();
+            runScenarioChain(nextScenarioChain(execQueue));
         }
     }
 	
+	/**
+	 * Runs the Jobs of one scenario in order, removing each as it runs, and journals the scenario's completion
+	 */
+	private void runScenarioChain(List<Job> chain) {
+		ScenarioExecution scenario = scenarioOf(chain);
+		long start = System.currentTimeMillis();
+		boolean success = true;
+		while (!chain.isEmpty()) {
+			Job job = chain.remove(0);
+			job.run();
+			success &= job.isCompleted();
+		}
+		checkpointScenario(scenario, success, (System.currentTimeMillis() - start) / 1000.0, success ? "" : "Scenario did not complete");
+	}
+	
+	/**
+	 * @return the scenario the Jobs' tasks belong to, or null if none of them has one. Must be called before the Jobs run,
+	 * since running a Job removes its tasks.
+	 */
+	private static ScenarioExecution scenarioOf(List<Job> jobs) {
+		for (Job job : jobs) {
+			synchronized (job) {
+				for (AbstractTask task : job) {
+					if (task.getParent() != null) {
+						return task.getParent();
+					}
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * When resuming, skips a scenario the checkpoint journal records as complete, or else clears whatever an earlier
+	 * attempt at it left behind
+	 * 
+	 * @return true if the scenario should be skipped
+	 */
+	private boolean skipCompletedScenario(ScenarioExecution exec) {
+		if (!this.resume) {
+			return false;
+		}
+		if (this.journal.isComplete(exec.getScenarioName())) {
+			logger.info("Skipping scenario " + exec.getScenarioName() + ": completed in a previous run");
+			return true;
+		}
+		exec.cleanOutputs();
+		return false;
+	}
+	
+	private void checkpointScenario(ScenarioExecution scenario, boolean success, double runTime, String errorMessage) {
+		if (success && scenario != null) {
+			recordCost(scenario, Math.round(runTime * 1000));
+		}
+		if ((this.journal == null && this.workerEntries == null) || scenario == null) {
+			return;
+		}
+		List<String> outputs = success ? scenario.getOutputFiles() : null;
+		checkpoint(new CheckpointJournal.Entry(CheckpointJournal.Kind.SCENARIO, scenario.getScenarioName(), scenario.getScenarioId(), success, runTime, errorMessage, outputs));
+	}
+	
+	private void checkpointInstances(String scenarioName, List<MonteCarloStatusReportRecord> statuses) {
+		if (this.journal == null && this.workerEntries == null) {
+			return;
+		}
+		for (MonteCarloStatusReportRecord status : statuses) {
+			checkpoint(new CheckpointJournal.Entry(CheckpointJournal.Kind.INSTANCE, scenarioName, status.getScenarioExecutionId(), status.isSuccess(), status.getRunTime(), status.getErrorMessage(), null));
+		}
+	}
+	
+	private void checkpoint(CheckpointJournal.Entry entry) {
+		if (this.workerEntries != null) {
+			this.workerEntries.add(entry);
+			return;
+		}
+		try {
+			this.journal.record(entry);
+		} catch (IOException ex) {
+			// Not fatal: work that isn't journaled is just repeated on resume
+			logger.error("Error writing checkpoint journal " + this.journal.getFile() + ": " + ex.getMessage());
+		}
+	}
+	
+	/**
+	 * Runs independent ScenarioExecutions concurrently on the ExecutorService. All Jobs of one scenario (the instance Job
+	 * followed by its global Job) are chained on a single worker in queue order, and every scenario reads its own random
+	 * seeds and writes its own scenario-named outputs, so results are identical to executeSerially. This relies on
+	 * scenarios not sharing mutable records: static data is shared between scenarios, so StaticDataMarshaller copies the
+	 * record types that tasks modify (see loadStaticData). Admission is bounded
+	 * so that no more than maxConcurrentScenarios scenarios hold intermediate data in memory at any time.
+	 * @param execQueue
+	 * @throws Exception
+	 */
+	private void executeScenariosOnExecutor(List<Job> execQueue) throws Exception {
+		ExecutorService executor = executorServiceFactory.create();
+		int maxConcurrent = resolveMaxConcurrentScenarios(executor);
+		logger.info("Executing scenarios in parallel; at most " + maxConcurrent + " concurrent scenarios");
+		
+		final Semaphore admission = new Semaphore(maxConcurrent);
+		List<Future<?>> pending = new ArrayList<Future<?>>();
+		
+		List<List<Job>> chains = new ArrayList<List<Job>>();
+		while (!execQueue.isEmpty()) {
+			chains.add(nextScenarioChain(execQueue));
+		}
+		if (this.jobCosts != null) {
+			List<Long> costs = new ArrayList<Long>();
+			for (List<Job> chain : chains) {
+				ScenarioExecution scenario = scenarioOf(chain);
+				costs.add(scenario == null ? 0L : predictCost(scenario));
+			}
+			JobCostModel.sortLongestFirst(chains, costs);
+			logger.info("Scenarios ordered by predicted cost, longest first");
+		}
+		
+		try {
+			for (final List<Job> chain : chains) {
+				// Blocks until a running scenario completes and releases its intermediate data
+				admission.acquire();
+				try {
+					pending.add(executor.submit(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								runScenarioChain(chain);
+							} finally {
+								admission.release();
+							}
+						}
+					}));
+				} catch (RejectedExecutionException ex) {
+					admission.release();
+					throw ex;
+				}
+			}
+			
+			for (Future<?> f : pending) {
+				// Job.run() handles its own failures, so this only waits for completion
+				f.get();
+			}
+		} catch (InterruptedException ex) {
+			executor.shutdownNow();
+			logger.fatal("Thread interrupted.", ex);
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Removes the leading run of Jobs sharing a scenarioId from the queue.
+	 */
+	private static List<Job> nextScenarioChain(List<Job> execQueue) {
+		List<Job> chain = new ArrayList<Job>();
+		Job first = execQueue.remove(0);
+		chain.add(first);
+		while (!execQueue.isEmpty() && first.getScenarioId() != null && first.getScenarioId().equals(execQueue.get(0).getScenarioId())) {
+			chain.add(execQueue.remove(0));
+		}
+		return chain;
+	}
+	
+	private int resolveMaxConcurrentScenarios(ExecutorService executor) {
+		if (this.maxConcurrentScenarios > 0) {
+			return this.maxConcurrentScenarios;
+		}
+		return resolveMaxThreads(executor);
+	}
+	
 	/**
 	 * Note: If this is executed in non-Monte-Carlo mode, the reporting will not make much sense. But the justification for multithreading is MC
 	 * so this should be fine. 
@@ -431,46 +879,26 @@ public class Batch {
 		// By convention, the Job queue will be initialized with the Monte Carlo aggregation tasks as the last Job in the list,
 		// so we queue all but the last one for execution on the Executor, then wait for them to finish, then run the MC aggregation
 		Job mcAggregationJob = execQueue.remove(execQueue.size() - 1);
+		ScenarioExecution scenario = scenarioOf(Collections.singletonList(mcAggregationJob));
 		int total = execQueue.size();
 		assert total == this.sampleSize * this.innerLoopCount;
 		
 		try {
 	        
-			// This blocks until all tasks are completed
-			List<Future<MonteCarloStatusReportRecord>> mcStatus = executor.invokeAll(execQueue, TIMEOUT_DAYS, TimeUnit.DAYS);
-			
-			List<MonteCarloStatusReportRecord> mcStatusReport = new ArrayList<MonteCarloStatusReportRecord>();
-			for (Future<MonteCarloStatusReportRecord> status : mcStatus) {
-				// This also blocks until completion, but all the Futures should be ready
-				MonteCarloStatusReportRecord rec = status.get();
-				mcStatusReport.add(rec);
-			}
+			// This blocks until all tasks are completed, folding each instance's output into the reduce tasks as it arrives
+			long start = System.currentTimeMillis();
+			List<MonteCarloStatusReportRecord> mcStatusReport = awaitInstances(executor, jobSource(execQueue), mcAggregationJob, Integer.MAX_VALUE, TIMEOUT_DAYS, TimeUnit.DAYS);
+			checkpointInstances(scenario == null ? "" : scenario.getScenarioName(), mcStatusReport);
 
-	        int successes = 0;
-	        for (MonteCarloStatusReportRecord rec : mcStatusReport) {
-	        	if (rec.isSuccess()) {
-	        		successes++;
-	        	}
-	        }
-			
-	        if (successes > 0){ //only run MC aggregator if we have valid results to compute.
+	        if (countSuccesses(mcStatusReport) > 0){ //only run MC aggregator if we have valid results to compute.
 				// NOTE: we are not submitting the final MC job to the executor, but rather running it on the main control thread to ensure we don't exit early
 	        	mcAggregationJob.run();
 	        }else{
 	        	logger.info("No successful runs completed.  Monte Carlo Output suppressed.");
 	        }
+	        checkpointMonteCarloScenario(scenario, mcStatusReport, total, mcAggregationJob, start);
         
-	        // Finally, print the MC status report
-	        AdHocDataAccess.dumpData(this.batchName, mcStatusReport, true);
-
-	        // ...and the log summary
-	        if (successes == total) {
-	        	logger.info(successes + "/" + total + " Monte Carlo instances succeeded.");
-	        } else {
-	        	logger.error(successes + "/" + total + " Monte Carlo instances succeeded.");
-	        	logger.error("Aggregate results are corrupted by the absence of expected data points.");
-	        	logger.error("Check 'MonteCarloStatusReportRecord.dmp' file in report folder for failed runs.");
-	        }
+	        reportMonteCarloStatus(mcStatusReport, total);
         
 		} catch (InterruptedException ex) {
 			// XXX: This looks redundant but it may be necessary to shutdown the pool before interrupting the thread, even if there's a shutdown in the finally
@@ -483,6 +911,187 @@ public class Batch {
         }
     }
 	
+	/**
+	 * Monte Carlo execution that creates each instance Job, and its database, only when the executor has room to run it.
+	 * Startup cost and resident memory then depend on the executor's concurrency rather than on the sample size. The
+	 * scenarios are executed one after another, each scenario's aggregation Job running once its own instances have
+	 * completed. The configuration cache is saved, and the data layer's descriptor map released, once every instance has
+	 * been created.
+	 */
+	private void executeMonteCarloLazily() throws Exception {
+		logger.info("Monte Carlo mode enabled; instances will be initialized as they are executed");
+		logger.info("Loading configuration cache from " + this.configurationCache.toString());
+		ConfigurationCache cache = loadConfigurationCache();
+		
+		List<ScenarioExecution.MonteCarloInstances> scenarios = new ArrayList<ScenarioExecution.MonteCarloInstances>();
+		for (String classifier : this.classifiers) {
+			for (Timestamp baseDate : this.baseDates) {
+				for (Integer forecastFiscalYear : this.forecastFiscalYears) {
+					logger.info("Initializing tasks for classifier " + classifier + ", base date " + baseDate + ", forecast FY " + forecastFiscalYear + "; " + this.sampleSize + " X " + this.innerLoopCount + " Monte Carlo iterations");
+					ScenarioExecution exec = new ScenarioExecution(this, baseDate, forecastFiscalYear, classifier);
+					if (skipCompletedScenario(exec)) {
+						continue;
+					}
+					scenarios.add(exec.monteCarloInstances(this.sampleSize, this.innerLoopCount, this.randomSeed, this.databaseConnectionFactory, cache));
+				}
+			}
+		}
+		logger.info("<------------------ BEGIN MONTE CARLO SAMPLE DATA GENERATION ----------------->");
+		
+		// disable Report generation due to file locking concerns.
+		AdHocDataAccess.setLogLevel(LogLevel.NONE);
+		ExecutorService executor = executorServiceFactory.create();
+		// One Job is kept ready beyond the executor's capacity so that a freed thread doesn't wait for the next Job to be initialized
+		int window = resolveMaxThreads(executor) + 1;
+		List<MonteCarloStatusReportRecord> mcStatusReport = new ArrayList<MonteCarloStatusReportRecord>();
+		int total = 0;
+		
+		try {
+			for (ScenarioExecution.MonteCarloInstances instances : scenarios) {
+				total += instances.getSize();
+				long start = System.currentTimeMillis();
+				List<MonteCarloStatusReportRecord> statuses = awaitInstances(executor, instances, instances.getGlobalTasks(), window, TIMEOUT_DAYS, TimeUnit.DAYS);
+				mcStatusReport.addAll(statuses);
+				checkpointInstances(instances.getScenario().getScenarioName(), statuses);
+				
+				Job mcAggregationJob = instances.createGlobalJob();
+				if (countSuccesses(statuses) > 0) {
+					mcAggregationJob.run();
+				} else {
+					logger.info("No successful runs completed.  Monte Carlo Output suppressed.");
+				}
+				checkpointMonteCarloScenario(instances.getScenario(), statuses, instances.getSize(), mcAggregationJob, start);
+			}
+			
+			logger.info("Initialization complete; saving configuration cache to " + this.configurationCache.toString());
+			saveConfigurationCache(cache);
+			logger.debug(dao.toString());
+			this.dao.clearMap();
+			
+			reportMonteCarloStatus(mcStatusReport, total);
+		} catch (InterruptedException ex) {
+			executor.shutdownNow();
+			logger.fatal("Thread interrupted.", ex);
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+			this.databaseConnectionFactory.closeRemainingDatabases();
+		}
+	}
+	
+	/**
+	 * A Monte Carlo scenario is only complete if every instance succeeded and the aggregation ran
+	 */
+	private void checkpointMonteCarloScenario(ScenarioExecution scenario, List<MonteCarloStatusReportRecord> statuses, int total, Job mcAggregationJob, long start) {
+		int successes = countSuccesses(statuses);
+		boolean success = successes == total && mcAggregationJob.isCompleted();
+		checkpointScenario(scenario, success, (System.currentTimeMillis() - start) / 1000.0, success ? "" : successes + "/" + total + " Monte Carlo instances succeeded");
+	}
+	
+	private static int resolveMaxThreads(ExecutorService executor) {
+		if (executor instanceof ThreadPoolExecutor) {
+			return Math.max(((ThreadPoolExecutor)executor).getMaximumPoolSize(), 1);
+		}
+		return 1;
+	}
+	
+	private static int countSuccesses(List<MonteCarloStatusReportRecord> mcStatusReport) {
+		int successes = 0;
+		for (MonteCarloStatusReportRecord rec : mcStatusReport) {
+			if (rec.isSuccess()) {
+				successes++;
+			}
+		}
+		return successes;
+	}
+	
+	private void reportMonteCarloStatus(List<MonteCarloStatusReportRecord> mcStatusReport, int total) throws DataAccessException {
+		if (this.workerEntries != null) {
+			// The coordinator reports the instances of every worker together
+			return;
+		}
+        int successes = countSuccesses(mcStatusReport);
+        
+        // Finally, print the MC status report
+        AdHocDataAccess.dumpData(this.batchName, mcStatusReport, true);
+
+        // ...and the log summary
+        if (successes == total) {
+        	logger.info(successes + "/" + total + " Monte Carlo instances succeeded.");
+        } else {
+        	logger.error(successes + "/" + total + " Monte Carlo instances succeeded.");
+        	logger.error("Aggregate results are corrupted by the absence of expected data points.");
+        	logger.error("Check 'MonteCarloStatusReportRecord.dmp' file in report folder for failed runs.");
+        }
+	}
+	
+	/**
+	 * Takes Jobs from the front of the list, so that each can be collected once it has run
+	 */
+	static JobSource jobSource(final List<Job> jobs) {
+		return new JobSource() {
+			@Override
+			public boolean hasNext() {
+				return !jobs.isEmpty();
+			}
+			
+			@Override
+			public Job next() {
+				return jobs.remove(0);
+			}
+		};
+	}
+	
+	/**
+	 * Executes the Monte Carlo instance Jobs and waits for them through a CompletionService, keeping at most window Jobs
+	 * submitted but not completed; further Jobs are only taken from the source as earlier ones complete. After each instance
+	 * completes, the reduce tasks that implement IncrementalReduce fold whatever it streamed to them, so instance outputs are
+	 * released as the batch progresses instead of being queued until every instance has finished. Other reduce tasks still
+	 * receive every output when they run.
+	 * 
+	 * @param reduceTasks the Monte Carlo aggregation tasks; this may be a live view that grows as instances are created
+	 * @return the instances' status records in the order they were taken from the source; instances that had not completed
+	 * within the timeout are omitted
+	 */
+	static List<MonteCarloStatusReportRecord> awaitInstances(ExecutorService executor, JobSource instances, Collection<? extends AbstractTask> reduceTasks, int window, long timeout, TimeUnit unit) 
+			throws InterruptedException, ExecutionException, DataAccessException {
+		CompletionService<MonteCarloStatusReportRecord> completion = new ExecutorCompletionService<MonteCarloStatusReportRecord>(executor);
+		Map<Future<MonteCarloStatusReportRecord>, Integer> order = new HashMap<Future<MonteCarloStatusReportRecord>, Integer>();
+		List<MonteCarloStatusReportRecord> statuses = new ArrayList<MonteCarloStatusReportRecord>();
+		
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		int completed = 0;
+		while (completed < statuses.size() || instances.hasNext()) {
+			while (instances.hasNext() && statuses.size() - completed < window) {
+				order.put(completion.submit((Callable<MonteCarloStatusReportRecord>) instances.next()), statuses.size());
+				statuses.add(null);
+			}
+			
+			Future<MonteCarloStatusReportRecord> done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			if (done == null) {
+				logger.error("Timed out with " + (statuses.size() - completed) + " Monte Carlo instances still running.");
+				break;
+			}
+			statuses.set(order.remove(done), done.get());
+			completed++;
+			
+			for (AbstractTask task : reduceTasks) {
+				if (task instanceof IncrementalReduce) {
+					((IncrementalReduce) task).reduceAvailable();
+				}
+			}
+			logger.debug(completed + " Monte Carlo instances completed.");
+		}
+		
+		List<MonteCarloStatusReportRecord> retVal = new ArrayList<MonteCarloStatusReportRecord>();
+		for (MonteCarloStatusReportRecord status : statuses) {
+			if (status != null) {
+				retVal.add(status);
+			}
+		}
+		return retVal;
+	}
+	
     /**
      * Starting from the end of this tasks' list, removes any disabled tasks.  If task is enabled, checks to make sure any data inputs have a valid data source.
      * If no data source is provided by user or provided data source is a disabled task, searches for first upstream task providing the data and uses that as source instead.
@@ -707,34 +1316,20 @@ public class Batch {
 
     /**
      * To avoid redundant loading of static data, FileDataDescriptors are given special handling.
-     * During scenario initialization, the data is loaded and linked to this Batch as the data
-     * source for an IntermediateDataDescriptor. Any task referencing the FileDataDescriptor is
-     * rerouted to the intermediate data by this method.
+     * Any task referencing the FileDataDescriptor is linked to a batch-wide read-only marshaller
+     * that parses the underlying file the first time it is loaded and serves the parsed records to
+     * every subsequent scenario.
      * 
      * @param descriptor
      * @return
      * @throws DataAccessException
      */
     public DataMarshaller loadStaticData(DataDescriptor descriptor) throws DataAccessException {
-//        IntermediateDataDescriptor newDescriptor = new IntermediateDataDescriptor();
-//        newDescriptor.setDataSource(this);
-//        newDescriptor.setDataType(descriptor.getDataType());
-//        newDescriptor.setPersistent(false); // Hold in memory
-//
-//        // Check to see if it has already been loaded
-//        if (!dao.exists(newDescriptor)) {
-//            List<?> data = new ArrayList();
-//            dao.load(descriptor, data);
-//            dao.save(newDescriptor, data);
-//        }
-//
-//        return dao.getMarshaller(newDescriptor);
-        
-    	// XXX: Loading all static data takes less than 3 seconds, which does not meaningfully impact run time
-    	// But it does expose risk of data corruption from one instance to the next because the objects in the
-    	// collection aren't necessarily immutable. This should be revisited if/when the data layer is revised
-    	// to use a different storage medium (i.e. database)
-        return dao.getMarshaller(descriptor);
+    	// XXX: Sharing parsed records exposes risk of data corruption from one instance to the next because the
+    	// objects in the collection aren't necessarily immutable (e.g. ForecastTripDistributionDataLoader re-dates
+    	// ScheduleRecords in place). StaticDataMarshaller copies records whose type has a copy constructor on every
+    	// load; any other static type that a task modifies needs a copy constructor too.
+        return dao.getStaticMarshaller(descriptor);
     }
 
     /**
@@ -808,11 +1403,25 @@ public class Batch {
      * @throws DataAccessException
      */
     private ConfigurationCache loadConfigurationCache() throws DataAccessException {
+    	return loadConfigurationCache(configurationCacheOf(this.workerId));
+    }
+    
+    private ConfigurationCache loadConfigurationCache(FileDataDescriptor descriptor) throws DataAccessException {
+    	checkConfigurationCacheFormat(this.dao.getAbsoluteFile(descriptor), this.indexedConfigurationCache);
+    	if (this.indexedConfigurationCache) {
+    		File file = this.dao.getAbsoluteFile(descriptor);
+    		try {
+    			return ConfigurationCache.open(file);
+    		} catch (IOException ex) {
+    			throw new DataAccessException("Configuration cache " + file + " could not be opened", ex);
+    		}
+    	}
+    	
     	// Just in case, we don't want to crash the simulation because we can't find the cache
-    	this.configurationCache.setFaultTolerant(true);
+    	descriptor.setFaultTolerant(true);
     	
 		List<ConfigurationCache> cache = new ArrayList<ConfigurationCache>();
-		this.dao.load(this.configurationCache, cache);
+		this.dao.load(descriptor, cache);
 		
 		// File may not exist, in which case we create a new one
 		if (cache.size() == 0)
@@ -823,11 +1432,258 @@ public class Batch {
 	}
 	
     /**
-     * Saves the cache
+     * Refuses a configuration cache written in the other format. An XML cache opened as an indexed one would have its
+     * records discarded while the index is rebuilt, and an indexed cache loaded as XML would be read as empty, so that
+     * REPLAY silently finds nothing.
+     */
+    static void checkConfigurationCacheFormat(File file, boolean indexed) throws DataAccessException {
+    	if (!file.isFile() || file.length() == 0) {
+    		return;
+    	}
+    	boolean xml;
+    	try {
+    		xml = startsWithMarkup(file);
+    	} catch (IOException ex) {
+    		throw new DataAccessException("Configuration cache " + file + " could not be read", ex);
+    	}
+    	if (indexed && xml) {
+    		throw new DataAccessException("Configuration cache " + file + " is an XML document but indexedConfigurationCache is true. "
+    				+ "Set indexedConfigurationCache to false to use it, or give the configurationCache a new resourceName to start an indexed cache");
+    	}
+    	if (!indexed && !xml) {
+    		throw new DataAccessException("Configuration cache " + file + " is not an XML document but indexedConfigurationCache is false. "
+    				+ "If it is an indexed cache, set indexedConfigurationCache to true to use it");
+    	}
+    }
+    
+    /**
+     * @return true if the first character of the file, after any byte order mark and whitespace, is '<'
+     */
+    private static boolean startsWithMarkup(File file) throws IOException {
+    	InputStream in = new BufferedInputStream(new FileInputStream(file));
+    	try {
+    		int b = in.read();
+    		if (b == 0xEF) {
+    			// UTF-8 byte order mark
+    			in.skip(2);
+    			b = in.read();
+    		}
+    		while (b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+    			b = in.read();
+    		}
+    		return b == '<';
+    	} finally {
+    		in.close();
+    	}
+    }
+    
+    /**
+     * Saves the cache. An indexed cache has already been appended instance by instance, so it is only closed
      * @param cache
      * @throws DataAccessException
      */
     private void saveConfigurationCache(ConfigurationCache cache) throws DataAccessException {
-		this.dao.save(this.configurationCache, Arrays.asList(new ConfigurationCache[] { cache }));
+    	if (cache.isIndexed()) {
+    		closeConfigurationCache(cache);
+    	} else {
+    		this.dao.save(configurationCacheOf(this.workerId), Arrays.asList(new ConfigurationCache[] { cache }));
+    	}
+	}
+    
+    private void closeConfigurationCache(ConfigurationCache cache) throws DataAccessException {
+    	try {
+    		cache.close();
+    	} catch (IOException ex) {
+    		throw new DataAccessException("Configuration cache " + this.configurationCache + " could not be closed", ex);
+    	}
+    }
+    
+    /**
+     * Worker processes write their own configuration caches, which the coordinator merges into the batch's once they exit
+     * @param workerId -1 for the batch's own cache
+     */
+    private FileDataDescriptor configurationCacheOf(int workerId) {
+    	if (workerId < 0) {
+    		return this.configurationCache;
+    	}
+    	FileDataDescriptor descriptor = new FileDataDescriptor(this.configurationCache);
+    	descriptor.setResourceName(this.configurationCache.getResourceName() + ".worker" + workerId);
+    	return descriptor;
+    }
+    
+    private void mergeWorkerConfigurationCaches(List<Integer> workerIds) throws DataAccessException {
+    	ConfigurationCache cache = loadConfigurationCache();
+    	for (Integer workerId : workerIds) {
+    		FileDataDescriptor descriptor = configurationCacheOf(workerId);
+    		File file = this.dao.getAbsoluteFile(descriptor);
+    		if (!file.exists()) {
+    			continue;
+    		}
+    		ConfigurationCache workerCache = loadConfigurationCache(descriptor);
+    		try {
+    			cache.merge(workerCache);
+    		} catch (IOException ex) {
+    			throw new DataAccessException("Configuration cache of worker " + workerId + " could not be merged", ex);
+    		}
+    		closeConfigurationCache(workerCache);
+    		file.delete();
+    		new File(file.getPath() + IndexedConfigurationFile.INDEX_SUFFIX).delete();
+    	}
+    	logger.info("Worker configuration caches merged; saving configuration cache to " + this.configurationCache.toString());
+    	saveConfigurationCache(cache);
+    }
+    
+	/**
+	 * Runs each scenario in a worker JVM of its own heap (see WorkerPool), at most workerProcesses at a time. This JVM
+	 * coordinates: it journals what the workers report, and collects their task metrics, Monte Carlo status records and
+	 * configuration caches into the batch's own reports.
+	 */
+	private void executeOnWorkers() throws Exception {
+		List<String> jvmArguments = new ArrayList<String>();
+		for (String argument : this.workerJvmArguments.trim().split("\\s+")) {
+			if (!argument.isEmpty()) {
+				jvmArguments.add(argument);
+			}
+		}
+		logger.info("Running scenarios in up to " + this.workerProcesses + " worker processes " + jvmArguments);
+		
+		WorkerPool pool = new WorkerPool(this.batchName, this.workerProcesses, jvmArguments);
+		List<MonteCarloStatusReportRecord> mcStatusReport = new ArrayList<MonteCarloStatusReportRecord>();
+		int total = 0;
+		try {
+			List<WorkerPool.Assignment> assignments = new ArrayList<WorkerPool.Assignment>();
+			List<Long> costs = new ArrayList<Long>();
+			for (String classifier : this.classifiers) {
+				for (Timestamp baseDate : this.baseDates) {
+					for (Integer forecastFiscalYear : this.forecastFiscalYears) {
+						ScenarioExecution exec = new ScenarioExecution(this, baseDate, forecastFiscalYear, classifier);
+						if (skipCompletedScenario(exec)) {
+							continue;
+						}
+						assignments.add(new WorkerPool.Assignment(classifier, baseDate, forecastFiscalYear, exec.getScenarioName(), exec.getScenarioId()));
+						costs.add(this.jobCosts == null ? 0L : predictCost(exec));
+						if (this.monteCarloMode == MonteCarloMode.ON) {
+							total += this.sampleSize * this.innerLoopCount;
+						}
+					}
+				}
+			}
+			
+			if (this.jobCosts != null) {
+				JobCostModel.sortLongestFirst(assignments, costs);
+			}
+			for (WorkerPool.Assignment assignment : assignments) {
+				pool.submit(assignment);
+			}
+			
+			for (int i = 0; i < assignments.size(); i++) {
+				WorkerPool.Report report = pool.take();
+				for (CheckpointJournal.Entry entry : report.getEntries()) {
+					checkpoint(entry);
+					if (this.jobCosts != null && entry.getKind() == CheckpointJournal.Kind.SCENARIO && entry.isSuccess()) {
+						this.jobCosts.recordActual(entry.getScenarioName(), Math.round(entry.getRunTime() * 1000));
+					}
+					if (entry.getKind() == CheckpointJournal.Kind.INSTANCE) {
+						MonteCarloStatusReportRecord status = new MonteCarloStatusReportRecord();
+						status.setScenarioExecutionId(entry.getId());
+						status.setRunTime(entry.getRunTime());
+						status.setSuccess(entry.isSuccess());
+						status.setErrorMessage(entry.getErrorMessage());
+						mcStatusReport.add(status);
+					} else if (!entry.isSuccess()) {
+						logger.error("Scenario " + entry.getScenarioName() + " failed: " + entry.getErrorMessage());
+					}
+				}
+				if (this.metrics != null) {
+					this.metrics.addAll(report.getMetrics());
+				}
+			}
+		} catch (InterruptedException ex) {
+			logger.fatal("Thread interrupted.", ex);
+			Thread.currentThread().interrupt();
+		} finally {
+			pool.close();
+		}
+		
+		if (this.monteCarloMode == MonteCarloMode.ON) {
+			mergeWorkerConfigurationCaches(pool.getWorkerIds());
+			reportMonteCarloStatus(mcStatusReport, total);
+		}
+	}
+	
+	/**
+	 * Runs as a worker process of a coordinating Batch (see WorkerPool): connects to it, then runs each scenario it sends
+	 * until it has no more.
+	 */
+	public void runWorker(ScenarioApplicationContext ctx, int port, int workerId) {
+		this.workerId = workerId;
+		this.workerEntries = new ArrayList<CheckpointJournal.Entry>();
+		WorkerPool.Connection connection = null;
+		try {
+			connection = new WorkerPool.Connection(port, workerId, WorkerPool.Connection.readToken(System.in));
+			prepareRun(ctx);
+			
+			WorkerPool.Assignment assignment;
+			while ((assignment = connection.next()) != null) {
+				WorkerPool.Report report = runAssignment(ctx, assignment);
+				connection.send(report);
+				if (report.isFatal()) {
+					break;
+				}
+			}
+		} catch (Exception ex) {
+			logger.fatal("Worker " + workerId + " of " + this.batchName + " failed: " + ex.getMessage(), ex);
+		} finally {
+			if (connection != null) {
+				try {
+					connection.close();
+				} catch (IOException ex) {
+					logger.debug("Error closing worker connection: " + ex.getMessage());
+				}
+			}
+		}
+	}
+	
+	private WorkerPool.Report runAssignment(ScenarioApplicationContext ctx, WorkerPool.Assignment assignment) {
+		logger.info("Worker " + this.workerId + " running scenario " + assignment.getScenarioName());
+		this.classifiers = new BatchClassifier();
+		this.classifiers.add(assignment.getClassifier());
+		this.baseDates = new BatchTimestamp();
+		this.baseDates.add(assignment.getBaseDate());
+		this.forecastFiscalYears = new BatchFiscalYear();
+		this.forecastFiscalYears.add(assignment.getForecastFiscalYear());
+		this.workerEntries.clear();
+		this.metrics = this.taskMetrics ? new TaskMetrics() : null;
+		
+		long start = System.currentTimeMillis();
+		String errorMessage = null;
+		boolean fatal = false;
+		try {
+			if (this.monteCarloMode == MonteCarloMode.ON && this.lazyJobCreation) {
+				executeMonteCarloLazily();
+			} else {
+				execute(fillExecutionQueue(ctx));
+			}
+		} catch (OutOfMemoryError e) {
+			// The heap can't be trusted any more, so this worker exits and the coordinator starts another
+			errorMessage = "Out of memory";
+			fatal = true;
+		} catch (Exception ex) {
+			logger.error("Error running scenario " + assignment.getScenarioName() + ": " + ex.getMessage(), ex);
+			errorMessage = (ex.getMessage() == null) ? ex.toString() : ex.getMessage();
+		}
+		
+		List<CheckpointJournal.Entry> entries = new ArrayList<CheckpointJournal.Entry>(this.workerEntries);
+		boolean reported = false;
+		for (CheckpointJournal.Entry entry : entries) {
+			reported |= entry.getKind() == CheckpointJournal.Kind.SCENARIO;
+		}
+		if (!reported || errorMessage != null) {
+			entries.add(new CheckpointJournal.Entry(CheckpointJournal.Kind.SCENARIO, assignment.getScenarioName(), assignment.getScenarioId(), false,
+					(System.currentTimeMillis() - start) / 1000.0, errorMessage == null ? "Scenario did not complete" : errorMessage, null));
+		}
+		List<TaskMetrics.Record> records = (this.metrics == null) ? Collections.<TaskMetrics.Record> emptyList() : this.metrics.getRecords();
+		this.metrics = null;
+		return new WorkerPool.Report(entries, records, fatal);
 	}
 }
@@ -0,0 +1,240 @@
+package gov.faa.ang.swac.controller.core;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Durable record of the work a Batch has completed, so that an interrupted batch can be resumed without repeating it.
+ * Each completed scenario is journaled along with the output files it wrote; Monte Carlo instances are journaled with
+ * their status. The journal is append-only with one record per line, and each record carries a checksum and is forced
+ * to disk before the next piece of work is reported complete. A record that was only partly written when the process
+ * died fails its checksum and is ignored on the next read.
+ * 
+ * @author csmith
+ *
+ */
+public class CheckpointJournal implements Closeable {
+	private static final Logger logger = LogManager.getLogger(CheckpointJournal.class);
+	
+	public static final String FILE_NAME = "checkpoint.journal";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String SEPARATOR = "\t";
+	private static final String LIST_SEPARATOR = "|";
+	
+	public enum Kind { SCENARIO, INSTANCE }
+	
+	public static class Entry {
+		private final Kind kind;
+		private final String scenarioName;
+		private final int id;
+		private final boolean success;
+		private final double runTime;
+		private final String errorMessage;
+		private final List<String> outputs;
+		
+		public Entry(Kind kind, String scenarioName, int id, boolean success, double runTime, String errorMessage, List<String> outputs) {
+			this.kind = kind;
+			this.scenarioName = scenarioName;
+			this.id = id;
+			this.success = success;
+			this.runTime = runTime;
+			this.errorMessage = (errorMessage == null) ? "" : errorMessage;
+			this.outputs = (outputs == null) ? Collections.<String> emptyList() : outputs;
+		}
+		
+		public Kind getKind() {
+			return this.kind;
+		}
+		
+		public String getScenarioName() {
+			return this.scenarioName;
+		}
+		
+		/**
+		 * @return the scenarioId of a SCENARIO entry or the instanceId of an INSTANCE entry
+		 */
+		public int getId() {
+			return this.id;
+		}
+		
+		public boolean isSuccess() {
+			return this.success;
+		}
+		
+		/**
+		 * @return seconds
+		 */
+		public double getRunTime() {
+			return this.runTime;
+		}
+		
+		public String getErrorMessage() {
+			return this.errorMessage;
+		}
+		
+		/**
+		 * @return absolute paths of the files the scenario wrote
+		 */
+		public List<String> getOutputs() {
+			return this.outputs;
+		}
+		
+		String format() {
+			StringBuilder outputList = new StringBuilder();
+			for (String output : this.outputs) {
+				if (outputList.length() > 0) {
+					outputList.append(LIST_SEPARATOR);
+				}
+				outputList.append(clean(output));
+			}
+			return this.kind + SEPARATOR + clean(this.scenarioName) + SEPARATOR + this.id + SEPARATOR + this.success + SEPARATOR 
+					+ this.runTime + SEPARATOR + clean(this.errorMessage) + SEPARATOR + outputList;
+		}
+		
+		static Entry parse(String record) {
+			String[] fields = record.split(SEPARATOR, -1);
+			if (fields.length != 7) {
+				throw new IllegalArgumentException("Expected 7 fields: " + record);
+			}
+			List<String> outputs = new ArrayList<String>();
+			if (!fields[6].isEmpty()) {
+				Collections.addAll(outputs, fields[6].split("\\" + LIST_SEPARATOR));
+			}
+			return new Entry(Kind.valueOf(fields[0]), fields[1], Integer.parseInt(fields[2]), Boolean.parseBoolean(fields[3]), 
+					Double.parseDouble(fields[4]), fields[5], outputs);
+		}
+		
+		// Separators and line breaks can't appear inside a field
+		private static String clean(String field) {
+			return field.replace(SEPARATOR, " ").replace(LIST_SEPARATOR, " ").replace('\n', ' ').replace('\r', ' ');
+		}
+	}
+	
+	private final File file;
+	private final FileOutputStream out;
+	private final Map<String, Entry> scenarios = new HashMap<String, Entry>();
+	private final List<Entry> entries = new ArrayList<Entry>();
+	
+	/**
+	 * @param resume if true, existing records are read and new ones appended; otherwise the journal is started afresh
+	 */
+	public CheckpointJournal(File file, boolean resume) throws IOException {
+		this.file = file;
+		if (resume && file.exists()) {
+			read();
+			logger.info("Read " + this.entries.size() + " checkpoint records from " + file);
+		}
+		boolean terminate = resume && endsWithPartialRecord(file);
+		this.out = new FileOutputStream(file, resume);
+		if (terminate) {
+			// Don't let the next record run into the remains of a partial one
+			this.out.write('\n');
+		}
+	}
+	
+	private static boolean endsWithPartialRecord(File file) throws IOException {
+		if (!file.exists() || file.length() == 0) {
+			return false;
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			raf.seek(raf.length() - 1);
+			return raf.read() != '\n';
+		} finally {
+			raf.close();
+		}
+	}
+	
+	private void read() throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(this.file), UTF8));
+		try {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				int split = line.indexOf(SEPARATOR);
+				try {
+					if (split < 0 || Long.parseLong(line.substring(0, split), 16) != checksum(line.substring(split + 1))) {
+						throw new IllegalArgumentException("Checksum mismatch");
+					}
+					add(Entry.parse(line.substring(split + 1)));
+				} catch (IllegalArgumentException ex) {
+					logger.warn("Ignoring incomplete checkpoint record at line " + lineNumber + " of " + this.file);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+	
+	private void add(Entry entry) {
+		this.entries.add(entry);
+		if (entry.getKind() == Kind.SCENARIO) {
+			// The latest record for a scenario supersedes earlier ones
+			this.scenarios.put(entry.getScenarioName(), entry);
+		}
+	}
+	
+	private static long checksum(String record) {
+		CRC32 crc = new CRC32();
+		crc.update(record.getBytes(UTF8));
+		return crc.getValue();
+	}
+	
+	public File getFile() {
+		return this.file;
+	}
+	
+	public synchronized List<Entry> getEntries() {
+		return new ArrayList<Entry>(this.entries);
+	}
+	
+	/**
+	 * Durably append a record
+	 */
+	public synchronized void record(Entry entry) throws IOException {
+		String record = entry.format();
+		this.out.write((Long.toHexString(checksum(record)) + SEPARATOR + record + "\n").getBytes(UTF8));
+		this.out.flush();
+		this.out.getChannel().force(false);
+		add(entry);
+	}
+	
+	/**
+	 * @return true if the scenario's latest record is a success and every output file it recorded still exists
+	 */
+	public synchronized boolean isComplete(String scenarioName) {
+		Entry entry = this.scenarios.get(scenarioName);
+		if (entry == null || !entry.isSuccess()) {
+			return false;
+		}
+		for (String output : entry.getOutputs()) {
+			if (!new File(output).exists()) {
+				logger.warn("Output of completed scenario " + scenarioName + " is missing: " + output);
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		this.out.close();
+	}
+}
@@ -6,12 +6,24 @@
 package gov.faa.ang.swac.controller.core;
 
 import gov.faa.ang.swac.datalayer.MappedDataAccess;
+import gov.faa.ang.swac.datalayer.storage.DataMarshaller;
 import gov.faa.ang.swac.datalayer.storage.MemoryMarshaller;
 import gov.faa.ang.swac.datalayer.storage.StreamingDataMarshaller;
 import gov.faa.ang.swac.datalayer.storage.db.JDBCConnectionFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
@@ -19,6 +31,17 @@ import org.apache.log4j.Logger;
 /**
  * Grouping of tasks that can be sent out for parallel processing independently of other jobs.
  * 
+ * By default tasks run one at a time in list order. With a task parallelism greater than one, the Job orders tasks by
+ * the intermediate data that TaskConfiguration linked them to: a task waits for the producers of its inputs (and for
+ * earlier readers and writers of its outputs), tasks using data access objects run in list order with respect to each
+ * other, and tasks without recorded linkage are barriers that wait for everything before them and hold back everything
+ * after them. Ready tasks are started in list order on a pool of that many threads.
+ * 
+ * A task that the batch's result cache has keyed is restored from the cache instead of running when an earlier run
+ * stored its outputs, and has its outputs stored after running otherwise.
+ * 
+ * Given a TaskMetrics registry, the Job records itself and each of its tasks in it.
+ * 
  * @author csmith
  *
  */
@@ -28,6 +51,12 @@ public class Job extends Vector<AbstractTask> implements Runnable, Callable<Mont
     private final JDBCConnectionFactory connection;
     private final MappedDataAccess mda; 
     private Integer instanceId = null;
+    private Integer scenarioId = null;
+    private int taskParallelism = 1;
+    private transient TaskMemoryMonitor memoryMonitor;
+    private transient TaskMetrics taskMetrics;
+    private final List<TaskMetrics.Record> taskRecords = Collections.synchronizedList(new ArrayList<TaskMetrics.Record>());
+    private volatile boolean completed = false;
     
     public Job() {
         super();
@@ -45,6 +74,59 @@ public class Job extends Vector<AbstractTask> implements Runnable, Callable<Mont
         this.instanceId = instanceId;
     }
     
+    /**
+     * Jobs created by the same ScenarioExecution share a scenarioId. They depend on each other's
+     * intermediate data and must execute in queue order, whereas Jobs with different scenarioIds
+     * are independent.
+     */
+    public Integer getScenarioId() {
+        return this.scenarioId;
+    }
+    
+    public void setScenarioId(int scenarioId) {
+        this.scenarioId = scenarioId;
+    }
+    
+    public int getTaskParallelism() {
+        return this.taskParallelism;
+    }
+    
+    /**
+     * @param taskParallelism maximum number of this Job's tasks to run at once; 1 or less runs them in list order
+     */
+    public void setTaskParallelism(int taskParallelism) {
+        this.taskParallelism = taskParallelism;
+    }
+    
+    public TaskMemoryMonitor getMemoryMonitor() {
+        return this.memoryMonitor;
+    }
+    
+    /**
+     * @param memoryMonitor notified as each task starts and finishes so that it can learn their heap footprints; may be null
+     */
+    public void setMemoryMonitor(TaskMemoryMonitor memoryMonitor) {
+        this.memoryMonitor = memoryMonitor;
+    }
+    
+    public TaskMetrics getTaskMetrics() {
+        return this.taskMetrics;
+    }
+    
+    /**
+     * @param taskMetrics registry to record this Job and each of its tasks in; may be null
+     */
+    public void setTaskMetrics(TaskMetrics taskMetrics) {
+        this.taskMetrics = taskMetrics;
+    }
+    
+    /**
+     * @return true once every task has run without aborting
+     */
+    public boolean isCompleted() {
+        return this.completed;
+    }
+    
 	@Override
 	public void run() {
 		try {
@@ -87,6 +169,9 @@ public class Job extends Vector<AbstractTask> implements Runnable, Callable<Mont
 	}
 	
 	private void execute() throws Exception {
+		TaskMetrics metrics = this.taskMetrics;
+		TaskMetrics.Sample start = (metrics == null) ? null : metrics.start();
+		String scenarioName = isEmpty() ? null : scenarioName(get(0));
 		try {
 			if (this.connection != null && this.instanceId != null){
 				logger.debug("Initializing Db for instanceId=" + this.instanceId);
@@ -94,23 +179,26 @@ public class Job extends Vector<AbstractTask> implements Runnable, Callable<Mont
 			}		
 		
 			
-	        while (!isEmpty()) {
-	            AbstractTask t = remove(0);
-	            
-	            t.runWithCleanup();
-	            if (t.abort != null) {
-	                throw t.abort;
-	            }
-	            
-	            // HK: Do not invoke Garbage Collection as it stops all Threads from executing after each Task.
-	            // TODO: In search of memory leaks!
-	            t = null;
-	            
-	            logger.debug("In-memory collections referenced by data layer:");
-	            MemoryMarshaller.logIntermediateDataUsage();
-	            StreamingDataMarshaller.logIntermediateDataUsage();
-	            logger.debug("Free memory remaining=" + Runtime.getRuntime().freeMemory() + " bytes");
-	        }
+			if (this.taskParallelism > 1 && size() > 1) {
+				executeGraph();
+			} else {
+		        while (!isEmpty()) {
+		            AbstractTask t = remove(0);
+		            t.clearLinkage();
+		            
+		            runTask(t);
+		            if (t.abort != null) {
+		                throw t.abort;
+		            }
+		            
+		            // HK: Do not invoke Garbage Collection as it stops all Threads from executing after each Task.
+		            // TODO: In search of memory leaks!
+		            t = null;
+		            
+		            logDataUsage();
+		        }
+			}
+			this.completed = true;
 	        
 		} finally {
 			if (this.connection != null && this.instanceId != null) {
@@ -120,9 +208,210 @@ public class Job extends Vector<AbstractTask> implements Runnable, Callable<Mont
 			
 	        while (!isEmpty()) { //cleanup in case Job exits prematurely.
 	            AbstractTask t = remove(0);
+	            t.clearLinkage();
 	            t.cleanup();
 	            t = null;
 	        }
+	        
+	        if (metrics != null) {
+	        	metrics.finishJob(start, scenarioName, this.instanceId, "Job", this.taskRecords);
+	        }
 		}
     }
+	
+	private static String scenarioName(AbstractTask t) {
+		return (t.getParent() == null) ? null : t.getParent().getScenarioName();
+	}
+	
+	private static void logDataUsage() {
+        logger.debug("In-memory collections referenced by data layer:");
+        MemoryMarshaller.logIntermediateDataUsage();
+        StreamingDataMarshaller.logIntermediateDataUsage();
+        logger.debug("Free memory remaining=" + Runtime.getRuntime().freeMemory() + " bytes");
+	}
+	
+	/**
+	 * Builds the task dependency graph from the recorded linkage, then runs tasks as their dependencies complete.
+	 * Tasks are removed from this Job as they are started, so anything left over on failure is cleaned up by execute.
+	 * Intermediate data is only referenced by the tasks linked to it, so it becomes unreachable once its producer and
+	 * last consumer have finished and cleaned up.
+	 */
+	private void executeGraph() throws Exception {
+		final List<AbstractTask> tasks = new ArrayList<AbstractTask>(this);
+		int n = tasks.size();
+		
+		int[] waitingOn = new int[n];
+		List<List<Integer>> dependents = new ArrayList<List<Integer>>(n);
+		for (int i = 0; i < n; i++) {
+			dependents.add(new ArrayList<Integer>());
+		}
+		
+		Map<DataMarshaller, Integer> producers = new IdentityHashMap<DataMarshaller, Integer>();
+		Map<DataMarshaller, List<Integer>> consumers = new IdentityHashMap<DataMarshaller, List<Integer>>();
+		int lastBarrier = -1;
+		int lastDataAccess = -1;
+		for (int i = 0; i < n; i++) {
+			AbstractTask t = tasks.get(i);
+			boolean[] after = new boolean[i];
+			
+			if (!t.isLinked()) {
+				for (int j = 0; j < i; j++) {
+					after[j] = true;
+				}
+				lastBarrier = i;
+			} else {
+				if (lastBarrier >= 0) {
+					after[lastBarrier] = true;
+				}
+				if (t.isUsingDataAccessObjects()) {
+					if (lastDataAccess >= 0) {
+						after[lastDataAccess] = true;
+					}
+					lastDataAccess = i;
+				}
+				for (DataMarshaller m : t.getIntermediateInputs()) {
+					Integer producer = producers.get(m);
+					if (producer != null) {
+						after[producer] = true;
+					}
+					List<Integer> readers = consumers.get(m);
+					if (readers == null) {
+						readers = new ArrayList<Integer>();
+						consumers.put(m, readers);
+					}
+					readers.add(i);
+				}
+				for (DataMarshaller m : t.getIntermediateOutputs()) {
+					Integer producer = producers.get(m);
+					if (producer != null) {
+						after[producer] = true;
+					}
+					List<Integer> readers = consumers.get(m);
+					if (readers != null) {
+						for (int j : readers) {
+							if (j != i) {
+								after[j] = true;
+							}
+						}
+					}
+					producers.put(m, i);
+				}
+			}
+			t.clearLinkage();
+			
+			for (int j = 0; j < i; j++) {
+				if (after[j]) {
+					waitingOn[i]++;
+					dependents.get(j).add(i);
+				}
+			}
+		}
+		producers = null;
+		consumers = null;
+		
+		int nThreads = Math.min(this.taskParallelism, n);
+		logger.debug("Executing " + n + " tasks on up to " + nThreads + " threads");
+		ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+		CompletionService<Integer> completion = new ExecutorCompletionService<Integer>(executor);
+		int running = 0;
+		try {
+			for (int i = 0; i < n; i++) {
+				if (waitingOn[i] == 0) {
+					submit(completion, tasks, i);
+					running++;
+				}
+			}
+			
+			int finished = 0;
+			while (running > 0) {
+				int i;
+				try {
+					i = completion.take().get();
+				} catch (ExecutionException ex) {
+					if (ex.getCause() instanceof Exception) {
+						throw (Exception) ex.getCause();
+					}
+					throw new IllegalStateException(ex.getCause());
+				}
+				running--;
+				finished++;
+				
+				AbstractTask t = tasks.get(i);
+				tasks.set(i, null);
+				if (t.abort != null) {
+					throw t.abort;
+				}
+				t = null;
+				logDataUsage();
+				
+				for (int d : dependents.get(i)) {
+					if (--waitingOn[d] == 0) {
+						submit(completion, tasks, d);
+						running++;
+					}
+				}
+			}
+			
+			if (finished < n) {
+				throw new IllegalStateException("Task dependency graph could not be completed: " + (n - finished) + " tasks never became ready");
+			}
+		} finally {
+			executor.shutdownNow();
+			// Let running tasks finish before the remaining tasks are cleaned up
+			while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+				logger.warn("Waiting for running tasks to finish");
+			}
+		}
+	}
+	
+	private void submit(CompletionService<Integer> completion, List<AbstractTask> tasks, final int i) {
+		final AbstractTask t = tasks.get(i);
+		remove(t);
+		completion.submit(new Callable<Integer>() {
+			@Override
+			public Integer call() {
+				runTask(t);
+				return i;
+			}
+		});
+	}
+	
+	private void runTask(AbstractTask t) {
+		TaskMetrics metrics = this.taskMetrics;
+		TaskMetrics.Sample start = (metrics == null) ? null : metrics.start();
+		TaskMemoryMonitor monitor = this.memoryMonitor;
+		if (monitor != null) {
+			monitor.taskStarted(t);
+		}
+		try {
+			runOrRestore(t);
+		} finally {
+			if (monitor != null) {
+				monitor.taskFinished(t);
+			}
+			if (metrics != null) {
+				this.taskRecords.add(metrics.finishTask(start, scenarioName(t), this.instanceId, t.getTaskName()));
+			}
+		}
+	}
+	
+	/**
+	 * Satisfy the task from the result cache if an earlier run stored its outputs; otherwise run it and store them
+	 */
+	private static void runOrRestore(AbstractTask t) {
+		ResultCache.Entry cached = t.getCachedResult();
+		t.setCachedResult(null);
+		if (cached == null) {
+			t.runWithCleanup();
+			return;
+		}
+		if (cached.restore()) {
+			t.cleanup();
+			return;
+		}
+		t.runWithCleanup();
+		if (t.abort == null) {
+			cached.store();
+		}
+	}
 }
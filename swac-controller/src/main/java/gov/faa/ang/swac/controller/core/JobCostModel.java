@@ -0,0 +1,227 @@
+package gov.faa.ang.swac.controller.core;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Predicts how long each scenario of a batch will take, so that the longest can be started first and the executor
+ * isn't left waiting on one long scenario at the end of the batch.
+ *
+ * Predictions come from the wall time of earlier runs, kept in a history file between batches. A scenario that has run
+ * before is predicted from its own history; one that hasn't is predicted from the size of its input files, at the
+ * average time per byte of the scenarios in the history. With no history at all there is nothing to convert bytes to
+ * time with, so input size alone decides the order and no time is predicted.
+ *
+ * Every scenario's predicted and actual times are kept for a report at the end of the batch, and the actual times are
+ * folded into the history.
+ *
+ * @author csmith
+ *
+ */
+final class JobCostModel {
+	private static final Logger logger = LogManager.getLogger(JobCostModel.class);
+
+	public static final String HISTORY_FILE_NAME = "job-costs.csv";
+	public static final String REPORT_FILE_NAME = "job-cost-report.csv";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String SEPARATOR = ",";
+	// Weight of the latest run against the history of a scenario
+	private static final double SMOOTHING = 0.5;
+
+	private static final class History {
+		private final long millis;
+		private final long inputBytes;
+
+		History(long millis, long inputBytes) {
+			this.millis = millis;
+			this.inputBytes = inputBytes;
+		}
+	}
+
+	private static final class Cost {
+		private long inputBytes;
+		private long predictedMillis = -1;
+		private long actualMillis = -1;
+	}
+
+	private final File historyFile;
+	private final Map<String, History> history = new TreeMap<String, History>();
+	private final Map<String, Cost> costs = new LinkedHashMap<String, Cost>();
+	private final double millisPerByte;
+	private final long meanMillis;
+
+	/**
+	 * @param historyFile read now if it exists, and written by save()
+	 */
+	JobCostModel(File historyFile) {
+		this.historyFile = historyFile;
+		if (historyFile.exists()) {
+			try {
+				readHistory();
+			} catch (IOException ex) {
+				logger.warn("Job cost history " + historyFile + " could not be read; costs will be predicted from input sizes: " + ex.getMessage());
+				this.history.clear();
+			}
+		}
+
+		long millis = 0;
+		long bytes = 0;
+		for (History h : this.history.values()) {
+			millis += h.millis;
+			bytes += h.inputBytes;
+		}
+		this.millisPerByte = (bytes > 0) ? (double) millis / bytes : 0;
+		this.meanMillis = this.history.isEmpty() ? -1 : millis / this.history.size();
+	}
+
+	/**
+	 * @return the predicted wall time of the scenario in milliseconds, or -1 if there is no history to predict from
+	 */
+	synchronized long predict(String scenarioName, long inputBytes) {
+		long predicted;
+		History h = this.history.get(scenarioName);
+		if (h != null) {
+			predicted = h.millis;
+		} else if (this.millisPerByte > 0) {
+			predicted = Math.round(this.millisPerByte * inputBytes);
+		} else {
+			predicted = this.meanMillis;
+		}
+
+		Cost cost = cost(scenarioName);
+		cost.inputBytes = inputBytes;
+		cost.predictedMillis = predicted;
+		return predicted;
+	}
+
+	synchronized boolean isPredicted(String scenarioName) {
+		return this.costs.containsKey(scenarioName);
+	}
+
+	/**
+	 * Record how long a scenario actually took. Only successful runs should be recorded, since a failed run's time says
+	 * little about the next one's.
+	 */
+	synchronized void recordActual(String scenarioName, long actualMillis) {
+		cost(scenarioName).actualMillis = actualMillis;
+	}
+
+	private Cost cost(String scenarioName) {
+		Cost cost = this.costs.get(scenarioName);
+		if (cost == null) {
+			cost = new Cost();
+			this.costs.put(scenarioName, cost);
+		}
+		return cost;
+	}
+
+	/**
+	 * Sort items by decreasing cost; items of equal cost keep their order
+	 * @param costs the cost of each item, in the same order as the items
+	 */
+	static <T> void sortLongestFirst(List<T> items, final List<Long> costs) {
+		List<Integer> order = new ArrayList<Integer>();
+		for (int i = 0; i < items.size(); i++) {
+			order.add(i);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return costs.get(b).compareTo(costs.get(a));
+			}
+		});
+		List<T> sorted = new ArrayList<T>();
+		for (Integer i : order) {
+			sorted.add(items.get(i));
+		}
+		items.clear();
+		items.addAll(sorted);
+	}
+
+	/**
+	 * Fold this batch's actual times into the history and write it
+	 */
+	synchronized void save() throws IOException {
+		for (Map.Entry<String, Cost> entry : this.costs.entrySet()) {
+			Cost cost = entry.getValue();
+			if (cost.actualMillis < 0) {
+				continue;
+			}
+			History h = this.history.get(entry.getKey());
+			long millis = (h == null) ? cost.actualMillis : Math.round(SMOOTHING * cost.actualMillis + (1 - SMOOTHING) * h.millis);
+			this.history.put(entry.getKey(), new History(millis, cost.inputBytes));
+		}
+
+		this.historyFile.getParentFile().mkdirs();
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(this.historyFile), UTF8));
+		try {
+			writer.println("scenario,wallMillis,inputBytes");
+			for (Map.Entry<String, History> entry : this.history.entrySet()) {
+				writer.println(entry.getKey() + SEPARATOR + entry.getValue().millis + SEPARATOR + entry.getValue().inputBytes);
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Write the predicted and actual times of this batch's scenarios, in the order they were predicted. Times that are
+	 * not known are left blank.
+	 */
+	synchronized void writeReport(File file) throws IOException {
+		file.getParentFile().mkdirs();
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), UTF8));
+		try {
+			writer.println("scenario,inputBytes,predictedMillis,actualMillis");
+			for (Map.Entry<String, Cost> entry : this.costs.entrySet()) {
+				Cost cost = entry.getValue();
+				writer.println(entry.getKey() + SEPARATOR + cost.inputBytes + SEPARATOR + format(cost.predictedMillis) + SEPARATOR + format(cost.actualMillis));
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static String format(long millis) {
+		return (millis < 0) ? "" : String.valueOf(millis);
+	}
+
+	private void readHistory() throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(this.historyFile), UTF8));
+		try {
+			String line = reader.readLine(); // header
+			while ((line = reader.readLine()) != null) {
+				// Scenario names don't contain commas, but parse from the end in case one does
+				int second = line.lastIndexOf(SEPARATOR);
+				int first = line.lastIndexOf(SEPARATOR, second - 1);
+				if (first <= 0) {
+					continue;
+				}
+				try {
+					this.history.put(line.substring(0, first), new History(Long.parseLong(line.substring(first + 1, second)), Long.parseLong(line.substring(second + 1))));
+				} catch (NumberFormatException ex) {
+					logger.debug("Skipping invalid job cost history record: " + line);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+}
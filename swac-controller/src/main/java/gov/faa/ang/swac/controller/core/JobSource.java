@@ -0,0 +1,18 @@
+package gov.faa.ang.swac.controller.core;
+
+import gov.faa.ang.swac.datalayer.DataAccessException;
+
+/**
+ * Produces Jobs one at a time, so that a Job need not be created until there is capacity to execute it.
+ * 
+ * @author csmith
+ *
+ */
+public interface JobSource {
+	public boolean hasNext();
+	
+	/**
+	 * @throws java.util.NoSuchElementException if there are no more Jobs
+	 */
+	public Job next() throws DataAccessException;
+}
@@ -0,0 +1,149 @@
+package gov.faa.ang.swac.controller.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Fixed-size thread pool that only starts a Job when its projected heap footprint fits within a budget. A Job's
+ * footprint is projected by the {@link TaskMemoryMonitor} from the footprints its task types have had in earlier Jobs.
+ * The memory in use is the larger of the heap occupancy after the last garbage collection and the heap occupancy at
+ * startup plus the projections of the Jobs already running. A worker holds a Job until it fits; a Job is always started
+ * when nothing else is running so that the pool cannot stall.
+ * 
+ * @author csmith
+ *
+ */
+public class MemoryAwareThreadPoolExecutor extends ThreadPoolExecutor {
+	private static final Logger logger = LogManager.getLogger(MemoryAwareThreadPoolExecutor.class);
+	
+	private static final long MB = 1048576;
+	// Admission is also rechecked periodically since the live heap only changes after a garbage collection
+	private static final long RECHECK_MILLIS = 1000;
+	
+	// Admission happens when the task runs rather than in beforeExecute, since an ExecutorCompletionService wraps the
+	// task created by newTaskFor in a future of its own before handing it to execute
+	private class AdmissionTask<T> extends FutureTask<T> {
+		private final Job job;
+		
+		AdmissionTask(Callable<T> callable, Job job) {
+			super(callable);
+			this.job = job;
+		}
+		
+		AdmissionTask(Runnable runnable, T value, Job job) {
+			super(runnable, value);
+			this.job = job;
+		}
+		
+		@Override
+		public void run() {
+			long reservation;
+			try {
+				reservation = admit(MemoryAwareThreadPoolExecutor.this.monitor.getFootprint(this.job));
+			} catch (InterruptedException ex) {
+				// Shutting down: don't start the Job
+				cancel(false);
+				Thread.currentThread().interrupt();
+				return;
+			}
+			try {
+				super.run();
+			} finally {
+				release(reservation);
+			}
+		}
+	}
+	
+	private final TaskMemoryMonitor monitor;
+	private final long budget;
+	private final long baseline;
+	private final Object lock = new Object();
+	private int running;
+	private long reserved;
+	
+	/**
+	 * @param nThreads maximum number of Jobs to run at once
+	 * @param monitor source of Job footprints; Jobs submitted to this executor report their tasks to it
+	 * @param budget bytes of heap that running Jobs may occupy in total, including the heap in use at startup
+	 */
+	public MemoryAwareThreadPoolExecutor(int nThreads, TaskMemoryMonitor monitor, long budget) {
+		super(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+		this.monitor = monitor;
+		this.budget = budget;
+		this.baseline = monitor.getLiveHeap();
+	}
+	
+	public long getBudget() {
+		return this.budget;
+	}
+	
+	/**
+	 * @return number of Jobs that have been admitted and have not yet finished
+	 */
+	public int getAdmittedCount() {
+		synchronized (this.lock) {
+			return this.running;
+		}
+	}
+	
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+		if (callable instanceof Job) {
+			((Job) callable).setMemoryMonitor(this.monitor);
+			return new AdmissionTask<T>(callable, (Job) callable);
+		}
+		return super.newTaskFor(callable);
+	}
+	
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+		if (runnable instanceof Job) {
+			((Job) runnable).setMemoryMonitor(this.monitor);
+			return new AdmissionTask<T>(runnable, value, (Job) runnable);
+		}
+		return super.newTaskFor(runnable, value);
+	}
+	
+	@Override
+	protected void terminated() {
+		this.monitor.stop();
+		super.terminated();
+	}
+	
+	private long admit(long footprint) throws InterruptedException {
+		synchronized (this.lock) {
+			boolean waited = false;
+			while (this.running > 0 && projected(footprint) > this.budget) {
+				if (!waited) {
+					logger.debug("Deferring Job with projected footprint " + (footprint / MB) + " MB; " + this.running + " Jobs running, "
+							+ (projected(0) / MB) + " MB of " + (this.budget / MB) + " MB in use");
+					waited = true;
+				}
+				this.lock.wait(RECHECK_MILLIS);
+			}
+			this.running++;
+			this.reserved += footprint;
+			logger.debug("Admitted Job with projected footprint " + (footprint / MB) + " MB; " + this.running + " Jobs running");
+			return footprint;
+		}
+	}
+	
+	private void release(long footprint) {
+		synchronized (this.lock) {
+			this.running--;
+			this.reserved -= footprint;
+			this.lock.notifyAll();
+		}
+	}
+	
+	private long projected(long footprint) {
+		return Math.max(this.monitor.getLiveHeap(), this.baseline + this.reserved) + footprint;
+	}
+}
@@ -0,0 +1,377 @@
+package gov.faa.ang.swac.controller.core;
+
+import gov.faa.ang.swac.datalayer.DataAccessException;
+import gov.faa.ang.swac.datalayer.identity.DataDescriptor;
+import gov.faa.ang.swac.datalayer.identity.FileDataDescriptor;
+import gov.faa.ang.swac.datalayer.identity.IntermediateDataDescriptor;
+import gov.faa.ang.swac.datalayer.storage.DataMarshaller;
+import gov.faa.ang.swac.datalayer.storage.MemoryMarshaller;
+import gov.faa.ang.swac.datalayer.storage.db.DataAccessObject;
+import gov.faa.ang.swac.datalayer.storage.fileio.FileMarshaller;
+
+import java.beans.IndexedPropertyDescriptor;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Content-addressed store of task outputs, used to skip tasks whose inputs and configuration have not changed since an
+ * earlier run. A task's key is a digest of its class, its scenario parameters, its resolved configuration properties,
+ * and the fingerprints of its inputs: static files are fingerprinted by path, length and modification time, and
+ * intermediate data by the key of the task that produces it, so a change anywhere upstream changes every key
+ * downstream of it. Outputs are stored in a directory named after the key, which is renamed into place only once
+ * every output has been written.
+ *
+ * Only tasks whose TaskConfiguration is marked cacheable are keyed. Such a task must have no effects other than its
+ * output data, and must be deterministic given its configuration and inputs. Tasks that query data access objects,
+ * read parameterized data, or have configuration values that can't be described are never keyed.
+ *
+ * @author csmith
+ *
+ */
+public class ResultCache {
+	private static final Logger logger = LogManager.getLogger(ResultCache.class);
+
+	public static final String DIRECTORY_NAME = "results";
+	// Changing the key layout or the stored format must change this so that stale results are never matched
+	private static final String VERSION = "1";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final File directory;
+	// Keys of the intermediate data written by keyed tasks, so that the tasks consuming it can be keyed in turn
+	private final Map<DataMarshaller, String> dataKeys = Collections.synchronizedMap(new WeakHashMap<DataMarshaller, String>());
+	private final AtomicInteger restored = new AtomicInteger();
+	private final AtomicInteger stored = new AtomicInteger();
+
+	/**
+	 * A keyed task's outputs, which can be restored from the store in place of running the task
+	 */
+	public class Entry {
+		private final String key;
+		private final String taskName;
+		private final SortedMap<String, DataMarshaller> outputs;
+		// Record classes of the outputs, from the task's configuration
+		private final Map<String, Class<?>> outputTypes;
+
+		private Entry(String key, String taskName, SortedMap<String, DataMarshaller> outputs, Map<String, Class<?>> outputTypes) {
+			this.key = key;
+			this.taskName = taskName;
+			this.outputs = outputs;
+			this.outputTypes = outputTypes;
+		}
+
+		public String getKey() {
+			return this.key;
+		}
+
+		/**
+		 * Fill the task's outputs from the store
+		 *
+		 * @return false if the store has no complete result for this key, in which case the task must run
+		 */
+		public boolean restore() {
+			File dir = new File(directory, this.key);
+			if (!dir.isDirectory()) {
+				return false;
+			}
+			try {
+				for (Map.Entry<String, DataMarshaller> output : this.outputs.entrySet()) {
+					File file = new File(dir, output.getKey());
+					if (!file.isFile()) {
+						return false;
+					}
+					List<Object> data = new ArrayList<Object>();
+					storedFile(this.outputTypes.get(output.getKey()), file).load(data);
+					output.getValue().save(data);
+				}
+			} catch (DataAccessException ex) {
+				logger.warn("Unable to restore " + this.taskName + " from result cache " + dir + "; running it instead", ex);
+				return false;
+			}
+			restored.incrementAndGet();
+			logger.info("Restored " + this.taskName + " from result cache " + this.key);
+			return true;
+		}
+
+		/**
+		 * Save the outputs of a task that has just run successfully. Failures are logged; the run itself is unaffected.
+		 */
+		public void store() {
+			File dir = new File(directory, this.key);
+			if (dir.isDirectory()) {
+				return;
+			}
+			File temp = new File(directory, this.key + "." + Thread.currentThread().getId() + ".tmp");
+			try {
+				delete(temp); // Left behind if a previous run died mid-store
+				if (!temp.mkdirs()) {
+					throw new DataAccessException("Unable to create " + temp);
+				}
+				for (Map.Entry<String, DataMarshaller> output : this.outputs.entrySet()) {
+					List<Object> data = new ArrayList<Object>();
+					output.getValue().load(data);
+					storedFile(this.outputTypes.get(output.getKey()), new File(temp, output.getKey())).save(data);
+				}
+				// Another Job may have stored the same result in the meantime, which is just as good
+				if (temp.renameTo(dir) || dir.isDirectory()) {
+					stored.incrementAndGet();
+					logger.debug("Stored " + this.taskName + " in result cache " + this.key);
+				}
+			} catch (DataAccessException ex) {
+				logger.warn("Unable to store " + this.taskName + " in result cache " + dir, ex);
+			} catch (RuntimeException ex) {
+				logger.warn("Unable to store " + this.taskName + " in result cache " + dir, ex);
+			} finally {
+				delete(temp);
+			}
+		}
+	}
+
+	public ResultCache(File directory) {
+		this.directory = directory;
+	}
+
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * @return number of tasks satisfied from the store so far
+	 */
+	public int getRestoredCount() {
+		return this.restored.get();
+	}
+
+	/**
+	 * @return number of task results added to the store so far
+	 */
+	public int getStoredCount() {
+		return this.stored.get();
+	}
+
+	/**
+	 * Key a task once TaskConfiguration has linked and configured it. Producers must be keyed before their consumers,
+	 * which is the order in which a scenario's tasks are initialized.
+	 *
+	 * @return the task's entry, or null if the task can't be keyed
+	 */
+	public Entry createEntry(TaskConfiguration config, AbstractTask execution, ScenarioExecution scenario) throws DataAccessException {
+		String taskName = execution.getTaskName();
+		if (!config.getDataAccessObjects().isEmpty()) {
+			logger.debug(taskName + " is not cached: it queries data access objects");
+			return null;
+		}
+		if (execution.getPlugins() != null && !execution.getPlugins().isEmpty()) {
+			logger.debug(taskName + " is not cached: it has plugins");
+			return null;
+		}
+
+		Map<String, Method> getters = new TreeMap<String, Method>();
+		try {
+			for (PropertyDescriptor property : Introspector.getBeanInfo(execution.getClass(), AbstractTask.class).getPropertyDescriptors()) {
+				if (property.getReadMethod() != null && !(property instanceof IndexedPropertyDescriptor)) {
+					getters.put(property.getName(), property.getReadMethod());
+				}
+			}
+		} catch (IntrospectionException ex) {
+			logger.debug(taskName + " is not cached: its properties can't be inspected", ex);
+			return null;
+		}
+
+		StringBuilder content = new StringBuilder();
+		content.append("version=").append(VERSION).append('\n');
+		content.append("task=").append(execution.getClass().getName()).append('\n');
+		content.append("baseDate=").append(scenario.getBaseDate()).append('\n');
+		content.append("forecastFiscalYear=").append(scenario.getForecastFiscalYear()).append('\n');
+		content.append("classifier=").append(scenario.getClassifier()).append('\n');
+
+		// Resolved configuration: every readable property that isn't data linkage
+		for (Map.Entry<String, Method> getter : getters.entrySet()) {
+			Class<?> type = getter.getValue().getReturnType();
+			if (DataMarshaller.class.isAssignableFrom(type) || DataAccessObject.class.isAssignableFrom(type)) {
+				continue;
+			}
+			Object value;
+			try {
+				value = getter.getValue().invoke(execution);
+			} catch (Exception ex) {
+				logger.debug(taskName + " is not cached: property " + getter.getKey() + " can't be read", ex);
+				return null;
+			}
+			content.append("config.").append(getter.getKey()).append('=');
+			if (!describe(value, content)) {
+				logger.debug(taskName + " is not cached: property " + getter.getKey() + " has no stable description");
+				return null;
+			}
+			content.append('\n');
+		}
+
+		for (Map.Entry<String, DataDescriptor> input : config.getInputData().entrySet()) {
+			DataDescriptor descriptor = input.getValue();
+			content.append("input.").append(input.getKey()).append('=');
+			if (descriptor instanceof IntermediateDataDescriptor) {
+				String dataKey = this.dataKeys.get(getMarshaller(execution, getters, input.getKey()));
+				if (dataKey == null) {
+					logger.debug(taskName + " is not cached: input " + input.getKey() + " comes from a task that isn't cached");
+					return null;
+				}
+				content.append(dataKey);
+			} else if (descriptor instanceof FileDataDescriptor) {
+				content.append(descriptor.getDataType().getName());
+				for (String file : scenario.getStaticFingerprint((FileDataDescriptor) descriptor)) {
+					content.append(';').append(file);
+				}
+			} else {
+				logger.debug(taskName + " is not cached: input " + input.getKey() + " is " + descriptor.getClass().getSimpleName());
+				return null;
+			}
+			content.append('\n');
+		}
+
+		SortedMap<String, DataMarshaller> outputs = new TreeMap<String, DataMarshaller>();
+		Map<String, Class<?>> outputTypes = new HashMap<String, Class<?>>();
+		for (Map.Entry<String, Class<?>> output : config.getOutputData().entrySet()) {
+			DataMarshaller marshaller = getMarshaller(execution, getters, output.getKey());
+			// Loading anything else to store it could consume data meant for the task's consumers
+			if (!(marshaller instanceof MemoryMarshaller) && !(marshaller instanceof FileMarshaller)) {
+				logger.debug(taskName + " is not cached: output " + output.getKey() + " is not stored in memory or a file");
+				return null;
+			}
+			outputs.put(output.getKey(), marshaller);
+			outputTypes.put(output.getKey(), output.getValue());
+			content.append("output.").append(output.getKey()).append('=').append(output.getValue().getName()).append('\n');
+		}
+		if (outputs.isEmpty()) {
+			logger.debug(taskName + " is not cached: it has no output data");
+			return null;
+		}
+
+		String key = digest(content.toString());
+		for (Map.Entry<String, DataMarshaller> output : outputs.entrySet()) {
+			this.dataKeys.put(output.getValue(), key + "/" + output.getKey());
+		}
+		logger.debug("Result cache key for " + taskName + ": " + key);
+		return new Entry(key, taskName, outputs, outputTypes);
+	}
+
+	private static DataMarshaller getMarshaller(AbstractTask execution, Map<String, Method> getters, String property) {
+		Method getter = getters.get(property);
+		if (getter == null || !DataMarshaller.class.isAssignableFrom(getter.getReturnType())) {
+			return null;
+		}
+		try {
+			return (DataMarshaller) getter.invoke(execution);
+		} catch (Exception ex) {
+			logger.debug("Unable to read data linkage " + property + " of " + execution.getTaskName(), ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Append a description of a configuration value that is equal across runs exactly when the value is
+	 *
+	 * @return false if the value has no such description
+	 */
+	static boolean describe(Object value, StringBuilder out) {
+		if (value == null || value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+				|| value instanceof Character || value instanceof Enum) {
+			out.append(value);
+			return true;
+		}
+		if (value instanceof Class) {
+			out.append(((Class<?>) value).getName());
+			return true;
+		}
+		if (value.getClass().isArray()) {
+			out.append('[');
+			for (int i = 0; i < Array.getLength(value); i++) {
+				if (i > 0) out.append(',');
+				if (!describe(Array.get(value, i), out)) return false;
+			}
+			out.append(']');
+			return true;
+		}
+		if (value instanceof Collection) {
+			out.append('[');
+			boolean first = true;
+			for (Object item : (Collection<?>) value) {
+				if (!first) out.append(',');
+				first = false;
+				if (!describe(item, out)) return false;
+			}
+			out.append(']');
+			return true;
+		}
+		if (value instanceof Map) {
+			// Order entries by description so that hash ordering doesn't matter
+			SortedMap<String, String> entries = new TreeMap<String, String>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				StringBuilder k = new StringBuilder();
+				StringBuilder v = new StringBuilder();
+				if (!describe(entry.getKey(), k) || !describe(entry.getValue(), v)) return false;
+				entries.put(k.toString(), v.toString());
+			}
+			out.append(entries);
+			return true;
+		}
+		try {
+			// Objects that only have Object's identity-based toString can't be told apart
+			if (value.getClass().getMethod("toString").getDeclaringClass() == Object.class) {
+				return false;
+			}
+		} catch (NoSuchMethodException ex) {
+			return false;
+		}
+		out.append(value.getClass().getName()).append(':').append(value);
+		return true;
+	}
+
+	private static String digest(String content) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(UTF8));
+			StringBuilder hex = new StringBuilder();
+			for (byte b : hash) {
+				hex.append(String.format("%02x", b & 0xff));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	// Stored outputs use the compact binary format where the data type supports it, like persistent intermediate data
+	private static FileMarshaller storedFile(Class<?> dataType, File file) {
+		FileMarshaller marshaller = new FileMarshaller(dataType, file);
+		marshaller.setColumnarFormat(marshaller.isColumnSerializable());
+		return marshaller;
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -19,6 +19,7 @@ import gov.faa.ang.swac.common.flightmodeling.ScheduleRecord;
 import gov.faa.ang.swac.common.flightmodeling.ScheduleRecordToFlightPlanConverter;
 import gov.faa.ang.swac.controller.ExitException;
 import gov.faa.ang.swac.datalayer.DataAccessException;
+import gov.faa.ang.swac.datalayer.storage.DataCursor;
 import gov.faa.ang.swac.datalayer.storage.DataMarshaller;
 
 /**
@@ -35,6 +36,8 @@ public final class RunScheduleRecordToFlightPlan extends CloneableAbstractTask {
             org.apache.log4j.LogManager.getLogger(RunScheduleRecordToFlightPlan.class);
     public static final Class<?>[] OUTPUT_DATA_TYPES =
             new Class<?>[]{FlightPlan.class};
+    // Number of schedule records converted at a time
+    private static final int SCHEDULE_BATCH_SIZE = 1000;
     // inputData:
     private DataMarshaller inputScheduleFile;
     private DataMarshaller inputCarriersFile;
@@ -103,10 +106,8 @@ public final class RunScheduleRecordToFlightPlan extends CloneableAbstractTask {
     
     @Override
     public void run() {
+        DataCursor<ScheduleRecord> schedRecCursor = null;
         try {
-        	List<ScheduleRecord> schedRecList = new ArrayList<ScheduleRecord>();
-            this.inputScheduleFile.load(schedRecList);
-            
             List<CarrierLookup> carrierBuilderList = new ArrayList<CarrierLookup>();
             inputCarriersFile.load(carrierBuilderList);
             CarrierLookup carrierLookup = carrierBuilderList.get(0);
@@ -121,13 +122,31 @@ public final class RunScheduleRecordToFlightPlan extends CloneableAbstractTask {
             List<FlightPlan> flightPlanList = new ArrayList<FlightPlan>();
             
         	ScheduleRecordToFlightPlanConverter converter = new ScheduleRecordToFlightPlanConverter();
-        	converter.convert(schedRecList, carrierLookup, subbingCarrierLookup, scheduleTimeOverride, flightPlanList);
+        	
+        	// The schedule is read in batches so that only the flight plans, not the schedule records as well, are held 
+        	// in memory at once
+        	List<ScheduleRecord> schedRecBatch = new ArrayList<ScheduleRecord>(SCHEDULE_BATCH_SIZE);
+        	List<FlightPlan> flightPlanBatch = new ArrayList<FlightPlan>(SCHEDULE_BATCH_SIZE);
+        	schedRecCursor = this.inputScheduleFile.openCursor();
+        	while (schedRecCursor.nextBatch(schedRecBatch, SCHEDULE_BATCH_SIZE) > 0) {
+        		converter.convert(schedRecBatch, carrierLookup, subbingCarrierLookup, scheduleTimeOverride, flightPlanBatch);
+        		flightPlanList.addAll(flightPlanBatch);
+        		schedRecBatch.clear();
+        		flightPlanBatch.clear();
+        	}
+        	schedRecCursor.close();
             
             this.outputFlights.save(flightPlanList);
             this.outputCarrierLookup.save(Collections.<CarrierLookup>singletonList(carrierLookup));
         } catch (DataAccessException ex) {
             logger.trace(ex.getStackTrace());
             throw new ExitException("Fatal", ex);
+        } finally {
+        	if (schedRecCursor != null) {
+        		try {
+        			schedRecCursor.close();
+        		} catch (DataAccessException e) { /* Ignore exceptions closing the cursor */ }
+        	}
         }
     }
     
@@ -14,12 +14,16 @@ import gov.faa.ang.swac.controller.core.montecarlo.replay.CachedScenarioConfigur
 import gov.faa.ang.swac.controller.core.montecarlo.replay.ConfigurationCache;
 import gov.faa.ang.swac.datalayer.DataAccessException;
 import gov.faa.ang.swac.datalayer.MappedDataAccess;
+import gov.faa.ang.swac.datalayer.ResourceManager.LOCATION;
+import gov.faa.ang.swac.datalayer.identity.DataDescriptor;
 import gov.faa.ang.swac.datalayer.identity.FileDataDescriptor;
 import gov.faa.ang.swac.datalayer.identity.FileSetDescriptor;
 import gov.faa.ang.swac.datalayer.identity.ParameterizedDataDescriptor;
 import gov.faa.ang.swac.datalayer.storage.DataMarshaller;
 import gov.faa.ang.swac.datalayer.storage.db.JDBCConnectionFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -28,9 +32,12 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Random;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -167,6 +174,27 @@ public class ScenarioExecution {
      * @throws DataAccessException
      */
     public List<Job> initializeMonteCarlo(int sampleSize, int innerLoopCount, int randomSeed, JDBCConnectionFactory databaseConnectionFactory, ConfigurationCache cache) throws DataAccessException {
+        MonteCarloInstances instances = monteCarloInstances(sampleSize, innerLoopCount, randomSeed, databaseConnectionFactory, cache);
+
+        List<Job> retVal = new ArrayList<Job>();
+        while (instances.hasNext()) {
+            retVal.add(instances.next());
+        }
+        retVal.add(instances.createGlobalJob());
+
+        // XXX: This message used to be queued as a status message task/job at the beginning of the run, but that was awkward and resulted in an improper Job count
+        // This is effectively the same point during execution when it was generated, so display it now
+        logger.info("<------------------ BEGIN MONTE CARLO SAMPLE DATA GENERATION ----------------->");
+        
+        return retVal;
+    }
+
+    /**
+     * Prepares to create this scenario's Monte Carlo instances without creating any of them yet.
+     * 
+     * @see MonteCarloInstances
+     */
+    public MonteCarloInstances monteCarloInstances(int sampleSize, int innerLoopCount, int randomSeed, JDBCConnectionFactory databaseConnectionFactory, ConfigurationCache cache) {
         logger.debug("Initializing scenarioId=" + this.getScenarioId());
         // Seed random channels for Monte Carlo parameters - one for each task in the pipeline, with an independent seed
         List<Random> randomChannels = new ArrayList<Random>();
@@ -175,41 +203,95 @@ public class ScenarioExecution {
             logger.debug("Random stream initialized with seed=" + seed + " for task=" + task.toString());
             randomChannels.add(new Random(seed));
         }
+        return new MonteCarloInstances(sampleSize, innerLoopCount, randomChannels, databaseConnectionFactory, cache);
+    }
 
-        List<Job> retVal = new ArrayList<Job>();
+    /**
+     * Creates the Monte Carlo instance Jobs of a scenario one at a time, along with each instance's database. Instances are
+     * created in the same order and draw from the random channels in the same order whether they are created up front or
+     * as they are needed, so the results are the same either way. The global (aggregation) Job can only be created once
+     * every instance has been, since each instance links its outputs to the global tasks.
+     * 
+     * Instances are not thread-safe.
+     */
+    public class MonteCarloInstances implements JobSource {
+        private final int sampleSize;
+        private final int innerLoopCount;
+        private final List<Random> randomChannels;
+        private final JDBCConnectionFactory databaseConnectionFactory;
+        private final ConfigurationCache cache;
+        private final Map<TaskConfiguration, AbstractTask> globalTasks = new HashMap<TaskConfiguration, AbstractTask>();
+        private final Map<String, Map<String, Double>> outerLoopValues = new HashMap<String, Map<String, Double>>();
+        private int instanceCount = 0;
+
+        private MonteCarloInstances(int sampleSize, int innerLoopCount, List<Random> randomChannels, JDBCConnectionFactory databaseConnectionFactory, ConfigurationCache cache) {
+            this.sampleSize = sampleSize;
+            this.innerLoopCount = innerLoopCount;
+            this.randomChannels = randomChannels;
+            this.databaseConnectionFactory = databaseConnectionFactory;
+            this.cache = cache;
+        }
 
-        Map<TaskConfiguration, AbstractTask> globalTasks = new HashMap<TaskConfiguration, AbstractTask>();
-        Map<String, Map<String, Double>> outerLoopValues = new HashMap<String, Map<String, Double>>();
+        public int getSize() {
+            return this.sampleSize * this.innerLoopCount;
+        }
 
-        int instanceCount = 0;
+        public ScenarioExecution getScenario() {
+            return ScenarioExecution.this;
+        }
 
-        for (int i = 0; i < sampleSize; i++) {
-            for (int j = 0; j < innerLoopCount; j++) {
-                int instanceId = (this.getScenarioName() + instanceCount).hashCode();
+        @Override
+        public boolean hasNext() {
+            return this.instanceCount < getSize();
+        }
 
-                CachedScenarioConfiguration scenarioConfig = cache.getScenario(instanceId);
-                scenarioConfig.setBaseDate(this.baseDate);
-                scenarioConfig.setForecastFiscalYear(this.forecastFiscalYear);
-                scenarioConfig.setClassifier(this.classifier);
+        @Override
+        public Job next() throws DataAccessException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int i = this.instanceCount / this.innerLoopCount;
+            int j = this.instanceCount % this.innerLoopCount;
+            int instanceId = (getScenarioName() + this.instanceCount).hashCode();
+
+            CachedScenarioConfiguration scenarioConfig = this.cache.getScenario(instanceId);
+            scenarioConfig.setBaseDate(baseDate);
+            scenarioConfig.setForecastFiscalYear(forecastFiscalYear);
+            scenarioConfig.setClassifier(classifier);
+
+            Job job = initializeInstance(this.randomChannels, instanceId, this.globalTasks, this.cache, this.outerLoopValues, this.databaseConnectionFactory, MonteCarloMode.ON, getSize());
+            job.insertElementAt(statusMessageTask(monteCarloInstanceStartMessage(i, j, instanceId)), 0);
+            job.add(statusMessageTask(monteCarloInstanceEndMessage(i, j, instanceId)));
+            // The instance's sampled configuration is complete, so an indexed cache can append it now
+            try {
+                this.cache.commit(instanceId);
+            } catch (IOException ex) {
+                throw new DataAccessException("Configuration of instance " + instanceId + " could not be cached", ex);
+            }
+            this.instanceCount++;
 
-                Job job = this.initializeInstance(randomChannels, instanceId, globalTasks, cache, outerLoopValues, databaseConnectionFactory, MonteCarloMode.ON, sampleSize * innerLoopCount);
-                retVal.add(job);
-                job.insertElementAt(statusMessageTask(monteCarloInstanceStartMessage(i, j, instanceId)), 0);
-                job.add(statusMessageTask(monteCarloInstanceEndMessage(i, j, instanceId)));
-                instanceCount++;
+            if (j == this.innerLoopCount - 1) {
+                this.outerLoopValues.clear();
             }
-            outerLoopValues.clear();
+            return job;
         }
-        Job global = addGlobalTasks(globalTasks);
-        global.insertElementAt(statusMessageTask(monteCarloBatchEndMessage()), 0);
-        global.add(statusMessageTask(monteCarloAggregationEndMessage()));
-        retVal.add(global);
 
-        // XXX: This message used to be queued as a status message task/job at the beginning of the run, but that was awkward and resulted in an improper Job count
-        // This is effectively the same point during execution when it was generated, so display it now
-        logger.info("<------------------ BEGIN MONTE CARLO SAMPLE DATA GENERATION ----------------->");
-        
-        return retVal;
+        /**
+         * @return the global tasks created so far; they all exist once the first instance has been created
+         */
+        public Collection<AbstractTask> getGlobalTasks() {
+            return Collections.unmodifiableCollection(this.globalTasks.values());
+        }
+
+        public Job createGlobalJob() {
+            if (hasNext()) {
+                throw new IllegalStateException("The global Job cannot be created until every Monte Carlo instance has been: " + this.instanceCount + "/" + getSize());
+            }
+            Job global = addGlobalTasks(this.globalTasks);
+            global.insertElementAt(statusMessageTask(monteCarloBatchEndMessage()), 0);
+            global.add(statusMessageTask(monteCarloAggregationEndMessage()));
+            return global;
+        }
     }
 
     private AbstractTask statusMessageTask(final String message) {
@@ -303,6 +385,8 @@ public class ScenarioExecution {
         }
         
         Job retVal = new Job();
+        retVal.setScenarioId(this.getScenarioId());
+        retVal.setTaskMetrics(this.parent.getMetrics());
         retVal.addAll(tasks);
         return retVal;
     }
@@ -317,6 +401,9 @@ public class ScenarioExecution {
 
         Job retVal = new Job(databaseConnectionFactory, this.dao);
         retVal.setInstanceId(instanceId);
+        retVal.setScenarioId(this.getScenarioId());
+        retVal.setTaskParallelism(this.parent.getTaskParallelism());
+        retVal.setTaskMetrics(this.parent.getMetrics());
                 
         try {
             // Pass in baseDate, forecastYear, and classifier separately to avoid creating a circular dependency.
@@ -373,6 +460,60 @@ public class ScenarioExecution {
 
     protected DataMarshaller getStaticMarshaller(FileDataDescriptor descriptor) throws DataAccessException {
         // Load or link to static data in Batch dao
+        return this.getParent().loadStaticData(resolveStaticDescriptor(descriptor));
+    }
+
+    /**
+     * @return the fingerprint of the files behind a static input, as resolved for this scenario
+     */
+    public List<String> getStaticFingerprint(FileDataDescriptor descriptor) throws DataAccessException {
+        return this.getParent().getDao().getFingerprint(resolveStaticDescriptor(descriptor));
+    }
+
+    /**
+     * @return the files behind a static input, as resolved for this scenario
+     */
+    public List<File> getStaticFiles(FileDataDescriptor descriptor) throws DataAccessException {
+        return this.getParent().getDao().getFiles(resolveStaticDescriptor(descriptor));
+    }
+
+    /**
+     * @return the total size of the distinct files behind the static inputs of the batch's enabled tasks, as resolved
+     * for this scenario; inputs that can't be resolved count as empty
+     */
+    public long getStaticInputBytes() {
+        Set<File> files = new HashSet<File>();
+        long total = 0;
+        for (TaskConfiguration task : this.parent.getTasks()) {
+            if (!task.isEnabled()) {
+                continue;
+            }
+            for (DataDescriptor input : task.getInputData().values()) {
+                if (!(input instanceof FileDataDescriptor)) {
+                    continue;
+                }
+                try {
+                    for (File file : getStaticFiles((FileDataDescriptor) input)) {
+                        if (files.add(file)) {
+                            total += file.length();
+                        }
+                    }
+                } catch (DataAccessException ex) {
+                    logger.debug("Input " + input + " could not be resolved for " + getScenarioName() + ": " + ex.getMessage());
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the batch's result cache, or null if results are not cached
+     */
+    public ResultCache getResultCache() {
+        return this.parent == null ? null : this.parent.getResultStore();
+    }
+
+    private FileDataDescriptor resolveStaticDescriptor(FileDataDescriptor descriptor) {
         FileDataDescriptor fdd = descriptor.clone();
         boolean modified = false;
         
@@ -395,7 +536,7 @@ public class ScenarioExecution {
         if (modified) {
             fdd.setResourceName(null);
         }
-        return this.getParent().loadStaticData(fdd);
+        return fdd;
     }
 
     public DataMarshaller getParameterizedMarshaller(ParameterizedDataDescriptor descriptor) throws DataAccessException {
@@ -407,6 +548,38 @@ public class ScenarioExecution {
         return dao.getMarshaller(pDescriptor);
     }
 
+    /**
+     * @return absolute paths of the files this scenario has written to its output and report directories
+     */
+    public List<String> getOutputFiles() {
+        List<String> retVal = new ArrayList<String>();
+        listFiles(this.dao.getFile(LOCATION.OUTPUT, ""), retVal);
+        listFiles(this.dao.getFile(LOCATION.REPORT, ""), retVal);
+        Collections.sort(retVal);
+        return retVal;
+    }
+
+    private static void listFiles(File dir, List<String> files) {
+        File[] children = dir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    listFiles(child, files);
+                } else {
+                    files.add(child.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete whatever a previous, interrupted run of this scenario left in its output and report directories
+     */
+    public void cleanOutputs() {
+        this.dao.clean(LOCATION.OUTPUT);
+        this.dao.clean(LOCATION.REPORT);
+    }
+
     @Override
     public String toString() {
         return "ScenarioExecution [forecastFiscalYear=" + forecastFiscalYear
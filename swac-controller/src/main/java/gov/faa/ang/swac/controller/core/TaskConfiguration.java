@@ -47,6 +47,30 @@ public class TaskConfiguration implements Comparable<TaskConfiguration>
 	public void setInnerLoop(boolean innerLoop) {
 		this.innerLoop = innerLoop;
 	}
+	
+	private boolean persistentOutputs; // Spill output data to temporary files (columnar where supported) instead of keeping it in memory
+	public boolean isPersistentOutputs() {
+		return persistentOutputs;
+	}
+	public void setPersistentOutputs(boolean persistentOutputs) {
+		this.persistentOutputs = persistentOutputs;
+	}
+	
+	private double spillThreshold; // Fraction of the maximum heap in use above which in-memory output data is spilled to temporary files; 0 never spills
+	public double getSpillThreshold() {
+		return spillThreshold;
+	}
+	public void setSpillThreshold(double spillThreshold) {
+		this.spillThreshold = spillThreshold;
+	}
+
+	private boolean cacheable; // Outputs depend only on configuration and inputs, and are the task's only effect, so they may be restored from the batch's result cache
+	public boolean isCacheable() {
+		return cacheable;
+	}
+	public void setCacheable(boolean cacheable) {
+		this.cacheable = cacheable;
+	}
 
 	private Map<String,DataDescriptor> inputData = new TreeMap<String, DataDescriptor>();
 	private Map<String,DataAccessObjectDescriptor> dataAccessObjects = new TreeMap<String, DataAccessObjectDescriptor>();
@@ -169,19 +193,8 @@ public class TaskConfiguration implements Comparable<TaskConfiguration>
 			return null;
 		}
 		
-		Method setter = null;
-		try {
-			setter = target.getMethod(prefix + name.substring(0,1).toUpperCase() + name.substring(1), clazz);
-		} catch (SecurityException e) {
-                        logger.debug(e.getStackTrace());
-			throw e;
-		} catch (NoSuchMethodException e) {
-			try {
-				setter = target.getMethod(prefix + name.substring(0,1).toLowerCase() + name.substring(1), clazz);
-			} catch (SecurityException e1) {
-                                logger.debug(e1.getStackTrace());
-				throw e1;
-			} catch (NoSuchMethodException e1) {
+		Method setter = TaskWiring.forClass(target).getPropertyMethod(prefix, name, clazz);
+		if (setter == null) {
                             if (execution != null) {
                                 logger.debug("Setter: " + prefix + name.substring(0,1).toUpperCase() + name.substring(1) + " not found. Checking for plugins...");
                                 List<Plugin> plugins = execution.getPlugins();
@@ -197,9 +210,6 @@ public class TaskConfiguration implements Comparable<TaskConfiguration>
                             }
                             // This may mean that a superclass of the parameter class is declared. Recursively try to match to a more general type
                             return getPrefixedMethod(target, name, clazz.getSuperclass(), prefix, execution);
-
-			}
-			
 		}
 		return setter;
 	}
@@ -224,6 +234,11 @@ public class TaskConfiguration implements Comparable<TaskConfiguration>
 	{
 		logger.debug("Initializing task execution");
 		
+		// Global tasks are linked once per instance; recording that would keep every instance's intermediate data reachable
+		if (!this.global) {
+			execution.setLinked();
+		}
+		
 		initializeConfiguration(execution, this.innerLoopVariables);
 		
 		linkInputs(execution, scenario, dao, instanceId);
@@ -248,6 +263,14 @@ public class TaskConfiguration implements Comparable<TaskConfiguration>
 				setRandomizedConfiguration(execution, random, config, outerLoopValues);	
 			}
 		}
+		
+		// Key the task only now, so that sampled and replayed configuration values are part of its key
+		if (this.cacheable && !this.global) {
+			ResultCache results = scenario.getResultCache();
+			if (results != null) {
+				execution.setCachedResult(results.createEntry(this, execution, scenario));
+			}
+		}
 	}
 	
 	private void setRandomizedConfiguration(AbstractTask execution, Random random, SortedMap<String,Object> sampledConfiguration, Map<String, Map<String, Double>> outerLoopValues) throws DataAccessException 
@@ -325,6 +348,9 @@ public class TaskConfiguration implements Comparable<TaskConfiguration>
 				intermediate.setInstanceId(instanceId);
 
 				marshaller = dao.getMarshaller(intermediate); // Register the linkage with the data layer
+				if (execution.isLinked()) {
+					execution.getIntermediateInputs().add(marshaller);
+				}
 			}
 			else
 			{
@@ -367,6 +393,9 @@ public class TaskConfiguration implements Comparable<TaskConfiguration>
 			}
 			
 			// Now that we have located and/or created our DAO, assign it to the task's bean property so the task may query it 
+			if (execution.isLinked()) {
+				execution.setUsingDataAccessObjects();
+			}
 			logger.debug("Setting data access object: task=" + execution.toString() + "; property=" + setter.getName() + "; DAO=" + myDao.toString());
 			invokeSetter(setter, execution, myDao);
 		}
@@ -393,9 +422,13 @@ public class TaskConfiguration implements Comparable<TaskConfiguration>
 			descriptor.setDataType(clazz);
 			descriptor.setDataSource(this);
 			descriptor.setInstanceId(execution.getInstanceId());
-			descriptor.setPersistent(false);
+			descriptor.setPersistent(this.persistentOutputs);
+			descriptor.setSpillThreshold(this.spillThreshold);
 			
 			DataMarshaller marshaller = dao.getMarshaller(descriptor);
+			if (execution.isLinked()) {
+				execution.getIntermediateOutputs().add(marshaller);
+			}
 			
 			logger.debug("Setting output data marshaller: task=" + execution.toString() + "; property=" + setter.getName() + "; marshaller=" + marshaller.toString());
 			invokeSetter(setter, execution, marshaller);
@@ -408,10 +441,10 @@ public class TaskConfiguration implements Comparable<TaskConfiguration>
             try {
             	Object value = entry.getValue();
             	Object valueClone = null;
-            	try {
-            		Method clone = value.getClass().getMethod("clone", value.getClass());
+            	Method clone = TaskWiring.forClass(value.getClass()).getCloneMethod();
+            	if (clone != null) {
             		valueClone = clone.invoke(value, new Object[] {});
-            	} catch (NoSuchMethodException snme) {
+            	} else {
             		logger.debug("Property " + value.getClass().getSimpleName() + " could not be cloned during initialization. Using original value. This is a risk for Monte Carlo mode");
                     valueClone = value;
             	}
@@ -479,23 +512,10 @@ public class TaskConfiguration implements Comparable<TaskConfiguration>
 			Class<?> targetClazz = classes.remove(0);
 			if (!exemptList.contains(targetClazz)) {
 				exemptList.add(targetClazz);
-				try {
-					setter = targetClazz.getMethod(prefix + name.substring(0,1).toUpperCase() + name.substring(1), propertyClazz);
-				} catch (NoSuchMethodException e) {}
-				if (setter == null) {
-					try {
-						setter = targetClazz.getMethod(prefix + name.substring(0,1).toLowerCase() + name.substring(1), propertyClazz);
-					} catch (NoSuchMethodException e1) {}
-				}
+				TaskWiring wiring = TaskWiring.forClass(targetClazz);
+				setter = wiring.getPropertyMethod(prefix, name, propertyClazz);
 				if (setter == null && primitiveClazz != null) {
-					try {
-						setter = targetClazz.getMethod(prefix + name.substring(0,1).toUpperCase() + name.substring(1), primitiveClazz);
-					} catch (NoSuchMethodException e1) {}
-				}
-				if (setter == null && primitiveClazz != null) {
-					try {
-						setter = targetClazz.getMethod(prefix + name.substring(0,1).toLowerCase() + name.substring(1), primitiveClazz);
-					} catch (NoSuchMethodException e1) {}
+					setter = wiring.getPropertyMethod(prefix, name, primitiveClazz);
 				}
 				if (setter == null) {
 				    logger.debug("Setter: " + prefix + name.substring(0,1).toUpperCase() + name.substring(1) + " not found. Checking superclass and children");
@@ -0,0 +1,205 @@
+package gov.faa.ang.swac.controller.core;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Learns the peak heap footprint of each task type from the tasks that have run so far. Heap occupancy is sampled
+ * after every garbage collection (the heap pools' usage at the end of that collection, as reported in its
+ * notification, which approximates live data), and a
+ * running task is charged with the growth in occupancy since it started, split evenly among the tasks running at the
+ * time. The largest charge seen for a task type is its learned footprint. If no collection happens while a task runs,
+ * its growth in used heap (garbage included) is used instead.
+ * 
+ * @author csmith
+ *
+ */
+public class TaskMemoryMonitor implements NotificationListener {
+	private static final Logger logger = LogManager.getLogger(TaskMemoryMonitor.class);
+	
+	private static class Running {
+		final long startLive;
+		final long startUsed;
+		long peak;
+		boolean sampled;
+		
+		Running(long startLive, long startUsed) {
+			this.startLive = startLive;
+			this.startUsed = startUsed;
+		}
+	}
+	
+	private final long defaultFootprint;
+	private final Map<String, Long> footprints = new ConcurrentHashMap<String, Long>();
+	private final Map<AbstractTask, Running> running = new IdentityHashMap<AbstractTask, Running>();
+	private final List<NotificationEmitter> emitters = new ArrayList<NotificationEmitter>();
+	private final Set<String> heapPools = heapPoolNames();
+	private volatile long liveHeap;
+	
+	/**
+	 * @param defaultFootprint bytes assumed for task types that have not completed yet
+	 */
+	public TaskMemoryMonitor(long defaultFootprint) {
+		this.defaultFootprint = defaultFootprint;
+		this.liveHeap = usedHeap();
+	}
+	
+	/**
+	 * Start listening for garbage collections. Has no effect if already started.
+	 */
+	public synchronized void start() {
+		if (!this.emitters.isEmpty()) {
+			return;
+		}
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (gc instanceof NotificationEmitter) {
+				((NotificationEmitter) gc).addNotificationListener(this, null, null);
+				this.emitters.add((NotificationEmitter) gc);
+			}
+		}
+		if (this.emitters.isEmpty()) {
+			logger.warn("Garbage collection notifications are not available; task footprints will be estimated from used heap");
+		}
+	}
+	
+	public synchronized void stop() {
+		for (NotificationEmitter emitter : this.emitters) {
+			try {
+				emitter.removeNotificationListener(this);
+			} catch (ListenerNotFoundException ex) {
+				logger.debug(ex.getMessage(), ex);
+			}
+		}
+		this.emitters.clear();
+	}
+	
+	@Override
+	public void handleNotification(Notification notification, Object handback) {
+		if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+			GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+			sample(heapAfter(info.getGcInfo().getMemoryUsageAfterGc()));
+		}
+	}
+	
+	/**
+	 * @return heap occupancy after the most recent garbage collection, or the used heap if there has been none
+	 */
+	public long getLiveHeap() {
+		return this.liveHeap;
+	}
+	
+	/**
+	 * Record a post-collection heap occupancy
+	 */
+	synchronized void sample(long live) {
+		this.liveHeap = live;
+		int n = this.running.size();
+		for (Running r : this.running.values()) {
+			r.peak = Math.max(r.peak, (live - r.startLive) / n);
+			r.sampled = true;
+		}
+	}
+	
+	public synchronized void taskStarted(AbstractTask task) {
+		this.running.put(task, new Running(this.liveHeap, usedHeap()));
+	}
+	
+	public synchronized void taskFinished(AbstractTask task) {
+		Running r = this.running.remove(task);
+		if (r == null) {
+			return;
+		}
+		long footprint = r.sampled ? r.peak : (usedHeap() - r.startUsed) / (this.running.size() + 1);
+		footprint = Math.max(footprint, 0);
+		
+		String type = taskType(task);
+		Long previous = this.footprints.get(type);
+		if (previous == null || previous < footprint) {
+			this.footprints.put(type, footprint);
+			logger.debug("Learned heap footprint of " + type + ": " + (footprint / 1048576) + " MB");
+		}
+	}
+	
+	/**
+	 * @return the learned footprint for the task's type, or the default if none of that type has completed
+	 */
+	public long getFootprint(AbstractTask task) {
+		Long footprint = this.footprints.get(taskType(task));
+		return footprint == null ? this.defaultFootprint : footprint;
+	}
+	
+	/**
+	 * @return projected peak footprint of a Job that has not started: its largest task, or the sum of its
+	 * taskParallelism largest tasks when they may run concurrently
+	 */
+	public long getFootprint(Job job) {
+		List<Long> sizes = new ArrayList<Long>();
+		synchronized (job) {
+			for (AbstractTask task : job) {
+				sizes.add(getFootprint(task));
+			}
+		}
+		Collections.sort(sizes, Collections.reverseOrder());
+		
+		long retVal = 0;
+		int concurrent = Math.max(job.getTaskParallelism(), 1);
+		for (int i = 0; i < sizes.size() && i < concurrent; i++) {
+			retVal += sizes.get(i);
+		}
+		return retVal;
+	}
+	
+	private static String taskType(AbstractTask task) {
+		return task.getClass().getName();
+	}
+	
+	private static long usedHeap() {
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+	
+	private static Set<String> heapPoolNames() {
+		Set<String> retVal = new HashSet<String>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				retVal.add(pool.getName());
+			}
+		}
+		return retVal;
+	}
+	
+	/**
+	 * @return heap in use at the end of a collection. Every pool is included, not only those the collector manages,
+	 * so a young collection reports the current old generation rather than its size after the last full collection.
+	 */
+	long heapAfter(Map<String, MemoryUsage> usageAfterGc) {
+		long retVal = 0;
+		for (Map.Entry<String, MemoryUsage> entry : usageAfterGc.entrySet()) {
+			if (this.heapPools.contains(entry.getKey())) {
+				retVal += entry.getValue().getUsed();
+			}
+		}
+		return retVal;
+	}
+}
@@ -0,0 +1,421 @@
+package gov.faa.ang.swac.controller.core;
+
+import gov.faa.ang.swac.datalayer.storage.RecordCounter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Registry of performance measurements for every task and Job a batch runs: wall time, CPU time and bytes allocated
+ * by the thread that ran the task, garbage collection over the same interval, and records loaded from and saved to
+ * data marshallers. A Job's CPU, allocation and record counts are the sums over its tasks, since its tasks may run on
+ * other threads. Garbage collection is counted for the whole JVM, so it includes collections caused by anything else
+ * running at the same time.
+ *
+ * The registry can be published as an MXBean while the batch runs and written as CSV and JSON reports when it ends.
+ *
+ * @author csmith
+ *
+ */
+public class TaskMetrics implements TaskMetricsMXBean {
+	private static final Logger logger = LogManager.getLogger(TaskMetrics.class);
+
+	public static final String CSV_FILE_NAME = "metrics.csv";
+	public static final String JSON_FILE_NAME = "metrics.json";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String[] COLUMNS = { "kind", "scenario", "instanceId", "name", "wallMillis", "cpuMillis",
+		"allocatedBytes", "gcCount", "gcMillis", "recordsRead", "recordsWritten" };
+
+	public enum Kind { TASK, JOB }
+
+	/**
+	 * Counters read when a task or Job starts, to be subtracted when it finishes
+	 */
+	public static class Sample {
+		private final long wallNanos = System.nanoTime();
+		private final long cpuNanos = cpuTime();
+		private final long allocatedBytes = allocatedBytes();
+		private final long[] gc = gc();
+		private final long recordsRead = RecordCounter.getRead();
+		private final long recordsWritten = RecordCounter.getWritten();
+	}
+
+	public static class Record implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final Kind kind;
+		private final String scenario;
+		private final Integer instanceId;
+		private final String name;
+		private final long wallMillis;
+		private final long cpuMillis;
+		private final long allocatedBytes;
+		private final long gcCount;
+		private final long gcMillis;
+		private final long recordsRead;
+		private final long recordsWritten;
+
+		public Record(Kind kind, String scenario, Integer instanceId, String name, long wallMillis, long cpuMillis,
+				long allocatedBytes, long gcCount, long gcMillis, long recordsRead, long recordsWritten) {
+			this.kind = kind;
+			this.scenario = scenario;
+			this.instanceId = instanceId;
+			this.name = name;
+			this.wallMillis = wallMillis;
+			this.cpuMillis = cpuMillis;
+			this.allocatedBytes = allocatedBytes;
+			this.gcCount = gcCount;
+			this.gcMillis = gcMillis;
+			this.recordsRead = recordsRead;
+			this.recordsWritten = recordsWritten;
+		}
+
+		public Kind getKind() { return this.kind; }
+		public String getScenario() { return this.scenario; }
+		public Integer getInstanceId() { return this.instanceId; }
+		public String getName() { return this.name; }
+		public long getWallMillis() { return this.wallMillis; }
+		/** @return CPU time, or -1 if the JVM doesn't measure it */
+		public long getCpuMillis() { return this.cpuMillis; }
+		/** @return bytes allocated, or -1 if the JVM doesn't measure them */
+		public long getAllocatedBytes() { return this.allocatedBytes; }
+		public long getGcCount() { return this.gcCount; }
+		public long getGcMillis() { return this.gcMillis; }
+		public long getRecordsRead() { return this.recordsRead; }
+		public long getRecordsWritten() { return this.recordsWritten; }
+
+		private Object[] values() {
+			return new Object[] { this.kind, this.scenario, this.instanceId, this.name, this.wallMillis, this.cpuMillis,
+					this.allocatedBytes, this.gcCount, this.gcMillis, this.recordsRead, this.recordsWritten };
+		}
+	}
+
+	private final Collection<Record> records = new ConcurrentLinkedQueue<Record>();
+	private ObjectName objectName;
+
+	/**
+	 * Read the counters of the current thread. The matching finishTask must be called on the same thread.
+	 */
+	public Sample start() {
+		return new Sample();
+	}
+
+	public Record finishTask(Sample start, String scenario, Integer instanceId, String name) {
+		Sample end = new Sample();
+		Record record = new Record(Kind.TASK, scenario, instanceId, name,
+				(end.wallNanos - start.wallNanos) / 1000000,
+				toMillis(difference(start.cpuNanos, end.cpuNanos)),
+				difference(start.allocatedBytes, end.allocatedBytes),
+				end.gc[0] - start.gc[0],
+				end.gc[1] - start.gc[1],
+				end.recordsRead - start.recordsRead,
+				end.recordsWritten - start.recordsWritten);
+		this.records.add(record);
+		return record;
+	}
+
+	/**
+	 * @param tasks the records of the tasks the Job ran, on whatever threads
+	 */
+	public Record finishJob(Sample start, String scenario, Integer instanceId, String name, List<Record> tasks) {
+		Sample end = new Sample();
+		long cpuMillis = 0;
+		long allocatedBytes = 0;
+		long recordsRead = 0;
+		long recordsWritten = 0;
+		for (Record task : tasks) {
+			cpuMillis = (cpuMillis < 0 || task.cpuMillis < 0) ? -1 : cpuMillis + task.cpuMillis;
+			allocatedBytes = (allocatedBytes < 0 || task.allocatedBytes < 0) ? -1 : allocatedBytes + task.allocatedBytes;
+			recordsRead += task.recordsRead;
+			recordsWritten += task.recordsWritten;
+		}
+		Record record = new Record(Kind.JOB, scenario, instanceId, name,
+				(end.wallNanos - start.wallNanos) / 1000000,
+				cpuMillis,
+				allocatedBytes,
+				end.gc[0] - start.gc[0],
+				end.gc[1] - start.gc[1],
+				recordsRead,
+				recordsWritten);
+		this.records.add(record);
+		return record;
+	}
+
+	private static long difference(long start, long end) {
+		return (start < 0 || end < 0) ? -1 : end - start;
+	}
+
+	private static long toMillis(long nanos) {
+		return (nanos < 0) ? -1 : nanos / 1000000;
+	}
+
+	/**
+	 * Add records measured elsewhere, e.g. by a worker process
+	 */
+	public void addAll(Collection<Record> records) {
+		this.records.addAll(records);
+	}
+
+	public List<Record> getRecords() {
+		return new ArrayList<Record>(this.records);
+	}
+
+	// ----- JMX -----
+
+	/**
+	 * Publish this registry on the platform MBean server. Failure is logged; metrics are still recorded.
+	 */
+	public void register(String batchName) {
+		try {
+			ObjectName name = new ObjectName("gov.faa.ang.swac:type=TaskMetrics,name=" + ObjectName.quote(batchName == null ? "" : batchName));
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name); // Left over from an earlier batch of the same name in this JVM
+			}
+			server.registerMBean(this, name);
+			this.objectName = name;
+		} catch (JMException ex) {
+			logger.warn("Unable to publish task metrics over JMX: " + ex.getMessage());
+		}
+	}
+
+	public void unregister() {
+		if (this.objectName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+			} catch (JMException ex) {
+				logger.debug("Unable to unregister task metrics", ex);
+			}
+			this.objectName = null;
+		}
+	}
+
+	@Override
+	public long getTaskCount() {
+		return count(Kind.TASK);
+	}
+
+	@Override
+	public long getJobCount() {
+		return count(Kind.JOB);
+	}
+
+	private long count(Kind kind) {
+		long count = 0;
+		for (Record record : this.records) {
+			if (record.kind == kind) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private enum Measure { WALL, CPU, ALLOCATED, WRITTEN }
+
+	@Override
+	public Map<String, Long> getWallMillisByTask() {
+		return total(Kind.TASK, Measure.WALL);
+	}
+
+	@Override
+	public Map<String, Long> getCpuMillisByTask() {
+		return total(Kind.TASK, Measure.CPU);
+	}
+
+	@Override
+	public Map<String, Long> getAllocatedBytesByTask() {
+		return total(Kind.TASK, Measure.ALLOCATED);
+	}
+
+	@Override
+	public Map<String, Long> getRecordsWrittenByTask() {
+		return total(Kind.TASK, Measure.WRITTEN);
+	}
+
+	@Override
+	public Map<String, Long> getWallMillisByScenario() {
+		return total(Kind.JOB, Measure.WALL);
+	}
+
+	@Override
+	public Map<String, Long> getCpuMillisByScenario() {
+		return total(Kind.JOB, Measure.CPU);
+	}
+
+	/**
+	 * Tasks are totalled by name and Jobs by scenario
+	 */
+	private Map<String, Long> total(Kind kind, Measure measure) {
+		Map<String, Long> retVal = new TreeMap<String, Long>();
+		for (Record record : this.records) {
+			if (record.kind != kind) {
+				continue;
+			}
+			long value;
+			switch (measure) {
+				case WALL: value = record.wallMillis; break;
+				case CPU: value = record.cpuMillis; break;
+				case ALLOCATED: value = record.allocatedBytes; break;
+				case WRITTEN: value = record.recordsWritten; break;
+				default: throw new IllegalStateException("Unknown measure: " + measure);
+			}
+			if (value < 0) {
+				continue;
+			}
+			String key = (kind == Kind.TASK) ? record.name : record.scenario;
+			Long total = retVal.get(key);
+			retVal.put(key, (total == null) ? value : total + value);
+		}
+		return retVal;
+	}
+
+	// ----- Reports -----
+
+	public void writeCsv(File file) throws IOException {
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), UTF8));
+		try {
+			writer.println(join(COLUMNS));
+			for (Record record : this.records) {
+				Object[] values = record.values();
+				String[] fields = new String[values.length];
+				for (int i = 0; i < values.length; i++) {
+					fields[i] = csv(values[i]);
+				}
+				writer.println(join(fields));
+			}
+		} finally {
+			writer.close();
+		}
+		if (writer.checkError()) {
+			throw new IOException("Error writing " + file);
+		}
+	}
+
+	public void writeJson(File file) throws IOException {
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), UTF8));
+		try {
+			writer.println("[");
+			boolean first = true;
+			for (Record record : this.records) {
+				if (!first) {
+					writer.println(",");
+				}
+				first = false;
+				Object[] values = record.values();
+				StringBuilder line = new StringBuilder("  {");
+				for (int i = 0; i < values.length; i++) {
+					if (i > 0) {
+						line.append(", ");
+					}
+					line.append(json(COLUMNS[i])).append(": ").append(values[i] instanceof Number ? values[i].toString() : json(values[i]));
+				}
+				writer.print(line.append('}'));
+			}
+			writer.println();
+			writer.println("]");
+		} finally {
+			writer.close();
+		}
+		if (writer.checkError()) {
+			throw new IOException("Error writing " + file);
+		}
+	}
+
+	private static String join(String[] fields) {
+		StringBuilder retVal = new StringBuilder();
+		for (int i = 0; i < fields.length; i++) {
+			if (i > 0) {
+				retVal.append(',');
+			}
+			retVal.append(fields[i]);
+		}
+		return retVal.toString();
+	}
+
+	private static String csv(Object value) {
+		if (value == null) {
+			return "";
+		}
+		String s = value.toString();
+		if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0) {
+			return "\"" + s.replace("\"", "\"\"") + "\"";
+		}
+		return s;
+	}
+
+	private static String json(Object value) {
+		if (value == null) {
+			return "null";
+		}
+		String s = value.toString();
+		StringBuilder retVal = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '"': retVal.append("\\\""); break;
+				case '\\': retVal.append("\\\\"); break;
+				case '\n': retVal.append("\\n"); break;
+				case '\r': retVal.append("\\r"); break;
+				case '\t': retVal.append("\\t"); break;
+				default:
+					if (c < 0x20) {
+						retVal.append(String.format("\\u%04x", (int) c));
+					} else {
+						retVal.append(c);
+					}
+			}
+		}
+		return retVal.append('"').toString();
+	}
+
+	// ----- JVM counters -----
+
+	private static long cpuTime() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+	}
+
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+			if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+				return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return collection count and accumulated collection time in milliseconds, over every collector
+	 */
+	private static long[] gc() {
+		long[] retVal = new long[2];
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			retVal[0] += Math.max(0, collector.getCollectionCount());
+			retVal[1] += Math.max(0, collector.getCollectionTime());
+		}
+		return retVal;
+	}
+}
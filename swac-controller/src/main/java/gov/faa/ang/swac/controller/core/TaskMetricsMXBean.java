@@ -0,0 +1,29 @@
+package gov.faa.ang.swac.controller.core;
+
+import java.util.Map;
+
+/**
+ * JMX view of the TaskMetrics of a running batch. Totals are keyed by task name or scenario name and cover every
+ * execution recorded so far.
+ *
+ * @author csmith
+ *
+ */
+public interface TaskMetricsMXBean {
+
+	long getTaskCount();
+
+	long getJobCount();
+
+	Map<String, Long> getWallMillisByTask();
+
+	Map<String, Long> getCpuMillisByTask();
+
+	Map<String, Long> getAllocatedBytesByTask();
+
+	Map<String, Long> getRecordsWrittenByTask();
+
+	Map<String, Long> getWallMillisByScenario();
+
+	Map<String, Long> getCpuMillisByScenario();
+}
@@ -0,0 +1,107 @@
+package gov.faa.ang.swac.controller.core;
+
+import gov.faa.ang.swac.datalayer.storage.DataMarshaller;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reflective lookups made while wiring task instances, resolved once per class and then shared. A Monte Carlo batch
+ * creates every task class once per instance, so without this each instance would repeat the same method searches
+ * (and throw and catch the same NoSuchMethodExceptions) that the first one did. Misses are cached as well as hits.
+ *
+ * Instances are immutable apart from their caches and are safe to share between threads.
+ *
+ * @author csmith
+ *
+ */
+final class TaskWiring {
+	private static final ConcurrentMap<Class<?>, TaskWiring> plans = new ConcurrentHashMap<Class<?>, TaskWiring>();
+	private static final Object MISSING = new Object();
+
+	private final Class<?> target;
+	// Keyed by method name and parameter type; values are the Method or MISSING
+	private final ConcurrentMap<String, Object> methods = new ConcurrentHashMap<String, Object>();
+	private volatile List<Method> marshallerSetters;
+	private volatile Object cloneMethod;
+
+	private TaskWiring(Class<?> target) {
+		this.target = target;
+	}
+
+	static TaskWiring forClass(Class<?> target) {
+		TaskWiring plan = plans.get(target);
+		if (plan == null) {
+			TaskWiring created = new TaskWiring(target);
+			plan = plans.putIfAbsent(target, created);
+			if (plan == null) {
+				plan = created;
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * Equivalent to Class.getMethod for a single-parameter method, returning null instead of throwing when there is
+	 * no such public method
+	 */
+	Method getMethod(String name, Class<?> parameterType) {
+		String key = name + "(" + parameterType.getName() + ")";
+		Object method = this.methods.get(key);
+		if (method == null) {
+			try {
+				method = this.target.getMethod(name, parameterType);
+			} catch (NoSuchMethodException ex) {
+				method = MISSING;
+			}
+			this.methods.put(key, method);
+		}
+		return (method == MISSING) ? null : (Method) method;
+	}
+
+	/**
+	 * Find a bean property setter the way TaskConfiguration names them: the property name capitalized, then as given
+	 */
+	Method getPropertyMethod(String prefix, String name, Class<?> parameterType) {
+		Method method = getMethod(prefix + name.substring(0,1).toUpperCase() + name.substring(1), parameterType);
+		if (method == null) {
+			method = getMethod(prefix + name.substring(0,1).toLowerCase() + name.substring(1), parameterType);
+		}
+		return method;
+	}
+
+	/**
+	 * @return the public one-argument setters that accept a DataMarshaller, which cleanup clears to release data
+	 */
+	List<Method> getMarshallerSetters() {
+		List<Method> setters = this.marshallerSetters;
+		if (setters == null) {
+			setters = new ArrayList<Method>();
+			for (Method method : this.target.getMethods()) {
+				Class<?>[] paramType = method.getParameterTypes();
+				if (method.getName().startsWith("set") && paramType.length == 1 && DataMarshaller.class.isAssignableFrom(paramType[0])) {
+					setters.add(method);
+				}
+			}
+			setters = Collections.unmodifiableList(setters);
+			this.marshallerSetters = setters;
+		}
+		return setters;
+	}
+
+	/**
+	 * @return the clone method that TaskConfiguration looks for on configuration values, or null if there is none
+	 */
+	Method getCloneMethod() {
+		Object method = this.cloneMethod;
+		if (method == null) {
+			method = getMethod("clone", this.target);
+			this.cloneMethod = (method == null) ? MISSING : method;
+		}
+		return (method == MISSING) ? null : (Method) method;
+	}
+}
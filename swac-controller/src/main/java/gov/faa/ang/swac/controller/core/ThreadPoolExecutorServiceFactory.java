@@ -28,9 +28,43 @@ public class ThreadPoolExecutorServiceFactory implements ExecutorServiceFactory
     public void setMemoryPerInstance(long val) {
         this.memoryPerInstance = val;
     }
+    
+    private boolean adaptiveAdmission;
+    
+    public boolean isAdaptiveAdmission() {
+        return this.adaptiveAdmission;
+    }
+    
+    /**
+     * @param val when true, one thread per processor is created and each Job is held until its projected heap footprint,
+     * learned from earlier Jobs, fits; memoryPerInstance is then only the initial guess for task types not yet seen
+     */
+    public void setAdaptiveAdmission(boolean val) {
+        this.adaptiveAdmission = val;
+    }
+    
+    private double heapFraction = 0.9;
+    
+    public double getHeapFraction() {
+        return this.heapFraction;
+    }
+    
+    /**
+     * @param val fraction of the maximum heap that adaptively admitted Jobs may occupy
+     */
+    public void setHeapFraction(double val) {
+        this.heapFraction = val;
+    }
+    
+    // Shared by the executors this factory creates so that footprints learned in one batch carry over to the next
+    private TaskMemoryMonitor memoryMonitor;
 	    
 	@Override
 	public ExecutorService create() {
+		if (this.adaptiveAdmission) {
+			return createAdaptive();
+		}
+		
 		int maxThreads = this.numProcessors;
 		if (maxThreads <= 0) {
 			// auto-detect
@@ -48,5 +82,19 @@ public class ThreadPoolExecutorServiceFactory implements ExecutorServiceFactory
 		
 		return executor;
 	}
-
+	
+	private synchronized ExecutorService createAdaptive() {
+		int maxThreads = this.numProcessors;
+		if (maxThreads <= 0) {
+			maxThreads = Runtime.getRuntime().availableProcessors();
+		}
+		if (this.memoryMonitor == null) {
+			this.memoryMonitor = new TaskMemoryMonitor(this.memoryPerInstance);
+		}
+		this.memoryMonitor.start();
+		
+		long budget = (long) (Runtime.getRuntime().maxMemory() * this.heapFraction);
+		logger.info("ExecutorService will run up to " + maxThreads + " concurrent threads for Job execution, admitting Jobs while their projected memory fits in " + (budget / 1048576) + " MB.");
+		return new MemoryAwareThreadPoolExecutor(maxThreads, this.memoryMonitor, budget);
+	}
 }
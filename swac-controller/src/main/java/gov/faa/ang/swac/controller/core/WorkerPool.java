@@ -0,0 +1,480 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.controller.core;
+
+import gov.faa.ang.swac.common.datatypes.Timestamp;
+import gov.faa.ang.swac.controller.Bootstrap;
+import gov.faa.ang.swac.controller.Main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Runs the scenarios of a batch in separate worker JVMs on this host, so that each scenario has a heap of its own: a
+ * worker that runs out of memory costs only the scenario it was running, and small heaps keep GC pauses short.
+ *
+ * The coordinating Batch submits one Assignment per scenario. Each worker is started with Main's worker option, loads
+ * the same batch configuration, and connects back to the coordinator over a loopback socket. Any local process can
+ * connect to that socket, so each worker is given a random token on its standard input (never on its command line,
+ * which other users can see), and the coordinator drops any connection that doesn't present it before a single object
+ * is read from the socket. The worker then runs the scenarios
+ * it is sent one at a time and answers each with a Report of the checkpoint journal entries and task metrics it would
+ * otherwise have recorded itself. A worker whose connection fails is discarded, its scenario is reported failed, and a
+ * new worker is started for the next assignment. At most size workers run at once.
+ *
+ * Scenarios are the unit of work because a scenario's Jobs are wired to each other, and to its Monte Carlo aggregation
+ * tasks, through in-memory data; only a scenario as a whole can be run without the others.
+ *
+ * @author csmith
+ *
+ */
+final class WorkerPool implements Closeable {
+	private static final Logger logger = LogManager.getLogger(WorkerPool.class);
+
+	private static final int CONNECT_TIMEOUT_MILLIS = 10 * 60 * 1000;
+	private static final int HANDSHAKE_TIMEOUT_MILLIS = 10 * 1000;
+	private static final int EXIT_POLL_MILLIS = 1000;
+	private static final int TOKEN_BYTES = 32;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final long EXIT_TIMEOUT_MILLIS = 60 * 1000;
+	// Workers load the data the coordinator already exported; they must not extract it again concurrently
+	private static final String DATA_EXTRACTION_PROPERTY = "swac.data.extraction";
+
+	/**
+	 * One scenario of the batch, identified by its classifier, base date and forecast fiscal year
+	 */
+	static final class Assignment implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final String classifier;
+		private final Timestamp baseDate;
+		private final int forecastFiscalYear;
+		private final String scenarioName;
+		private final int scenarioId;
+
+		Assignment(String classifier, Timestamp baseDate, int forecastFiscalYear, String scenarioName, int scenarioId) {
+			this.classifier = classifier;
+			this.baseDate = baseDate;
+			this.forecastFiscalYear = forecastFiscalYear;
+			this.scenarioName = scenarioName;
+			this.scenarioId = scenarioId;
+		}
+
+		String getClassifier() { return this.classifier; }
+		Timestamp getBaseDate() { return this.baseDate; }
+		int getForecastFiscalYear() { return this.forecastFiscalYear; }
+		String getScenarioName() { return this.scenarioName; }
+		int getScenarioId() { return this.scenarioId; }
+	}
+
+	/**
+	 * What a worker recorded while running an Assignment. Journal entries travel in the journal's own format.
+	 */
+	static final class Report implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final List<String> entries = new ArrayList<String>();
+		private final List<TaskMetrics.Record> metrics;
+		private final boolean fatal;
+
+		/**
+		 * @param fatal true if the worker can't take another assignment and is exiting
+		 */
+		Report(List<CheckpointJournal.Entry> entries, List<TaskMetrics.Record> metrics, boolean fatal) {
+			for (CheckpointJournal.Entry entry : entries) {
+				this.entries.add(entry.format());
+			}
+			this.metrics = new ArrayList<TaskMetrics.Record>(metrics);
+			this.fatal = fatal;
+		}
+
+		static Report failed(Assignment assignment, String errorMessage) {
+			return new Report(Collections.singletonList(new CheckpointJournal.Entry(CheckpointJournal.Kind.SCENARIO, assignment.getScenarioName(),
+					assignment.getScenarioId(), false, 0, errorMessage, null)), Collections.<TaskMetrics.Record> emptyList(), false);
+		}
+
+		List<CheckpointJournal.Entry> getEntries() {
+			List<CheckpointJournal.Entry> retVal = new ArrayList<CheckpointJournal.Entry>();
+			for (String entry : this.entries) {
+				retVal.add(CheckpointJournal.Entry.parse(entry));
+			}
+			return retVal;
+		}
+
+		List<TaskMetrics.Record> getMetrics() {
+			return this.metrics;
+		}
+
+		boolean isFatal() {
+			return this.fatal;
+		}
+	}
+
+	/**
+	 * The worker's end of its connection to the coordinator
+	 */
+	static final class Connection implements Closeable {
+		private final Socket socket;
+		private final ObjectOutputStream out;
+		private final ObjectInputStream in;
+
+		/**
+		 * @param token the token the coordinator gave this worker (see readToken)
+		 */
+		Connection(int port, int workerId, String token) throws IOException {
+			this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+			OutputStream raw = new BufferedOutputStream(this.socket.getOutputStream());
+			DataOutputStream handshake = new DataOutputStream(raw);
+			handshake.writeInt(workerId);
+			handshake.writeUTF(token);
+			this.out = new ObjectOutputStream(raw);
+			this.out.flush();
+			this.in = new ObjectInputStream(new BufferedInputStream(this.socket.getInputStream()));
+		}
+
+		/**
+		 * Reads the token the coordinator writes to a worker's standard input
+		 */
+		static String readToken(InputStream in) throws IOException {
+			String token = new BufferedReader(new InputStreamReader(in, UTF8)).readLine();
+			if (token == null || token.isEmpty()) {
+				throw new IOException("No worker token on standard input");
+			}
+			return token;
+		}
+
+		/**
+		 * @return the next scenario to run, or null when the coordinator has no more
+		 */
+		Assignment next() throws IOException, ClassNotFoundException {
+			return (Assignment) this.in.readObject();
+		}
+
+		void send(Report report) throws IOException {
+			this.out.writeObject(report);
+			this.out.reset();
+			this.out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.socket.close();
+		}
+	}
+
+	/**
+	 * The coordinator's handle on a worker JVM
+	 */
+	private static final class WorkerProcess {
+		private final int id;
+		private final Process process;
+		private final Socket socket;
+		private final ObjectOutputStream out;
+		private final ObjectInputStream in;
+
+		/**
+		 * @param in the socket's input, positioned after the handshake
+		 */
+		WorkerProcess(int id, Process process, Socket socket, InputStream in) throws IOException {
+			this.id = id;
+			this.process = process;
+			this.socket = socket;
+			this.out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			this.out.flush();
+			this.in = new ObjectInputStream(in);
+		}
+
+		Report run(Assignment assignment) throws IOException, ClassNotFoundException {
+			this.out.writeObject(assignment);
+			this.out.reset();
+			this.out.flush();
+			return (Report) this.in.readObject();
+		}
+
+		/**
+		 * Asks the worker to exit, and kills it if it hasn't after a while
+		 */
+		void shutdown() {
+			try {
+				this.out.writeObject(null);
+				this.out.flush();
+			} catch (IOException ex) {
+				// Already gone
+			}
+			try {
+				this.socket.close();
+			} catch (IOException ex) {
+				// Already closed
+			}
+			long deadline = System.currentTimeMillis() + EXIT_TIMEOUT_MILLIS;
+			while (System.currentTimeMillis() < deadline) {
+				try {
+					this.process.exitValue();
+					return;
+				} catch (IllegalThreadStateException ex) {
+					try {
+						Thread.sleep(100);
+					} catch (InterruptedException iex) {
+						Thread.currentThread().interrupt();
+						break;
+					}
+				}
+			}
+			logger.warn("Worker " + this.id + " did not exit; destroying it");
+			this.process.destroy();
+		}
+	}
+
+	private final String batchName;
+	private final List<String> jvmArguments;
+	private final String mainClass;
+	private final ExecutorService threads;
+	private final CompletionService<Report> completion;
+	private final BlockingQueue<WorkerProcess> idle = new LinkedBlockingQueue<WorkerProcess>();
+	private final List<WorkerProcess> workers = Collections.synchronizedList(new ArrayList<WorkerProcess>());
+	private final List<Integer> workerIds = Collections.synchronizedList(new ArrayList<Integer>());
+	private final AtomicInteger nextId = new AtomicInteger();
+	private final SecureRandom random = new SecureRandom();
+
+	WorkerPool(String batchName, int size, List<String> jvmArguments) {
+		this(batchName, size, jvmArguments, defaultMainClass());
+	}
+
+	/**
+	 * @param mainClass the class whose main method the worker JVMs run; it is passed Main's worker arguments
+	 */
+	WorkerPool(String batchName, int size, List<String> jvmArguments, String mainClass) {
+		this.batchName = batchName;
+		this.jvmArguments = jvmArguments;
+		this.mainClass = mainClass;
+		// Each thread waits on one worker at a time, which bounds the number of workers
+		this.threads = Executors.newFixedThreadPool(size);
+		this.completion = new ExecutorCompletionService<Report>(this.threads);
+	}
+
+	/**
+	 * A JVM started by Bootstrap loads SWAC from its own class loader, so workers must be started the same way
+	 */
+	private static String defaultMainClass() {
+		return (WorkerPool.class.getClassLoader() == ClassLoader.getSystemClassLoader()) ? Main.class.getName() : Bootstrap.class.getName();
+	}
+
+	void submit(final Assignment assignment) {
+		this.completion.submit(new Callable<Report>() {
+			@Override
+			public Report call() {
+				return runOnWorker(assignment);
+			}
+		});
+	}
+
+	/**
+	 * @return the next Report to arrive, blocking until one does
+	 */
+	Report take() throws InterruptedException, ExecutionException {
+		return this.completion.take().get();
+	}
+
+	/**
+	 * @return the ids of every worker started so far, including those that have since exited
+	 */
+	List<Integer> getWorkerIds() {
+		synchronized (this.workerIds) {
+			return new ArrayList<Integer>(this.workerIds);
+		}
+	}
+
+	private Report runOnWorker(Assignment assignment) {
+		WorkerProcess worker = this.idle.poll();
+		if (worker == null) {
+			try {
+				worker = startWorker();
+			} catch (IOException ex) {
+				logger.error("Worker process could not be started for scenario " + assignment.getScenarioName() + ": " + ex.getMessage());
+				return Report.failed(assignment, "Worker process could not be started: " + ex.getMessage());
+			}
+		}
+		logger.info("Running scenario " + assignment.getScenarioName() + " on worker " + worker.id);
+		try {
+			Report report = worker.run(assignment);
+			if (report.isFatal()) {
+				retire(worker);
+			} else {
+				this.idle.add(worker);
+			}
+			return report;
+		} catch (IOException ex) {
+			logger.error("Worker " + worker.id + " failed running scenario " + assignment.getScenarioName() + ": " + ex.getMessage());
+			retire(worker);
+			return Report.failed(assignment, "Worker process exited: " + ex.getMessage());
+		} catch (ClassNotFoundException ex) {
+			retire(worker);
+			return Report.failed(assignment, "Invalid worker response: " + ex.getMessage());
+		}
+	}
+
+	private void retire(WorkerProcess worker) {
+		this.workers.remove(worker);
+		worker.shutdown();
+	}
+
+	private WorkerProcess startWorker() throws IOException {
+		int id = this.nextId.getAndIncrement();
+		String token = newToken();
+		ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		try {
+			ProcessBuilder builder = new ProcessBuilder(command(server.getLocalPort(), id));
+			builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+			builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+			Process process = builder.start();
+			this.workerIds.add(id);
+			try {
+				OutputStream stdin = process.getOutputStream();
+				stdin.write((token + "\n").getBytes(UTF8));
+				stdin.close();
+
+				WorkerProcess worker = accept(server, id, token, process);
+				this.workers.add(worker);
+				logger.info("Started worker " + id);
+				return worker;
+			} catch (IOException ex) {
+				process.destroy();
+				throw ex;
+			}
+		} finally {
+			server.close();
+		}
+	}
+
+	/**
+	 * Waits for the worker to connect, closing any connection that doesn't present its id and token
+	 */
+	private static WorkerProcess accept(ServerSocket server, int id, String token, Process process) throws IOException {
+		long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+		while (true) {
+			int remaining = (int) (deadline - System.currentTimeMillis());
+			if (remaining <= 0) {
+				throw new IOException("Worker " + id + " did not connect within " + (CONNECT_TIMEOUT_MILLIS / 1000) + " seconds");
+			}
+			// Wake up now and then to see whether the worker has exited
+			server.setSoTimeout(Math.min(remaining, EXIT_POLL_MILLIS));
+			Socket socket;
+			try {
+				socket = server.accept();
+			} catch (SocketTimeoutException ex) {
+				try {
+					throw new IOException("Worker " + id + " exited with code " + process.exitValue() + " before connecting");
+				} catch (IllegalThreadStateException running) {
+					continue;
+				}
+			}
+			BufferedInputStream in = new BufferedInputStream(socket.getInputStream());
+			boolean authenticated = false;
+			try {
+				socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+				DataInputStream handshake = new DataInputStream(in);
+				int connected = handshake.readInt();
+				String presented = handshake.readUTF();
+				authenticated = (connected == id && MessageDigest.isEqual(token.getBytes(UTF8), presented.getBytes(UTF8)));
+			} catch (IOException ex) {
+				logger.debug("Handshake failed: " + ex.getMessage());
+			}
+			if (authenticated) {
+				try {
+					socket.setSoTimeout(0);
+					return new WorkerProcess(id, process, socket, in);
+				} catch (IOException ex) {
+					socket.close();
+					throw ex;
+				}
+			}
+			logger.warn("Rejected a connection from " + socket.getRemoteSocketAddress() + " that did not present worker " + id + "'s token");
+			socket.close();
+		}
+	}
+
+	private String newToken() {
+		byte[] bytes = new byte[TOKEN_BYTES];
+		this.random.nextBytes(bytes);
+		StringBuilder token = new StringBuilder(2 * TOKEN_BYTES);
+		for (byte b : bytes) {
+			token.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return token.toString();
+	}
+
+	List<String> command(int port, int id) {
+		List<String> command = new ArrayList<String>();
+		command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+		command.addAll(this.jvmArguments);
+		for (String name : System.getProperties().stringPropertyNames()) {
+			if ((name.startsWith("swac.") || name.startsWith("log4j.")) && !name.equals(DATA_EXTRACTION_PROPERTY)) {
+				command.add("-D" + name + "=" + System.getProperty(name));
+			}
+		}
+		command.add("-D" + DATA_EXTRACTION_PROPERTY + "=false");
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(this.mainClass);
+		command.add(Main.WORKER_OPTION);
+		command.add(String.valueOf(port));
+		command.add(String.valueOf(id));
+		command.add(this.batchName);
+		return command;
+	}
+
+	/**
+	 * Stops the workers. Assignments that have not been reported are abandoned.
+	 */
+	@Override
+	public void close() {
+		this.threads.shutdownNow();
+		List<WorkerProcess> remaining;
+		synchronized (this.workers) {
+			remaining = new ArrayList<WorkerProcess>(this.workers);
+			this.workers.clear();
+		}
+		for (WorkerProcess worker : remaining) {
+			worker.shutdown();
+		}
+	}
+}
@@ -49,8 +49,14 @@ public class GenericFileOutputBean extends CloneableAbstractTask implements Appe
 		
 		try {
 			this.inputData.close();
-			this.outputFile.close();
 		} catch (DataAccessException e) { /* Ignore Exceptions closing marshallers */ }
+		try {
+			// Waits for the file to be written by onSave, which overlaps with the tasks that run before this one
+			this.outputFile.close();
+		} catch (DataAccessException e) {
+			logger.error("Error saving file " + this.outputFile.toString() + ": " + e.getMessage());
+			logger.trace(e.getStackTrace());
+		}
 	}
 	
 	@Override
@@ -74,7 +80,8 @@ public class GenericFileOutputBean extends CloneableAbstractTask implements Appe
 			if (temp.size() > 0) // Avoid infinite loop
 			{
 				logger.debug("Saving file: " + this.outputFile.toString());
-				this.outputFile.save(temp);
+				// A failure of the previous save is reported here, or by close() in run()
+				this.outputFile.saveAsync(temp);
 				
 				// TODO: The following block doesn't work, and neither does unsubscribing in the handler (concurrent modification error)...we need better clean-up
 //				// Now clean-up
@@ -82,9 +89,11 @@ public class GenericFileOutputBean extends CloneableAbstractTask implements Appe
 //				this.inputData.save(temp);
 			}
 		} catch (DataAccessException e) {
-                    logger.trace(e.getStackTrace());
+			logger.error("Error saving file " + this.outputFile.toString() + ": " + e.getMessage());
+			logger.trace(e.getStackTrace());
 		}
 	}
+	
 	@Override
 	public boolean validate(VALIDATION_LEVEL level) {
 		// Not sure anything can be validated in advance in this class.
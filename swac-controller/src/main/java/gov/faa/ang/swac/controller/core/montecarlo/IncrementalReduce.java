@@ -0,0 +1,32 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI. All rights reserved. This computer Software was
+ * developed with the sponsorship of the U.S. Government under Contract No. DTFAWA-10-D-00033, which
+ * has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.controller.core.montecarlo;
+
+import gov.faa.ang.swac.datalayer.DataAccessException;
+
+/**
+ * Implemented by Monte Carlo reduce tasks that can fold instance outputs into a running result one at a time. Such tasks
+ * are offered each instance's output on their streaming inputs as soon as the instance completes, rather than only when
+ * every instance has finished, so that at most a few instances' outputs are held in memory at once and the reduce
+ * overlaps the remaining instances.<p>
+ * 
+ * This is an extension point: none of the reduce task types in this tree implement it, and no shipped scenario defines
+ * a MonteCarloReduceTaskConfiguration. A reduce task that does not implement it behaves as before, with every
+ * instance's output queued on its streaming inputs until run().
+ * 
+ * @author csmith
+ *
+ */
+public interface IncrementalReduce
+{
+	/**
+	 * Load and fold everything currently queued on this task's streaming inputs, releasing each instance's output once it
+	 * is folded. Called on the batch's control thread after each Monte Carlo instance completes and before the task runs;
+	 * run() must still fold anything that remains and then produce the result.
+	 */
+	public void reduceAvailable() throws DataAccessException;
+}
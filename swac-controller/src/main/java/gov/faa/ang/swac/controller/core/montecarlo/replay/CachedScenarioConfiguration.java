@@ -9,6 +9,9 @@ package gov.faa.ang.swac.controller.core.montecarlo.replay;
 
 import gov.faa.ang.swac.common.datatypes.Timestamp;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -150,4 +153,43 @@ public class CachedScenarioConfiguration
         	CachedTaskConfiguration.writeElement(d, element, task);
         }
 	}
+	
+	/**
+	 * Binary parsing for IndexedConfigurationFile. Task records are delegated to CachedTaskConfiguration
+	 * @param scenarioExecutionId
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	protected static CachedScenarioConfiguration readRecord(Integer scenarioExecutionId, DataInput in) throws IOException {
+		CachedScenarioConfiguration scenario = new CachedScenarioConfiguration(scenarioExecutionId);
+		
+		String baseDate = CachedTaskConfiguration.readString(in);
+		scenario.setBaseDate(baseDate == null ? null : Timestamp.myValueOf(baseDate));
+		scenario.setForecastFiscalYear(in.readInt());
+		scenario.setClassifier(CachedTaskConfiguration.readString(in));
+		
+		int taskCount = in.readInt();
+		for (int i = 0; i < taskCount; i++) {
+			scenario.putTask(CachedTaskConfiguration.readRecord(in));
+		}
+		return scenario;
+	}
+	
+	/**
+	 * Binary formatting for IndexedConfigurationFile. The id is not written; the file keeps it with the record's offset
+	 * @param out
+	 * @param scenario
+	 * @throws IOException
+	 */
+	protected static void writeRecord(DataOutput out, CachedScenarioConfiguration scenario) throws IOException {
+		CachedTaskConfiguration.writeString(out, scenario.getBaseDate() == null ? null : scenario.getBaseDate().toBonnDateOnlyString());
+		out.writeInt(scenario.getForecastFiscalYear());
+		CachedTaskConfiguration.writeString(out, scenario.getClassifier());
+		
+		out.writeInt(scenario.tasks.size());
+		for (CachedTaskConfiguration task : scenario.tasks.values()) {
+			CachedTaskConfiguration.writeRecord(out, task);
+		}
+	}
 }
@@ -7,6 +7,9 @@
 
 package gov.faa.ang.swac.controller.core.montecarlo.replay;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.Map.Entry;
@@ -93,4 +96,48 @@ public class CachedTaskConfiguration {
         propElement.setAttribute(PROPERTY_KEY_ATTRIBUTE_NAME, property.getKey());
         propElement.setAttribute(PROPERTY_VALUE_ATTRIBUTE_NAME, property.getValue().toString());
 	}
+	
+	/**
+	 * Binary parsing. As with XML, property values are read back as Strings
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	protected static CachedTaskConfiguration readRecord(DataInput in) throws IOException {
+		CachedTaskConfiguration task = new CachedTaskConfiguration(in.readUTF());
+		
+		int propertyCount = in.readInt();
+		for (int i = 0; i < propertyCount; i++) {
+			String name = in.readUTF();
+			task.configuration.put(name, readString(in));
+		}
+		return task;
+	}
+	
+	/**
+	 * Binary formatting. As with XML, property values are written as their toString()
+	 * @param out
+	 * @param task
+	 * @throws IOException
+	 */
+	protected static void writeRecord(DataOutput out, CachedTaskConfiguration task) throws IOException {
+		out.writeUTF(task.getTaskId());
+		
+		out.writeInt(task.configuration.size());
+		for (Entry<String,Object> property : task.configuration.entrySet()) {
+			out.writeUTF(property.getKey());
+			writeString(out, property.getValue() == null ? null : property.getValue().toString());
+		}
+	}
+	
+	static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+	
+	static void writeString(DataOutput out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
 }
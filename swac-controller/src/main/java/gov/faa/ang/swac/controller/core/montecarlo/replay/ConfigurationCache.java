@@ -9,11 +9,16 @@ package gov.faa.ang.swac.controller.core.montecarlo.replay;
 
 import gov.faa.ang.swac.datalayer.storage.fileio.StreamSerializable;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -38,6 +43,10 @@ import org.xml.sax.SAXException;
 /**
  * Container for cached configuration properties, keyed by scenarioExecutionId, taskId, and property name.
  * StreamSerializable to XML in conjunction with CachedScenarioConfiguration and CachedTaskConfiguration.
+ * 
+ * A cache returned by open() is backed by an IndexedConfigurationFile instead: scenarios are read from the file only
+ * when they are asked for, and are appended to it by commit() as soon as they are complete rather than all at once
+ * at the end of initialization. Committed scenarios are released from memory.
  * @author csmith
  *
  */
@@ -47,6 +56,26 @@ public class ConfigurationCache implements StreamSerializable {
 	public static final String DOCUMENT_NAME = "ConfigurationCache";
 	
 	private SortedMap<Integer,CachedScenarioConfiguration> scenarios = new TreeMap<Integer,CachedScenarioConfiguration>();
+	private IndexedConfigurationFile store;
+	private final Set<Integer> readFromStore = new HashSet<Integer>();
+	
+	/**
+	 * Opens (or creates) an indexed configuration cache file
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static ConfigurationCache open(File file) throws IOException
+	{
+		ConfigurationCache cache = new ConfigurationCache();
+		cache.store = new IndexedConfigurationFile(file);
+		return cache;
+	}
+	
+	public boolean isIndexed()
+	{
+		return this.store != null;
+	}
 	
 	/**
 	 * Get-or-create behavior so calling code never explicitly needs to 
@@ -57,6 +86,19 @@ public class ConfigurationCache implements StreamSerializable {
 	public CachedScenarioConfiguration getScenario(Integer scenarioExecutionId)
 	{
 		CachedScenarioConfiguration retVal = this.scenarios.get(scenarioExecutionId);
+		if (retVal == null && this.store != null)
+		{
+			try {
+				retVal = this.store.read(scenarioExecutionId);
+			} catch (IOException ex) {
+				logger.warn("Cached configuration of scenario " + scenarioExecutionId + " could not be read from " + this.store.getFile() + "; starting from a blank configuration", ex);
+			}
+			if (retVal != null)
+			{
+				this.readFromStore.add(scenarioExecutionId);
+				this.scenarios.put(scenarioExecutionId, retVal);
+			}
+		}
 		if (retVal == null)
 		{
 			retVal = new CachedScenarioConfiguration(scenarioExecutionId);
@@ -66,7 +108,77 @@ public class ConfigurationCache implements StreamSerializable {
 	}
 	
 	public boolean contains(Integer scenarioExecutionId){
-		return this.scenarios.containsKey(scenarioExecutionId);
+		return this.scenarios.containsKey(scenarioExecutionId) || (this.store != null && this.store.contains(scenarioExecutionId));
+	}
+	
+	/**
+	 * Appends a completed scenario to the indexed file and releases it from memory. Does nothing if the cache is not
+	 * indexed, since an XML cache can only be written whole.
+	 * @param scenarioExecutionId
+	 * @throws IOException
+	 */
+	public void commit(Integer scenarioExecutionId) throws IOException
+	{
+		if (this.store != null)
+		{
+			CachedScenarioConfiguration scenario = this.scenarios.remove(scenarioExecutionId);
+			this.readFromStore.remove(scenarioExecutionId);
+			if (scenario != null)
+			{
+				this.store.append(scenario);
+			}
+		}
+	}
+	
+	/**
+	 * Commits every scenario still in memory, other than those that were only read from the file, and closes the
+	 * indexed file
+	 * @throws IOException
+	 */
+	public void close() throws IOException
+	{
+		if (this.store != null)
+		{
+			try {
+				for (Integer scenarioExecutionId : new ArrayList<Integer>(this.scenarios.keySet()))
+				{
+					if (!this.readFromStore.contains(scenarioExecutionId))
+					{
+						commit(scenarioExecutionId);
+					}
+				}
+			} finally {
+				this.store.close();
+			}
+		}
+	}
+	
+	/**
+	 * @return the ids of every scenario in the cache, whether in memory or only in the indexed file
+	 */
+	public Set<Integer> getScenarioExecutionIds()
+	{
+		Set<Integer> ids = new TreeSet<Integer>(this.scenarios.keySet());
+		if (this.store != null)
+		{
+			ids.addAll(this.store.getScenarioExecutionIds());
+		}
+		return ids;
+	}
+	
+	/**
+	 * Adds (or replaces) every scenario of another cache, e.g. one written by a worker process
+	 * @param other
+	 * @throws IOException
+	 */
+	public void merge(ConfigurationCache other) throws IOException
+	{
+		for (Integer scenarioExecutionId : other.getScenarioExecutionIds())
+		{
+			this.putScenario(other.getScenario(scenarioExecutionId));
+			this.readFromStore.remove(scenarioExecutionId);
+			commit(scenarioExecutionId);
+		}
 	}
 	
 	/**
@@ -85,6 +197,15 @@ public class ConfigurationCache implements StreamSerializable {
 	{
 		logger.warn("All cached configurations are being deleted");
 		this.scenarios.clear();
+		this.readFromStore.clear();
+		if (this.store != null)
+		{
+			try {
+				this.store.clear();
+			} catch (IOException ex) {
+				logger.error("Configuration cache " + this.store.getFile() + " could not be cleared", ex);
+			}
+		}
 	}
 	
 	/**
@@ -0,0 +1,200 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.controller.core.montecarlo.replay;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Appendable binary store of CachedScenarioConfigurations with an offset index, so that a replay reads only the
+ * scenario it needs instead of parsing the whole cache.
+ *
+ * The data file is a sequence of records: scenarioExecutionId (int), payload length (int), payload. The index file,
+ * named after the data file with ".idx" appended, holds one entry per record: scenarioExecutionId (int), payload
+ * offset (long), payload length (int). A scenario that is written again is appended; its latest record wins. If the
+ * index doesn't account for the whole data file (e.g. the writer was killed between the two appends) it is rebuilt by
+ * walking the record headers, and a record cut off at the end of the data file is discarded.
+ *
+ * @author csmith
+ *
+ */
+public class IndexedConfigurationFile implements Closeable {
+	private static final Logger logger = LogManager.getLogger(IndexedConfigurationFile.class);
+
+	public static final String INDEX_SUFFIX = ".idx";
+	private static final int HEADER_LENGTH = 8;
+	private static final int INDEX_ENTRY_LENGTH = 16;
+
+	private final File file;
+	private final File indexFile;
+	private final RandomAccessFile data;
+	private final RandomAccessFile index;
+	private final Map<Integer,long[]> offsets = new HashMap<Integer,long[]>();
+
+	public IndexedConfigurationFile(File file) throws IOException {
+		this.file = file;
+		this.indexFile = new File(file.getPath() + INDEX_SUFFIX);
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		this.data = new RandomAccessFile(file, "rw");
+		try {
+			this.index = new RandomAccessFile(this.indexFile, "rw");
+			if (!readIndex()) {
+				logger.warn("Index of configuration cache " + file + " is out of date; rebuilding it");
+				rebuildIndex();
+			}
+		} catch (IOException ex) {
+			this.data.close();
+			throw ex;
+		}
+	}
+
+	public File getFile() {
+		return this.file;
+	}
+
+	public synchronized boolean contains(Integer scenarioExecutionId) {
+		return this.offsets.containsKey(scenarioExecutionId);
+	}
+
+	public synchronized Set<Integer> getScenarioExecutionIds() {
+		return Collections.unmodifiableSet(new TreeSet<Integer>(this.offsets.keySet()));
+	}
+
+	/**
+	 * @return the latest record of the scenario, or null if there is none
+	 */
+	public synchronized CachedScenarioConfiguration read(Integer scenarioExecutionId) throws IOException {
+		long[] entry = this.offsets.get(scenarioExecutionId);
+		if (entry == null) {
+			return null;
+		}
+		byte[] payload = new byte[(int) entry[1]];
+		this.data.seek(entry[0]);
+		this.data.readFully(payload);
+		return CachedScenarioConfiguration.readRecord(scenarioExecutionId, new DataInputStream(new ByteArrayInputStream(payload)));
+	}
+
+	/**
+	 * Appends the scenario to the data file, then indexes it
+	 */
+	public synchronized void append(CachedScenarioConfiguration scenario) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buffer);
+		CachedScenarioConfiguration.writeRecord(out, scenario);
+		out.flush();
+		byte[] payload = buffer.toByteArray();
+
+		// Header and payload go out in one write so that a record is either whole or detectably cut off
+		ByteArrayOutputStream record = new ByteArrayOutputStream(HEADER_LENGTH + payload.length);
+		DataOutputStream recordOut = new DataOutputStream(record);
+		recordOut.writeInt(scenario.getScenarioExecutionId());
+		recordOut.writeInt(payload.length);
+		recordOut.write(payload);
+		recordOut.flush();
+
+		long start = this.data.length();
+		this.data.seek(start);
+		this.data.write(record.toByteArray());
+
+		writeIndexEntry(scenario.getScenarioExecutionId(), start + HEADER_LENGTH, payload.length);
+	}
+
+	/**
+	 * Discards every record
+	 */
+	public synchronized void clear() throws IOException {
+		this.data.setLength(0);
+		this.index.setLength(0);
+		this.offsets.clear();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			this.index.close();
+		} finally {
+			this.data.close();
+		}
+	}
+
+	/**
+	 * @return false if the index doesn't end exactly where the data file does
+	 */
+	private boolean readIndex() throws IOException {
+		long length = this.index.length();
+		if (length % INDEX_ENTRY_LENGTH != 0) {
+			return false;
+		}
+		byte[] bytes = new byte[(int) length];
+		this.index.seek(0);
+		this.index.readFully(bytes);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		long end = 0;
+		long dataLength = this.data.length();
+		for (long i = 0; i < length; i += INDEX_ENTRY_LENGTH) {
+			int id = in.readInt();
+			long offset = in.readLong();
+			int payloadLength = in.readInt();
+			if (offset + payloadLength > dataLength) {
+				return false;
+			}
+			this.offsets.put(id, new long[] { offset, payloadLength });
+			end = Math.max(end, offset + payloadLength);
+		}
+		return end == dataLength;
+	}
+
+	private void rebuildIndex() throws IOException {
+		this.offsets.clear();
+		this.index.setLength(0);
+		long dataLength = this.data.length();
+		long position = 0;
+		while (position + HEADER_LENGTH <= dataLength) {
+			this.data.seek(position);
+			int id = this.data.readInt();
+			int payloadLength = this.data.readInt();
+			if (payloadLength < 0 || position + HEADER_LENGTH + payloadLength > dataLength) {
+				break;
+			}
+			writeIndexEntry(id, position + HEADER_LENGTH, payloadLength);
+			position += HEADER_LENGTH + payloadLength;
+		}
+		if (position < dataLength) {
+			logger.warn("Discarding incomplete record at the end of configuration cache " + this.file);
+			this.data.setLength(position);
+		}
+	}
+
+	private void writeIndexEntry(int id, long offset, int length) throws IOException {
+		ByteArrayOutputStream entry = new ByteArrayOutputStream(INDEX_ENTRY_LENGTH);
+		DataOutputStream out = new DataOutputStream(entry);
+		out.writeInt(id);
+		out.writeLong(offset);
+		out.writeInt(length);
+		out.flush();
+		this.index.seek(this.index.length());
+		this.index.write(entry.toByteArray());
+		this.offsets.put(id, new long[] { offset, length });
+	}
+}
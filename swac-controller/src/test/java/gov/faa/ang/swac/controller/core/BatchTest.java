@@ -0,0 +1,372 @@
+package gov.faa.ang.swac.controller.core;
+
+import static org.junit.Assert.*;
+
+import gov.faa.ang.swac.common.datatypes.Timestamp;
+import gov.faa.ang.swac.common.flightmodeling.ScheduleRecord;
+import gov.faa.ang.swac.controller.core.montecarlo.IncrementalReduce;
+import gov.faa.ang.swac.datalayer.DataAccessException;
+import gov.faa.ang.swac.datalayer.storage.DataMarshaller;
+import gov.faa.ang.swac.datalayer.storage.MemoryMarshaller;
+import gov.faa.ang.swac.datalayer.storage.StaticDataMarshaller;
+import gov.faa.ang.swac.datalayer.storage.StreamingDataMarshaller;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class BatchTest {
+
+	private static class InstanceTask extends AbstractTask {
+		private final DataMarshaller output;
+		private final int value;
+
+		InstanceTask(DataMarshaller output, int value) {
+			this.output = output;
+			this.value = value;
+		}
+
+		@Override
+		public void runWithCleanup() {
+			run();
+			cleanup();
+		}
+
+		@Override
+		public void run() {
+			try {
+				// Later instances finish first
+				Thread.sleep(20 * (10 - this.value));
+				this.output.save(Arrays.asList(this.value));
+			} catch (Exception ex) {
+				abort(ex);
+			}
+		}
+
+		@Override
+		public boolean validate(VALIDATION_LEVEL level) {
+			return true;
+		}
+	}
+
+	private static class SumTask extends AbstractTask implements IncrementalReduce {
+		private final DataMarshaller input;
+		final List<Integer> folded = Collections.synchronizedList(new ArrayList<Integer>());
+		int calls;
+		int maxQueued;
+
+		SumTask(DataMarshaller input) {
+			this.input = input;
+		}
+
+		@Override
+		public void reduceAvailable() throws DataAccessException {
+			this.calls++;
+			int queued = 0;
+			List<Integer> output = new ArrayList<Integer>();
+			while (this.input.exists()) {
+				output.clear();
+				this.input.load(output);
+				this.folded.addAll(output);
+				queued++;
+			}
+			this.maxQueued = Math.max(this.maxQueued, queued);
+		}
+
+		@Override
+		public void run() {
+			try {
+				reduceAvailable();
+			} catch (DataAccessException ex) {
+				abort(ex);
+			}
+		}
+
+		@Override
+		public boolean validate(VALIDATION_LEVEL level) {
+			return true;
+		}
+	}
+
+	@Test
+	public void testInstancesAreReducedAsTheyComplete() throws Exception {
+		StreamingDataMarshaller stream = new StreamingDataMarshaller(Integer.class, "stream");
+		SumTask reducer = new SumTask(stream);
+
+		List<Job> instances = new ArrayList<Job>();
+		for (int i = 0; i < 10; i++) {
+			MemoryMarshaller output = new MemoryMarshaller(Integer.class, "instance" + i);
+			output.subscribe(stream);
+			Job job = new Job();
+			job.setInstanceId(i);
+			job.add(new InstanceTask(output, i));
+			instances.add(job);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		List<MonteCarloStatusReportRecord> statuses;
+		try {
+			statuses = Batch.awaitInstances(executor, Batch.jobSource(instances), Arrays.asList(reducer), Integer.MAX_VALUE, 1, TimeUnit.MINUTES);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertTrue(instances.isEmpty());
+		assertEquals(10, statuses.size());
+		for (int i = 0; i < 10; i++) {
+			assertTrue(statuses.get(i).getErrorMessage(), statuses.get(i).isSuccess());
+			assertEquals(i, statuses.get(i).getScenarioExecutionId());
+		}
+
+		// Everything was folded before the reduce task itself ran, never more than a pool's worth at a time
+		assertEquals(10, reducer.calls);
+		assertTrue(reducer.maxQueued <= 2);
+		assertFalse(stream.exists());
+		List<Integer> folded = new ArrayList<Integer>(reducer.folded);
+		Collections.sort(folded);
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), folded);
+	}
+
+	@Test
+	public void testJobsAreCreatedAsCapacityFrees() throws Exception {
+		final StreamingDataMarshaller stream = new StreamingDataMarshaller(Integer.class, "stream");
+		final AtomicInteger created = new AtomicInteger();
+		final AtomicInteger maxOutstanding = new AtomicInteger();
+		final List<MemoryMarshaller> outputs = new ArrayList<MemoryMarshaller>();
+
+		JobSource source = new JobSource() {
+			@Override
+			public boolean hasNext() {
+				return created.get() < 10;
+			}
+
+			@Override
+			public Job next() {
+				int i = created.getAndIncrement();
+				int completed = 0;
+				for (MemoryMarshaller output : outputs) {
+					completed += output.exists() ? 1 : 0;
+				}
+				maxOutstanding.set(Math.max(maxOutstanding.get(), i - completed + 1));
+
+				MemoryMarshaller output = new MemoryMarshaller(Integer.class, "instance" + i);
+				output.subscribe(stream);
+				outputs.add(output);
+				Job job = new Job();
+				job.setInstanceId(i);
+				job.add(new InstanceTask(output, i % 3));
+				return job;
+			}
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		List<MonteCarloStatusReportRecord> statuses;
+		try {
+			statuses = Batch.awaitInstances(executor, source, Collections.<AbstractTask> emptyList(), 3, 1, TimeUnit.MINUTES);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(10, statuses.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i, statuses.get(i).getScenarioExecutionId());
+		}
+		assertTrue(maxOutstanding.get() <= 3);
+	}
+
+	private static final long DAY = 24 * 3600000L;
+	private static final Timestamp SCHEDULE_DAY = new Timestamp(1262304000000L); // 2010-01-01
+
+	/**
+	 * Moves the static schedule onto the scenario's base date in place, as ForecastTripDistributionDataLoader does
+	 */
+	private static class RedateTask extends AbstractTask {
+		private final DataMarshaller schedule;
+		private final DataMarshaller output;
+		private final Timestamp baseDate;
+
+		RedateTask(DataMarshaller schedule, DataMarshaller output, Timestamp baseDate) {
+			this.schedule = schedule;
+			this.output = output;
+			this.baseDate = baseDate;
+		}
+
+		@Override
+		public void runWithCleanup() {
+			run();
+			cleanup();
+		}
+
+		@Override
+		public void run() {
+			try {
+				List<ScheduleRecord> records = new ArrayList<ScheduleRecord>();
+				this.schedule.load(records);
+				for (ScheduleRecord rec : records) {
+					long timeOfDay = rec.runwayOffTime.milliDifference(rec.runwayOffTime.truncateToDay());
+					long deltaT = rec.runwayOnTime.milliDifference(rec.runwayOffTime);
+					rec.runwayOffTime = this.baseDate.truncateToDay().milliAdd(timeOfDay);
+					Thread.yield();
+					rec.runwayOnTime = rec.runwayOffTime.milliAdd(deltaT);
+				}
+				this.output.save(records);
+			} catch (DataAccessException ex) {
+				abort(ex);
+			}
+		}
+
+		@Override
+		public boolean validate(VALIDATION_LEVEL level) {
+			return true;
+		}
+	}
+
+	/**
+	 * Formats the scenario's re-dated schedule, as the scenario's global Job would write its outputs
+	 */
+	private static class ReportTask extends AbstractTask {
+		private final DataMarshaller input;
+		private final List<String> report;
+
+		ReportTask(DataMarshaller input, List<String> report) {
+			this.input = input;
+			this.report = report;
+		}
+
+		@Override
+		public void runWithCleanup() {
+			run();
+			cleanup();
+		}
+
+		@Override
+		public void run() {
+			try {
+				List<ScheduleRecord> records = new ArrayList<ScheduleRecord>();
+				this.input.load(records);
+				for (ScheduleRecord rec : records) {
+					this.report.add(rec.idNum + "," + rec.runwayOffTime.getTime() + "," + rec.runwayOnTime.getTime());
+				}
+			} catch (DataAccessException ex) {
+				abort(ex);
+			}
+		}
+
+		@Override
+		public boolean validate(VALIDATION_LEVEL level) {
+			return true;
+		}
+	}
+
+	private static Map<Integer, List<String>> runScenarios(boolean parallel) throws Exception {
+		System.setProperty("swac.log.level", "NONE");
+		List<ScheduleRecord> parsed = new ArrayList<ScheduleRecord>();
+		for (int i = 0; i < 2000; i++) {
+			ScheduleRecord rec = new ScheduleRecord();
+			rec.idNum = i;
+			rec.runwayOffTime = new Timestamp(SCHEDULE_DAY.getTime() + (i % 1440) * 60000L);
+			rec.runwayOnTime = new Timestamp(rec.runwayOffTime.getTime() + (i % 97 + 1) * 60000L);
+			parsed.add(rec);
+		}
+		MemoryMarshaller source = new MemoryMarshaller(ScheduleRecord.class, "schedule");
+		source.save(parsed);
+		StaticDataMarshaller schedule = new StaticDataMarshaller(source);
+
+		Map<Integer, List<String>> reports = new TreeMap<Integer, List<String>>();
+		List<Job> execQueue = new ArrayList<Job>();
+		for (int scenario = 0; scenario < 4; scenario++) {
+			MemoryMarshaller redated = new MemoryMarshaller(ScheduleRecord.class, "scenario" + scenario);
+			List<String> report = new ArrayList<String>();
+			reports.put(scenario, report);
+
+			Job instance = new Job();
+			instance.setInstanceId(scenario);
+			instance.setScenarioId(scenario);
+			instance.add(new RedateTask(schedule, redated, new Timestamp(SCHEDULE_DAY.getTime() + (10 + 30 * scenario) * DAY)));
+			Job global = new Job();
+			global.setScenarioId(scenario);
+			global.add(new ReportTask(redated, report));
+			execQueue.add(instance);
+			execQueue.add(global);
+		}
+
+		Batch batch = new Batch();
+		batch.setMonteCarloMode(Batch.MonteCarloMode.OFF);
+		batch.setParallelScenarios(parallel);
+		batch.setExecutorServiceFactory(new ExecutorServiceFactory() {
+			@Override
+			public ExecutorService create() {
+				return Executors.newFixedThreadPool(4);
+			}
+		});
+		batch.execute(execQueue);
+		assertTrue(execQueue.isEmpty());
+		return reports;
+	}
+
+	@Test
+	public void testParallelScenariosMatchSerial() throws Exception {
+		Map<Integer, List<String>> serial = runScenarios(false);
+		Map<Integer, List<String>> parallel = runScenarios(true);
+		assertEquals(4, serial.size());
+		for (List<String> report : serial.values()) {
+			assertEquals(2000, report.size());
+		}
+		assertEquals(serial, parallel);
+
+		// Each scenario's schedule is on its own base date with the parsed durations
+		String[] first = serial.get(3).get(5).split(",");
+		assertEquals(SCHEDULE_DAY.getTime() + 100 * DAY + 5 * 60000L, Long.parseLong(first[1]));
+		assertEquals(6 * 60000L, Long.parseLong(first[2]) - Long.parseLong(first[1]));
+	}
+
+	private static File cacheFile(byte[] contents) throws IOException {
+		File file = File.createTempFile("ConfigurationCache", null);
+		file.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(contents);
+		out.close();
+		return file;
+	}
+
+	private static void assertRejected(File file, boolean indexed) {
+		try {
+			Batch.checkConfigurationCacheFormat(file, indexed);
+			fail("Expected " + file + " to be rejected");
+		} catch (DataAccessException ex) {
+			assertTrue(ex.getMessage().contains("indexedConfigurationCache"));
+		}
+	}
+
+	@Test
+	public void testConfigurationCacheFormatMismatch() throws Exception {
+		File xml = cacheFile("\n  <?xml version=\"1.0\"?><configurationCache/>".getBytes("UTF-8"));
+		File indexed = cacheFile(new byte[] { 0, 0, 0, 7, 0, 0, 0, 3, 1, 2, 3 });
+		File empty = cacheFile(new byte[0]);
+		try {
+			Batch.checkConfigurationCacheFormat(xml, false);
+			Batch.checkConfigurationCacheFormat(indexed, true);
+			Batch.checkConfigurationCacheFormat(empty, true);
+			Batch.checkConfigurationCacheFormat(empty, false);
+			Batch.checkConfigurationCacheFormat(new File(empty.getPath() + ".missing"), true);
+			assertRejected(xml, true);
+			assertRejected(indexed, false);
+		} finally {
+			xml.delete();
+			indexed.delete();
+			empty.delete();
+		}
+	}
+}
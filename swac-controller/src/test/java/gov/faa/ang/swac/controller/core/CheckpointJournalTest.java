@@ -0,0 +1,122 @@
+package gov.faa.ang.swac.controller.core;
+
+import static org.junit.Assert.*;
+
+import gov.faa.ang.swac.controller.core.CheckpointJournal.Entry;
+import gov.faa.ang.swac.controller.core.CheckpointJournal.Kind;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CheckpointJournalTest {
+
+	private File file;
+	private File output;
+
+	@Before
+	public void setUp() throws IOException {
+		this.file = File.createTempFile("checkpoint", ".journal");
+		this.output = File.createTempFile("output", ".csv");
+	}
+
+	@After
+	public void tearDown() {
+		this.file.delete();
+		this.output.delete();
+	}
+
+	private Entry scenario(String name, boolean success) {
+		return new Entry(Kind.SCENARIO, name, name.hashCode(), success, 1.5, success ? "" : "failed\twith\ntabs", Arrays.asList(this.output.getAbsolutePath()));
+	}
+
+	@Test
+	public void testResumeReadsCompletedScenarios() throws IOException {
+		CheckpointJournal journal = new CheckpointJournal(this.file, false);
+		journal.record(scenario("a", true));
+		journal.record(scenario("b", false));
+		journal.record(new Entry(Kind.INSTANCE, "c", 7, true, 2.0, null, null));
+		journal.close();
+
+		journal = new CheckpointJournal(this.file, true);
+		try {
+			assertTrue(journal.isComplete("a"));
+			assertFalse(journal.isComplete("b"));
+			assertFalse(journal.isComplete("c"));
+			assertEquals(3, journal.getEntries().size());
+
+			Entry failed = journal.getEntries().get(1);
+			assertEquals("b".hashCode(), failed.getId());
+			assertEquals("failed with tabs", failed.getErrorMessage());
+			assertEquals(Collections.singletonList(this.output.getAbsolutePath()), failed.getOutputs());
+
+			// A later record supersedes an earlier one
+			journal.record(scenario("b", true));
+			assertTrue(journal.isComplete("b"));
+		} finally {
+			journal.close();
+		}
+	}
+
+	@Test
+	public void testMissingOutputIsIncomplete() throws IOException {
+		CheckpointJournal journal = new CheckpointJournal(this.file, false);
+		journal.record(scenario("a", true));
+		journal.close();
+
+		this.output.delete();
+		journal = new CheckpointJournal(this.file, true);
+		try {
+			assertFalse(journal.isComplete("a"));
+		} finally {
+			journal.close();
+		}
+	}
+
+	@Test
+	public void testPartialRecordIsIgnored() throws IOException {
+		CheckpointJournal journal = new CheckpointJournal(this.file, false);
+		journal.record(scenario("a", true));
+		journal.close();
+
+		// Simulate a crash part way through writing the next record
+		FileOutputStream out = new FileOutputStream(this.file, true);
+		out.write("1234abcd\tSCENARIO\tb\t98\ttr".getBytes("UTF-8"));
+		out.close();
+
+		journal = new CheckpointJournal(this.file, true);
+		journal.record(scenario("c", true));
+		journal.close();
+
+		journal = new CheckpointJournal(this.file, true);
+		try {
+			assertTrue(journal.isComplete("a"));
+			assertFalse(journal.isComplete("b"));
+			assertTrue(journal.isComplete("c"));
+			assertEquals(2, journal.getEntries().size());
+		} finally {
+			journal.close();
+		}
+	}
+
+	@Test
+	public void testFreshRunDiscardsJournal() throws IOException {
+		CheckpointJournal journal = new CheckpointJournal(this.file, false);
+		journal.record(scenario("a", true));
+		journal.close();
+
+		journal = new CheckpointJournal(this.file, false);
+		try {
+			assertFalse(journal.isComplete("a"));
+			assertTrue(journal.getEntries().isEmpty());
+		} finally {
+			journal.close();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package gov.faa.ang.swac.controller.core;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class JobCostModelTest {
+
+	private static File tempFile(String name) throws IOException {
+		File dir = File.createTempFile("jobcost", "");
+		dir.delete();
+		dir.mkdirs();
+		dir.deleteOnExit();
+		File file = new File(dir, name);
+		file.deleteOnExit();
+		return file;
+	}
+
+	private static List<String> readLines(File file) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		return lines;
+	}
+
+	@Test
+	public void testNoHistory() throws IOException {
+		JobCostModel model = new JobCostModel(tempFile(JobCostModel.HISTORY_FILE_NAME));
+		assertEquals(-1, model.predict("a", 1000));
+		assertTrue(model.isPredicted("a"));
+		assertFalse(model.isPredicted("b"));
+	}
+
+	@Test
+	public void testPredictFromHistory() throws IOException {
+		File history = tempFile(JobCostModel.HISTORY_FILE_NAME);
+		JobCostModel first = new JobCostModel(history);
+		first.predict("a", 1000);
+		first.recordActual("a", 4000);
+		first.predict("b", 3000);
+		first.recordActual("b", 8000);
+		first.save();
+
+		JobCostModel second = new JobCostModel(history);
+		// Own history wins over input size
+		assertEquals(4000, second.predict("a", 50));
+		// Unseen scenario: 12000 ms over 4000 bytes
+		assertEquals(6000, second.predict("c", 2000));
+
+		// Later runs are smoothed into the history
+		second.recordActual("a", 2000);
+		second.save();
+		assertEquals(3000, new JobCostModel(history).predict("a", 1000));
+	}
+
+	@Test
+	public void testSortLongestFirst() {
+		List<String> items = new ArrayList<String>(Arrays.asList("a", "b", "c", "d", "e"));
+		List<Long> costs = Arrays.asList(1L, 5L, 3L, 5L, 1L);
+		JobCostModel.sortLongestFirst(items, costs);
+		assertEquals(Arrays.asList("b", "d", "c", "a", "e"), items);
+	}
+
+	@Test
+	public void testReport() throws IOException {
+		File history = tempFile(JobCostModel.HISTORY_FILE_NAME);
+		JobCostModel model = new JobCostModel(history);
+		model.predict("a", 100);
+		model.recordActual("a", 250);
+		model.predict("b", 200);
+		File report = new File(history.getParentFile(), JobCostModel.REPORT_FILE_NAME);
+		report.deleteOnExit();
+		model.writeReport(report);
+
+		List<String> lines = readLines(report);
+		assertEquals(3, lines.size());
+		assertEquals("a,100,,250", lines.get(1));
+		assertEquals("b,200,,", lines.get(2));
+	}
+}
@@ -0,0 +1,158 @@
+package gov.faa.ang.swac.controller.core;
+
+import static org.junit.Assert.*;
+
+import gov.faa.ang.swac.datalayer.storage.DataMarshaller;
+import gov.faa.ang.swac.datalayer.storage.MemoryMarshaller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class JobTest {
+
+	private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+	private class TestTask extends AbstractTask {
+		private final String name;
+		private final CountDownLatch together;
+		private Exception failure;
+
+		TestTask(String name, boolean linked, CountDownLatch together) {
+			this.name = name;
+			this.together = together;
+			if (linked) {
+				setLinked();
+			}
+		}
+
+		TestTask reads(DataMarshaller m) {
+			getIntermediateInputs().add(m);
+			return this;
+		}
+
+		TestTask writes(DataMarshaller m) {
+			getIntermediateOutputs().add(m);
+			return this;
+		}
+
+		@Override
+		public void runWithCleanup() {
+			run();
+			cleanup();
+		}
+
+		@Override
+		public void run() {
+			events.add("start " + this.name);
+			if (this.together != null) {
+				// Only completes if the other task in the group is running at the same time
+				this.together.countDown();
+				try {
+					if (!this.together.await(10, TimeUnit.SECONDS)) {
+						abort(new IllegalStateException(this.name + " did not run concurrently"));
+					}
+				} catch (InterruptedException ex) {
+					abort(ex);
+				}
+			}
+			if (this.failure != null) {
+				abort(this.failure);
+			}
+			events.add("end " + this.name);
+		}
+
+		@Override
+		public String getTaskName() {
+			return this.name;
+		}
+
+		@Override
+		public boolean validate(VALIDATION_LEVEL level) {
+			return true;
+		}
+	}
+
+	private static DataMarshaller data(String name) {
+		return new MemoryMarshaller(String.class, name);
+	}
+
+	private Job job(int parallelism, AbstractTask... tasks) {
+		Job job = new Job();
+		job.setInstanceId(1);
+		job.setTaskParallelism(parallelism);
+		for (AbstractTask t : tasks) {
+			job.add(t);
+		}
+		return job;
+	}
+
+	private void assertBefore(String first, String second) {
+		assertTrue(first + " before " + second + ": " + this.events, this.events.indexOf(first) >= 0 && this.events.indexOf(first) < this.events.indexOf(second));
+	}
+
+	@Test
+	public void testIndependentTasksRunConcurrently() throws Exception {
+		DataMarshaller a = data("a");
+		DataMarshaller b = data("b");
+		CountDownLatch together = new CountDownLatch(2);
+		Job job = job(4,
+				new TestTask("source", true, null).writes(a).writes(b),
+				new TestTask("reportA", true, together).reads(a),
+				new TestTask("reportB", true, together).reads(b),
+				new TestTask("merge", true, null).reads(a).reads(b));
+
+		assertTrue(job.call().isSuccess());
+		assertTrue(job.isEmpty());
+		assertEquals(8, this.events.size());
+		assertBefore("end source", "start reportA");
+		assertBefore("end source", "start reportB");
+		assertBefore("end source", "start merge");
+	}
+
+	@Test
+	public void testDependenciesAndBarriers() throws Exception {
+		DataMarshaller a = data("a");
+		DataMarshaller b = data("b");
+		Job job = job(4,
+				new TestTask("first", true, null).writes(a),
+				new TestTask("second", true, null).reads(a).writes(b),
+				new TestTask("independent", true, null),
+				new TestTask("barrier", false, null),
+				new TestTask("third", true, null).reads(b));
+
+		assertTrue(job.call().isSuccess());
+		assertBefore("end first", "start second");
+		assertBefore("end second", "start barrier");
+		assertBefore("end independent", "start barrier");
+		assertBefore("end barrier", "start third");
+	}
+
+	@Test
+	public void testAbortStopsDependents() throws Exception {
+		DataMarshaller a = data("a");
+		TestTask failing = new TestTask("failing", true, null).writes(a);
+		failing.failure = new IllegalStateException("failed");
+		Job job = job(2,
+				failing,
+				new TestTask("dependent", true, null).reads(a));
+
+		assertFalse(job.call().isSuccess());
+		assertFalse(this.events.contains("start dependent"));
+		assertTrue(job.isEmpty());
+	}
+
+	@Test
+	public void testSerialByDefault() throws Exception {
+		Job job = job(1,
+				new TestTask("first", true, null),
+				new TestTask("second", true, null));
+
+		assertTrue(job.call().isSuccess());
+		assertEquals("[start first, end first, start second, end second]", this.events.toString());
+	}
+}
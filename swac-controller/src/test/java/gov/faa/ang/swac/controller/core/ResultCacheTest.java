@@ -0,0 +1,223 @@
+package gov.faa.ang.swac.controller.core;
+
+import static org.junit.Assert.*;
+
+import gov.faa.ang.swac.common.datatypes.Timestamp;
+import gov.faa.ang.swac.datalayer.DataAccessException;
+import gov.faa.ang.swac.datalayer.MappedDataAccess;
+import gov.faa.ang.swac.datalayer.identity.DataDescriptor;
+import gov.faa.ang.swac.datalayer.identity.IntermediateDataDescriptor;
+import gov.faa.ang.swac.datalayer.storage.DataMarshaller;
+import gov.faa.ang.swac.datalayer.storage.MemoryMarshaller;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResultCacheTest {
+
+	public static class ValueTask extends CloneableAbstractTask {
+		static int runs;
+
+		private int value;
+		private Object option;
+		private DataMarshaller input;
+		private DataMarshaller output;
+
+		public int getValue() {
+			return this.value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+
+		public Object getOption() {
+			return this.option;
+		}
+
+		public void setOption(Object option) {
+			this.option = option;
+		}
+
+		public DataMarshaller getInput() {
+			return this.input;
+		}
+
+		public void setInput(DataMarshaller input) {
+			this.input = input;
+		}
+
+		public DataMarshaller getOutput() {
+			return this.output;
+		}
+
+		public void setOutput(DataMarshaller output) {
+			this.output = output;
+		}
+
+		@Override
+		public void runWithCleanup() {
+			run();
+			cleanup();
+		}
+
+		@Override
+		public void run() {
+			runs++;
+			try {
+				List<String> data = new ArrayList<String>();
+				if (this.input != null) {
+					this.input.load(data);
+				}
+				data.add(Integer.toString(this.value));
+				this.output.save(data);
+			} catch (DataAccessException ex) {
+				abort(ex);
+			}
+		}
+
+		@Override
+		public ValueTask clone() {
+			return new ValueTask();
+		}
+
+		@Override
+		public boolean validate(VALIDATION_LEVEL level) {
+			return true;
+		}
+	}
+
+	private File directory;
+	private ResultCache cache;
+	private ScenarioExecution scenario;
+	private TaskConfiguration producer;
+	private TaskConfiguration consumer;
+
+	@Before
+	public void setUp() throws IOException {
+		this.directory = File.createTempFile("results", null);
+		this.directory.delete();
+		this.directory.mkdirs();
+		this.cache = new ResultCache(this.directory);
+
+		if (System.getProperty("swac.log.level") == null) {
+			System.setProperty("swac.log.level", "NONE");
+		}
+		Batch batch = new Batch();
+		batch.setDao(new MappedDataAccess());
+		this.scenario = new ScenarioExecution(batch, new Timestamp(), 2020, "low");
+
+		Map<String, Class<?>> outputs = new TreeMap<String, Class<?>>();
+		outputs.put("output", String.class);
+		this.producer = new TaskConfiguration();
+		this.producer.setOutputData(outputs);
+
+		IntermediateDataDescriptor upstream = new IntermediateDataDescriptor();
+		upstream.setDataType(String.class);
+		upstream.setDataSource(this.producer);
+		Map<String, DataDescriptor> inputs = new TreeMap<String, DataDescriptor>();
+		inputs.put("input", upstream);
+		this.consumer = new TaskConfiguration();
+		this.consumer.setInputData(inputs);
+		this.consumer.setOutputData(outputs);
+
+		ValueTask.runs = 0;
+	}
+
+	@After
+	public void tearDown() {
+		delete(this.directory);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private ValueTask task(int value, DataMarshaller input) {
+		ValueTask task = new ValueTask();
+		task.setValue(value);
+		task.setInput(input);
+		task.setOutput(new MemoryMarshaller(String.class, "test"));
+		return task;
+	}
+
+	private ValueTask keyed(TaskConfiguration config, ValueTask task) throws DataAccessException {
+		task.setCachedResult(this.cache.createEntry(config, task, this.scenario));
+		assertNotNull(task.getCachedResult());
+		return task;
+	}
+
+	private static List<String> run(ValueTask task) throws Exception {
+		DataMarshaller output = task.getOutput();
+		Job job = new Job();
+		job.setInstanceId(0);
+		job.add(task);
+		assertTrue(job.call().isSuccess());
+		List<String> data = new ArrayList<String>();
+		output.load(data);
+		return data;
+	}
+
+	@Test
+	public void testKeysFollowConfigurationAndUpstream() throws DataAccessException {
+		ValueTask one = keyed(this.producer, task(1, null));
+		ValueTask same = keyed(this.producer, task(1, null));
+		ValueTask two = keyed(this.producer, task(2, null));
+		assertEquals(one.getCachedResult().getKey(), same.getCachedResult().getKey());
+		assertFalse(one.getCachedResult().getKey().equals(two.getCachedResult().getKey()));
+
+		// Same configuration, but reading different upstream results
+		ValueTask afterOne = keyed(this.consumer, task(3, one.getOutput()));
+		ValueTask afterTwo = keyed(this.consumer, task(3, two.getOutput()));
+		assertFalse(afterOne.getCachedResult().getKey().equals(afterTwo.getCachedResult().getKey()));
+
+		// Data from a task that wasn't keyed can't be fingerprinted
+		assertNull(this.cache.createEntry(this.consumer, task(3, new MemoryMarshaller(String.class, "test")), this.scenario));
+	}
+
+	@Test
+	public void testRestoredTasksDoNotRun() throws Exception {
+		assertEquals(Collections.singletonList("5"), run(keyed(this.producer, task(5, null))));
+		assertEquals(1, ValueTask.runs);
+		assertEquals(1, this.cache.getStoredCount());
+
+		ValueTask upstream = keyed(this.producer, task(5, null));
+		ValueTask downstream = keyed(this.consumer, task(6, upstream.getOutput()));
+		assertEquals(Collections.singletonList("5"), run(upstream));
+		assertEquals(1, ValueTask.runs);
+		assertEquals(1, this.cache.getRestoredCount());
+
+		// The consumer hasn't been stored yet, so it runs on the restored data
+		List<String> expected = new ArrayList<String>();
+		expected.add("5");
+		expected.add("6");
+		assertEquals(expected, run(downstream));
+		assertEquals(2, ValueTask.runs);
+		assertEquals(2, this.cache.getStoredCount());
+	}
+
+	@Test
+	public void testUndescribableConfigurationIsNotCached() throws DataAccessException {
+		ValueTask task = task(1, null);
+		task.setOption(new Object());
+		assertNull(this.cache.createEntry(this.producer, task, this.scenario));
+
+		task.setOption(Collections.singletonMap("mode", Boolean.TRUE));
+		assertNotNull(this.cache.createEntry(this.producer, task, this.scenario));
+	}
+}
@@ -0,0 +1,234 @@
+package gov.faa.ang.swac.controller.core;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TaskMemoryMonitorTest {
+
+	private static class TaskA extends SleepTask {
+		TaskA(AtomicInteger active, AtomicInteger maxActive, CountDownLatch together) {
+			super(active, maxActive, together);
+		}
+	}
+
+	private static class TaskB extends SleepTask {
+		TaskB() {
+			super(null, null, null);
+		}
+	}
+
+	private static class TaskC extends SleepTask {
+		TaskC() {
+			super(null, null, null);
+		}
+	}
+
+	private static class SleepTask extends AbstractTask {
+		private final AtomicInteger active;
+		private final AtomicInteger maxActive;
+		private final CountDownLatch together;
+
+		SleepTask(AtomicInteger active, AtomicInteger maxActive, CountDownLatch together) {
+			this.active = active;
+			this.maxActive = maxActive;
+			this.together = together;
+		}
+
+		@Override
+		public void runWithCleanup() {
+			run();
+			cleanup();
+		}
+
+		@Override
+		public void run() {
+			if (this.active == null) {
+				return;
+			}
+			int n = this.active.incrementAndGet();
+			synchronized (this.maxActive) {
+				this.maxActive.set(Math.max(this.maxActive.get(), n));
+			}
+			try {
+				if (this.together != null) {
+					this.together.countDown();
+					this.together.await(10, TimeUnit.SECONDS);
+				} else {
+					Thread.sleep(200);
+				}
+			} catch (InterruptedException ex) {
+				abort(ex);
+			}
+			this.active.decrementAndGet();
+		}
+
+		@Override
+		public boolean validate(VALIDATION_LEVEL level) {
+			return true;
+		}
+	}
+
+	@Test
+	public void testLearnsPeakFromPostCollectionSamples() {
+		TaskMemoryMonitor monitor = new TaskMemoryMonitor(100);
+		monitor.sample(0);
+		AbstractTask a = new TaskB();
+		AbstractTask b = new TaskC();
+		assertEquals(100, monitor.getFootprint(a));
+
+		monitor.taskStarted(a);
+		monitor.sample(1000);
+		monitor.taskStarted(b);
+		// Growth is shared among the tasks running at the time
+		monitor.sample(4000);
+		monitor.taskFinished(a);
+		monitor.taskFinished(b);
+		assertEquals(2000, monitor.getFootprint(a));
+		assertEquals(1500, monitor.getFootprint(b));
+
+		// The peak is kept when a later run is smaller
+		monitor.sample(0);
+		monitor.taskStarted(a);
+		monitor.sample(500);
+		monitor.taskFinished(a);
+		assertEquals(2000, monitor.getFootprint(new TaskB()));
+	}
+
+	@Test
+	public void testHeapAfterCollection() {
+		TaskMemoryMonitor monitor = new TaskMemoryMonitor(100);
+		Map<String, MemoryUsage> usage = new HashMap<String, MemoryUsage>();
+		long expected = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			long used = 1000 * (usage.size() + 1);
+			usage.put(pool.getName(), new MemoryUsage(0, used, used, -1));
+			if (pool.getType() == MemoryType.HEAP) {
+				expected += used;
+			}
+		}
+		assertTrue(expected > 0);
+		assertEquals(expected, monitor.heapAfter(usage));
+	}
+
+	@Test
+	public void testSamplesCollectionNotifications() throws Exception {
+		TaskMemoryMonitor monitor = new TaskMemoryMonitor(100);
+		monitor.sample(-1);
+		monitor.start();
+		try {
+			System.gc();
+			long deadline = System.currentTimeMillis() + 10000;
+			while (monitor.getLiveHeap() == -1 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+		} finally {
+			monitor.stop();
+		}
+		assertTrue(monitor.getLiveHeap() > 0);
+	}
+
+	@Test
+	public void testJobFootprint() {
+		TaskMemoryMonitor monitor = new TaskMemoryMonitor(100);
+		monitor.sample(0);
+		AbstractTask b = new TaskB();
+		monitor.taskStarted(b);
+		monitor.sample(1000);
+		monitor.taskFinished(b);
+
+		Job job = new Job();
+		job.add(new TaskB());
+		job.add(new TaskC());
+		job.add(new TaskC());
+		assertEquals(1000, monitor.getFootprint(job));
+		job.setTaskParallelism(2);
+		assertEquals(1100, monitor.getFootprint(job));
+	}
+
+	@Test
+	public void testJobsAreHeldUntilTheyFit() throws Exception {
+		TaskMemoryMonitor monitor = new TaskMemoryMonitor(100);
+		monitor.sample(0);
+		AtomicInteger active = new AtomicInteger();
+		AtomicInteger maxActive = new AtomicInteger();
+
+		MemoryAwareThreadPoolExecutor executor = new MemoryAwareThreadPoolExecutor(2, monitor, 150);
+		try {
+			Future<?> first = executor.submit((Runnable) job(new TaskA(active, maxActive, null)));
+			Future<?> second = executor.submit((Runnable) job(new TaskA(active, maxActive, null)));
+			first.get(10, TimeUnit.SECONDS);
+			second.get(10, TimeUnit.SECONDS);
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, maxActive.get());
+		assertEquals(0, executor.getAdmittedCount());
+	}
+
+	@Test
+	public void testAdmissionThroughCompletionService() throws Exception {
+		TaskMemoryMonitor monitor = new TaskMemoryMonitor(100);
+		monitor.sample(0);
+		AtomicInteger active = new AtomicInteger();
+		AtomicInteger maxActive = new AtomicInteger();
+
+		MemoryAwareThreadPoolExecutor executor = new MemoryAwareThreadPoolExecutor(2, monitor, 150);
+		try {
+			CompletionService<MonteCarloStatusReportRecord> completion = new ExecutorCompletionService<MonteCarloStatusReportRecord>(executor);
+			for (int i = 0; i < 2; i++) {
+				Job job = job(new TaskA(active, maxActive, null));
+				job.setInstanceId(i);
+				completion.submit((Callable<MonteCarloStatusReportRecord>) job);
+			}
+			for (int i = 0; i < 2; i++) {
+				assertTrue(completion.take().get().isSuccess());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, maxActive.get());
+	}
+
+	@Test
+	public void testJobsThatFitRunTogether() throws Exception {
+		TaskMemoryMonitor monitor = new TaskMemoryMonitor(50);
+		monitor.sample(0);
+		AtomicInteger active = new AtomicInteger();
+		AtomicInteger maxActive = new AtomicInteger();
+		CountDownLatch together = new CountDownLatch(2);
+
+		MemoryAwareThreadPoolExecutor executor = new MemoryAwareThreadPoolExecutor(2, monitor, 150);
+		try {
+			Future<?> first = executor.submit((Runnable) job(new TaskA(active, maxActive, together)));
+			Future<?> second = executor.submit((Runnable) job(new TaskA(active, maxActive, together)));
+			first.get(20, TimeUnit.SECONDS);
+			second.get(20, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(2, maxActive.get());
+	}
+
+	private static Job job(AbstractTask task) {
+		Job job = new Job();
+		job.add(task);
+		return job;
+	}
+}
@@ -0,0 +1,163 @@
+package gov.faa.ang.swac.controller.core;
+
+import static org.junit.Assert.*;
+
+import gov.faa.ang.swac.datalayer.DataAccessException;
+import gov.faa.ang.swac.datalayer.storage.DataMarshaller;
+import gov.faa.ang.swac.datalayer.storage.MemoryMarshaller;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class TaskMetricsTest {
+
+	private static class CopyTask extends AbstractTask {
+		private final DataMarshaller input;
+		private final DataMarshaller output;
+		private final int extra;
+
+		CopyTask(DataMarshaller input, DataMarshaller output, int extra) {
+			this.input = input;
+			this.output = output;
+			this.extra = extra;
+		}
+
+		@Override
+		public void runWithCleanup() {
+			run();
+			cleanup();
+		}
+
+		@Override
+		public void run() {
+			try {
+				List<String> data = new ArrayList<String>();
+				if (this.input != null) {
+					this.input.load(data);
+				}
+				for (int i = 0; i < this.extra; i++) {
+					data.add("record " + i);
+				}
+				this.output.save(data);
+			} catch (DataAccessException ex) {
+				abort(ex);
+			}
+		}
+
+		@Override
+		public boolean validate(VALIDATION_LEVEL level) {
+			return true;
+		}
+	}
+
+	private static TaskMetrics runJob(int taskParallelism) throws Exception {
+		TaskMetrics metrics = new TaskMetrics();
+		DataMarshaller first = new MemoryMarshaller(String.class, "first");
+		DataMarshaller second = new MemoryMarshaller(String.class, "second");
+
+		Job job = new Job();
+		job.setInstanceId(7);
+		job.setTaskParallelism(taskParallelism);
+		job.setTaskMetrics(metrics);
+		job.add(new CopyTask(null, first, 3));
+		job.add(new CopyTask(first, second, 2));
+		assertTrue(job.call().isSuccess());
+		return metrics;
+	}
+
+	@Test
+	public void testTasksAndJobAreRecorded() throws Exception {
+		TaskMetrics metrics = runJob(1);
+		assertEquals(2, metrics.getTaskCount());
+		assertEquals(1, metrics.getJobCount());
+
+		List<TaskMetrics.Record> records = metrics.getRecords();
+		TaskMetrics.Record producer = records.get(0);
+		TaskMetrics.Record consumer = records.get(1);
+		TaskMetrics.Record job = records.get(2);
+		assertEquals(TaskMetrics.Kind.TASK, producer.getKind());
+		assertEquals(Integer.valueOf(7), producer.getInstanceId());
+		assertEquals(0, producer.getRecordsRead());
+		assertEquals(3, producer.getRecordsWritten());
+		assertEquals(3, consumer.getRecordsRead());
+		assertEquals(5, consumer.getRecordsWritten());
+
+		assertEquals(TaskMetrics.Kind.JOB, job.getKind());
+		assertEquals(3, job.getRecordsRead());
+		assertEquals(8, job.getRecordsWritten());
+		assertTrue(job.getWallMillis() >= producer.getWallMillis());
+		if (producer.getCpuMillis() >= 0 && consumer.getCpuMillis() >= 0) {
+			assertEquals(producer.getCpuMillis() + consumer.getCpuMillis(), job.getCpuMillis());
+		}
+		assertEquals(Long.valueOf(8), metrics.getRecordsWrittenByTask().get("CopyTask"));
+	}
+
+	@Test
+	public void testTasksRunConcurrentlyAreRecordedOnTheirThreads() throws Exception {
+		TaskMetrics metrics = runJob(2);
+		assertEquals(2, metrics.getTaskCount());
+		long written = 0;
+		for (TaskMetrics.Record record : metrics.getRecords()) {
+			if (record.getKind() == TaskMetrics.Kind.TASK) {
+				written += record.getRecordsWritten();
+			}
+		}
+		assertEquals(8, written);
+	}
+
+	@Test
+	public void testReportsAndJmx() throws Exception {
+		TaskMetrics metrics = runJob(1);
+
+		metrics.register("metrics,test");
+		try {
+			ObjectName name = new ObjectName("gov.faa.ang.swac:type=TaskMetrics,name=" + ObjectName.quote("metrics,test"));
+			assertEquals(Long.valueOf(2), ManagementFactory.getPlatformMBeanServer().getAttribute(name, "TaskCount"));
+		} finally {
+			metrics.unregister();
+		}
+
+		File csv = File.createTempFile("metrics", ".csv");
+		File json = File.createTempFile("metrics", ".json");
+		try {
+			metrics.writeCsv(csv);
+			List<String> lines = readLines(csv);
+			assertEquals(4, lines.size());
+			assertTrue(lines.get(0).startsWith("kind,scenario,instanceId,name,wallMillis,cpuMillis,allocatedBytes"));
+			assertTrue(lines.get(3).startsWith("JOB,,7,Job,"));
+
+			metrics.writeJson(json);
+			lines = readLines(json);
+			assertEquals("[", lines.get(0));
+			assertEquals("]", lines.get(lines.size() - 1));
+			assertTrue(lines.get(1).contains("\"kind\": \"TASK\", \"scenario\": null, \"instanceId\": 7, \"name\": \"CopyTask\""));
+			assertTrue(lines.get(1).contains("\"recordsWritten\": 3}"));
+		} finally {
+			csv.delete();
+			json.delete();
+		}
+	}
+
+	private static List<String> readLines(File file) throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			List<String> lines = new ArrayList<String>();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+			return lines;
+		} finally {
+			reader.close();
+		}
+	}
+}
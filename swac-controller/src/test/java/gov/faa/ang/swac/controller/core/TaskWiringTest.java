@@ -0,0 +1,98 @@
+package gov.faa.ang.swac.controller.core;
+
+import static org.junit.Assert.*;
+
+import gov.faa.ang.swac.datalayer.storage.DataMarshaller;
+import gov.faa.ang.swac.datalayer.storage.MemoryMarshaller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class TaskWiringTest {
+
+	public static class WiredTask extends AbstractTask {
+		private DataMarshaller inputData;
+		private DataMarshaller outputData;
+		private int count;
+
+		public DataMarshaller getInputData() {
+			return this.inputData;
+		}
+
+		public void setInputData(DataMarshaller inputData) {
+			this.inputData = inputData;
+		}
+
+		public DataMarshaller getOutputData() {
+			return this.outputData;
+		}
+
+		public void setOutputData(MemoryMarshaller outputData) {
+			this.outputData = outputData;
+		}
+
+		public int getCount() {
+			return this.count;
+		}
+
+		public void setCount(int count) {
+			this.count = count;
+		}
+
+		@Override
+		public void runWithCleanup() {
+			run();
+			cleanup();
+		}
+
+		@Override
+		public void run() {
+		}
+
+		@Override
+		public boolean validate(VALIDATION_LEVEL level) {
+			return true;
+		}
+	}
+
+	@Test
+	public void testPlanIsSharedAndCachesMisses() {
+		TaskWiring wiring = TaskWiring.forClass(WiredTask.class);
+		assertSame(wiring, TaskWiring.forClass(WiredTask.class));
+
+		assertNotNull(wiring.getPropertyMethod("set", "inputData", DataMarshaller.class));
+		assertSame(wiring.getPropertyMethod("set", "inputData", DataMarshaller.class),
+				wiring.getPropertyMethod("set", "InputData", DataMarshaller.class));
+		assertNull(wiring.getPropertyMethod("set", "missing", DataMarshaller.class));
+		assertNull(wiring.getPropertyMethod("set", "missing", DataMarshaller.class));
+		assertNull(TaskWiring.forClass(String.class).getCloneMethod());
+	}
+
+	@Test
+	public void testSettersResolveThroughParameterSuperclasses() {
+		assertEquals("setOutputData", TaskConfiguration.getSetter(WiredTask.class, "outputData", MemoryMarshaller.class, null).getName());
+		assertNull(TaskConfiguration.getSetter(WiredTask.class, "outputData", DataMarshaller.class, null));
+		assertEquals("setInputData", TaskConfiguration.getSetter(WiredTask.class, "inputData", DataMarshaller.class, null).getName());
+		// Only superclasses of the parameter type are tried, not the interfaces they implement
+		assertNull(TaskConfiguration.getSetter(WiredTask.class, "inputData", MemoryMarshaller.class, null));
+	}
+
+	@Test
+	public void testConfigurationAndCleanup() throws Exception {
+		WiredTask task = new WiredTask();
+		Map<String, Object> properties = new HashMap<String, Object>();
+		properties.put("count", Integer.valueOf(3));
+		new TaskConfiguration().initializeConfiguration(task, properties);
+		assertEquals(3, task.getCount());
+
+		task.setInputData(new MemoryMarshaller(String.class, "input"));
+		task.setOutputData(new MemoryMarshaller(String.class, "output"));
+		assertEquals(2, TaskWiring.forClass(WiredTask.class).getMarshallerSetters().size());
+		task.runWithCleanup();
+		assertNull(task.getInputData());
+		assertNull(task.getOutputData());
+		assertEquals(3, task.getCount());
+	}
+}
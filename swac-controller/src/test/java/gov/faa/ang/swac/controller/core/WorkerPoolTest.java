@@ -0,0 +1,119 @@
+package gov.faa.ang.swac.controller.core;
+
+import static org.junit.Assert.*;
+
+import gov.faa.ang.swac.common.datatypes.Timestamp;
+import gov.faa.ang.swac.controller.Main;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class WorkerPoolTest {
+
+	/**
+	 * Stands in for Main in the worker JVMs: reports each scenario as one successful instance, or exits without
+	 * answering if the scenario is named "crash". The worker whose id is the test.impostor property first connects
+	 * with the wrong token.
+	 */
+	public static class EchoWorker {
+		public static void main(String[] args) throws Exception {
+			String token = WorkerPool.Connection.readToken(System.in);
+			if (args[2].equals(System.getProperty("test.impostor"))) {
+				// Another local process that knows the port and worker id, but not the token
+				try {
+					new WorkerPool.Connection(Integer.parseInt(args[1]), Integer.parseInt(args[2]), "guess").close();
+				} catch (IOException ex) {
+					// The coordinator hangs up
+				}
+			}
+			WorkerPool.Connection connection = new WorkerPool.Connection(Integer.parseInt(args[1]), Integer.parseInt(args[2]), token);
+			WorkerPool.Assignment assignment;
+			while ((assignment = connection.next()) != null) {
+				if ("crash".equals(assignment.getScenarioName())) {
+					System.exit(1);
+				}
+				List<CheckpointJournal.Entry> entries = new ArrayList<CheckpointJournal.Entry>();
+				entries.add(new CheckpointJournal.Entry(CheckpointJournal.Kind.INSTANCE, assignment.getScenarioName(), assignment.getForecastFiscalYear(), true, 1.5, "", null));
+				entries.add(new CheckpointJournal.Entry(CheckpointJournal.Kind.SCENARIO, assignment.getScenarioName(), assignment.getScenarioId(), true, 2.0, "", 
+						Collections.singletonList(assignment.getClassifier())));
+				List<TaskMetrics.Record> metrics = Collections.singletonList(new TaskMetrics.Record(TaskMetrics.Kind.JOB, assignment.getScenarioName(), 
+						Integer.valueOf(assignment.getForecastFiscalYear()), "Job", 10, 5, 100, 0, 0, 1, 2));
+				connection.send(new WorkerPool.Report(entries, metrics, false));
+			}
+			connection.close();
+		}
+	}
+
+	@Test
+	public void testCommand() {
+		WorkerPool pool = new WorkerPool("uas", 1, Arrays.asList("-Xmx256m"));
+		try {
+			List<String> command = pool.command(1234, 7);
+			assertTrue(command.get(0).endsWith("java"));
+			assertEquals("-Xmx256m", command.get(1));
+			assertTrue(command.contains("-Dswac.data.extraction=false"));
+			assertEquals(Arrays.asList(Main.class.getName(), Main.WORKER_OPTION, "1234", "7", "uas"), command.subList(command.size() - 5, command.size()));
+			for (String argument : command) {
+				assertFalse(argument.contains("token"));
+			}
+		} finally {
+			pool.close();
+		}
+	}
+
+	@Test
+	public void testScenariosRunInWorkerProcesses() throws Exception {
+		WorkerPool pool = new WorkerPool("uas", 2, Collections.<String> emptyList(), EchoWorker.class.getName());
+		Map<String, WorkerPool.Report> reports = new HashMap<String, WorkerPool.Report>();
+		try {
+			pool.submit(new WorkerPool.Assignment("a", new Timestamp(), 2020, "first", 1));
+			pool.submit(new WorkerPool.Assignment("b", new Timestamp(), 2021, "crash", 2));
+			pool.submit(new WorkerPool.Assignment("c", new Timestamp(), 2022, "third", 3));
+			for (int i = 0; i < 3; i++) {
+				WorkerPool.Report report = pool.take();
+				List<CheckpointJournal.Entry> entries = report.getEntries();
+				reports.put(entries.get(entries.size() - 1).getScenarioName(), report);
+			}
+		} finally {
+			pool.close();
+		}
+
+		List<CheckpointJournal.Entry> first = reports.get("first").getEntries();
+		assertEquals(2, first.size());
+		assertEquals(CheckpointJournal.Kind.INSTANCE, first.get(0).getKind());
+		assertEquals(2020, first.get(0).getId());
+		assertEquals(1.5, first.get(0).getRunTime(), 0.0);
+		assertTrue(first.get(1).isSuccess());
+		assertEquals(Collections.singletonList("a"), first.get(1).getOutputs());
+		assertEquals(1, reports.get("first").getMetrics().size());
+		assertEquals(2, reports.get("first").getMetrics().get(0).getRecordsWritten());
+		assertTrue(reports.get("third").getEntries().get(1).isSuccess());
+
+		List<CheckpointJournal.Entry> crash = reports.get("crash").getEntries();
+		assertEquals(1, crash.size());
+		assertFalse(crash.get(0).isSuccess());
+		assertEquals(2, crash.get(0).getId());
+		assertTrue(crash.get(0).getErrorMessage().startsWith("Worker process exited"));
+		assertFalse(reports.get("crash").isFatal());
+	}
+
+	@Test
+	public void testConnectionWithoutTokenRejected() throws Exception {
+		WorkerPool pool = new WorkerPool("uas", 1, Arrays.asList("-Dtest.impostor=0"), EchoWorker.class.getName());
+		try {
+			pool.submit(new WorkerPool.Assignment("a", new Timestamp(), 2020, "first", 1));
+			WorkerPool.Report report = pool.take();
+			assertTrue(report.getEntries().get(1).isSuccess());
+			assertEquals(Collections.singletonList(0), pool.getWorkerIds());
+		} finally {
+			pool.close();
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package gov.faa.ang.swac.controller.core.montecarlo.replay;
+
+import static org.junit.Assert.*;
+
+import gov.faa.ang.swac.common.datatypes.Timestamp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IndexedConfigurationFileTest {
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		this.file = File.createTempFile("ConfigurationCache", ".bin");
+	}
+
+	@After
+	public void tearDown() {
+		new File(this.file.getPath() + IndexedConfigurationFile.INDEX_SUFFIX).delete();
+		this.file.delete();
+	}
+
+	private static CachedScenarioConfiguration scenario(int id, String value) {
+		CachedScenarioConfiguration scenario = new CachedScenarioConfiguration(id);
+		scenario.setBaseDate(Timestamp.myValueOf("20150101"));
+		scenario.setForecastFiscalYear(2020);
+		scenario.setClassifier("classifier");
+		scenario.getTask("class gov.faa.Task").configuration.put("sample", value);
+		return scenario;
+	}
+
+	@Test
+	public void testAppendAndSeek() throws IOException {
+		IndexedConfigurationFile store = new IndexedConfigurationFile(this.file);
+		store.append(scenario(1, "0.25"));
+		store.append(scenario(2, "0.5"));
+		store.append(scenario(1, "0.75"));
+		store.close();
+
+		store = new IndexedConfigurationFile(this.file);
+		try {
+			assertEquals(2, store.getScenarioExecutionIds().size());
+			assertNull(store.read(3));
+			CachedScenarioConfiguration read = store.read(1);
+			assertEquals("0.75", read.getTask("class gov.faa.Task").configuration.get("sample"));
+			assertEquals(2020, read.getForecastFiscalYear());
+			assertEquals("classifier", read.getClassifier());
+			assertEquals(Timestamp.myValueOf("20150101"), read.getBaseDate());
+			assertEquals("0.5", store.read(2).getTask("class gov.faa.Task").configuration.get("sample"));
+		} finally {
+			store.close();
+		}
+	}
+
+	@Test
+	public void testIncompleteAppendIsRecovered() throws IOException {
+		IndexedConfigurationFile store = new IndexedConfigurationFile(this.file);
+		store.append(scenario(1, "0.25"));
+		store.close();
+		long complete = this.file.length();
+
+		// A second record cut off mid-write, and an index that never heard of it
+		store = new IndexedConfigurationFile(this.file);
+		store.append(scenario(2, "0.5"));
+		store.close();
+		RandomAccessFile data = new RandomAccessFile(this.file, "rw");
+		data.setLength(this.file.length() - 3);
+		data.close();
+		new File(this.file.getPath() + IndexedConfigurationFile.INDEX_SUFFIX).delete();
+
+		store = new IndexedConfigurationFile(this.file);
+		try {
+			assertEquals(complete, this.file.length());
+			assertTrue(store.contains(1));
+			assertFalse(store.contains(2));
+			assertEquals("0.25", store.read(1).getTask("class gov.faa.Task").configuration.get("sample"));
+		} finally {
+			store.close();
+		}
+	}
+
+	@Test
+	public void testConfigurationCacheCommitsAndReadsLazily() throws IOException {
+		ConfigurationCache cache = ConfigurationCache.open(this.file);
+		assertTrue(cache.isIndexed());
+		cache.getScenario(7).getTask("task").configuration.put("sample", Double.valueOf(0.5));
+		cache.getScenario(7).setBaseDate(Timestamp.myValueOf("20150101"));
+		cache.commit(7);
+		cache.getScenario(8).getTask("task").configuration.put("sample", Double.valueOf(0.25));
+		cache.close();
+
+		cache = ConfigurationCache.open(this.file);
+		assertTrue(cache.contains(7));
+		assertTrue(cache.contains(8));
+		assertFalse(cache.contains(9));
+		assertEquals("0.5", cache.getScenario(7).getTask("task").configuration.get("sample"));
+		long length = this.file.length();
+		cache.close();
+		// Scenarios that were only read are not written again
+		assertEquals(length, this.file.length());
+	}
+}
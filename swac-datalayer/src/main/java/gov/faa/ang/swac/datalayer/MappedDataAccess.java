@@ -10,12 +10,15 @@ package gov.faa.ang.swac.datalayer;
 import gov.faa.ang.swac.common.datatypes.Timestamp;
 import gov.faa.ang.swac.datalayer.identity.*;
 import gov.faa.ang.swac.datalayer.storage.DataMarshaller;
+import gov.faa.ang.swac.datalayer.storage.StaticDataMarshaller;
 import gov.faa.ang.swac.datalayer.storage.db.DataAccessObject;
 import gov.faa.ang.swac.datalayer.storage.fileio.FileMarshaller;
 import java.io.File;
 import java.io.PrintWriter;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
@@ -38,16 +41,20 @@ public class MappedDataAccess extends ResourceManager {
     private static final Logger logger = LogManager.getLogger(MappedDataAccess.class);
     private final Map<DataDescriptor, DataMarshaller> storageMap;
     private final Map<DataDescriptor, List<String>> resourceNameMap;
+    private final ConcurrentMap<StaticDataKey, StaticDataMarshaller> staticDataMap;
 
     public MappedDataAccess() {
-        storageMap = new LinkedHashMap<DataDescriptor, DataMarshaller>();
+        // Synchronized since Monte Carlo instances may be initialized while others are executing
+        storageMap = Collections.synchronizedMap(new LinkedHashMap<DataDescriptor, DataMarshaller>());
         resourceNameMap = new ConcurrentSkipListMap<DataDescriptor, List<String>>(new DataDescriptorComparator());
+        staticDataMap = new ConcurrentHashMap<StaticDataKey, StaticDataMarshaller>();
     }
 
     public MappedDataAccess(MappedDataAccess val) {
         super(val);
         this.storageMap = val.storageMap;
         this.resourceNameMap = val.resourceNameMap;
+        this.staticDataMap = val.staticDataMap;
     }
 
     public void loadScenarioFileDataDescriptor(FileDataDescriptor fdd) {
@@ -155,7 +162,86 @@ public class MappedDataAccess extends ResourceManager {
     }
 
     public DataMarshaller getMarshaller(DataDescriptor descriptor) throws DataAccessException {
-        DataMarshaller marshaller;
+        return this.getOrCreateMarshaller(this.resolveDescriptor(descriptor));
+    }
+
+    /**
+     * Returns a read-only marshaller for static input data that is parsed at
+     * most once per batch. The cache is keyed by the resolved descriptor and a
+     * fingerprint (path, length and modification time) of each backing file,
+     * so a file that changes on disk is re-parsed rather than served stale.
+     * The returned marshaller is shared by every scenario and may be loaded
+     * concurrently; the records it produces must not be modified.
+     *
+     * @param descriptor
+     * @return
+     * @throws DataAccessException
+     */
+    public DataMarshaller getStaticMarshaller(DataDescriptor descriptor) throws DataAccessException {
+        DataDescriptor d = this.resolveDescriptor(descriptor);
+        StaticDataKey key = new StaticDataKey(d, this.fingerprint(d));
+
+        StaticDataMarshaller marshaller = this.staticDataMap.get(key);
+        if (marshaller == null) {
+            StaticDataMarshaller created = new StaticDataMarshaller(this.getOrCreateMarshaller(d));
+            marshaller = this.staticDataMap.putIfAbsent(key, created);
+            if (marshaller == null) {
+                marshaller = created;
+                logger.debug("Registered static data for: " + d.toString());
+            }
+        }
+
+        return marshaller;
+    }
+
+    /**
+     * Returns the fingerprint (path, length and modification time of each
+     * backing file) by which static data is cached, so that callers can tell
+     * whether the data behind a descriptor has changed between runs.
+     *
+     * @param descriptor
+     * @return one entry per backing file; empty if the descriptor is not file-based
+     * @throws DataAccessException
+     */
+    public List<String> getFingerprint(DataDescriptor descriptor) throws DataAccessException {
+        return this.fingerprint(this.resolveDescriptor(descriptor));
+    }
+
+    /**
+     * Returns the files behind a descriptor, e.g. to measure the size of the
+     * data they hold.
+     *
+     * @param descriptor
+     * @return one entry per backing file; empty if the descriptor is not file-based
+     * @throws DataAccessException
+     */
+    public List<File> getFiles(DataDescriptor descriptor) throws DataAccessException {
+        return this.files(this.resolveDescriptor(descriptor));
+    }
+
+    private List<String> fingerprint(DataDescriptor d) {
+        List<String> retVal = new ArrayList<String>();
+        for (File file : this.files(d)) {
+            retVal.add(file.getAbsolutePath() + "," + file.length() + "," + file.lastModified());
+        }
+        return retVal;
+    }
+
+    private List<File> files(DataDescriptor d) {
+        List<File> retVal = new ArrayList<File>();
+        if (d instanceof FileDataDescriptor) {
+            FileDataDescriptor f = (FileDataDescriptor) d;
+            List<String> names = (f instanceof FileSetDescriptor) ? ((FileSetDescriptor) f).getResourceNames() : Collections.singletonList(f.getResourceName());
+            for (String name : names) {
+                if (name != null) {
+                    retVal.add(this.getFile(f.getLocation(), name).getAbsoluteFile());
+                }
+            }
+        }
+        return retVal;
+    }
+
+    private DataDescriptor resolveDescriptor(DataDescriptor descriptor) throws DataAccessException {
         DataDescriptor d = descriptor;
 
         if (d instanceof FileDataDescriptor) {
@@ -220,15 +306,21 @@ public class MappedDataAccess extends ResourceManager {
             }
         }
 
-        marshaller = this.storageMap.get(d);
+        return d;
+    }
 
-        if (marshaller == null) {
-            marshaller = d.createMarshaller(this);
-            this.storageMap.put(d, marshaller);
-            logger.debug("Registered metadata for: " + d.toString());
-        }
+    private DataMarshaller getOrCreateMarshaller(DataDescriptor d) throws DataAccessException {
+        synchronized (this.storageMap) {
+            DataMarshaller marshaller = this.storageMap.get(d);
 
-        return marshaller;
+            if (marshaller == null) {
+                marshaller = d.createMarshaller(this);
+                this.storageMap.put(d, marshaller);
+                logger.debug("Registered metadata for: " + d.toString());
+            }
+
+            return marshaller;
+        }
     }
 
     /**
@@ -278,6 +370,8 @@ public class MappedDataAccess extends ResourceManager {
      */
     public void clearMap() {
         this.storageMap.clear();
+        // Wired tasks keep their static marshallers (and the parsed snapshot) alive until they are cleaned up
+        this.staticDataMap.clear();
         //HK: have to keep resourceNameMap around forever because DB is now initialized in Job so it must
         //look up the location of scripts at it's Thread execution time.
         //this.resourceNameMap.clear();
@@ -325,6 +419,34 @@ public class MappedDataAccess extends ResourceManager {
         return str.toString();
     }
 
+    private static final class StaticDataKey {
+
+        private final DataDescriptor descriptor;
+        private final List<String> fingerprint;
+
+        StaticDataKey(DataDescriptor descriptor, List<String> fingerprint) {
+            this.descriptor = descriptor;
+            this.fingerprint = fingerprint;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.descriptor.hashCode() + this.fingerprint.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof StaticDataKey)) {
+                return false;
+            }
+            StaticDataKey other = (StaticDataKey) obj;
+            return this.descriptor.equals(other.descriptor) && this.fingerprint.equals(other.fingerprint);
+        }
+    }
+
     private class DataDescriptorComparator implements Comparator<DataDescriptor> {
 
         @Override
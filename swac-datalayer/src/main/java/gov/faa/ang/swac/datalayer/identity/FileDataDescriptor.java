@@ -19,6 +19,10 @@ public class FileDataDescriptor extends ParameterizedDataDescriptor
 	private String resourceName;
 	private boolean readOnly;
 	private String schemaName;  
+	private int loadParallelism;
+	private int appendFlushRecords;
+	private long appendFlushChars;
+	private long appendFlushMillis;
 	
 	public FileDataDescriptor() {
 		super();
@@ -30,6 +34,10 @@ public class FileDataDescriptor extends ParameterizedDataDescriptor
 		this.resourceName = file.resourceName;
 		this.readOnly = file.readOnly;
 		this.schemaName=null;
+		this.loadParallelism = file.loadParallelism;
+		this.appendFlushRecords = file.appendFlushRecords;
+		this.appendFlushChars = file.appendFlushChars;
+		this.appendFlushMillis = file.appendFlushMillis;
 	}
 	
 	/**
@@ -44,6 +52,10 @@ public class FileDataDescriptor extends ParameterizedDataDescriptor
 		this.resourceName = file.resourceName;
 		this.readOnly = file.readOnly;
 		this.schemaName=schemaName;
+		this.loadParallelism = file.loadParallelism;
+		this.appendFlushRecords = file.appendFlushRecords;
+		this.appendFlushChars = file.appendFlushChars;
+		this.appendFlushMillis = file.appendFlushMillis;
 	}	
 	
 	public String getSchemaName(){
@@ -84,10 +96,64 @@ public class FileDataDescriptor extends ParameterizedDataDescriptor
 		this.readOnly = readOnly;
 	}
 
+	public int getLoadParallelism()
+	{
+		return loadParallelism;
+	}
+
+	/**
+	 * @param loadParallelism threads used to parse a large text file of a LineDelimited type; 0 (the default) uses one
+	 * per available processor and 1 reads it serially. See FileMarshaller.setLoadParallelism
+	 */
+	public void setLoadParallelism(int loadParallelism)
+	{
+		this.loadParallelism = loadParallelism;
+	}
+
+	public int getAppendFlushRecords()
+	{
+		return appendFlushRecords;
+	}
+
+	/**
+	 * Group-commit flush policy for records appended to the file: when any of the three limits is set, records are
+	 * written on a background thread and flushed once this many records, appendFlushChars characters or
+	 * appendFlushMillis milliseconds have accumulated. See FileMarshaller.setAppendFlushRecords
+	 */
+	public void setAppendFlushRecords(int appendFlushRecords)
+	{
+		this.appendFlushRecords = appendFlushRecords;
+	}
+
+	public long getAppendFlushChars()
+	{
+		return appendFlushChars;
+	}
+
+	public void setAppendFlushChars(long appendFlushChars)
+	{
+		this.appendFlushChars = appendFlushChars;
+	}
+
+	public long getAppendFlushMillis()
+	{
+		return appendFlushMillis;
+	}
+
+	public void setAppendFlushMillis(long appendFlushMillis)
+	{
+		this.appendFlushMillis = appendFlushMillis;
+	}
+
 	@Override
 	public DataMarshaller createMarshaller(ResourceManager resMan)
 	{
-		DataMarshaller marshaller = new FileMarshaller(this.getDataType(), resMan.getFile(this.location, this.resourceName), this.isFaultTolerant(),this.schemaName);
+		FileMarshaller fileMarshaller = new FileMarshaller(this.getDataType(), resMan.getFile(this.location, this.resourceName), this.isFaultTolerant(),this.schemaName);
+		fileMarshaller.setLoadParallelism(this.loadParallelism);
+		fileMarshaller.setAppendFlushRecords(this.appendFlushRecords);
+		fileMarshaller.setAppendFlushChars(this.appendFlushChars);
+		fileMarshaller.setAppendFlushMillis(this.appendFlushMillis);
+		DataMarshaller marshaller = fileMarshaller;
 		if (this.readOnly)
 		{
 			marshaller = new ReadOnlyDataMarshaller(marshaller);
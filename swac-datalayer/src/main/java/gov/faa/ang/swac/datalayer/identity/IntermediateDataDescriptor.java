@@ -13,6 +13,7 @@ import gov.faa.ang.swac.datalayer.storage.DataMarshaller;
 import gov.faa.ang.swac.datalayer.storage.MemoryMarshaller;
 import gov.faa.ang.swac.datalayer.storage.fileio.FileMarshaller;
 
+import java.io.File;
 import java.io.IOException;
 
 public class IntermediateDataDescriptor extends DataDescriptor
@@ -21,6 +22,7 @@ public class IntermediateDataDescriptor extends DataDescriptor
 	private Object dataSource;
 	private int instanceId;
 	private boolean persistent;
+	private double spillThreshold;
 	
 	public Object getDataSource()
 	{
@@ -52,6 +54,20 @@ public class IntermediateDataDescriptor extends DataDescriptor
 		this.persistent = persistent;
 	}
 	
+	public double getSpillThreshold()
+	{
+		return spillThreshold;
+	}
+
+	/**
+	 * Fraction of the maximum heap in use above which non-persistent data is spilled to temporary files; 0 keeps it in
+	 * memory (see MemoryMarshaller.setSpillThreshold)
+	 */
+	public void setSpillThreshold(double spillThreshold)
+	{
+		this.spillThreshold = spillThreshold;
+	}
+	
 	public IntermediateDataDescriptor()
 	{
 		super();
@@ -63,6 +79,7 @@ public class IntermediateDataDescriptor extends DataDescriptor
 		this.dataSource = source.dataSource;
 		this.persistent = source.persistent;
 		this.instanceId = source.instanceId;
+		this.spillThreshold = source.spillThreshold;
 	}
 
 	@Override
@@ -72,7 +89,10 @@ public class IntermediateDataDescriptor extends DataDescriptor
 		{
 			try
 			{
-				return new FileMarshaller(this.getDataType(), resMan.createTemporaryResource());
+				FileMarshaller marshaller = new FileMarshaller(this.getDataType(), resMan.createTemporaryResource());
+				// Intermediate files are only read back by the application, so prefer the compact binary format when available
+				marshaller.setColumnarFormat(marshaller.isColumnSerializable());
+				return marshaller;
 			} catch (IOException ex)
 			{
 				throw new DataAccessException("Error creating temporary file.", ex);
@@ -82,6 +102,11 @@ public class IntermediateDataDescriptor extends DataDescriptor
 			// Keep this around because it allows for more verbose debug logging, but disable it for normal use because it generates ugly report names
 			//MemoryMarshaller retVal = new MemoryMarshaller(this.getDataType(), this.toString());
 			MemoryMarshaller retVal = new MemoryMarshaller(this.getDataType(), this.dataSource.toString());
+			if (this.spillThreshold > 0)
+			{
+				retVal.setSpillThreshold(this.spillThreshold);
+				retVal.setSpillDirectory(resMan.getTempDir() == null ? null : new File(resMan.getTempDir()));
+			}
 			return retVal;
 		}
 	}
@@ -0,0 +1,57 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage;
+
+import gov.faa.ang.swac.datalayer.DataAccessException;
+
+import java.util.List;
+
+/**
+ * Implements batching and forEach in terms of next
+ * 
+ * @author csmith
+ *
+ */
+public abstract class AbstractDataCursor<T> implements DataCursor<T>
+{
+	@Override
+	public int nextBatch(List<? super T> batch, int max) throws DataAccessException
+	{
+		int count = 0;
+		T record;
+		while (count < max && (record = next()) != null)
+		{
+			batch.add(record);
+			count++;
+		}
+		return count;
+	}
+
+	@Override
+	public void forEach(Handler<? super T> handler) throws DataAccessException
+	{
+		try
+		{
+			T record;
+			while ((record = next()) != null)
+			{
+				handler.handle(record);
+			}
+		}
+		finally
+		{
+			close();
+		}
+	}
+
+	@Override
+	public void close() throws DataAccessException
+	{
+		// Hook
+	}
+}
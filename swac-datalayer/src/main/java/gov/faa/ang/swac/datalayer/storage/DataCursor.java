@@ -0,0 +1,59 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage;
+
+import gov.faa.ang.swac.datalayer.DataAccessException;
+
+import java.util.List;
+
+/**
+ * Reads the records of a DataMarshaller one at a time, in the order load would return them, so that a task which
+ * handles a record at a time needn't hold all of its input in memory. A cursor holds system resources (e.g. an open
+ * file) until it is closed or has returned every record.
+ *
+ * @author csmith
+ *
+ * @param <T> the record type
+ */
+public interface DataCursor<T> extends AutoCloseable
+{
+	/**
+	 * Callback for forEach
+	 */
+	public interface Handler<T>
+	{
+		public void handle(T record) throws DataAccessException;
+	}
+	
+	/**
+	 * @return the next record, or null if there are no more
+	 * @throws DataAccessException
+	 */
+	public T next() throws DataAccessException;
+	
+	/**
+	 * Adds up to max records to the end of batch
+	 * 
+	 * @return the number of records added; 0 if there are no more
+	 * @throws DataAccessException
+	 */
+	public int nextBatch(List<? super T> batch, int max) throws DataAccessException;
+	
+	/**
+	 * Passes each remaining record to the handler, then closes the cursor
+	 * 
+	 * @throws DataAccessException
+	 */
+	public void forEach(Handler<? super T> handler) throws DataAccessException;
+	
+	/**
+	 * Release the cursor's resources. Closing a cursor more than once has no effect.
+	 */
+	@Override
+	public void close() throws DataAccessException;
+}
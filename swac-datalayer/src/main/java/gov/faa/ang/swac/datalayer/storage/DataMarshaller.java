@@ -12,6 +12,7 @@ import gov.faa.ang.swac.datalayer.DataPublisher;
 import gov.faa.ang.swac.datalayer.DataSubscriber;
 
 import java.util.List;
+import java.util.concurrent.Future;
 
 
 /**
@@ -33,6 +34,16 @@ public interface DataMarshaller extends DataPublisher, DataSubscriber
 	 */
 	public <T> void load(List<T> output) throws DataAccessException;
 	
+	/**
+	 * Opens a cursor over the records that load would return, for reading them one at a time or in batches. File
+	 * data is parsed as it is read rather than held in memory. The cursor must be closed.
+	 * 
+	 * @param <T>
+	 * @return a cursor positioned before the first record
+	 * @throws DataAccessException
+	 */
+	public <T> DataCursor<T> openCursor() throws DataAccessException;
+	
 	/**
 	 * Saves the records in the list to the location affiliated with this Marshaller
 	 * @param <T>
@@ -41,6 +52,20 @@ public interface DataMarshaller extends DataPublisher, DataSubscriber
 	 */
 	public <T> void save(List<T> data) throws DataAccessException;
 	
+	/**
+	 * Saves the records in the list on a shared I/O pool and returns without waiting for them to be written. Until
+	 * the save completes, load returns the saved list from memory; later calls to save and append wait for it. The
+	 * list must not be modified after it is passed in. Errors are reported by the returned future, whose get throws
+	 * an ExecutionException caused by the DataAccessException. Subscribers are notified from the I/O pool once the
+	 * records have been written.
+	 * 
+	 * @param <T>
+	 * @param data A non-null list containing the records to be saved
+	 * @return completes once the records are written
+	 * @throws DataAccessException
+	 */
+	public <T> Future<Void> saveAsync(List<T> data) throws DataAccessException;
+	
 	/**
 	 * Saves one record using append semantics; assumption is that system resources
 	 * will be opened automatically, left open and must be closed manually. Looping over all records in a
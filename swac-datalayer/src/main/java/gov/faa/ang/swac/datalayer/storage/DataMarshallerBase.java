@@ -18,6 +18,9 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
@@ -36,6 +39,10 @@ public abstract class DataMarshallerBase implements DataMarshaller
 	protected final Class<?> clazz;
 	protected String source;
 	
+	// The list of the save in progress on the I/O pool, which load returns until it has been written
+	private volatile List<?> pendingSave;
+	private Future<Void> pendingSaveResult;
+	
 	protected DataMarshallerBase(Class<?> clazz, String source)
 	{
 		this.clazz = clazz;
@@ -85,15 +92,188 @@ public abstract class DataMarshallerBase implements DataMarshaller
 	@Override
 	public final <T> void load(List<T> data) throws DataAccessException
 	{
-		loadInternal(data);
+		int before = data.size();
+		List<?> pending = this.pendingSave;
+		if (pending != null)
+		{
+			// Type safety is validated when the list is saved
+			@SuppressWarnings("unchecked")
+			List<T> typedList = (List<T>)pending;
+			data.addAll(typedList);
+		}
+		else
+		{
+			awaitPendingSave();
+			loadInternal(data);
+		}
+		RecordCounter.read(data.size() - before);
 		for (DataSubscriber listener : this.subscribers)
 		{
 			listener.onLoad(this);
 		}
 	}
 	
+	@Override
+	public final <T> DataCursor<T> openCursor() throws DataAccessException
+	{
+		List<?> pending = this.pendingSave;
+		DataCursor<T> cursor;
+		if (pending != null)
+		{
+			// Type safety is validated when the list is saved
+			@SuppressWarnings("unchecked")
+			List<T> typedList = (List<T>)pending;
+			cursor = new ListCursor<T>(typedList);
+		}
+		else
+		{
+			awaitPendingSave();
+			cursor = openCursorInternal();
+		}
+		return new CountingCursor<T>(cursor);
+	}
+	
+	/**
+	 * Subclasses that can read records one at a time should override this; by default the records are loaded into
+	 * memory and the cursor iterates over them.
+	 */
+	protected <T> DataCursor<T> openCursorInternal() throws DataAccessException
+	{
+		List<T> data = new ArrayList<T>();
+		loadInternal(data);
+		return new ListCursor<T>(data);
+	}
+	
+	/**
+	 * Counts the records read as load does, and notifies subscribers of the load once the cursor is closed
+	 */
+	private final class CountingCursor<T> extends AbstractDataCursor<T>
+	{
+		private final DataCursor<T> cursor;
+		private boolean closed;
+		
+		CountingCursor(DataCursor<T> cursor)
+		{
+			this.cursor = cursor;
+		}
+		
+		@Override
+		public T next() throws DataAccessException
+		{
+			if (this.closed)
+			{
+				return null;
+			}
+			T record = this.cursor.next();
+			if (record != null)
+			{
+				RecordCounter.read(1);
+			}
+			return record;
+		}
+		
+		@Override
+		public void close() throws DataAccessException
+		{
+			if (this.closed)
+			{
+				return;
+			}
+			this.closed = true;
+			this.cursor.close();
+			for (DataSubscriber listener : subscribers)
+			{
+				listener.onLoad(DataMarshallerBase.this);
+			}
+		}
+	}
+	
 	@Override
 	public final <T> void save(List<T> data) throws DataAccessException
+	{
+		awaitPendingSave();
+		write(data);
+		RecordCounter.written(data == null ? 0 : data.size());
+	}
+	
+	/**
+	 * Saves on the shared I/O pool (see SaveExecutor). Subclasses that don't write to storage may override this to save
+	 * on the calling thread instead.
+	 */
+	@Override
+	public synchronized <T> Future<Void> saveAsync(final List<T> data) throws DataAccessException
+	{
+		awaitPendingSave();
+		validateParameterizedType(data);
+		// Counted here because RecordCounter is per thread and the records belong to the caller's task
+		RecordCounter.written(data == null ? 0 : data.size());
+		this.pendingSave = data;
+		this.pendingSaveResult = SaveExecutor.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws DataAccessException
+			{
+				try
+				{
+					write(data);
+				}
+				finally
+				{
+					pendingSave = null;
+				}
+				return null;
+			}
+		});
+		return this.pendingSaveResult;
+	}
+	
+	/**
+	 * saveAsync for marshallers whose save is as cheap as handing over the list
+	 */
+	protected final <T> Future<Void> saveNow(final List<T> data) throws DataAccessException
+	{
+		awaitPendingSave();
+		return SaveExecutor.runNow(new Callable<Void>() {
+			@Override
+			public Void call() throws DataAccessException
+			{
+				write(data);
+				RecordCounter.written(data == null ? 0 : data.size());
+				return null;
+			}
+		});
+	}
+	
+	/**
+	 * Wait for the save started by saveAsync, if any. If it failed, its error is rethrown here so that the next load,
+	 * save or close doesn't carry on as if the data had been written.
+	 */
+	protected final synchronized void awaitPendingSave() throws DataAccessException
+	{
+		if (this.pendingSaveResult == null)
+		{
+			return;
+		}
+		try
+		{
+			this.pendingSaveResult.get();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new DataAccessException("Interrupted waiting for data to be saved: " + this.source, ex);
+		}
+		catch (ExecutionException ex)
+		{
+			this.pendingSaveResult = null;
+			throw new DataAccessException("Asynchronous save of " + this.source + " failed", ex.getCause());
+		}
+		this.pendingSaveResult = null;
+	}
+	
+	/**
+	 * Callers count the records, on the thread of the task that saved them
+	 */
+	private <T> void write(List<T> data) throws DataAccessException
 	{
 		saveInternal(data);
 		// Dump debug data by default if log level is DEBUG
@@ -110,7 +290,9 @@ public abstract class DataMarshallerBase implements DataMarshaller
 	
 	@Override
 	public final <T> void append(T data) throws DataAccessException {
+		awaitPendingSave();
 		appendInternal(data);
+		RecordCounter.written(1);
 		for (DataSubscriber listener : this.subscribers)
 		{
 			if (listener instanceof AppendableDataSubscriber) {
@@ -11,6 +11,7 @@ import gov.faa.ang.swac.datalayer.DataAccessException;
 import gov.faa.ang.swac.datalayer.DataSubscriber;
 
 import java.util.List;
+import java.util.concurrent.Future;
 
 /**
  * InvalidMarshaller exists as a placeholder to preserve the integrity of the descriptor-->marshaller pairing even
@@ -37,12 +38,24 @@ public class InvalidMarshaller implements DataMarshaller
 		throw new UnsupportedOperationException("Attempting to load data from an invalid marshaller: " + message);
 	}
 
+	@Override
+	public <T> DataCursor<T> openCursor() throws DataAccessException 
+	{
+		throw new UnsupportedOperationException("Attempting to load data from an invalid marshaller: " + message);
+	}
+
 	@Override
 	public <T> void save(List<T> data) throws DataAccessException 
 	{
 		throw new UnsupportedOperationException("Attempting to load data from an invalid marshaller: " + message);
 	}
 	
+	@Override
+	public <T> Future<Void> saveAsync(List<T> data) throws DataAccessException 
+	{
+		throw new UnsupportedOperationException("Attempting to save data to an invalid marshaller: " + message);
+	}
+	
 	@Override
 	public <T> void append(T data) throws DataAccessException 
 	{
@@ -0,0 +1,45 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Cursor over records that are already in memory. The list must not be modified while the cursor is open.
+ * 
+ * @author csmith
+ *
+ */
+public class ListCursor<T> extends AbstractDataCursor<T>
+{
+	private Iterator<T> iterator;
+
+	public ListCursor(List<T> records)
+	{
+		this.iterator = (records == null) ? Collections.<T>emptyList().iterator() : records.iterator();
+	}
+
+	@Override
+	public T next()
+	{
+		if (this.iterator == null || !this.iterator.hasNext())
+		{
+			return null;
+		}
+		return this.iterator.next();
+	}
+
+	@Override
+	public void close()
+	{
+		// Let the list be collected even if the cursor is not
+		this.iterator = null;
+	}
+}
@@ -7,8 +7,11 @@
 
 package gov.faa.ang.swac.datalayer.storage;
 
-import java.util.LinkedList;
+import gov.faa.ang.swac.datalayer.DataAccessException;
+
+import java.io.File;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
@@ -17,6 +20,15 @@ import org.apache.log4j.Logger;
  * MemoryMarshaller is the trivial implementation of DataMarshaller. It does not physically move data out of
  * the existing memory space. It only shallow-copies the collection to an internal reference. WeakReferences
  * are used to allow garbage collection of data that is no longer referenced elsewhere.
+ * 
+ * Records are held in a SegmentStore, so appending and reading records one at a time take constant time. If a spill
+ * threshold is set (see setSpillThreshold), full segments are written to a temporary file while the heap is fuller than
+ * the threshold, in the columnar format for ColumnSerializable types, the text format for TextSerializable types, or
+ * by default serialization; other types are never spilled. Records read back from the file are copies.<p>
+ * 
+ * Spilling only saves memory for records that are consumed through openCursor or read(), which hold one segment at a
+ * time. load() reads every spilled segment back onto the heap, and save() stores the records of a list that the
+ * caller still holds, so they are only released when the caller drops the list.
  * @author csmith
  * 
  * XXX: Self-reporting of instance counts disabled because the existence of finalize() delays GC until after the 
@@ -27,43 +39,92 @@ public class MemoryMarshaller extends DataMarshallerBase
 {
 	private static Logger logger = LogManager.getLogger(MemoryMarshaller.class);
 	
-	private List<?> ref;
+	private SegmentStore<Object> store;
+	private double spillThreshold;
+	private File spillDirectory;
 	
 	public MemoryMarshaller(Class<?> clazz, String source)
 	{
 		super(clazz, source);
 	}
 	
+	public double getSpillThreshold()
+	{
+		return this.spillThreshold;
+	}
+	
+	/**
+	 * @param spillThreshold fraction of the maximum heap in use above which records are spilled to a temporary file;
+	 * 0 (the default) keeps every record in memory
+	 */
+	public void setSpillThreshold(double spillThreshold)
+	{
+		this.spillThreshold = spillThreshold;
+	}
+	
+	public File getSpillDirectory()
+	{
+		return this.spillDirectory;
+	}
+	
+	/**
+	 * @param spillDirectory where spill files are created; null for the system temporary directory
+	 */
+	public void setSpillDirectory(File spillDirectory)
+	{
+		this.spillDirectory = spillDirectory;
+	}
+	
+	private SegmentStore<Object> newStore()
+	{
+		SpillCodec codec = null;
+		if (this.spillThreshold > 0)
+		{
+			codec = SpillCodec.forType(this.clazz);
+			if (codec == null)
+			{
+				logger.debug("Data type cannot be serialized and will not be spilled: " + this.clazz.getName());
+			}
+		}
+		return new SegmentStore<Object>(SegmentStore.SEGMENT_SIZE, this.spillThreshold, this.spillDirectory, codec);
+	}
+	
 	@Override
 	public final boolean exists()
 	{
-		return (this.ref != null);
+		return (this.store != null);
 	}
 	
 	@Override
-	public <T> void loadInternal(List<T> output) 
+	public <T> void loadInternal(List<T> output) throws DataAccessException 
 	{
 		this.validateParameterizedType(output);
-		if (ref != null)
+		SegmentStore<Object> s = this.store;
+		if (s != null)
 		{
-			List<?> w = ref;
-			if (w != null)
+			// type validation is performed on saved collection and again on this collection to be filled
+			@SuppressWarnings("unchecked")
+			SegmentStore<T> typedStore = (SegmentStore<T>)s;
+			if (typedStore.hasSpilled())
 			{
-				// type validation is performed on saved collection and again on this collection to be filled
-				@SuppressWarnings("unchecked")
-				List<T> typedList = (List<T>)w;
-				
-				output.addAll(typedList);
+				logger.debug("Reading spilled records back into memory; use openCursor to read them a segment at a time");
 			}
+			typedStore.copyTo(output);
 		}
 		logger.debug("Loading data for MemoryMarshaller=" + this.toString());
 	}
 
 	@Override
-	public <T> void saveInternal(List<T> data) 
+	public <T> void saveInternal(List<T> data) throws DataAccessException 
 	{
 		this.validateParameterizedType(data);
-		ref = data;
+		SegmentStore<Object> s = newStore();
+		s.addAll(data);
+		if (this.store != null)
+		{
+			this.store.clear();
+		}
+		this.store = s;
 		logger.debug("Saving data for MemoryMarshaller=" + this.toString());
 		
 //		if (data != null)
@@ -76,21 +137,46 @@ public class MemoryMarshaller extends DataMarshallerBase
 //		}
 	}
 	
-	@SuppressWarnings("unchecked")
+	/**
+	 * Iterates over the stored records, which must not be appended to or read while the cursor is open
+	 */
+	@Override
+	protected <T> DataCursor<T> openCursorInternal()
+	{
+		logger.debug("Opening cursor for MemoryMarshaller=" + this.toString());
+		SegmentStore<Object> s = this.store;
+		if (s == null)
+		{
+			return new ListCursor<T>(null);
+		}
+		// type validation is performed on saved collection
+		@SuppressWarnings("unchecked")
+		DataCursor<T> cursor = (DataCursor<T>)s.cursor();
+		return cursor;
+	}
+	
+	/**
+	 * Saving only copies references to the records, so it is done on the calling thread
+	 */
+	@Override
+	public <T> Future<Void> saveAsync(List<T> data) throws DataAccessException
+	{
+		return saveNow(data);
+	}
+	
 	@Override 
-	protected <T> void appendInternal(T data) {
-		List<?> w = ref;
-		if (w == null) {
-			w = new LinkedList<T>();
+	protected <T> void appendInternal(T data) throws DataAccessException {
+		if (store == null) {
+			store = newStore();
 		}
-		((List<T>)w).add(data);
-		ref = w;
+		store.add(data);
 	}
 	
+	@SuppressWarnings("unchecked")
 	@Override
-	public <T> T read() {
-		if (ref != null && ref.size() > 0) {
-			return (T)ref.remove(0);
+	public <T> T read() throws DataAccessException {
+		if (store != null) {
+			return (T)store.poll();
 		}
 		return null;
 	}
@@ -103,7 +189,7 @@ public class MemoryMarshaller extends DataMarshallerBase
 	
 	@Override
 	public String toString() {
-		return "MemoryMarshaller [ref=" + (ref==null?"null":"data")
+		return "MemoryMarshaller [ref=" + (store==null?"null":"data")
 				+ ", clazz=" + clazz + ", source=" + source + "]";
 	}
 
@@ -11,6 +11,7 @@ import gov.faa.ang.swac.datalayer.DataAccessException;
 import gov.faa.ang.swac.datalayer.DataSubscriber;
 
 import java.util.List;
+import java.util.concurrent.Future;
 
 /**
  * Simple decorator for DataMarshaller provides read-only access to the underlying storage medium. 
@@ -32,12 +33,24 @@ public class ReadOnlyDataMarshaller implements DataMarshaller
 		this.marshaller.load(output);
 	}
 
+	@Override
+	public <T> DataCursor<T> openCursor() throws DataAccessException 
+	{
+		return this.marshaller.openCursor();
+	}
+
 	@Override
 	public <T> void save(List<T> data) throws DataAccessException 
 	{
 		throw new UnsupportedOperationException("Error: This DataMarshaller is read-only");
 	}
 	
+	@Override
+	public <T> Future<Void> saveAsync(List<T> data) throws DataAccessException 
+	{
+		throw new UnsupportedOperationException("Error: This DataMarshaller is read-only");
+	}
+	
 	@Override
 	public <T> void append(T data) throws DataAccessException 
 	{
@@ -0,0 +1,58 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage;
+
+/**
+ * Running totals of the records each thread has loaded from and saved to data marshallers. The totals only ever
+ * increase; callers measure a unit of work by the difference between readings taken on the same thread before and
+ * after it.
+ *
+ * @author csmith
+ *
+ */
+public final class RecordCounter
+{
+	private static final ThreadLocal<long[]> counts = new ThreadLocal<long[]>()
+	{
+		@Override
+		protected long[] initialValue()
+		{
+			return new long[2];
+		}
+	};
+
+	private RecordCounter()
+	{
+	}
+
+	static void read(long records)
+	{
+		counts.get()[0] += records;
+	}
+
+	static void written(long records)
+	{
+		counts.get()[1] += records;
+	}
+
+	/**
+	 * @return records loaded by the current thread so far
+	 */
+	public static long getRead()
+	{
+		return counts.get()[0];
+	}
+
+	/**
+	 * @return records saved or appended by the current thread so far
+	 */
+	public static long getWritten()
+	{
+		return counts.get()[1];
+	}
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The I/O pool on which DataMarshaller.saveAsync formats and writes records. It is shared by every marshaller in the
+ * JVM so that the number of concurrent writes stays bounded however many Jobs run at once. Its size is read from the
+ * system property swac.io.threads (default 2). The threads are daemons: callers that need the data on disk must wait
+ * for the futures saveAsync returns.
+ *
+ * @author csmith
+ *
+ */
+final class SaveExecutor
+{
+	private static final int DEFAULT_THREADS = 2;
+
+	private static ExecutorService executor;
+
+	private SaveExecutor() { /* Static only: do not instantiate */ }
+
+	static synchronized <V> Future<V> submit(Callable<V> task)
+	{
+		if (executor == null)
+		{
+			final AtomicInteger count = new AtomicInteger();
+			executor = Executors.newFixedThreadPool(Integer.getInteger("swac.io.threads", DEFAULT_THREADS), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r)
+				{
+					Thread thread = new Thread(r, "DataMarshaller save " + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor.submit(task);
+	}
+
+	/**
+	 * @return a future that has already completed with the task's result, or its exception, having run it on the
+	 * calling thread
+	 */
+	static <V> Future<V> runNow(Callable<V> task)
+	{
+		FutureTask<V> future = new FutureTask<V>(task);
+		future.run();
+		return future;
+	}
+}
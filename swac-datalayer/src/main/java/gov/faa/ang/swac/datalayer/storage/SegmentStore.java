@@ -0,0 +1,319 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage;
+
+import gov.faa.ang.swac.datalayer.DataAccessException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * The records of a MemoryMarshaller, held in fixed-size segments so that appending a record and reading the first
+ * one are both constant time. If a spill threshold is set, each time a segment fills the heap in use is compared with
+ * that fraction of the maximum heap, and when it is exceeded every full segment still in memory is written to a
+ * temporary file with the store's SpillCodec and dropped from the heap. Records added with addAll are only checked
+ * once the whole list is in the store, because the caller's list keeps them reachable until then anyway. Spilled
+ * segments are read back when they are reached, so the records returned from them are copies of the ones stored. The
+ * file is deleted when the store is cleared; space used by segments already read back is not reclaimed before then.
+ *
+ * @author csmith
+ *
+ */
+final class SegmentStore<T>
+{
+	private static final Logger logger = LogManager.getLogger(SegmentStore.class);
+
+	static final int SEGMENT_SIZE = 4096;
+
+	// Every segment holds at least one record that hasn't been removed
+	private final ArrayDeque<Segment> segments = new ArrayDeque<Segment>();
+	private final int segmentSize;
+	private final double spillThreshold;
+	private final File spillDir;
+	private final SpillCodec codec;
+	private RandomAccessFile spillFile;
+	private File spillPath;
+	private int size;
+
+	/**
+	 * @param spillThreshold fraction of the maximum heap above which full segments are spilled; 0 never spills
+	 * @param spillDir where the spill file is created; null for the system temporary directory
+	 * @param codec how spilled records are written; null never spills
+	 */
+	SegmentStore(int segmentSize, double spillThreshold, File spillDir, SpillCodec codec)
+	{
+		this.segmentSize = segmentSize;
+		this.spillThreshold = (codec == null) ? 0 : spillThreshold;
+		this.spillDir = spillDir;
+		this.codec = codec;
+	}
+
+	synchronized int size()
+	{
+		return this.size;
+	}
+
+	synchronized void add(T record) throws DataAccessException
+	{
+		addRecord(record, true);
+	}
+
+	synchronized void addAll(List<? extends T> records) throws DataAccessException
+	{
+		for (T record : records)
+		{
+			addRecord(record, false);
+		}
+		checkHeap();
+	}
+
+	/**
+	 * @return true if any segment has been written to the spill file
+	 */
+	synchronized boolean hasSpilled()
+	{
+		return this.spillFile != null;
+	}
+
+	private void addRecord(T record, boolean check) throws DataAccessException
+	{
+		Segment tail = this.segments.peekLast();
+		if (tail == null || tail.count == this.segmentSize)
+		{
+			if (tail != null && check)
+			{
+				checkHeap();
+			}
+			tail = new Segment(this.segmentSize);
+			this.segments.addLast(tail);
+		}
+		tail.records[tail.count++] = record;
+		this.size++;
+	}
+
+	/**
+	 * Removes and returns the first record
+	 *
+	 * @return null if the store is empty
+	 */
+	synchronized T poll() throws DataAccessException
+	{
+		Segment head = this.segments.peekFirst();
+		if (head == null)
+		{
+			return null;
+		}
+		Object[] records = records(head);
+		head.records = records;
+		@SuppressWarnings("unchecked")
+		T record = (T)records[head.next];
+		records[head.next++] = null;
+		this.size--;
+		if (head.next == head.count)
+		{
+			this.segments.removeFirst();
+		}
+		return record;
+	}
+
+	/**
+	 * Adds every record to output, without removing them
+	 */
+	synchronized void copyTo(List<? super T> output) throws DataAccessException
+	{
+		for (Segment segment : this.segments)
+		{
+			Object[] records = records(segment);
+			@SuppressWarnings("unchecked")
+			List<T> typedList = (List<T>)Arrays.asList(records).subList(segment.next, segment.count);
+			output.addAll(typedList);
+		}
+	}
+
+	/**
+	 * Iterates over the records without removing them, holding at most one spilled segment in memory at a time. The
+	 * store must not be modified while the cursor is open.
+	 */
+	DataCursor<T> cursor()
+	{
+		return new AbstractDataCursor<T>() {
+			private Iterator<Segment> iterator = SegmentStore.this.segments.iterator();
+			private Segment segment;
+			private Object[] records;
+			private int next;
+
+			@Override
+			public T next() throws DataAccessException
+			{
+				synchronized (SegmentStore.this)
+				{
+					while (this.segment == null || this.next == this.segment.count)
+					{
+						if (this.iterator == null || !this.iterator.hasNext())
+						{
+							close();
+							return null;
+						}
+						this.segment = this.iterator.next();
+						this.records = records(this.segment);
+						this.next = this.segment.next;
+					}
+					@SuppressWarnings("unchecked")
+					T record = (T)this.records[this.next++];
+					return record;
+				}
+			}
+
+			@Override
+			public void close()
+			{
+				this.iterator = null;
+				this.segment = null;
+				this.records = null;
+			}
+		};
+	}
+
+	/**
+	 * Drops every record and deletes the spill file
+	 */
+	synchronized void clear()
+	{
+		this.segments.clear();
+		this.size = 0;
+		if (this.spillFile != null)
+		{
+			try
+			{
+				this.spillFile.close();
+			}
+			catch (IOException e) {}
+			this.spillPath.delete();
+			this.spillFile = null;
+			this.spillPath = null;
+		}
+	}
+
+	private void checkHeap() throws DataAccessException
+	{
+		if (this.spillThreshold <= 0)
+		{
+			return;
+		}
+		Runtime runtime = Runtime.getRuntime();
+		long used = runtime.totalMemory() - runtime.freeMemory();
+		if (used > this.spillThreshold * runtime.maxMemory())
+		{
+			spill();
+		}
+	}
+
+	/**
+	 * Writes every full segment that is in memory to the spill file. The first segment is kept while it is being read.
+	 */
+	private void spill() throws DataAccessException
+	{
+		int spilled = 0;
+		try
+		{
+			Segment head = this.segments.peekFirst();
+			for (Segment segment : this.segments)
+			{
+				if (segment.records == null || segment.count < this.segmentSize || (segment == head && segment.next > 0))
+				{
+					continue;
+				}
+				if (this.spillFile == null)
+				{
+					this.spillPath = File.createTempFile("swac-spill", null, this.spillDir);
+					this.spillPath.deleteOnExit();
+					this.spillFile = new RandomAccessFile(this.spillPath, "rw");
+				}
+
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				DataOutputStream out = new DataOutputStream(bytes);
+				this.codec.write(segment.records, segment.count, out);
+				out.close();
+
+				segment.offset = this.spillFile.length();
+				segment.length = bytes.size();
+				this.spillFile.seek(segment.offset);
+				this.spillFile.write(bytes.toByteArray());
+				segment.records = null;
+				spilled++;
+			}
+		}
+		catch (IOException ex)
+		{
+			throw new DataAccessException("Error spilling records to file", ex);
+		}
+		if (spilled > 0)
+		{
+			logger.debug("Spilled " + spilled + " segments to " + this.spillPath);
+		}
+	}
+
+	/**
+	 * @return the segment's records, read back from the spill file if the segment was spilled
+	 */
+	private Object[] records(Segment segment) throws DataAccessException
+	{
+		if (segment.records != null)
+		{
+			return segment.records;
+		}
+		try
+		{
+			byte[] bytes = new byte[segment.length];
+			this.spillFile.seek(segment.offset);
+			this.spillFile.readFully(bytes);
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+			try
+			{
+				return this.codec.read(in, segment.count, this.segmentSize);
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch (IOException ex)
+		{
+			throw new DataAccessException("Error reading spilled records", ex);
+		}
+	}
+
+	private static final class Segment
+	{
+		// null while the segment is spilled
+		private Object[] records;
+		// Number of records added, and index of the first that hasn't been removed
+		private int count;
+		private int next;
+		// Location in the spill file
+		private long offset;
+		private int length;
+
+		Segment(int capacity)
+		{
+			this.records = new Object[capacity];
+		}
+	}
+}
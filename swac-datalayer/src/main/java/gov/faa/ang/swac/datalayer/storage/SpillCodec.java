@@ -0,0 +1,265 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage;
+
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnRow;
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnSchema;
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnSerializable;
+import gov.faa.ang.swac.datalayer.storage.fileio.TextSerializable;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+
+/**
+ * Writes the records of a SegmentStore segment to its spill file and reads them back. The format is chosen the same
+ * way FileMarshaller chooses one for intermediate data: the columnar encoding for ColumnSerializable types, then the
+ * text format for TextSerializable types, and default serialization only for types that are neither. Records read
+ * back are new instances of the data type, rebuilt from what was written.
+ *
+ * @author csmith
+ *
+ */
+abstract class SpillCodec
+{
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * @return the codec for the data type, or null if its records cannot be spilled
+	 */
+	static SpillCodec forType(Class<?> clazz)
+	{
+		if (ColumnSerializable.class.isAssignableFrom(clazz) && hasDefaultConstructor(clazz))
+		{
+			return new ColumnCodec(clazz);
+		}
+		if (TextSerializable.class.isAssignableFrom(clazz) && hasDefaultConstructor(clazz))
+		{
+			return new TextCodec(clazz);
+		}
+		if (Serializable.class.isAssignableFrom(clazz))
+		{
+			return new SerializableCodec();
+		}
+		return null;
+	}
+
+	private static boolean hasDefaultConstructor(Class<?> clazz)
+	{
+		try
+		{
+			clazz.getConstructor();
+			return true;
+		}
+		catch (NoSuchMethodException ex)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Writes records[0] to records[count - 1]
+	 */
+	abstract void write(Object[] records, int count, DataOutputStream out) throws IOException;
+
+	/**
+	 * Reads count records into a new array of the given capacity
+	 */
+	abstract Object[] read(DataInputStream in, int count, int capacity) throws IOException;
+
+	private static Object newInstance(Class<?> clazz) throws IOException
+	{
+		try
+		{
+			return clazz.newInstance();
+		}
+		catch (InstantiationException ex)
+		{
+			throw new IOException("Error instantiating " + clazz.getName(), ex);
+		}
+		catch (IllegalAccessException ex)
+		{
+			throw new IOException("Error instantiating " + clazz.getName(), ex);
+		}
+	}
+
+	private static final class ColumnCodec extends SpillCodec
+	{
+		private final Class<?> clazz;
+
+		ColumnCodec(Class<?> clazz)
+		{
+			this.clazz = clazz;
+		}
+
+		@Override
+		void write(Object[] records, int count, DataOutputStream out) throws IOException
+		{
+			ColumnRow row = null;
+			for (int i = 0; i < count; i++)
+			{
+				ColumnSerializable record = (ColumnSerializable) records[i];
+				if (row == null)
+				{
+					row = new ColumnRow(record.getColumnSchema());
+				}
+				row.clear();
+				record.writeColumns(row);
+				writeRow(row, out);
+			}
+		}
+
+		@Override
+		Object[] read(DataInputStream in, int count, int capacity) throws IOException
+		{
+			Object[] records = new Object[capacity];
+			ColumnRow row = null;
+			for (int i = 0; i < count; i++)
+			{
+				ColumnSerializable record = (ColumnSerializable) newInstance(this.clazz);
+				if (row == null)
+				{
+					row = new ColumnRow(record.getColumnSchema());
+				}
+				readRow(row, in);
+				record.readColumns(row);
+				records[i] = record;
+			}
+			return records;
+		}
+
+		private static void writeRow(ColumnRow row, DataOutputStream out) throws IOException
+		{
+			ColumnSchema schema = row.getSchema();
+			for (int c = 0; c < schema.size(); c++)
+			{
+				boolean isNull = row.isNull(c);
+				out.writeBoolean(isNull);
+				if (isNull)
+				{
+					continue;
+				}
+				switch (schema.getType(c))
+				{
+				case INT:
+					out.writeInt(row.getInt(c));
+					break;
+				case LONG:
+					out.writeLong(row.getLong(c));
+					break;
+				case DOUBLE:
+					out.writeDouble(row.getDouble(c));
+					break;
+				case STRING:
+					byte[] bytes = row.getString(c).getBytes(UTF8);
+					out.writeInt(bytes.length);
+					out.write(bytes);
+					break;
+				}
+			}
+		}
+
+		private static void readRow(ColumnRow row, DataInputStream in) throws IOException
+		{
+			row.clear();
+			ColumnSchema schema = row.getSchema();
+			for (int c = 0; c < schema.size(); c++)
+			{
+				if (in.readBoolean())
+				{
+					continue;
+				}
+				switch (schema.getType(c))
+				{
+				case INT:
+					row.setInt(c, in.readInt());
+					break;
+				case LONG:
+					row.setLong(c, in.readLong());
+					break;
+				case DOUBLE:
+					row.setDouble(c, in.readDouble());
+					break;
+				case STRING:
+					byte[] bytes = new byte[in.readInt()];
+					in.readFully(bytes);
+					row.setString(c, new String(bytes, UTF8));
+					break;
+				}
+			}
+		}
+	}
+
+	private static final class TextCodec extends SpillCodec
+	{
+		private final Class<?> clazz;
+
+		TextCodec(Class<?> clazz)
+		{
+			this.clazz = clazz;
+		}
+
+		@Override
+		void write(Object[] records, int count, DataOutputStream out) throws IOException
+		{
+			PrintWriter writer = new PrintWriter(new OutputStreamWriter(out, UTF8));
+			for (int i = 0; i < count; i++)
+			{
+				((TextSerializable) records[i]).writeItem(writer);
+			}
+			writer.flush();
+		}
+
+		@Override
+		Object[] read(DataInputStream in, int count, int capacity) throws IOException
+		{
+			Object[] records = new Object[capacity];
+			BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF8));
+			for (int i = 0; i < count; i++)
+			{
+				TextSerializable record = (TextSerializable) newInstance(this.clazz);
+				record.readItem(reader);
+				records[i] = record;
+			}
+			return records;
+		}
+	}
+
+	private static final class SerializableCodec extends SpillCodec
+	{
+		@Override
+		void write(Object[] records, int count, DataOutputStream out) throws IOException
+		{
+			ObjectOutputStream objects = new ObjectOutputStream(out);
+			objects.writeObject(records);
+			objects.flush();
+		}
+
+		@Override
+		Object[] read(DataInputStream in, int count, int capacity) throws IOException
+		{
+			ObjectInputStream objects = new ObjectInputStream(in);
+			try
+			{
+				return (Object[]) objects.readObject();
+			}
+			catch (ClassNotFoundException ex)
+			{
+				throw new IOException("Error reading spilled records", ex);
+			}
+		}
+	}
+}
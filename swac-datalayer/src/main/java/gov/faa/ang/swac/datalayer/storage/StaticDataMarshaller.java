@@ -0,0 +1,141 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage;
+
+import gov.faa.ang.swac.datalayer.DataAccessException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only decorator that parses the underlying data source once and serves the parsed records to every caller.
+ * Instances are shared between concurrently running Jobs, so the first load is serialized and every subsequent load
+ * reads from an unmodifiable snapshot. Record types with a public copy constructor (e.g. ScheduleRecord) are copied on
+ * every load, so each caller owns the records it receives and may modify them. Records of other types are shared by
+ * every scenario in the batch and must be treated as immutable.
+ * @author csmith
+ *
+ */
+public class StaticDataMarshaller extends ReadOnlyDataMarshaller
+{
+	private volatile List<?> snapshot;
+	// Resolved with the snapshot; null if records are shared
+	private volatile Constructor<?> copyConstructor;
+
+	public StaticDataMarshaller(DataMarshaller marshaller)
+	{
+		super(marshaller);
+	}
+
+	@Override
+	public <T> void load(List<T> output) throws DataAccessException
+	{
+		List<?> data = this.snapshot;
+		boolean parsed = false;
+		if (data == null)
+		{
+			synchronized (this)
+			{
+				data = this.snapshot;
+				if (data == null)
+				{
+					List<T> records = new ArrayList<T>();
+					super.load(records);
+					this.copyConstructor = findCopyConstructor(this.getDataType());
+					data = Collections.unmodifiableList(records);
+					this.snapshot = data;
+					parsed = true;
+				}
+			}
+		}
+		copyTo(data, output);
+		if (!parsed)
+		{
+			// Counted by the underlying marshaller when parsed
+			RecordCounter.read(data.size());
+		}
+	}
+
+	/**
+	 * Iterates over the records load would return, parsing the source first if necessary
+	 */
+	@Override
+	public <T> DataCursor<T> openCursor() throws DataAccessException
+	{
+		List<T> records = new ArrayList<T>();
+		load(records);
+		return new ListCursor<T>(records);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> void copyTo(List<?> data, List<T> output) throws DataAccessException
+	{
+		Constructor<?> constructor = this.copyConstructor;
+		if (constructor == null)
+		{
+			output.addAll((List<T>) data);
+			return;
+		}
+		
+		if (output instanceof ArrayList)
+		{
+			((ArrayList<T>) output).ensureCapacity(output.size() + data.size());
+		}
+		try
+		{
+			for (Object record : data)
+			{
+				output.add((T) constructor.newInstance(record));
+			}
+		}
+		catch (InstantiationException ex)
+		{
+			throw new DataAccessException("Error copying static data record", ex);
+		}
+		catch (IllegalAccessException ex)
+		{
+			throw new DataAccessException("Error copying static data record", ex);
+		}
+		catch (InvocationTargetException ex)
+		{
+			throw new DataAccessException("Error copying static data record", ex.getCause());
+		}
+	}
+
+	private static Constructor<?> findCopyConstructor(Class<?> clazz)
+	{
+		if (clazz == null)
+		{
+			return null;
+		}
+		try
+		{
+			return clazz.getConstructor(clazz);
+		}
+		catch (NoSuchMethodException ex)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * @return true once the underlying data source has been parsed into the shared snapshot
+	 */
+	public boolean isLoaded()
+	{
+		return this.snapshot != null;
+	}
+
+	@Override
+	public String toString() {
+		return "StaticDataMarshaller [ " + super.toString() + " ]";
+	}
+}
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.TreeMap;
+import java.util.concurrent.Future;
 import java.util.Map.Entry;
 
 import org.apache.log4j.LogManager;
@@ -40,6 +41,18 @@ public class StreamingDataMarshaller extends DataMarshallerBase
 		output.addAll(typedList);
 	}
 
+	/**
+	 * Takes the next list from the stream, as load does
+	 */
+	@Override
+	protected synchronized <T> DataCursor<T> openCursorInternal()
+	{
+		@SuppressWarnings("unchecked")
+		List<T> typedList = (List<T>)this.stream.remove();
+		dec(this.clazz);
+		return new ListCursor<T>(typedList);
+	}
+
 	@Override
 	public <T> void saveInternal(List<T> data) 
 	{
@@ -53,6 +66,15 @@ public class StreamingDataMarshaller extends DataMarshallerBase
 		}
 	}
 
+	/**
+	 * Saving only queues the list, so it is done on the calling thread
+	 */
+	@Override
+	public <T> Future<Void> saveAsync(List<T> data) throws DataAccessException
+	{
+		return saveNow(data);
+	}
+
 	@Override
 	public synchronized void onLoad(Object source)
 	{
@@ -15,9 +15,9 @@ import gov.faa.ang.swac.datalayer.identity.FileDataDescriptor;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class JDBCConnectionFactory {
 	private List<String> exemptDbTemplates;
@@ -25,7 +25,8 @@ public class JDBCConnectionFactory {
 	private Map<String,JDBCDatabase> databases;
         
 	public JDBCConnectionFactory() {
-	    this.databases = new HashMap<String, JDBCDatabase>();
+	    // Jobs running concurrently close their own database instances
+	    this.databases = new ConcurrentHashMap<String, JDBCDatabase>();
 	}
 
 	public void setExemptDbTemplates(List<String> exemptTemplates){
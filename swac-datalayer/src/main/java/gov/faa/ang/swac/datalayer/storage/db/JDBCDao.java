@@ -9,11 +9,15 @@ package gov.faa.ang.swac.datalayer.storage.db;
 
 import gov.faa.ang.swac.datalayer.DataAccessException;
 import gov.faa.ang.swac.datalayer.DataSubscriber;
+import gov.faa.ang.swac.datalayer.storage.DataCursor;
+import gov.faa.ang.swac.datalayer.storage.ListCursor;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
 
 /**
  * Abstract base class for DAO implementations. It wraps a database Connection and uses unimplemented stubs of the interface
@@ -97,12 +101,25 @@ public abstract class JDBCDao<T> implements DataAccessObject<T>  {
 		output.addAll(records);
 	}
 
+	@Override
+	public final <S> DataCursor<S> openCursor() throws DataAccessException {
+		List<S> records = new ArrayList<S>();
+		this.load(records);
+		return new ListCursor<S>(records);
+	}
+
 	@Override
 	public final <S> void save(List<S> data) throws DataAccessException {
 		// TODO: need to work out type erasure for generics
 		this.insertAll((List<T>)data);
 	}
 	
+	@Override
+	public final <S> Future<Void> saveAsync(List<S> data) throws DataAccessException {
+		// The connection is not shared with other threads
+		throw new UnsupportedOperationException("Asynchronous save not defined for data access object: " + getClass().getSimpleName());
+	}
+	
 	@Override
 	public final <S> void append(S data) throws DataAccessException {
 		throw new UnsupportedOperationException("Append not defined for data access object: " + getClass().getSimpleName());
@@ -0,0 +1,127 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage.fileio;
+
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnSchema.ColumnType;
+
+import java.util.Arrays;
+
+/**
+ * One row of a columnar file, indexed by the columns of a {@link ColumnSchema}. Every column is nullable; numeric
+ * values are held as raw 64-bit patterns so that a row never allocates. Rows are reused from record to record.
+ *
+ * @author csmith
+ *
+ */
+public class ColumnRow
+{
+	private final ColumnSchema schema;
+	final long[] values;
+	final String[] strings;
+	final boolean[] nulls;
+
+	public ColumnRow(ColumnSchema schema)
+	{
+		this.schema = schema;
+		this.values = new long[schema.size()];
+		this.strings = new String[schema.size()];
+		this.nulls = new boolean[schema.size()];
+		clear();
+	}
+
+	public ColumnSchema getSchema()
+	{
+		return this.schema;
+	}
+
+	/**
+	 * Set every column to null
+	 */
+	public void clear()
+	{
+		Arrays.fill(this.nulls, true);
+		Arrays.fill(this.strings, null);
+	}
+
+	public boolean isNull(int column)
+	{
+		return this.nulls[column];
+	}
+
+	public void setNull(int column)
+	{
+		this.nulls[column] = true;
+		this.strings[column] = null;
+	}
+
+	public int getInt(int column)
+	{
+		check(column, ColumnType.INT);
+		return (int) this.values[column];
+	}
+
+	public void setInt(int column, int value)
+	{
+		check(column, ColumnType.INT);
+		this.values[column] = value;
+		this.nulls[column] = false;
+	}
+
+	public long getLong(int column)
+	{
+		check(column, ColumnType.LONG);
+		return this.values[column];
+	}
+
+	public void setLong(int column, long value)
+	{
+		check(column, ColumnType.LONG);
+		this.values[column] = value;
+		this.nulls[column] = false;
+	}
+
+	public double getDouble(int column)
+	{
+		check(column, ColumnType.DOUBLE);
+		return Double.longBitsToDouble(this.values[column]);
+	}
+
+	public void setDouble(int column, double value)
+	{
+		check(column, ColumnType.DOUBLE);
+		this.values[column] = Double.doubleToRawLongBits(value);
+		this.nulls[column] = false;
+	}
+
+	/**
+	 * @return the value, or null if the column is null
+	 */
+	public String getString(int column)
+	{
+		check(column, ColumnType.STRING);
+		return this.strings[column];
+	}
+
+	/**
+	 * Null values are allowed
+	 */
+	public void setString(int column, String value)
+	{
+		check(column, ColumnType.STRING);
+		this.strings[column] = value;
+		this.nulls[column] = (value == null);
+	}
+
+	private void check(int column, ColumnType type)
+	{
+		if (this.schema.getType(column) != type)
+		{
+			throw new IllegalArgumentException("Column " + this.schema.getName(column) + " is " + this.schema.getType(column) + ", not " + type);
+		}
+	}
+}
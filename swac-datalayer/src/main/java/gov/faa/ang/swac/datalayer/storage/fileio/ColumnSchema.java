@@ -0,0 +1,96 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage.fileio;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Ordered, named and typed columns of a {@link ColumnSerializable} record type. Column indices in a {@link ColumnRow}
+ * follow the order of the schema; files are matched to the schema by column name, so columns may be added, removed or
+ * reordered without invalidating files that are read back.
+ *
+ * @author csmith
+ *
+ */
+public class ColumnSchema
+{
+	public static enum ColumnType
+	{
+		INT,
+		LONG,
+		DOUBLE,
+		STRING
+	}
+
+	private final List<String> names;
+	private final List<ColumnType> types;
+
+	public ColumnSchema(String[] names, ColumnType[] types)
+	{
+		if (names.length != types.length)
+		{
+			throw new IllegalArgumentException("Expected one type per column: names=" + names.length + "; types=" + types.length);
+		}
+		if (names.length == 0)
+		{
+			throw new IllegalArgumentException("Column schema must have at least one column");
+		}
+		if (new HashSet<String>(Arrays.asList(names)).size() != names.length)
+		{
+			throw new IllegalArgumentException("Duplicate column name in " + Arrays.toString(names));
+		}
+		this.names = Collections.unmodifiableList(Arrays.asList(names.clone()));
+		this.types = Collections.unmodifiableList(Arrays.asList(types.clone()));
+	}
+
+	public int size()
+	{
+		return this.names.size();
+	}
+
+	public String getName(int column)
+	{
+		return this.names.get(column);
+	}
+
+	public ColumnType getType(int column)
+	{
+		return this.types.get(column);
+	}
+
+	/**
+	 * @return the index of the named column, or -1 if there is none
+	 */
+	public int indexOf(String name)
+	{
+		return this.names.indexOf(name);
+	}
+
+	public List<String> getNames()
+	{
+		return this.names;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder("ColumnSchema [");
+		for (int i = 0; i < size(); i++)
+		{
+			if (i > 0)
+			{
+				builder.append(", ");
+			}
+			builder.append(getName(i)).append(':').append(getType(i));
+		}
+		return builder.append(']').toString();
+	}
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage.fileio;
+
+import java.io.IOException;
+
+/**
+ * Records that can be stored in the binary columnar file format (see {@link ColumnarFileWriter}). Unlike the other
+ * XXSerializable interfaces, implementations never see the file: they copy their state to and from a {@link ColumnRow}
+ * indexed by their {@link ColumnSchema}, and the file handles layout, compression and column projection.
+ *
+ * @author csmith
+ *
+ */
+public interface ColumnSerializable
+{
+	/**
+	 * @return the columns of this record type. The same schema must be returned by every instance of the class.
+	 */
+	public ColumnSchema getColumnSchema();
+
+	/**
+	 * Implementing classes should use this method to copy their internal state into the row. Columns left unset are null.
+	 *
+	 * @param row
+	 * @throws IOException
+	 */
+	public void writeColumns(ColumnRow row) throws IOException;
+
+	/**
+	 * Implementing classes should use this method to reconstitute their internal state from the row. Columns that are
+	 * missing from the file or were not projected read as null, and should leave the corresponding field at its default.
+	 *
+	 * @param row
+	 * @throws IOException
+	 */
+	public void readColumns(ColumnRow row) throws IOException;
+}
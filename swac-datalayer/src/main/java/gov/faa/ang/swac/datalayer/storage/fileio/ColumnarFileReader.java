@@ -0,0 +1,411 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage.fileio;
+
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnSchema.ColumnType;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads files written by {@link ColumnarFileWriter}. The footer index is read when the file is opened; each block is
+ * then memory-mapped as it is reached, and only the column chunks that are both projected and present in the caller's
+ * schema are decompressed. Columns are matched to the caller's schema by name; columns that are missing or not
+ * projected read as null.
+ *
+ * Instances are not thread-safe.
+ *
+ * @author csmith
+ *
+ */
+public class ColumnarFileReader implements Closeable
+{
+	private final File file;
+	private final RandomAccessFile raf;
+	private final FileChannel channel;
+
+	private final ColumnSchema fileSchema;
+	private final int[] blockSizes;
+	private final long[][] offsets;
+	private final int[][] compressedLengths;
+	private final int[][] rawLengths;
+	private long rowCount;
+
+	private Set<String> projection;
+
+	// Mapping from the caller's schema to file columns, rebuilt if a row with a different schema is passed in
+	private ColumnSchema targetSchema;
+	private int[] targetColumns;
+
+	// Decoded contents of the current block, by file column
+	private int block = -1;
+	private int rowInBlock;
+	private final long[][] values;
+	private final String[][] strings;
+	private final boolean[][] nulls;
+
+	private final Inflater inflater = new Inflater();
+	private byte[] compressed = new byte[8192];
+	private byte[] raw = new byte[8192];
+
+	public ColumnarFileReader(File file) throws IOException
+	{
+		this.file = file;
+		this.raf = new RandomAccessFile(file, "r");
+		this.channel = this.raf.getChannel();
+
+		try
+		{
+			long size = this.channel.size();
+			if (size < 8 + ColumnarFileWriter.TRAILER_LENGTH)
+			{
+				throw new IOException("Not a columnar file (too short): " + file);
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(8);
+			readFully(header, 0);
+			ByteBuffer trailer = ByteBuffer.allocate(ColumnarFileWriter.TRAILER_LENGTH);
+			readFully(trailer, size - ColumnarFileWriter.TRAILER_LENGTH);
+			long footerOffset = trailer.getLong();
+			if (header.getInt() != ColumnarFileWriter.MAGIC || trailer.getInt() != ColumnarFileWriter.MAGIC)
+			{
+				throw new IOException("Not a columnar file (bad magic number): " + file);
+			}
+			int version = header.getInt();
+			if (version != ColumnarFileWriter.VERSION)
+			{
+				throw new IOException("Unsupported columnar file version " + version + ": " + file);
+			}
+			if (footerOffset < 8 || footerOffset > size - ColumnarFileWriter.TRAILER_LENGTH)
+			{
+				throw new IOException("Corrupt columnar file footer: " + file);
+			}
+
+			ByteBuffer footerBytes = ByteBuffer.allocate((int) (size - ColumnarFileWriter.TRAILER_LENGTH - footerOffset));
+			readFully(footerBytes, footerOffset);
+			DataInputStream footer = new DataInputStream(new ByteArrayInputStream(footerBytes.array()));
+
+			int nColumns = footer.readInt();
+			String[] names = new String[nColumns];
+			ColumnType[] types = new ColumnType[nColumns];
+			for (int c = 0; c < nColumns; c++)
+			{
+				names[c] = footer.readUTF();
+				types[c] = ColumnType.values()[footer.readByte()];
+			}
+			this.fileSchema = new ColumnSchema(names, types);
+
+			int nBlocks = footer.readInt();
+			this.blockSizes = new int[nBlocks];
+			this.offsets = new long[nBlocks][nColumns];
+			this.compressedLengths = new int[nBlocks][nColumns];
+			this.rawLengths = new int[nBlocks][nColumns];
+			for (int b = 0; b < nBlocks; b++)
+			{
+				this.blockSizes[b] = footer.readInt();
+				this.rowCount += this.blockSizes[b];
+				for (int c = 0; c < nColumns; c++)
+				{
+					this.offsets[b][c] = footer.readLong();
+					this.compressedLengths[b][c] = footer.readInt();
+					this.rawLengths[b][c] = footer.readInt();
+				}
+			}
+
+			this.values = new long[nColumns][];
+			this.strings = new String[nColumns][];
+			this.nulls = new boolean[nColumns][];
+		}
+		catch (IOException ex)
+		{
+			close();
+			throw ex;
+		}
+		catch (RuntimeException ex)
+		{
+			close();
+			throw new IOException("Corrupt columnar file: " + file, ex);
+		}
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			if (this.channel.read(buffer, position + buffer.position()) < 0)
+			{
+				throw new EOFException("Unexpected end of columnar file: " + this.file);
+			}
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * @return the columns stored in the file, which may differ from the schema of the records read from it
+	 */
+	public ColumnSchema getFileSchema()
+	{
+		return this.fileSchema;
+	}
+
+	public long getRowCount()
+	{
+		return this.rowCount;
+	}
+
+	/**
+	 * Restrict decoding to the named columns; all other columns read as null. Must be called before the first row is read.
+	 *
+	 * @param columns names of the columns to read, or null to read every column
+	 */
+	public void setProjection(Collection<String> columns)
+	{
+		if (this.block >= 0)
+		{
+			throw new IllegalStateException("Projection must be set before reading");
+		}
+		this.projection = (columns == null) ? null : new HashSet<String>(columns);
+	}
+
+	/**
+	 * Read the next record into the given record
+	 *
+	 * @return false if there are no more rows
+	 */
+	public boolean read(ColumnSerializable item, ColumnRow row) throws IOException
+	{
+		if (!next(row))
+		{
+			return false;
+		}
+		item.readColumns(row);
+		return true;
+	}
+
+	/**
+	 * Fill the row with the next row of the file
+	 *
+	 * @return false if there are no more rows
+	 */
+	public boolean next(ColumnRow row) throws IOException
+	{
+		if (row.getSchema() != this.targetSchema)
+		{
+			mapColumns(row.getSchema());
+		}
+
+		while (this.block < 0 || this.rowInBlock == this.blockSizes[this.block])
+		{
+			if (this.block + 1 == this.blockSizes.length)
+			{
+				return false;
+			}
+			loadBlock(this.block + 1);
+		}
+
+		int r = this.rowInBlock++;
+		for (int c = 0; c < this.targetColumns.length; c++)
+		{
+			int f = this.targetColumns[c];
+			if (f < 0 || this.nulls[f][r])
+			{
+				row.setNull(c);
+			}
+			else if (this.strings[f] != null)
+			{
+				row.strings[c] = this.strings[f][r];
+				row.nulls[c] = false;
+			}
+			else
+			{
+				row.values[c] = this.values[f][r];
+				row.nulls[c] = false;
+			}
+		}
+		return true;
+	}
+
+	private void mapColumns(ColumnSchema schema) throws IOException
+	{
+		int[] mapping = new int[schema.size()];
+		for (int c = 0; c < mapping.length; c++)
+		{
+			String name = schema.getName(c);
+			int f = this.fileSchema.indexOf(name);
+			if (f >= 0 && this.fileSchema.getType(f) != schema.getType(c))
+			{
+				throw new IOException("Column " + name + " is " + this.fileSchema.getType(f) + " in " + this.file + ", expected " + schema.getType(c));
+			}
+			mapping[c] = (this.projection == null || this.projection.contains(name)) ? f : -1;
+		}
+
+		this.targetSchema = schema;
+		this.targetColumns = mapping;
+		if (this.block >= 0)
+		{
+			// Decode any newly required columns of the current block
+			decodeBlock(this.block);
+		}
+	}
+
+	private void loadBlock(int b) throws IOException
+	{
+		this.block = b;
+		this.rowInBlock = 0;
+		decodeBlock(b);
+	}
+
+	private void decodeBlock(int b) throws IOException
+	{
+		int nRows = this.blockSizes[b];
+
+		boolean[] wanted = new boolean[this.fileSchema.size()];
+		long start = Long.MAX_VALUE;
+		long end = Long.MIN_VALUE;
+		for (int f : this.targetColumns)
+		{
+			if (f >= 0)
+			{
+				wanted[f] = true;
+				start = Math.min(start, this.offsets[b][f]);
+				end = Math.max(end, this.offsets[b][f] + this.compressedLengths[b][f]);
+			}
+		}
+		if (start > end)
+		{
+			return; // Nothing projected
+		}
+
+		MappedByteBuffer mapped = this.channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		for (int f = 0; f < wanted.length; f++)
+		{
+			if (!wanted[f])
+			{
+				this.values[f] = null;
+				this.strings[f] = null;
+				this.nulls[f] = null;
+				continue;
+			}
+
+			int compressedLength = this.compressedLengths[b][f];
+			if (this.compressed.length < compressedLength)
+			{
+				this.compressed = new byte[compressedLength];
+			}
+			mapped.position((int) (this.offsets[b][f] - start));
+			mapped.get(this.compressed, 0, compressedLength);
+			int rawLength = this.rawLengths[b][f];
+			inflate(compressedLength, rawLength);
+			decodeColumn(f, nRows, rawLength);
+		}
+	}
+
+	private void inflate(int compressedLength, int rawLength) throws IOException
+	{
+		if (this.raw.length < rawLength)
+		{
+			this.raw = new byte[rawLength];
+		}
+		this.inflater.reset();
+		this.inflater.setInput(this.compressed, 0, compressedLength);
+		try
+		{
+			int length = 0;
+			while (length < rawLength && !this.inflater.finished())
+			{
+				int n = this.inflater.inflate(this.raw, length, rawLength - length);
+				if (n == 0 && (this.inflater.needsInput() || this.inflater.needsDictionary()))
+				{
+					break;
+				}
+				length += n;
+			}
+			if (length != rawLength)
+			{
+				throw new IOException("Corrupt columnar file (truncated column chunk): " + this.file);
+			}
+		}
+		catch (DataFormatException ex)
+		{
+			throw new IOException("Corrupt columnar file: " + this.file, ex);
+		}
+	}
+
+	private void decodeColumn(int f, int nRows, int rawLength) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(this.raw, 0, rawLength));
+
+		boolean[] columnNulls = reuse(this.nulls[f], nRows);
+		for (int i = 0; i < nRows; i += 8)
+		{
+			int bits = in.readUnsignedByte();
+			for (int j = 0; j < 8 && i + j < nRows; j++)
+			{
+				columnNulls[i + j] = (bits & (1 << j)) != 0;
+			}
+		}
+		this.nulls[f] = columnNulls;
+
+		ColumnType type = this.fileSchema.getType(f);
+		if (type == ColumnType.STRING)
+		{
+			String[] dictionary = new String[in.readInt()];
+			for (int d = 0; d < dictionary.length; d++)
+			{
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				dictionary[d] = new String(bytes, ColumnarFileWriter.UTF8);
+			}
+			String[] columnStrings = (this.strings[f] != null && this.strings[f].length >= nRows) ? this.strings[f] : new String[nRows];
+			for (int i = 0; i < nRows; i++)
+			{
+				columnStrings[i] = columnNulls[i] ? null : dictionary[in.readInt()];
+			}
+			this.strings[f] = columnStrings;
+			this.values[f] = null;
+		}
+		else
+		{
+			long[] columnValues = (this.values[f] != null && this.values[f].length >= nRows) ? this.values[f] : new long[nRows];
+			for (int i = 0; i < nRows; i++)
+			{
+				if (!columnNulls[i])
+				{
+					columnValues[i] = (type == ColumnType.INT) ? in.readInt() : in.readLong();
+				}
+			}
+			this.values[f] = columnValues;
+			this.strings[f] = null;
+		}
+	}
+
+	private static boolean[] reuse(boolean[] array, int length)
+	{
+		return (array != null && array.length >= length) ? array : new boolean[length];
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.inflater.end();
+		this.raf.close();
+	}
+}
@@ -0,0 +1,333 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage.fileio;
+
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnSchema.ColumnType;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writes records to the binary columnar file format. Rows are buffered into blocks of a fixed number of rows; each
+ * block is stored column by column, and each column chunk is compressed on its own so that readers can decompress only
+ * the columns they project. The layout is:
+ *
+ * <pre>
+ * header:  int MAGIC, int VERSION
+ * blocks:  for each block, for each column: deflated chunk
+ * footer:  int nColumns, (UTF name, byte type) per column,
+ *          int nBlocks, (int nRows, (long offset, int compressedLength, int rawLength) per column) per block
+ * trailer: long footerOffset, int MAGIC
+ * </pre>
+ *
+ * An uncompressed chunk holds a null bitmap (one bit per row, set for null) followed by the non-null values: 4 bytes
+ * per INT, 8 bytes per LONG or DOUBLE, and for STRING a block-local dictionary of distinct values followed by one
+ * dictionary index per value.
+ *
+ * @author csmith
+ *
+ */
+public class ColumnarFileWriter implements Closeable
+{
+	public static final int DEFAULT_BLOCK_ROWS = 16384;
+
+	static final int MAGIC = 0x53574343; // "SWCC"
+	static final int VERSION = 1;
+	static final int TRAILER_LENGTH = 12;
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final ColumnSchema schema;
+	private final int blockRows;
+	private final DataOutputStream out;
+	private long position;
+
+	private final ColumnRow row;
+	private final long[][] values;
+	private final String[][] strings;
+	private final boolean[][] nulls;
+	private int nRows;
+
+	private final List<long[]> blockOffsets = new ArrayList<long[]>();
+	private final List<int[]> blockLengths = new ArrayList<int[]>();
+	private final List<Integer> blockSizes = new ArrayList<Integer>();
+
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	private final ByteArrayOutputStream chunkBytes = new ByteArrayOutputStream();
+	private final DataOutputStream chunk = new DataOutputStream(this.chunkBytes);
+	private byte[] compressed = new byte[8192];
+	private boolean closed;
+
+	public ColumnarFileWriter(File file, ColumnSchema schema) throws IOException
+	{
+		this(file, schema, DEFAULT_BLOCK_ROWS);
+	}
+
+	public ColumnarFileWriter(File file, ColumnSchema schema, int blockRows) throws IOException
+	{
+		if (blockRows < 1)
+		{
+			throw new IllegalArgumentException("Block size must be positive: " + blockRows);
+		}
+		this.schema = schema;
+		this.blockRows = blockRows;
+		this.row = new ColumnRow(schema);
+
+		int nColumns = schema.size();
+		this.values = new long[nColumns][];
+		this.strings = new String[nColumns][];
+		this.nulls = new boolean[nColumns][blockRows];
+		for (int c = 0; c < nColumns; c++)
+		{
+			if (schema.getType(c) == ColumnType.STRING)
+			{
+				this.strings[c] = new String[blockRows];
+			}
+			else
+			{
+				this.values[c] = new long[blockRows];
+			}
+		}
+
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+		this.out.writeInt(MAGIC);
+		this.out.writeInt(VERSION);
+		this.position = 8;
+	}
+
+	public ColumnSchema getSchema()
+	{
+		return this.schema;
+	}
+
+	/**
+	 * Append one record to the file
+	 */
+	public void write(ColumnSerializable item) throws IOException
+	{
+		this.row.clear();
+		item.writeColumns(this.row);
+		writeRow(this.row);
+	}
+
+	/**
+	 * Append one row to the file. The row must have been created with this writer's schema.
+	 */
+	public void writeRow(ColumnRow source) throws IOException
+	{
+		if (this.closed)
+		{
+			throw new IOException("Columnar file has been closed");
+		}
+		if (source.getSchema() != this.schema)
+		{
+			throw new IllegalArgumentException("Row does not belong to schema " + this.schema);
+		}
+
+		for (int c = 0; c < this.schema.size(); c++)
+		{
+			this.nulls[c][this.nRows] = source.nulls[c];
+			if (this.strings[c] != null)
+			{
+				this.strings[c][this.nRows] = source.strings[c];
+			}
+			else
+			{
+				this.values[c][this.nRows] = source.values[c];
+			}
+		}
+
+		if (++this.nRows == this.blockRows)
+		{
+			flushBlock();
+		}
+	}
+
+	private void flushBlock() throws IOException
+	{
+		int nColumns = this.schema.size();
+		long[] offsets = new long[nColumns];
+		int[] lengths = new int[2 * nColumns];
+
+		for (int c = 0; c < nColumns; c++)
+		{
+			this.chunkBytes.reset();
+			encode(c);
+			byte[] raw = this.chunkBytes.toByteArray();
+			int compressedLength = deflate(raw);
+
+			offsets[c] = this.position;
+			lengths[2 * c] = compressedLength;
+			lengths[2 * c + 1] = raw.length;
+			this.out.write(this.compressed, 0, compressedLength);
+			this.position += compressedLength;
+		}
+
+		this.blockOffsets.add(offsets);
+		this.blockLengths.add(lengths);
+		this.blockSizes.add(this.nRows);
+		this.nRows = 0;
+	}
+
+	private void encode(int c) throws IOException
+	{
+		boolean[] columnNulls = this.nulls[c];
+
+		// Null bitmap
+		for (int i = 0; i < this.nRows; i += 8)
+		{
+			int bits = 0;
+			for (int j = 0; j < 8 && i + j < this.nRows; j++)
+			{
+				if (columnNulls[i + j])
+				{
+					bits |= 1 << j;
+				}
+			}
+			this.chunk.writeByte(bits);
+		}
+
+		switch (this.schema.getType(c))
+		{
+			case INT:
+				for (int i = 0; i < this.nRows; i++)
+				{
+					if (!columnNulls[i]) this.chunk.writeInt((int) this.values[c][i]);
+				}
+				break;
+			case LONG:
+			case DOUBLE:
+				for (int i = 0; i < this.nRows; i++)
+				{
+					if (!columnNulls[i]) this.chunk.writeLong(this.values[c][i]);
+				}
+				break;
+			case STRING:
+			{
+				String[] columnStrings = this.strings[c];
+				Map<String, Integer> dictionary = new HashMap<String, Integer>();
+				List<String> entries = new ArrayList<String>();
+				int[] codes = new int[this.nRows];
+				for (int i = 0; i < this.nRows; i++)
+				{
+					if (!columnNulls[i])
+					{
+						Integer code = dictionary.get(columnStrings[i]);
+						if (code == null)
+						{
+							code = entries.size();
+							dictionary.put(columnStrings[i], code);
+							entries.add(columnStrings[i]);
+						}
+						codes[i] = code;
+					}
+					columnStrings[i] = null; // Don't hold on to the records' strings between blocks
+				}
+
+				this.chunk.writeInt(entries.size());
+				for (String entry : entries)
+				{
+					byte[] bytes = entry.getBytes(UTF8);
+					this.chunk.writeInt(bytes.length);
+					this.chunk.write(bytes);
+				}
+				for (int i = 0; i < this.nRows; i++)
+				{
+					if (!columnNulls[i]) this.chunk.writeInt(codes[i]);
+				}
+				break;
+			}
+			default:
+				throw new IllegalStateException("Unknown column type: " + this.schema.getType(c));
+		}
+		this.chunk.flush();
+	}
+
+	/**
+	 * Compress raw into this.compressed
+	 * @return the compressed length
+	 */
+	private int deflate(byte[] raw)
+	{
+		this.deflater.reset();
+		this.deflater.setInput(raw);
+		this.deflater.finish();
+		int length = 0;
+		while (!this.deflater.finished())
+		{
+			if (length == this.compressed.length)
+			{
+				byte[] larger = new byte[this.compressed.length * 2];
+				System.arraycopy(this.compressed, 0, larger, 0, length);
+				this.compressed = larger;
+			}
+			length += this.deflater.deflate(this.compressed, length, this.compressed.length - length);
+		}
+		return length;
+	}
+
+	/**
+	 * Write any buffered rows and the footer index, and close the file. Closing twice has no effect.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (this.closed)
+		{
+			return;
+		}
+		this.closed = true;
+
+		try
+		{
+			if (this.nRows > 0)
+			{
+				flushBlock();
+			}
+
+			long footerOffset = this.position;
+			int nColumns = this.schema.size();
+			this.out.writeInt(nColumns);
+			for (int c = 0; c < nColumns; c++)
+			{
+				this.out.writeUTF(this.schema.getName(c));
+				this.out.writeByte(this.schema.getType(c).ordinal());
+			}
+			this.out.writeInt(this.blockSizes.size());
+			for (int b = 0; b < this.blockSizes.size(); b++)
+			{
+				this.out.writeInt(this.blockSizes.get(b));
+				long[] offsets = this.blockOffsets.get(b);
+				int[] lengths = this.blockLengths.get(b);
+				for (int c = 0; c < nColumns; c++)
+				{
+					this.out.writeLong(offsets[c]);
+					this.out.writeInt(lengths[2 * c]);
+					this.out.writeInt(lengths[2 * c + 1]);
+				}
+			}
+			this.out.writeLong(footerOffset);
+			this.out.writeInt(MAGIC);
+		}
+		finally
+		{
+			this.deflater.end();
+			this.out.close();
+		}
+	}
+}
@@ -7,7 +7,9 @@
 
 package gov.faa.ang.swac.datalayer.storage.fileio;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -19,13 +21,25 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
 import gov.faa.ang.swac.datalayer.DataAccessException;
+import gov.faa.ang.swac.datalayer.storage.AbstractDataCursor;
+import gov.faa.ang.swac.datalayer.storage.DataCursor;
 import gov.faa.ang.swac.datalayer.storage.DataMarshallerBase;
 
 /**
@@ -34,6 +48,16 @@ import gov.faa.ang.swac.datalayer.storage.DataMarshallerBase;
  * being given first to TextSerializable, then to StreamSerializable, and finally to default Serializable. If none
  * of these interfaces is implemented, then conversion to/from file format is not well defined and exceptions will be thrown.
  * 
+ * Classes that implement ColumnSerializable may instead be stored in the binary columnar format (see setColumnarFormat),
+ * which is intended for intermediate data that is written and read back by the application rather than by people.
+ * 
+ * Large text files of LineDelimited types are loaded in parallel: the file is memory mapped, split at line boundaries
+ * and the pieces parsed concurrently, then concatenated in file order (see setLoadParallelism).
+ * 
+ * Appended text records are flushed after every record unless a group-commit flush policy is set (see
+ * setAppendFlushRecords, setAppendFlushChars and setAppendFlushMillis), in which case a background thread writes them
+ * and flushes in groups.
+ * 
  * @author csmith
  *
  */
@@ -56,8 +80,25 @@ public class FileMarshaller extends DataMarshallerBase
 	private boolean text;
 	private boolean stream;
 	private boolean binary;
+	private boolean column;
 	private String schemaName;
 	
+	private boolean columnarFormat;
+	private Collection<String> columnProjection;
+	
+	// Text files smaller than this are always loaded on one thread
+	static final long PARALLEL_LOAD_MIN_BYTES = 8L << 20;
+	// Pieces per loading thread, so that a thread that finishes early can take another
+	private static final int CHUNKS_PER_THREAD = 4;
+	
+	private boolean lineDelimited;
+	private int loadParallelism;
+	
+	// Group-commit flush policy for appended text; all 0 flushes after every record
+	private int appendFlushRecords;
+	private long appendFlushChars;
+	private long appendFlushMillis;
+	
 	private DATA_VALIDATION_STATE existenceValidated=DATA_VALIDATION_STATE.NOT_VALIDATED;
 	private DATA_VALIDATION_STATE schemaValidated=DATA_VALIDATION_STATE.NOT_VALIDATED;
 	private DATA_VALIDATION_STATE dataValidated=DATA_VALIDATION_STATE.NOT_VALIDATED;
@@ -104,6 +145,19 @@ public class FileMarshaller extends DataMarshallerBase
 				this.text = true;
 			}
 			
+			if (i.equals(LineDelimited.class))
+			{
+				valid = true;
+				this.text = true;
+				this.lineDelimited = true;
+			}
+			
+			if (i.equals(ColumnSerializable.class))
+			{
+				valid = true;
+				this.column = true;
+			}
+			
 			if (i.equals(WithHeader.class))
 			{
 				valid = true;
@@ -175,6 +229,109 @@ public class FileMarshaller extends DataMarshallerBase
 		return this.file.getName();
 	}
 	
+	/**
+	 * @return true if the data type can be stored in the binary columnar format
+	 */
+	public boolean isColumnSerializable()
+	{
+		return this.column;
+	}
+	
+	public boolean isColumnarFormat()
+	{
+		return this.columnarFormat;
+	}
+	
+	/**
+	 * Select the binary columnar format in preference to the text, stream and Serializable formats. Only valid for
+	 * data types that implement ColumnSerializable.
+	 */
+	public void setColumnarFormat(boolean columnarFormat)
+	{
+		if (columnarFormat && !this.column)
+		{
+			throw new IllegalArgumentException("Error: " + this.clazz.getName() + " is not ColumnSerializable");
+		}
+		this.columnarFormat = columnarFormat;
+	}
+	
+	public int getLoadParallelism()
+	{
+		return this.loadParallelism;
+	}
+	
+	/**
+	 * @param loadParallelism number of threads used to parse a text file of a LineDelimited type; 0 (the default) uses
+	 * one per available processor and 1 reads the file serially. Files smaller than PARALLEL_LOAD_MIN_BYTES and types
+	 * with a footer are always read serially. The loaded records do not depend on this value.
+	 */
+	public void setLoadParallelism(int loadParallelism)
+	{
+		this.loadParallelism = loadParallelism;
+	}
+	
+	public int getAppendFlushRecords()
+	{
+		return this.appendFlushRecords;
+	}
+	
+	/**
+	 * Appended text records are written on a background thread and flushed once this many have been written since the
+	 * last flush (0 to ignore the count). Setting any of the three append flush limits enables this mode; records not
+	 * yet flushed are lost if the process dies, but close writes them all and forces the file to disk.
+	 */
+	public void setAppendFlushRecords(int appendFlushRecords)
+	{
+		this.appendFlushRecords = appendFlushRecords;
+	}
+	
+	public long getAppendFlushChars()
+	{
+		return this.appendFlushChars;
+	}
+	
+	/**
+	 * Flush appended text once this many characters have been written since the last flush (0 to ignore the size).
+	 * See setAppendFlushRecords.
+	 */
+	public void setAppendFlushChars(long appendFlushChars)
+	{
+		this.appendFlushChars = appendFlushChars;
+	}
+	
+	public long getAppendFlushMillis()
+	{
+		return this.appendFlushMillis;
+	}
+	
+	/**
+	 * Flush appended text once this many milliseconds have passed since the last flush (0 to ignore the time). See
+	 * setAppendFlushRecords.
+	 */
+	public void setAppendFlushMillis(long appendFlushMillis)
+	{
+		this.appendFlushMillis = appendFlushMillis;
+	}
+	
+	private boolean isGroupCommit()
+	{
+		return this.appendFlushRecords > 0 || this.appendFlushChars > 0 || this.appendFlushMillis > 0;
+	}
+	
+	public Collection<String> getColumnProjection()
+	{
+		return this.columnProjection;
+	}
+	
+	/**
+	 * Restrict loading of columnar files to the named columns. Other fields are left at their defaults, and their data
+	 * is never decompressed. Null (the default) loads every column.
+	 */
+	public void setColumnProjection(Collection<String> columnProjection)
+	{
+		this.columnProjection = columnProjection;
+	}
+	
 	@Override 
 	public final boolean exists()
 	{
@@ -189,7 +346,11 @@ public class FileMarshaller extends DataMarshallerBase
 
 		if(schemaName!=null && schemaValidated==DATA_VALIDATION_STATE.NOT_VALIDATED) validateSchemaInternal();
 	
-		if (this.text)
+		if (this.columnarFormat)
+		{
+			loadColumnar(output);
+		}
+		else if (this.text)
 		{
 			loadText(output);
 		}
@@ -207,89 +368,295 @@ public class FileMarshaller extends DataMarshallerBase
 		}
 	}
 	
+	/**
+	 * Text and columnar files are parsed a record at a time as the cursor is read. Stream and binary files are loaded
+	 * whole, since the records of a serialized list can't be read independently.
+	 */
+	@Override
+	protected final <T> DataCursor<T> openCursorInternal() throws DataAccessException
+	{
+		if(schemaName!=null && schemaValidated==DATA_VALIDATION_STATE.NOT_VALIDATED) validateSchemaInternal();
+		
+		if (this.columnarFormat)
+		{
+			return new ColumnarCursor<T>();
+		}
+		else if (this.text)
+		{
+			return new TextCursor<T>();
+		}
+		return super.openCursorInternal();
+	}
+	
 	public final <T> void loadText(List<T> output) throws DataAccessException 
 	{
-		InputStream inStream = null;
-
+		int nThreads = this.loadParallelism > 0 ? this.loadParallelism : Runtime.getRuntime().availableProcessors();
+		if (this.lineDelimited && !this.withFooter && nThreads > 1 && this.file.length() >= PARALLEL_LOAD_MIN_BYTES 
+				&& loadTextParallel(output, nThreads))
+		{
+			return;
+		}
+		
+		TextCursor<T> cursor = new TextCursor<T>();
 		try
 		{
-			inStream = new FileInputStream(this.file);
-			BufferedReader reader = new BufferedReader(new InputStreamReader(inStream));
-			
-			if (!reader.ready())
+			T item;
+			while ((item = cursor.next()) != null)
 			{
-				// Don't attempt to parse empty files
-				return;
+				output.add(item);
 			}
-			
-			// Read the header, if it exists
-			long maxRecords = Integer.MIN_VALUE;
-			if (this.withHeader)
+		}
+		finally
+		{
+			cursor.close();
+		}
+	}
+	
+	/**
+	 * Parses a text file a record at a time. Serial loading reads through this cursor, so both have the same handling of
+	 * headers, footers, record counts and parsing errors.
+	 */
+	private final class TextCursor<T> extends AbstractDataCursor<T>
+	{
+		private InputStream inStream;
+		private BufferedReader reader;
+		private long maxRecords = Integer.MIN_VALUE;
+		private long recordCount;
+		
+		TextCursor() throws DataAccessException
+		{
+			try
 			{
-				maxRecords = ((WithHeader)this.clazz.newInstance()).readHeader(reader);
+				this.inStream = new FileInputStream(file);
+				this.reader = new BufferedReader(new InputStreamReader(this.inStream));
+				
+				if (!this.reader.ready())
+				{
+					// Don't attempt to parse empty files
+					close();
+					return;
+				}
+				
+				// Read the header, if it exists
+				if (withHeader)
+				{
+					this.maxRecords = ((WithHeader)clazz.newInstance()).readHeader(this.reader);
+				}
+			}
+			catch (InstantiationException ex)
+			{
+				close();
+				throw new DataAccessException("Error instantiating object for data loading", ex);
+			}
+			catch (IllegalAccessException ex)
+			{
+				close();
+				throw new DataAccessException("Error reflecting object for data loading", ex);
+			}
+			catch (IOException ex)
+			{
+				close();
+				throw new DataAccessException("Error reading data from file", ex);
+			}
+		}
+		
+		@Override
+		public T next() throws DataAccessException
+		{
+			if (this.reader == null)
+			{
+				return null;
 			}
 			
-			// Read off the records one by one. If the header specified the number of records, read exactly that number.
-			// Otherwise read to the end of the stream.
-			long recordCount = 0;
-			while (reader.ready() && ((maxRecords < 0) || (recordCount < maxRecords)))
-            {
-				recordCount++;
-				try{
-					TextSerializable item = (TextSerializable)clazz.newInstance();
-					
-					try
+			try
+			{
+				// Read off the records one by one. If the header specified the number of records, read exactly that number.
+				// Otherwise read to the end of the stream.
+				while (this.reader.ready() && ((this.maxRecords < 0) || (this.recordCount < this.maxRecords)))
+				{
+					this.recordCount++;
+					try{
+						TextSerializable item = (TextSerializable)clazz.newInstance();
+						
+						try
+						{
+							item.readItem(this.reader);
+							
+							// Type safety validated at beginning of load
+							@SuppressWarnings("unchecked")
+							T typedItem =(T)item;
+							return typedItem;
+						}
+						catch (EndOfFileException ex)
+						{
+							// This	represents routine termination of file reading
+						}
+					} 
+					catch(IOException ioe) 
 					{
-						item.readItem(reader);
+						logger.debug("Parsing error for data type " + clazz.getName()+".  Error ocurred reading record #"+this.recordCount, ioe);
+						if (!faultTolerant)
+						{
+							throw new DataAccessException("Parsing error for data type " + clazz.getName()+".  Error ocurred reading record #"+this.recordCount, ioe);
+						}
+					}catch(OutOfMemoryError e){
+			            throw new OutOfMemoryError("Out of Memory loading data type: " + clazz.getName());
+					}
+					catch (Throwable t) {
+						logger.fatal("Unknown error loading data type: " + clazz.getName());
 						
-						// Type safety validated at beginning of method
-						@SuppressWarnings("unchecked")
-						T typedItem =(T)item;
-						output.add(typedItem);
+						for (StackTraceElement ste : t.getStackTrace()) {
+						    logger.debug(ste);
+						}
+						throw new DataAccessException(t);
 					}
-					catch (EndOfFileException ex)
+				}
+				
+				finish();
+				return null;
+			}
+			catch (InstantiationException ex)
+			{
+				throw new DataAccessException("Error instantiating object for data loading", ex);
+			}
+			catch (IllegalAccessException ex)
+			{
+				throw new DataAccessException("Error reflecting object for data loading", ex);
+			}
+			catch (IOException ex)
+			{
+				throw new DataAccessException("Error reading data from file", ex);
+			}
+		}
+		
+		/**
+		 * Reads the footer and checks the record count once the last record has been read
+		 */
+		private void finish() throws IOException, InstantiationException, IllegalAccessException, DataAccessException
+		{
+			try
+			{
+				// Read the footer, if it exists
+				if (withFooter)
+				{
+					((WithFooter)clazz.newInstance()).readFooter(this.reader);
+				}
+				
+				// Validate the number of records if a number was specified by the header
+				if (this.maxRecords >= 0)
+				{
+					if (this.recordCount != this.maxRecords)
 					{
-						// This	represents routine termination of file reading
+						throw new DataAccessException("Error: End of stream reached before expected number of records were loaded.");
 					}
+					if (this.reader.ready() && !withFooter)
+					{ 
+						throw new DataAccessException("Error: Expected number of records were loaded before end of stream was reached.");
+					}
+				}
+			}
+			finally
+			{
+				close();
+			}
+		}
+		
+		@Override
+		public void close()
+		{
+			if (this.inStream != null)
+			{
+				try 
+				{
+					this.inStream.close();
 				} 
-				catch(IOException ioe) 
+				catch (IOException e) {}
+				this.inStream = null;
+				this.reader = null;
+			}
+		}
+	}
+
+	/**
+	 * Reads the header serially, then splits the rest of the file at line boundaries and parses the pieces on a pool of
+	 * nThreads threads. Records are added to output in file order, and parsing errors are handled as in loadText.
+	 * 
+	 * @return false, having loaded nothing, if the header wasn't read line by line so its end is unknown
+	 */
+	private <T> boolean loadTextParallel(List<T> output, int nThreads) throws DataAccessException
+	{
+		FileInputStream inStream = null;
+		ExecutorService pool = null;
+		try
+		{
+			// Resolved once and shared: Constructor.newInstance is safe to call from every parsing thread
+			Constructor<?> constructor = this.clazz.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			
+			inStream = new FileInputStream(this.file);
+			FileChannel channel = inStream.getChannel();
+			
+			// Read the header, if it exists, and find where the records begin
+			long start = 0;
+			long maxRecords = Integer.MIN_VALUE;
+			if (this.withHeader)
+			{
+				TextFileChunks.LineCountingReader header = new TextFileChunks.LineCountingReader(new InputStreamReader(new FileInputStream(this.file)));
+				try
 				{
-					logger.debug("Parsing error for data type " + this.clazz.getName()+".  Error ocurred reading record #"+recordCount, ioe);
-					if (!faultTolerant)
-					{
-						throw new DataAccessException("Parsing error for data type " + this.clazz.getName()+".  Error ocurred reading record #"+recordCount, ioe);
-					}
-				}catch(OutOfMemoryError e){
-		            throw new OutOfMemoryError("Out of Memory loading data type: " + this.clazz.getName());
+					maxRecords = ((WithHeader)constructor.newInstance()).readHeader(header);
 				}
-				catch (Throwable t) {
-					logger.fatal("Unknown error loading data type: " + this.clazz.getName());
-					
-					for (StackTraceElement ste : t.getStackTrace()) {
-					    logger.debug(ste);
-					}
-					throw new DataAccessException(t);
+				finally
+				{
+					header.close();
+				}
+				if (!header.isLineBased())
+				{
+					logger.debug("Header of " + this.clazz.getName() + " is not read by line; loading " + this.file.getName() + " serially");
+					return false;
 				}
+				start = TextFileChunks.skipLines(channel, 0, header.getLineCount());
 			}
 			
-			// Read the footer, if it exists
-			if (this.withFooter)
+			List<long[]> chunks = TextFileChunks.split(channel, start, channel.size(), nThreads * CHUNKS_PER_THREAD);
+			pool = Executors.newFixedThreadPool(Math.max(1, Math.min(nThreads, chunks.size())));
+			List<ParseChunk> tasks = new ArrayList<ParseChunk>();
+			List<Future<List<Object>>> results = new ArrayList<Future<List<Object>>>();
+			for (long[] chunk : chunks)
+			{
+				ParseChunk task = new ParseChunk(channel, chunk[0], chunk[1], constructor);
+				tasks.add(task);
+				results.add(pool.submit(task));
+			}
+			
+			long recordCount = 0;
+			for (int i = 0; i < results.size(); i++)
 			{
-				((WithFooter)this.clazz.newInstance()).readFooter(reader);
+				// Type safety validated at beginning of loadInternal
+				@SuppressWarnings("unchecked")
+				List<T> records = (List<T>)get(results.get(i));
+				output.addAll(records);
+				recordCount += tasks.get(i).recordCount;
+				results.set(i, null);
 			}
 			
 			// Validate the number of records if a number was specified by the header
 			if (maxRecords >= 0)
 			{
-				if (recordCount != maxRecords)
+				if (recordCount < maxRecords)
 				{
 					throw new DataAccessException("Error: End of stream reached before expected number of records were loaded.");
 				}
-				if (reader.ready() && !this.withFooter)
+				if (recordCount > maxRecords)
 				{ 
 					throw new DataAccessException("Error: Expected number of records were loaded before end of stream was reached.");
 				}
 			}
+			return true;
+		}
+		catch (NoSuchMethodException ex)
+		{
+			throw new DataAccessException("Error instantiating object for data loading", ex);
 		}
 		catch (InstantiationException ex)
 		{
@@ -299,12 +666,20 @@ public class FileMarshaller extends DataMarshallerBase
 		{
 			throw new DataAccessException("Error reflecting object for data loading", ex);
 		}
+		catch (InvocationTargetException ex)
+		{
+			throw new DataAccessException("Error instantiating object for data loading", ex);
+		}
 		catch (IOException ex)
 		{
 			throw new DataAccessException("Error reading data from file", ex);
 		}
 		finally
 		{
+			if (pool != null)
+			{
+				pool.shutdownNow();
+			}
 			if (inStream != null)
 			{
 				try 
@@ -316,6 +691,210 @@ public class FileMarshaller extends DataMarshallerBase
 		}
 	}
 	
+	private List<Object> get(Future<List<Object>> result) throws DataAccessException
+	{
+		try
+		{
+			return result.get();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new DataAccessException("Interrupted loading data type: " + this.clazz.getName(), ex);
+		}
+		catch (ExecutionException ex)
+		{
+			Throwable t = ex.getCause();
+			if (t instanceof DataAccessException)
+			{
+				throw (DataAccessException)t;
+			}
+			if (t instanceof OutOfMemoryError)
+			{
+				throw new OutOfMemoryError("Out of Memory loading data type: " + this.clazz.getName());
+			}
+			logger.fatal("Unknown error loading data type: " + this.clazz.getName());
+			
+			for (StackTraceElement ste : t.getStackTrace()) {
+			    logger.debug(ste);
+			}
+			throw new DataAccessException(t);
+		}
+	}
+	
+	/**
+	 * Parses the records of one piece of a LineDelimited file, as loadText does for a whole file
+	 */
+	private final class ParseChunk implements Callable<List<Object>>
+	{
+		private final FileChannel channel;
+		private final long start;
+		private final long end;
+		private final Constructor<?> constructor;
+		// Records attempted, including those skipped as faulty; read after the task completes
+		private long recordCount;
+		
+		ParseChunk(FileChannel channel, long start, long end, Constructor<?> constructor)
+		{
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+			this.constructor = constructor;
+		}
+		
+		@Override
+		public List<Object> call() throws Exception
+		{
+			BufferedReader reader = TextFileChunks.open(this.channel, this.start, this.end);
+			List<Object> records = new ArrayList<Object>();
+			while (reader.ready())
+			{
+				this.recordCount++;
+				try
+				{
+					TextSerializable item = (TextSerializable)this.constructor.newInstance();
+					try
+					{
+						item.readItem(reader);
+						records.add(item);
+					}
+					catch (EndOfFileException ex)
+					{
+						// This	represents routine termination of file reading
+					}
+				}
+				catch (IOException ioe)
+				{
+					String message = "Parsing error for data type " + clazz.getName() + ".  Error ocurred reading record #" + this.recordCount + " of the block starting at byte " + this.start;
+					logger.debug(message, ioe);
+					if (!faultTolerant)
+					{
+						throw new DataAccessException(message, ioe);
+					}
+				}
+			}
+			return records;
+		}
+	}
+	
+	public final <T> void loadColumnar(List<T> output) throws DataAccessException 
+	{
+		ColumnarCursor<T> cursor = new ColumnarCursor<T>();
+		try
+		{
+			if (output instanceof ArrayList)
+			{
+				((ArrayList<T>)output).ensureCapacity(output.size() + (int)cursor.getRowCount());
+			}
+			
+			T item;
+			while ((item = cursor.next()) != null)
+			{
+				output.add(item);
+			}
+		}
+		finally
+		{
+			cursor.close();
+		}
+	}
+	
+	/**
+	 * Reads a columnar file a row at a time
+	 */
+	private final class ColumnarCursor<T> extends AbstractDataCursor<T>
+	{
+		private ColumnarFileReader reader;
+		private ColumnRow row;
+		
+		ColumnarCursor() throws DataAccessException
+		{
+			if (file.length() == 0)
+			{
+				// Don't attempt to parse empty files
+				return;
+			}
+			
+			try
+			{
+				this.reader = new ColumnarFileReader(file);
+				this.reader.setProjection(columnProjection);
+				this.row = new ColumnRow(((ColumnSerializable)clazz.newInstance()).getColumnSchema());
+			}
+			catch (InstantiationException ex)
+			{
+				close();
+				throw new DataAccessException("Error instantiating object for data loading", ex);
+			}
+			catch (IllegalAccessException ex)
+			{
+				close();
+				throw new DataAccessException("Error reflecting object for data loading", ex);
+			}
+			catch (IOException ex)
+			{
+				close();
+				throw new DataAccessException("Error reading data from file", ex);
+			}
+		}
+		
+		long getRowCount()
+		{
+			return (this.reader == null) ? 0 : this.reader.getRowCount();
+		}
+		
+		@Override
+		public T next() throws DataAccessException
+		{
+			if (this.reader == null)
+			{
+				return null;
+			}
+			
+			try
+			{
+				if (!this.reader.next(this.row))
+				{
+					close();
+					return null;
+				}
+				ColumnSerializable item = (ColumnSerializable)clazz.newInstance();
+				item.readColumns(this.row);
+				
+				// Type safety validated at beginning of load
+				@SuppressWarnings("unchecked")
+				T typedItem =(T)item;
+				return typedItem;
+			}
+			catch (InstantiationException ex)
+			{
+				throw new DataAccessException("Error instantiating object for data loading", ex);
+			}
+			catch (IllegalAccessException ex)
+			{
+				throw new DataAccessException("Error reflecting object for data loading", ex);
+			}
+			catch (IOException ex)
+			{
+				throw new DataAccessException("Error reading data from file", ex);
+			}
+		}
+		
+		@Override
+		public void close()
+		{
+			if (this.reader != null)
+			{
+				try 
+				{
+					this.reader.close();
+				} 
+				catch (IOException e) {}
+				this.reader = null;
+			}
+		}
+	}
+	
 	public final <T> void loadStream(List<T> output) throws DataAccessException 
 	{
 		InputStream inStream = null;
@@ -392,12 +971,21 @@ public class FileMarshaller extends DataMarshallerBase
 		InputStream inStream = null;
 		try
 		{
-			inStream = new FileInputStream(this.file);
+			inStream = new BufferedInputStream(new FileInputStream(this.file));
 			ObjectInputStream reader = new ObjectInputStream(inStream);
 			
-			while (reader.available() > 0)
+			// ObjectInputStream.available() only counts buffered primitive data, so it is 0 between objects: read to EOF instead
+			while (true)
 			{
-				Object item = reader.readObject();
+				Object item;
+				try
+				{
+					item = reader.readObject();
+				}
+				catch (EOFException ex)
+				{
+					break;
+				}
 				
 				// Type safety validated at beginning of method
 				@SuppressWarnings("unchecked")
@@ -434,7 +1022,11 @@ public class FileMarshaller extends DataMarshallerBase
 		// Verify that clazz is the same class as the parameterized list
 		validateParameterizedType(data);
 		
-		if (this.text)
+		if (this.columnarFormat)
+		{
+			saveColumnar(data);
+		}
+		else if (this.text)
 		{
 			saveText(data);
 		}
@@ -502,6 +1094,47 @@ public class FileMarshaller extends DataMarshallerBase
 		}
 	}
 
+	public final <T> void saveColumnar(List<T> data) throws DataAccessException 
+	{
+		ColumnarFileWriter writer = null;
+		try
+		{
+			// Reflection is used instead of a collection member in case the collection is empty
+			writer = new ColumnarFileWriter(this.file, ((ColumnSerializable)this.clazz.newInstance()).getColumnSchema());
+			
+			for (T item : data)
+			{
+				writer.write((ColumnSerializable)item);
+			}
+			
+			writer.close();
+			writer = null;
+		}
+		catch (InstantiationException ex)
+		{
+			throw new DataAccessException("Error reflecting data for output", ex);
+		}
+		catch (IllegalAccessException ex)
+		{
+			throw new DataAccessException("Error reflecting data for output", ex);
+		}
+		catch (IOException ex)
+		{
+			throw new DataAccessException("Error writing data to file", ex);
+		}
+		finally
+		{
+			if (writer != null)
+			{
+				try 
+				{
+					writer.close();
+				} 
+				catch (IOException e) {}
+			}
+		}
+	}
+	
 	public final <T> void saveStream(List<T> data) throws DataAccessException 
 	{		
 		OutputStream outStream = null;
@@ -614,7 +1247,9 @@ public class FileMarshaller extends DataMarshallerBase
 
 			List<?> temp=null;
 			
-			if(this.stream){
+			if(this.columnarFormat){
+				temp=new ArrayList<ColumnSerializable>();
+			}else if(this.stream){
 				temp=new ArrayList<StreamSerializable>();
 			}else if(this.text){
 				temp=new ArrayList<TextSerializable>();
@@ -651,10 +1286,23 @@ public class FileMarshaller extends DataMarshallerBase
 	}
 	
 	private PrintWriter appender;
+	private ColumnarFileWriter columnAppender;
+	private GroupCommitAppender groupAppender;
+	// Formats records for the group appender
+	private StringWriter appendText;
+	private PrintWriter appendTextWriter;
 	
 	
 	 
 	protected <T> void appendInternal(T data) throws DataAccessException {
+		if (this.columnarFormat) {
+			appendColumnar(data);
+			return;
+		}
+		if (isGroupCommit()) {
+			appendGroupCommit(data);
+			return;
+		}
 		if (appender == null) {
 			initAppender();
 		}
@@ -666,6 +1314,58 @@ public class FileMarshaller extends DataMarshallerBase
 		}
 	}
 	
+	private <T> void appendColumnar(T data) throws DataAccessException {
+		try {
+			if (columnAppender == null) {
+				columnAppender = new ColumnarFileWriter(this.file, ((ColumnSerializable)data).getColumnSchema());
+			}
+			// Rows are buffered a block at a time: the file is complete once the marshaller is closed
+			columnAppender.write((ColumnSerializable)data);
+		} catch (IOException ex) {
+			throw new DataAccessException("Error writing data to file", ex);
+		}
+	}
+	
+	private <T> void appendGroupCommit(T data) throws DataAccessException {
+		try {
+			if (groupAppender == null) {
+				initGroupAppender();
+			}
+			appendText.getBuffer().setLength(0);
+			((TextSerializable)data).writeItem(appendTextWriter);
+			appendTextWriter.flush();
+			groupAppender.append(appendText.toString());
+		} catch (IOException ex) {
+			throw new DataAccessException("Error writing data to file", ex);
+		}
+	}
+	
+	private void initGroupAppender() throws IOException, DataAccessException {
+		groupAppender = new GroupCommitAppender(this.file, this.appendFlushRecords, this.appendFlushChars, this.appendFlushMillis);
+		appendText = new StringWriter();
+		appendTextWriter = new PrintWriter(appendText);
+		
+		// Write the header, if it exists
+		if (this.withHeader)
+		{
+			try
+			{
+				// Reflection is used instead of a collection member in case the collection is empty
+				((WithHeader)this.clazz.newInstance()).writeHeader(appendTextWriter, 0);
+			}
+			catch (InstantiationException ex)
+			{
+				throw new DataAccessException("Error reflecting data for output", ex);
+			}
+			catch (IllegalAccessException ex)
+			{
+				throw new DataAccessException("Error reflecting data for output", ex);
+			}
+			appendTextWriter.flush();
+			groupAppender.append(appendText.toString());
+		}
+	}
+	
 	private void initAppender() throws DataAccessException {
 		try
 		{
@@ -692,7 +1392,54 @@ public class FileMarshaller extends DataMarshallerBase
 		}
 	}
 	
+	/**
+	 * Waits for a save started by saveAsync to finish, reporting its failure, before closing any appenders
+	 */
 	public void close() throws DataAccessException {
+		try {
+			awaitPendingSave();
+		} finally {
+			closeAppenders();
+		}
+	}
+	
+	private void closeAppenders() throws DataAccessException {
+		if (columnAppender != null)
+		{
+			try {
+				columnAppender.close();
+			} catch (IOException ex) {
+				throw new DataAccessException("Error writing data to file", ex);
+			} finally {
+				columnAppender = null;
+			}
+		}
+		if (groupAppender != null)
+		{
+			try {
+				// Write the footer, if it exists
+				if (this.withFooter)
+				{
+					appendText.getBuffer().setLength(0);
+					// Reflection is used instead of a collection member in case the collection is empty
+					((WithFooter)this.clazz.newInstance()).writeFooter(appendTextWriter);
+					appendTextWriter.flush();
+					groupAppender.append(appendText.toString());
+				}
+			} catch (Exception e) {
+				// Fail the footer silently
+			}
+			try {
+				// Drains the queue and forces the file to disk
+				groupAppender.close();
+			} catch (IOException ex) {
+				throw new DataAccessException("Error writing data to file", ex);
+			} finally {
+				groupAppender = null;
+				appendText = null;
+				appendTextWriter = null;
+			}
+		}
 		if (appender != null)
 		{
 			try {
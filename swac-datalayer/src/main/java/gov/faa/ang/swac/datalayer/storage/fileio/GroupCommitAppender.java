@@ -0,0 +1,206 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage.fileio;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes text appended by one thread to a file on a background thread, flushing to the operating system in groups
+ * rather than after every record. Appended text is queued (append blocks while the queue is full) and the writer thread
+ * flushes whenever the text written since the last flush reaches flushRecords appends or flushChars characters, or
+ * flushMillis milliseconds have passed since the last flush; limits of 0 are not applied. With all limits 0 text is
+ * flushed only when the buffer fills and on close.
+ *
+ * Crash semantics: text that has not been flushed is lost if the process dies. Once close returns, everything appended
+ * has been written and forced to the storage device. A write error on the background thread is reported by the next
+ * call to append or close.
+ *
+ * @author csmith
+ *
+ */
+final class GroupCommitAppender implements Closeable
+{
+	static final int QUEUE_CAPACITY = 4096;
+	private static final int BUFFER_SIZE = 64 << 10;
+	// Marks the end of the queue; compared by identity
+	private static final String END = new String("");
+
+	private final FileOutputStream outStream;
+	private final Writer writer;
+	private final BlockingQueue<String> queue = new ArrayBlockingQueue<String>(QUEUE_CAPACITY);
+	private final int flushRecords;
+	private final long flushChars;
+	private final long flushMillis;
+	private final Thread thread;
+	private volatile IOException failure;
+	private boolean closed;
+
+	GroupCommitAppender(File file, int flushRecords, long flushChars, long flushMillis) throws IOException
+	{
+		this.outStream = new FileOutputStream(file);
+		this.writer = new BufferedWriter(new OutputStreamWriter(this.outStream), BUFFER_SIZE);
+		this.flushRecords = flushRecords;
+		this.flushChars = flushChars;
+		this.flushMillis = flushMillis;
+		this.thread = new Thread(new Runnable() {
+			@Override
+			public void run()
+			{
+				writeQueue();
+			}
+		}, "FileMarshaller appender: " + file.getName());
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	void append(String text) throws IOException
+	{
+		if (this.closed)
+		{
+			throw new IOException("Appender is closed");
+		}
+		checkFailure();
+		try
+		{
+			this.queue.put(text);
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted appending to file");
+		}
+	}
+
+	/**
+	 * Writes everything appended, forces it to the storage device and closes the file
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (this.closed)
+		{
+			return;
+		}
+		this.closed = true;
+		boolean interrupted = false;
+		try
+		{
+			while (true)
+			{
+				try
+				{
+					if (this.thread.isAlive())
+					{
+						this.queue.put(END);
+					}
+					this.thread.join();
+					break;
+				}
+				catch (InterruptedException ex)
+				{
+					// The file must still be completed; the interrupt is restored below
+					interrupted = true;
+				}
+			}
+			checkFailure();
+			this.writer.flush();
+			this.outStream.getFD().sync();
+		}
+		finally
+		{
+			try
+			{
+				this.writer.close();
+			}
+			catch (IOException ex) {}
+			if (interrupted)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void checkFailure() throws IOException
+	{
+		if (this.failure != null)
+		{
+			throw new IOException("Error writing appended data", this.failure);
+		}
+	}
+
+	private void writeQueue()
+	{
+		int pendingRecords = 0;
+		long pendingChars = 0;
+		long lastFlush = System.currentTimeMillis();
+		try
+		{
+			while (true)
+			{
+				String text;
+				if (this.flushMillis > 0 && pendingRecords > 0 && this.failure == null)
+				{
+					long wait = lastFlush + this.flushMillis - System.currentTimeMillis();
+					text = this.queue.poll(Math.max(wait, 0), TimeUnit.MILLISECONDS);
+				}
+				else
+				{
+					text = this.queue.take();
+				}
+
+				if (text == END)
+				{
+					return;
+				}
+				if (this.failure != null)
+				{
+					// Keep draining after an error, so that the appending thread isn't left blocked on a full queue
+					continue;
+				}
+				try
+				{
+					if (text != null)
+					{
+						this.writer.write(text);
+						pendingRecords++;
+						pendingChars += text.length();
+					}
+
+					long now = System.currentTimeMillis();
+					if ((this.flushRecords > 0 && pendingRecords >= this.flushRecords)
+							|| (this.flushChars > 0 && pendingChars >= this.flushChars)
+							|| (this.flushMillis > 0 && now - lastFlush >= this.flushMillis))
+					{
+						this.writer.flush();
+						pendingRecords = 0;
+						pendingChars = 0;
+						lastFlush = now;
+					}
+				}
+				catch (IOException ex)
+				{
+					this.failure = ex;
+				}
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			this.failure = new InterruptedIOException("Appender thread interrupted");
+		}
+	}
+}
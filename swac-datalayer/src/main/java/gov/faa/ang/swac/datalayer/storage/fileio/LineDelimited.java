@@ -0,0 +1,21 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage.fileio;
+
+/**
+ * LineDelimited marks a TextSerializable data type whose readItem reads exactly one line per record, and whose header
+ * (if it implements WithHeader) is read with readLine alone. Any line of such a file after the header starts a record,
+ * so FileMarshaller may split a large file at line boundaries and parse the pieces concurrently (see
+ * FileMarshaller.setLoadParallelism). Types whose records can span lines must not implement this interface.
+ *
+ * @author csmith
+ *
+ */
+public interface LineDelimited extends TextSerializable
+{
+}
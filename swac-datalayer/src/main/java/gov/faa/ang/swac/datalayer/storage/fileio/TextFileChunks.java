@@ -0,0 +1,272 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage.fileio;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Byte-level helpers for reading a text file in pieces that begin and end on line boundaries, used by FileMarshaller
+ * to parse LineDelimited files concurrently. Lines end at "\n", "\r\n" or "\r", as for BufferedReader.readLine, but
+ * files are only split after a "\n": a file with bare "\r" line ends is read as one piece.
+ *
+ * @author csmith
+ *
+ */
+final class TextFileChunks
+{
+	// Pieces are memory mapped, so none may exceed the 2GB limit of a single mapping
+	static final long MAX_CHUNK_BYTES = 256L << 20;
+	private static final int SCAN_BUFFER_SIZE = 64 << 10;
+
+	private TextFileChunks() { /* Static only: do not instantiate */ }
+
+	/**
+	 * @return the offset of the line that follows the first nLines lines from position, or the end of the file
+	 */
+	static long skipLines(FileChannel channel, long position, long nLines) throws IOException
+	{
+		long size = channel.size();
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		boolean afterCR = false;
+		while (nLines > 0 && position < size)
+		{
+			buffer.clear();
+			int n = channel.read(buffer, position);
+			if (n <= 0)
+			{
+				break;
+			}
+			int i = 0;
+			if (afterCR)
+			{
+				// "\r\n" split across reads: the "\n" belongs to the line already counted
+				if (buffer.get(0) == '\n')
+				{
+					i++;
+				}
+				afterCR = false;
+			}
+			for (; i < n && nLines > 0; i++)
+			{
+				byte b = buffer.get(i);
+				if (b == '\n')
+				{
+					nLines--;
+				}
+				else if (b == '\r')
+				{
+					nLines--;
+					if (i + 1 < n)
+					{
+						if (buffer.get(i + 1) == '\n')
+						{
+							i++;
+						}
+					}
+					else
+					{
+						afterCR = true;
+					}
+				}
+			}
+			position += i;
+		}
+		if (afterCR && position < size)
+		{
+			ByteBuffer next = ByteBuffer.allocate(1);
+			if (channel.read(next, position) == 1 && next.get(0) == '\n')
+			{
+				position++;
+			}
+		}
+		return Math.min(position, size);
+	}
+
+	/**
+	 * Split the bytes from start to end into at most nChunks pieces of about equal size (more if any would exceed
+	 * MAX_CHUNK_BYTES), each ending just after a "\n" or at end.
+	 *
+	 * @return the start (inclusive) and end (exclusive) offsets of each piece, in file order
+	 */
+	static List<long[]> split(FileChannel channel, long start, long end, int nChunks) throws IOException
+	{
+		long length = end - start;
+		nChunks = (int) Math.max(nChunks, (length + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+		List<long[]> chunks = new ArrayList<long[]>();
+		long chunkStart = start;
+		for (int i = 1; i <= nChunks && chunkStart < end; i++)
+		{
+			long chunkEnd = (i == nChunks) ? end : nextLine(channel, Math.max(chunkStart, start + length * i / nChunks), end);
+			if (chunkEnd > chunkStart)
+			{
+				chunks.add(new long[] { chunkStart, chunkEnd });
+				chunkStart = chunkEnd;
+			}
+		}
+		if (chunkStart < end)
+		{
+			chunks.add(new long[] { chunkStart, end });
+		}
+		return chunks;
+	}
+
+	/**
+	 * @return the offset just after the first "\n" at or after position, or end if there is none
+	 */
+	private static long nextLine(FileChannel channel, long position, long end) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		while (position < end)
+		{
+			buffer.clear();
+			buffer.limit((int) Math.min(SCAN_BUFFER_SIZE, end - position));
+			int n = channel.read(buffer, position);
+			if (n <= 0)
+			{
+				break;
+			}
+			for (int i = 0; i < n; i++)
+			{
+				if (buffer.get(i) == '\n')
+				{
+					return position + i + 1;
+				}
+			}
+			position += n;
+		}
+		return end;
+	}
+
+	/**
+	 * @return a reader of the bytes from start to end, memory mapped and decoded with the platform charset (as
+	 * FileMarshaller's serial text loading does)
+	 */
+	static BufferedReader open(FileChannel channel, long start, long end) throws IOException
+	{
+		ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		return new BufferedReader(new InputStreamReader(new ByteBufferInputStream(mapped)));
+	}
+
+	private static final class ByteBufferInputStream extends InputStream
+	{
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer)
+		{
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read()
+		{
+			return this.buffer.hasRemaining() ? (this.buffer.get() & 0xFF) : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len)
+		{
+			if (len == 0)
+			{
+				return 0;
+			}
+			if (!this.buffer.hasRemaining())
+			{
+				return -1;
+			}
+			int n = Math.min(len, this.buffer.remaining());
+			this.buffer.get(b, off, n);
+			return n;
+		}
+
+		@Override
+		public int available()
+		{
+			return this.buffer.remaining();
+		}
+	}
+
+	/**
+	 * Counts the lines consumed through readLine, honoring mark and reset, so that the byte offset of the end of a
+	 * header can be found. Reading by character instead leaves the count unknown (see isLineBased).
+	 */
+	static final class LineCountingReader extends BufferedReader
+	{
+		private long lineCount;
+		private long markedLineCount;
+		private boolean lineBased = true;
+
+		LineCountingReader(Reader in)
+		{
+			super(in);
+		}
+
+		long getLineCount()
+		{
+			return this.lineCount;
+		}
+
+		boolean isLineBased()
+		{
+			return this.lineBased;
+		}
+
+		@Override
+		public String readLine() throws IOException
+		{
+			String line = super.readLine();
+			if (line != null)
+			{
+				this.lineCount++;
+			}
+			return line;
+		}
+
+		@Override
+		public void mark(int readAheadLimit) throws IOException
+		{
+			super.mark(readAheadLimit);
+			this.markedLineCount = this.lineCount;
+		}
+
+		@Override
+		public void reset() throws IOException
+		{
+			super.reset();
+			this.lineCount = this.markedLineCount;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			this.lineBased = false;
+			return super.read();
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException
+		{
+			this.lineBased = false;
+			return super.read(cbuf, off, len);
+		}
+
+		@Override
+		public long skip(long n) throws IOException
+		{
+			this.lineBased = false;
+			return super.skip(n);
+		}
+	}
+}
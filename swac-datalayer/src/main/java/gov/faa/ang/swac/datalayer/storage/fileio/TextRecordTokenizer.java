@@ -0,0 +1,442 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.datalayer.storage.fileio;
+
+/**
+ * Regex-free tokenizer for comma-separated TextSerializable records. A line is copied into a reusable buffer and split
+ * with exactly the semantics of <code>line.split("\\s*,\\s*")</code> (whitespace around separators is dropped, whitespace
+ * at the ends of the line is kept, trailing empty fields are removed), but only field boundaries are recorded: nothing
+ * is allocated until a field is converted to a String. Fields are validated against the common {@link Format}s with
+ * hand-written matchers equivalent to the regular expressions they name, and numeric fields are parsed in place.
+ *
+ * Instances are not thread-safe; keep one per reading thread and {@link #reset} it for each line.
+ * @author csmith
+ *
+ */
+public class TextRecordTokenizer
+{
+	/**
+	 * Field formats, each equivalent to the regular expression returned by toString()
+	 */
+	public static enum Format
+	{
+		INTEGER("-?\\d+"),
+		FLOAT("-?(?:\\d+\\.?\\d*|\\.\\d+)"),
+		DATE("(?:19[0-9][0-9]|2[0-9][0-9][0-9])(?:0[1-9]|1[0-2])(?:0[1-9]|[1-2][0-9]|3[01])"),
+		DATE_TIME("(?:19[0-9][0-9]|2[0-9][0-9][0-9])(?:0[1-9]|1[0-2])(?:0[1-9]|[1-2][0-9]|3[01]) (?:[01][0-9]|2[0-4]):(?:[0-5][0-9]):(?:[0-5][0-9])"),
+		CHAR("\\S"),
+		WORD("\\S+"),
+		STRING(".*");
+
+		private final String regex;
+
+		private Format(String regex)
+		{
+			this.regex = regex;
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.regex;
+		}
+	}
+
+	private static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	private char[] buffer = new char[512];
+	private int length;
+	private int[] starts = new int[64];
+	private int[] ends = new int[64];
+	private int count;
+
+	/**
+	 * Tokenize the given line, replacing the previous contents of this tokenizer
+	 */
+	public void reset(String line)
+	{
+		this.length = line.length();
+		if (this.buffer.length < this.length)
+		{
+			this.buffer = new char[Math.max(this.length, this.buffer.length * 2)];
+		}
+		line.getChars(0, this.length, this.buffer, 0);
+
+		this.count = 0;
+		int fieldStart = 0;
+		for (int i = 0; i < this.length; i++)
+		{
+			if (this.buffer[i] == ',')
+			{
+				int fieldEnd = i;
+				while (fieldEnd > fieldStart && isWhitespace(this.buffer[fieldEnd - 1]))
+				{
+					fieldEnd--;
+				}
+				add(fieldStart, fieldEnd);
+
+				fieldStart = i + 1;
+				while (fieldStart < this.length && isWhitespace(this.buffer[fieldStart]))
+				{
+					fieldStart++;
+				}
+				i = fieldStart - 1;
+			}
+		}
+		add(fieldStart, this.length);
+
+		// Trailing empty fields are dropped, unless there was no separator at all (split returns the line itself)
+		while (this.count > 1 && this.starts[this.count - 1] == this.ends[this.count - 1])
+		{
+			this.count--;
+		}
+		if (this.count == 1 && this.starts[0] == this.ends[0] && this.length > 0)
+		{
+			this.count = 0;
+		}
+	}
+
+	private void add(int start, int end)
+	{
+		if (this.count == this.starts.length)
+		{
+			int[] newStarts = new int[this.count * 2];
+			int[] newEnds = new int[this.count * 2];
+			System.arraycopy(this.starts, 0, newStarts, 0, this.count);
+			System.arraycopy(this.ends, 0, newEnds, 0, this.count);
+			this.starts = newStarts;
+			this.ends = newEnds;
+		}
+		this.starts[this.count] = start;
+		this.ends[this.count] = end;
+		this.count++;
+	}
+
+	/**
+	 * @return the number of fields on the line
+	 */
+	public int size()
+	{
+		return this.count;
+	}
+
+	/**
+	 * @return true if the field is missing or zero-length (before trimming)
+	 */
+	public boolean isEmpty(int field)
+	{
+		return field >= this.count || this.starts[field] == this.ends[field];
+	}
+
+	/**
+	 * @return true if the field exists and is non-blank once trimmed as by String.trim()
+	 */
+	public boolean hasValue(int field)
+	{
+		return trimmedStart(field) < trimmedEnd(field);
+	}
+
+	public char[] buffer()
+	{
+		return this.buffer;
+	}
+
+	public int start(int field)
+	{
+		return field < this.count ? this.starts[field] : this.length;
+	}
+
+	public int end(int field)
+	{
+		return field < this.count ? this.ends[field] : this.length;
+	}
+
+	private int trimmedStart(int field)
+	{
+		int start = start(field);
+		int end = end(field);
+		while (start < end && this.buffer[start] <= ' ')
+		{
+			start++;
+		}
+		return start;
+	}
+
+	private int trimmedEnd(int field)
+	{
+		int start = start(field);
+		int end = end(field);
+		while (end > start && this.buffer[end - 1] <= ' ')
+		{
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * @return the untrimmed field as it would appear in the split array, or "" if missing
+	 */
+	public String raw(int field)
+	{
+		return new String(this.buffer, start(field), end(field) - start(field));
+	}
+
+	/**
+	 * @return the trimmed field, or null if it is missing or blank
+	 */
+	public String getString(int field)
+	{
+		int start = trimmedStart(field);
+		int end = trimmedEnd(field);
+		return start < end ? new String(this.buffer, start, end - start) : null;
+	}
+
+	/**
+	 * Equivalent to Integer.parseInt on the trimmed field
+	 */
+	public int getInt(int field)
+	{
+		int start = trimmedStart(field);
+		int end = trimmedEnd(field);
+		boolean negative = start < end && this.buffer[start] == '-';
+		int i = negative ? start + 1 : start;
+		int nDigits = end - i;
+		if (nDigits < 1 || nDigits > 9)
+		{
+			// Possible overflow (or malformed): let Integer produce the same result or exception as before
+			return Integer.parseInt(new String(this.buffer, start, end - start));
+		}
+		int value = 0;
+		for (; i < end; i++)
+		{
+			char c = this.buffer[i];
+			if (c < '0' || c > '9')
+			{
+				return Integer.parseInt(new String(this.buffer, start, end - start));
+			}
+			value = value * 10 + (c - '0');
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Equivalent to Double.parseDouble on the trimmed field. Plain decimals with at most 22 fractional digits and a
+	 * mantissa below 2^53 are converted exactly in place (both operands of the division are exact, so the quotient is
+	 * the correctly rounded value); anything else is delegated to Double.parseDouble.
+	 */
+	public double getDouble(int field)
+	{
+		int start = trimmedStart(field);
+		int end = trimmedEnd(field);
+		boolean negative = start < end && this.buffer[start] == '-';
+		int i = negative ? start + 1 : start;
+		long mantissa = 0;
+		int fractionDigits = 0;
+		boolean seenPoint = false;
+		boolean seenDigit = false;
+		for (; i < end; i++)
+		{
+			char c = this.buffer[i];
+			if (c >= '0' && c <= '9')
+			{
+				mantissa = mantissa * 10 + (c - '0');
+				if (mantissa >= MAX_EXACT_MANTISSA)
+				{
+					break;
+				}
+				seenDigit = true;
+				if (seenPoint)
+				{
+					fractionDigits++;
+				}
+			}
+			else if (c == '.' && !seenPoint)
+			{
+				seenPoint = true;
+			}
+			else
+			{
+				break;
+			}
+		}
+		if (i < end || !seenDigit || fractionDigits >= POW10.length)
+		{
+			return Double.parseDouble(new String(this.buffer, start, end - start));
+		}
+		double value = mantissa / POW10[fractionDigits];
+		return negative ? -value : value;
+	}
+
+	/**
+	 * @return true if the untrimmed field matches the format's regular expression in its entirety
+	 */
+	public boolean matches(int field, Format format)
+	{
+		int start = start(field);
+		int end = end(field);
+		char[] b = this.buffer;
+		switch (format)
+		{
+			case INTEGER:
+				return matchInteger(b, start, end) == end && end > start;
+			case FLOAT:
+				return matchFloat(b, start, end);
+			case DATE:
+				return matchDate(b, start, end) == end;
+			case DATE_TIME:
+			{
+				int i = matchDate(b, start, end);
+				return i >= 0 && matchTime(b, i, end);
+			}
+			case CHAR:
+				return end - start == 1 && !isWhitespace(b[start]);
+			case WORD:
+				if (start == end)
+				{
+					return false;
+				}
+				for (int i = start; i < end; i++)
+				{
+					if (isWhitespace(b[i]))
+					{
+						return false;
+					}
+				}
+				return true;
+			case STRING:
+				for (int i = start; i < end; i++)
+				{
+					if (isLineTerminator(b[i]))
+					{
+						return false;
+					}
+				}
+				return true;
+			default:
+				throw new IllegalArgumentException(format.name());
+		}
+	}
+
+	/**
+	 * @return the index after an optionally signed run of digits starting at start, or -1 if there are no digits
+	 */
+	private static int matchInteger(char[] b, int start, int end)
+	{
+		int i = start;
+		if (i < end && b[i] == '-')
+		{
+			i++;
+		}
+		int digitsStart = i;
+		while (i < end && isDigit(b[i]))
+		{
+			i++;
+		}
+		return i > digitsStart ? i : -1;
+	}
+
+	private static boolean matchFloat(char[] b, int start, int end)
+	{
+		int i = start;
+		if (i < end && b[i] == '-')
+		{
+			i++;
+		}
+		int intDigits = 0;
+		while (i < end && isDigit(b[i]))
+		{
+			i++;
+			intDigits++;
+		}
+		if (i < end && b[i] == '.')
+		{
+			i++;
+			int fractionDigits = 0;
+			while (i < end && isDigit(b[i]))
+			{
+				i++;
+				fractionDigits++;
+			}
+			return i == end && (intDigits > 0 || fractionDigits > 0);
+		}
+		return i == end && intDigits > 0;
+	}
+
+	/**
+	 * @return the index after a YYYYMMDD date starting at start, or -1 if none
+	 */
+	private static int matchDate(char[] b, int start, int end)
+	{
+		if (end - start < 8)
+		{
+			return -1;
+		}
+		for (int i = start; i < start + 8; i++)
+		{
+			if (!isDigit(b[i]))
+			{
+				return -1;
+			}
+		}
+		char y0 = b[start];
+		char y1 = b[start + 1];
+		if (!((y0 == '1' && y1 == '9') || y0 == '2'))
+		{
+			return -1;
+		}
+		int month = (b[start + 4] - '0') * 10 + (b[start + 5] - '0');
+		int day = (b[start + 6] - '0') * 10 + (b[start + 7] - '0');
+		if (month < 1 || month > 12 || day < 1 || day > 31)
+		{
+			return -1;
+		}
+		return start + 8;
+	}
+
+	/**
+	 * Matches " hh:mm:ss" (hours 00-24) from start to exactly end
+	 */
+	private static boolean matchTime(char[] b, int start, int end)
+	{
+		if (end - start != 9 || b[start] != ' ' || b[start + 3] != ':' || b[start + 6] != ':')
+		{
+			return false;
+		}
+		if (!isDigit(b[start + 1]) || !isDigit(b[start + 2]) || !isDigit(b[start + 4]) || !isDigit(b[start + 5])
+				|| !isDigit(b[start + 7]) || !isDigit(b[start + 8]))
+		{
+			return false;
+		}
+		int hour = (b[start + 1] - '0') * 10 + (b[start + 2] - '0');
+		return hour <= 24 && b[start + 4] <= '5' && b[start + 7] <= '5';
+	}
+
+	private static boolean isDigit(char c)
+	{
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Regex \s: [ \t\n\x0B\f\r]
+	 */
+	public static boolean isWhitespace(char c)
+	{
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * Characters not matched by the regex '.'
+	 */
+	private static boolean isLineTerminator(char c)
+	{
+		return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+}
@@ -0,0 +1,48 @@
+package gov.faa.ang.swac.datalayer;
+
+import static org.junit.Assert.*;
+import gov.faa.ang.swac.datalayer.ResourceManager.LOCATION;
+import gov.faa.ang.swac.datalayer.identity.FileDataDescriptor;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedDataAccessTest {
+
+	private MappedDataAccess dao;
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		this.dao = DataAccessFixture.initializeDataAccess();
+		this.file = File.createTempFile("mapped", ".txt", new File(DataAccessFixture.DEFAULT_DIR));
+		FileWriter writer = new FileWriter(this.file);
+		writer.write("0123456789");
+		writer.close();
+	}
+
+	@After
+	public void tearDown() {
+		this.file.delete();
+	}
+
+	@Test
+	public void testFilesAndFingerprint() throws DataAccessException {
+		FileDataDescriptor descriptor = new FileDataDescriptor();
+		descriptor.setDataType(String.class);
+		descriptor.setLocation(LOCATION.DATA);
+		descriptor.setResourceName(this.file.getName());
+
+		List<File> files = this.dao.getFiles(descriptor);
+		assertEquals(Collections.singletonList(this.file.getAbsoluteFile()), files);
+		assertEquals(10, files.get(0).length());
+		assertEquals(Collections.singletonList(this.file.getAbsolutePath() + ",10," + this.file.lastModified()), this.dao.getFingerprint(descriptor));
+	}
+}
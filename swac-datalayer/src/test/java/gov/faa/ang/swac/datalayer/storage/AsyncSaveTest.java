@@ -0,0 +1,222 @@
+package gov.faa.ang.swac.datalayer.storage;
+
+import static org.junit.Assert.*;
+import gov.faa.ang.swac.datalayer.DataAccessException;
+import gov.faa.ang.swac.datalayer.storage.fileio.FileMarshaller;
+import gov.faa.ang.swac.datalayer.storage.fileio.TextSerializable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncSaveTest {
+
+	// Writing blocks until the test releases it
+	static CountDownLatch release = new CountDownLatch(0);
+
+	public static class Value implements TextSerializable {
+		int value;
+
+		public Value() {
+		}
+
+		Value(int value) {
+			this.value = value;
+		}
+
+		@Override
+		public void readItem(BufferedReader reader) throws IOException {
+			this.value = Integer.parseInt(reader.readLine());
+		}
+
+		@Override
+		public void writeItem(PrintWriter writer) throws IOException {
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException ex) {
+				throw new IOException(ex);
+			}
+			writer.println(this.value);
+		}
+	}
+
+	public static class BrokenValue extends Value {
+		@Override
+		public void writeItem(PrintWriter writer) throws IOException {
+			throw new IOException("broken");
+		}
+	}
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		this.file = File.createTempFile("asyncsave", null);
+		this.file.deleteOnExit();
+	}
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		this.file.delete();
+	}
+
+	private static List<Value> values(int... values) {
+		List<Value> list = new ArrayList<Value>();
+		for (int v : values) {
+			list.add(new Value(v));
+		}
+		return list;
+	}
+
+	@Test
+	public void testLoadWhileSaving() throws Exception {
+		FileMarshaller marshaller = new FileMarshaller(Value.class, this.file);
+		release = new CountDownLatch(1);
+		List<Value> data = values(1, 2, 3);
+		Future<Void> result = marshaller.saveAsync(data);
+		assertFalse(result.isDone());
+
+		// The saved records are available before they are written
+		List<Value> loaded = new ArrayList<Value>();
+		marshaller.load(loaded);
+		assertSame(data.get(2), loaded.get(2));
+
+		release.countDown();
+		result.get(10, TimeUnit.SECONDS);
+		loaded.clear();
+		marshaller.load(loaded);
+		assertEquals(3, loaded.size());
+		assertNotSame(data.get(2), loaded.get(2));
+		assertEquals(3, loaded.get(2).value);
+	}
+
+	@Test
+	public void testSaveWaitsForAsyncSave() throws Exception {
+		final FileMarshaller marshaller = new FileMarshaller(Value.class, this.file);
+		release = new CountDownLatch(1);
+		Future<Void> result = marshaller.saveAsync(values(1, 2));
+		Thread releaser = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException ex) {
+				}
+				release.countDown();
+			}
+		};
+		releaser.start();
+		marshaller.save(values(7));
+		assertTrue(result.isDone());
+
+		List<Value> loaded = new ArrayList<Value>();
+		marshaller.load(loaded);
+		assertEquals(1, loaded.size());
+		assertEquals(7, loaded.get(0).value);
+	}
+
+	@Test
+	public void testErrorReportedByFuture() throws Exception {
+		File dir = new File(this.file.getPath() + ".dir");
+		dir.mkdir();
+		dir.deleteOnExit();
+		FileMarshaller marshaller = new FileMarshaller(Value.class, dir);
+		Future<Void> result = marshaller.saveAsync(values(1));
+		try {
+			result.get(10, TimeUnit.SECONDS);
+			fail("Expected the save to fail");
+		} catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof DataAccessException);
+		}
+		dir.delete();
+	}
+
+	@Test
+	public void testRecordsCountedOnCallingThread() throws Exception {
+		FileMarshaller marshaller = new FileMarshaller(Value.class, this.file);
+		release = new CountDownLatch(1);
+		long before = RecordCounter.getWritten();
+		Future<Void> result = marshaller.saveAsync(values(1, 2, 3));
+		assertEquals(3, RecordCounter.getWritten() - before);
+		release.countDown();
+		result.get(10, TimeUnit.SECONDS);
+		assertEquals(3, RecordCounter.getWritten() - before);
+
+		marshaller.save(values(4));
+		assertEquals(4, RecordCounter.getWritten() - before);
+	}
+
+	private static void saveBroken(FileMarshaller marshaller) throws Exception {
+		List<Value> data = values(1);
+		data.add(new BrokenValue());
+		try {
+			marshaller.saveAsync(data).get(10, TimeUnit.SECONDS);
+			fail("Expected the save to fail");
+		} catch (ExecutionException ex) {
+		}
+	}
+
+	@Test
+	public void testErrorReportedByNextLoad() throws Exception {
+		FileMarshaller marshaller = new FileMarshaller(Value.class, this.file);
+		saveBroken(marshaller);
+		try {
+			marshaller.load(new ArrayList<Value>());
+			fail("Expected the failed save to be reported");
+		} catch (DataAccessException ex) {
+			assertNotNull(ex.getCause());
+		}
+	}
+
+	@Test
+	public void testErrorReportedByNextSave() throws Exception {
+		FileMarshaller marshaller = new FileMarshaller(Value.class, this.file);
+		saveBroken(marshaller);
+		try {
+			marshaller.save(values(2));
+			fail("Expected the failed save to be reported");
+		} catch (DataAccessException ex) {
+		}
+
+		// Reported once; the marshaller can be used again
+		marshaller.save(values(2));
+		List<Value> loaded = new ArrayList<Value>();
+		marshaller.load(loaded);
+		assertEquals(1, loaded.size());
+		assertEquals(2, loaded.get(0).value);
+	}
+
+	@Test
+	public void testErrorReportedByClose() throws Exception {
+		FileMarshaller marshaller = new FileMarshaller(Value.class, this.file);
+		saveBroken(marshaller);
+		try {
+			marshaller.close();
+			fail("Expected the failed save to be reported");
+		} catch (DataAccessException ex) {
+		}
+	}
+
+	@Test
+	public void testMemoryMarshallerSavesImmediately() throws DataAccessException {
+		MemoryMarshaller marshaller = new MemoryMarshaller(Integer.class, "test");
+		List<Integer> data = Arrays.asList(1, 2, 3);
+		assertTrue(marshaller.saveAsync(data).isDone());
+		List<Integer> loaded = new ArrayList<Integer>();
+		marshaller.load(loaded);
+		assertEquals(data, loaded);
+	}
+}
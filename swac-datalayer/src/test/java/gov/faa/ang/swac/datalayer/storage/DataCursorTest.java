@@ -0,0 +1,60 @@
+package gov.faa.ang.swac.datalayer.storage;
+
+import static org.junit.Assert.*;
+import gov.faa.ang.swac.datalayer.DataAccessException;
+import gov.faa.ang.swac.datalayer.storage.fileio.FileMarshaller;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class DataCursorTest {
+
+	@Test
+	public void testMemoryCursor() throws DataAccessException {
+		MemoryMarshaller marshaller = new MemoryMarshaller(Integer.class, "test");
+		marshaller.save(Arrays.asList(1, 2, 3));
+		DataCursor<Integer> cursor = marshaller.openCursor();
+		assertEquals(Integer.valueOf(1), cursor.next());
+		List<Integer> rest = new ArrayList<Integer>();
+		assertEquals(2, cursor.nextBatch(rest, 10));
+		assertEquals(Arrays.asList(2, 3), rest);
+		assertEquals(0, cursor.nextBatch(rest, 10));
+		cursor.close();
+	}
+
+	@Test
+	public void testCursorOverPendingSave() throws Exception {
+		File file = File.createTempFile("cursor", null);
+		file.deleteOnExit();
+		try {
+			FileMarshaller marshaller = new FileMarshaller(AsyncSaveTest.Value.class, file);
+			AsyncSaveTest.release = new CountDownLatch(1);
+			List<AsyncSaveTest.Value> data = Arrays.asList(new AsyncSaveTest.Value(1), new AsyncSaveTest.Value(2));
+			Future<Void> result = marshaller.saveAsync(data);
+
+			// The records being saved are read from memory
+			DataCursor<AsyncSaveTest.Value> cursor = marshaller.openCursor();
+			assertSame(data.get(0), cursor.next());
+			assertSame(data.get(1), cursor.next());
+			assertNull(cursor.next());
+			cursor.close();
+
+			AsyncSaveTest.release.countDown();
+			result.get(10, TimeUnit.SECONDS);
+			cursor = marshaller.openCursor();
+			assertEquals(1, cursor.next().value);
+			assertEquals(2, cursor.next().value);
+			cursor.close();
+		} finally {
+			AsyncSaveTest.release.countDown();
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package gov.faa.ang.swac.datalayer.storage;
+
+import static org.junit.Assert.*;
+import gov.faa.ang.swac.datalayer.DataAccessException;
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnRow;
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnSchema;
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnSchema.ColumnType;
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnSerializable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SegmentStoreTest {
+
+	// Not Serializable, so it can only be spilled in the columnar format
+	public static class Point implements ColumnSerializable {
+		private static final ColumnSchema SCHEMA = new ColumnSchema(
+				new String[] { "x", "y", "name" },
+				new ColumnType[] { ColumnType.INT, ColumnType.DOUBLE, ColumnType.STRING });
+
+		Integer x;
+		double y;
+		String name;
+
+		public Point() {
+		}
+
+		Point(int i) {
+			this.x = (i % 7 == 0) ? null : i;
+			this.y = i * 0.5;
+			this.name = (i % 3 == 0) ? null : "P\u00e9" + i;
+		}
+
+		@Override
+		public ColumnSchema getColumnSchema() {
+			return SCHEMA;
+		}
+
+		@Override
+		public void writeColumns(ColumnRow row) throws IOException {
+			if (this.x != null) row.setInt(0, this.x);
+			row.setDouble(1, this.y);
+			row.setString(2, this.name);
+		}
+
+		@Override
+		public void readColumns(ColumnRow row) throws IOException {
+			if (!row.isNull(0)) this.x = row.getInt(0);
+			this.y = row.getDouble(1);
+			this.name = row.getString(2);
+		}
+
+		@Override
+		public String toString() {
+			return this.x + "," + this.y + "," + this.name;
+		}
+	}
+
+	private File dir;
+
+	@Before
+	public void setUp() {
+		this.dir = new File(System.getProperty("java.io.tmpdir"), "segmentstore" + System.nanoTime());
+		this.dir.mkdirs();
+	}
+
+	@After
+	public void tearDown() {
+		for (File f : this.dir.listFiles()) {
+			f.delete();
+		}
+		this.dir.delete();
+	}
+
+	private static List<Integer> range(int n) {
+		List<Integer> list = new ArrayList<Integer>();
+		for (int i = 0; i < n; i++) {
+			list.add(i);
+		}
+		return list;
+	}
+
+	@Test
+	public void testAppendAndPollAcrossSegments() throws DataAccessException {
+		SegmentStore<Integer> store = new SegmentStore<Integer>(4, 0, null, null);
+		for (int i = 0; i < 10; i++) {
+			store.add(i);
+		}
+		assertEquals(10, store.size());
+		for (int i = 0; i < 6; i++) {
+			assertEquals(Integer.valueOf(i), store.poll());
+		}
+		store.add(10);
+
+		List<Integer> copy = new ArrayList<Integer>();
+		store.copyTo(copy);
+		assertEquals(Arrays.asList(6, 7, 8, 9, 10), copy);
+
+		for (int i = 6; i <= 10; i++) {
+			assertEquals(Integer.valueOf(i), store.poll());
+		}
+		assertNull(store.poll());
+		assertEquals(0, store.size());
+
+		// The store can be refilled once drained
+		store.add(11);
+		assertEquals(Integer.valueOf(11), store.poll());
+	}
+
+	@Test
+	public void testSpilledSegmentsReadBack() throws DataAccessException {
+		// Any heap in use exceeds the threshold, so every full segment is spilled
+		SegmentStore<Integer> store = new SegmentStore<Integer>(100, Double.MIN_VALUE, this.dir, SpillCodec.forType(Integer.class));
+		store.addAll(range(1050));
+		assertEquals(1, this.dir.listFiles().length);
+
+		List<Integer> copy = new ArrayList<Integer>();
+		store.copyTo(copy);
+		assertEquals(range(1050), copy);
+
+		DataCursor<Integer> cursor = store.cursor();
+		List<Object> batch = new ArrayList<Object>();
+		assertEquals(1050, cursor.nextBatch(batch, 2000));
+		assertEquals(copy, batch);
+		cursor.close();
+
+		for (int i = 0; i < 1050; i++) {
+			assertEquals(Integer.valueOf(i), store.poll());
+		}
+		assertNull(store.poll());
+
+		store.clear();
+		assertEquals(0, this.dir.listFiles().length);
+	}
+
+	@Test
+	public void testMemoryMarshallerSpills() throws DataAccessException {
+		MemoryMarshaller marshaller = new MemoryMarshaller(Integer.class, "test");
+		marshaller.setSpillThreshold(Double.MIN_VALUE);
+		marshaller.setSpillDirectory(this.dir);
+		List<Integer> data = range(3 * SegmentStore.SEGMENT_SIZE);
+		marshaller.save(data);
+		assertEquals(1, this.dir.listFiles().length);
+
+		List<Integer> loaded = new ArrayList<Integer>();
+		marshaller.load(loaded);
+		assertEquals(data, loaded);
+
+		for (int i = 0; i < data.size(); i++) {
+			assertEquals(Integer.valueOf(i), marshaller.read());
+		}
+		assertNull(marshaller.read());
+
+		// Saving replaces the records and deletes their spill file
+		marshaller.save(new ArrayList<Integer>());
+		assertEquals(0, this.dir.listFiles().length);
+	}
+
+	@Test
+	public void testMemoryMarshallerAppendAndRead() throws DataAccessException {
+		MemoryMarshaller marshaller = new MemoryMarshaller(Integer.class, "test");
+		assertFalse(marshaller.exists());
+		for (int i = 0; i < 5000; i++) {
+			marshaller.append(i);
+		}
+		assertTrue(marshaller.exists());
+		for (int i = 0; i < 5000; i++) {
+			assertEquals(Integer.valueOf(i), marshaller.read());
+		}
+		assertNull(marshaller.read());
+	}
+
+	private static <T> List<String> readAll(DataCursor<T> cursor) throws DataAccessException {
+		List<String> values = new ArrayList<String>();
+		for (T record = cursor.next(); record != null; record = cursor.next()) {
+			values.add(record.toString());
+		}
+		cursor.close();
+		return values;
+	}
+
+	@Test
+	public void testColumnSerializableSpills() throws DataAccessException {
+		MemoryMarshaller marshaller = new MemoryMarshaller(Point.class, "test");
+		marshaller.setSpillThreshold(Double.MIN_VALUE);
+		marshaller.setSpillDirectory(this.dir);
+		List<Point> data = new ArrayList<Point>();
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < 3 * SegmentStore.SEGMENT_SIZE; i++) {
+			data.add(new Point(i));
+			expected.add(data.get(i).toString());
+		}
+		marshaller.save(data);
+		assertEquals(1, this.dir.listFiles().length);
+
+		assertEquals(expected, readAll(marshaller.<Point>openCursor()));
+		Point first = marshaller.read();
+		assertNotSame(data.get(0), first);
+		assertEquals(expected.get(0), first.toString());
+	}
+
+	@Test
+	public void testTextSerializableSpills() throws DataAccessException {
+		MemoryMarshaller marshaller = new MemoryMarshaller(AsyncSaveTest.Value.class, "test");
+		marshaller.setSpillThreshold(Double.MIN_VALUE);
+		marshaller.setSpillDirectory(this.dir);
+		List<AsyncSaveTest.Value> data = new ArrayList<AsyncSaveTest.Value>();
+		for (int i = 0; i < 2 * SegmentStore.SEGMENT_SIZE + 1; i++) {
+			data.add(new AsyncSaveTest.Value(i));
+		}
+		marshaller.save(data);
+		assertEquals(1, this.dir.listFiles().length);
+
+		DataCursor<AsyncSaveTest.Value> cursor = marshaller.openCursor();
+		for (int i = 0; i < data.size(); i++) {
+			assertEquals(i, cursor.next().value);
+		}
+		assertNull(cursor.next());
+		cursor.close();
+	}
+}
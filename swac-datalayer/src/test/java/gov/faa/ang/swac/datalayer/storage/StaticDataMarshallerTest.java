@@ -0,0 +1,83 @@
+package gov.faa.ang.swac.datalayer.storage;
+
+import static org.junit.Assert.*;
+import gov.faa.ang.swac.datalayer.DataAccessException;
+import gov.faa.ang.swac.datalayer.DataSubscriber;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class StaticDataMarshallerTest implements DataSubscriber {
+	AtomicInteger loadCount = new AtomicInteger();
+	StaticDataMarshaller marshaller;
+
+	@Before
+	public void setUp() throws DataAccessException
+	{
+		MemoryMarshaller source = new MemoryMarshaller(Integer.class, "static");
+		source.save(Arrays.asList(new Integer[] { 1, 2, 3 }));
+		source.subscribe(this);
+		this.marshaller = new StaticDataMarshaller(source);
+	}
+
+	@Test
+	public void testParsedOnce() throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<List<Integer>>> results = new ArrayList<Future<List<Integer>>>();
+			for (int i = 0; i < 8; i++)
+			{
+				results.add(executor.submit(new Callable<List<Integer>>() {
+					@Override
+					public List<Integer> call() throws Exception {
+						List<Integer> output = new ArrayList<Integer>();
+						marshaller.load(output);
+						return output;
+					}
+				}));
+			}
+
+			List<Integer> first = results.get(0).get();
+			for (Future<List<Integer>> result : results)
+			{
+				List<Integer> output = result.get();
+				assertEquals(3, output.size());
+				for (int i = 0; i < output.size(); i++)
+				{
+					assertSame(first.get(i), output.get(i));
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, loadCount.get());
+		assertTrue(marshaller.isLoaded());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testReadOnly() throws DataAccessException
+	{
+		marshaller.save(new ArrayList<Integer>());
+	}
+
+	@Override
+	public void onLoad(Object source) {
+		loadCount.incrementAndGet();
+	}
+
+	@Override
+	public void onSave(Object source) {
+		// Do nothing
+	}
+}
@@ -0,0 +1,188 @@
+package gov.faa.ang.swac.datalayer.storage.fileio;
+
+import static org.junit.Assert.*;
+import gov.faa.ang.swac.datalayer.DataAccessException;
+import gov.faa.ang.swac.datalayer.storage.fileio.ColumnSchema.ColumnType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColumnarFileTest {
+
+	public static class Sample implements ColumnSerializable, Serializable {
+		private static final long serialVersionUID = 1L;
+		static final ColumnSchema SCHEMA = new ColumnSchema(
+				new String[] { "id", "time", "speed", "name" },
+				new ColumnType[] { ColumnType.INT, ColumnType.LONG, ColumnType.DOUBLE, ColumnType.STRING });
+
+		Integer id;
+		long time = Long.MIN_VALUE;
+		double speed = Double.NaN;
+		String name;
+
+		public Sample() {
+		}
+
+		Sample(int i) {
+			this.id = (i % 7 == 0) ? null : i;
+			this.time = 1262304000000L + 60000L * i;
+			this.speed = (i % 5 == 0) ? Double.NaN : i * 0.1;
+			this.name = (i % 3 == 0) ? null : "N" + (i % 11);
+		}
+
+		@Override
+		public ColumnSchema getColumnSchema() {
+			return SCHEMA;
+		}
+
+		@Override
+		public void writeColumns(ColumnRow row) throws IOException {
+			if (this.id != null) row.setInt(0, this.id);
+			row.setLong(1, this.time);
+			row.setDouble(2, this.speed);
+			row.setString(3, this.name);
+		}
+
+		@Override
+		public void readColumns(ColumnRow row) throws IOException {
+			if (!row.isNull(0)) this.id = row.getInt(0);
+			if (!row.isNull(1)) this.time = row.getLong(1);
+			if (!row.isNull(2)) this.speed = row.getDouble(2);
+			this.name = row.getString(3);
+		}
+
+		@Override
+		public String toString() {
+			return this.id + "," + this.time + "," + this.speed + "," + this.name;
+		}
+	}
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		this.file = File.createTempFile("columnar", null);
+		this.file.deleteOnExit();
+	}
+
+	@After
+	public void tearDown() {
+		this.file.delete();
+	}
+
+	private static List<Sample> samples(int n) {
+		List<Sample> data = new ArrayList<Sample>();
+		for (int i = 0; i < n; i++) {
+			data.add(new Sample(i));
+		}
+		return data;
+	}
+
+	@Test
+	public void testRoundTripAcrossBlocks() throws IOException {
+		List<Sample> data = samples(1000);
+		ColumnarFileWriter writer = new ColumnarFileWriter(this.file, Sample.SCHEMA, 64);
+		for (Sample s : data) {
+			writer.write(s);
+		}
+		writer.close();
+
+		ColumnarFileReader reader = new ColumnarFileReader(this.file);
+		try {
+			assertEquals(1000, reader.getRowCount());
+			ColumnRow row = new ColumnRow(Sample.SCHEMA);
+			for (Sample expected : data) {
+				Sample actual = new Sample();
+				assertTrue(reader.read(actual, row));
+				assertEquals(expected.toString(), actual.toString());
+			}
+			assertFalse(reader.next(row));
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testProjectionAndSchemaMatchedByName() throws IOException {
+		ColumnarFileWriter writer = new ColumnarFileWriter(this.file, Sample.SCHEMA, 100);
+		for (Sample s : samples(250)) {
+			writer.write(s);
+		}
+		writer.close();
+
+		// Reordered columns plus one the file doesn't have
+		ColumnSchema other = new ColumnSchema(new String[] { "name", "missing", "id" },
+				new ColumnType[] { ColumnType.STRING, ColumnType.INT, ColumnType.INT });
+		ColumnarFileReader reader = new ColumnarFileReader(this.file);
+		try {
+			reader.setProjection(Arrays.asList("id", "missing"));
+			ColumnRow row = new ColumnRow(other);
+			int i = 0;
+			while (reader.next(row)) {
+				assertTrue(row.isNull(0)); // not projected
+				assertTrue(row.isNull(1)); // not in the file
+				assertEquals(i % 7 == 0, row.isNull(2));
+				if (!row.isNull(2)) {
+					assertEquals(i, row.getInt(2));
+				}
+				i++;
+			}
+			assertEquals(250, i);
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testTypeMismatch() throws IOException {
+		new ColumnarFileWriter(this.file, Sample.SCHEMA).close();
+		ColumnarFileReader reader = new ColumnarFileReader(this.file);
+		try {
+			reader.next(new ColumnRow(new ColumnSchema(new String[] { "id" }, new ColumnType[] { ColumnType.LONG })));
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testFileMarshaller() throws DataAccessException {
+		FileMarshaller marshaller = new FileMarshaller(Sample.class, this.file);
+		assertTrue(marshaller.isColumnSerializable());
+		marshaller.setColumnarFormat(true);
+
+		List<Sample> data = samples(100);
+		marshaller.save(data);
+		List<Sample> loaded = new ArrayList<Sample>();
+		marshaller.load(loaded);
+		assertEquals(data.size(), loaded.size());
+		for (int i = 0; i < data.size(); i++) {
+			assertEquals(data.get(i).toString(), loaded.get(i).toString());
+		}
+
+		marshaller.setColumnProjection(Arrays.asList("name"));
+		loaded.clear();
+		marshaller.load(loaded);
+		assertNull(loaded.get(1).id);
+		assertEquals(data.get(1).name, loaded.get(1).name);
+	}
+
+	@Test
+	public void testSerializableFormatLoadsAllRecords() throws DataAccessException {
+		FileMarshaller marshaller = new FileMarshaller(Sample.class, this.file);
+
+		List<Sample> data = samples(10);
+		marshaller.save(data);
+		List<Sample> loaded = new ArrayList<Sample>();
+		marshaller.load(loaded);
+		assertEquals(data.size(), loaded.size());
+		assertEquals(data.get(9).toString(), loaded.get(9).toString());
+	}
+}
@@ -0,0 +1,119 @@
+package gov.faa.ang.swac.datalayer.storage.fileio;
+
+import static org.junit.Assert.*;
+import gov.faa.ang.swac.datalayer.DataAccessException;
+import gov.faa.ang.swac.datalayer.DataSubscriber;
+import gov.faa.ang.swac.datalayer.storage.DataCursor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileCursorTest {
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		this.file = File.createTempFile("cursor", null);
+		this.file.deleteOnExit();
+	}
+
+	@After
+	public void tearDown() {
+		this.file.delete();
+	}
+
+	@Test
+	public void testTextCursorMatchesLoad() throws DataAccessException {
+		FileMarshaller marshaller = new FileMarshaller(ParallelTextLoadTest.Line.class, this.file);
+		for (int i = 0; i < 2500; i++) {
+			marshaller.append(new ParallelTextLoadTest.Line(i));
+		}
+		marshaller.close();
+
+		List<ParallelTextLoadTest.Line> loaded = new ArrayList<ParallelTextLoadTest.Line>();
+		marshaller.load(loaded);
+		assertEquals(2500, loaded.size());
+
+		DataCursor<ParallelTextLoadTest.Line> cursor = marshaller.openCursor();
+		List<ParallelTextLoadTest.Line> batch = new ArrayList<ParallelTextLoadTest.Line>();
+		int total = 0;
+		int n;
+		while ((n = cursor.nextBatch(batch, 1000)) > 0) {
+			assertTrue(n <= 1000);
+			total += n;
+		}
+		cursor.close();
+		assertEquals(loaded.size(), total);
+		for (int i = 0; i < total; i++) {
+			assertEquals(i, batch.get(i).id);
+			assertEquals(loaded.get(i).text, batch.get(i).text);
+		}
+		assertNull(cursor.next());
+	}
+
+	@Test
+	public void testForEachClosesAndNotifies() throws DataAccessException {
+		FileMarshaller marshaller = new FileMarshaller(ParallelTextLoadTest.Line.class, this.file);
+		marshaller.save(Arrays.asList(new ParallelTextLoadTest.Line(1), new ParallelTextLoadTest.Line(2)));
+		final int[] loads = new int[1];
+		marshaller.subscribe(new DataSubscriber() {
+			@Override
+			public void onLoad(Object source) {
+				loads[0]++;
+			}
+
+			@Override
+			public void onSave(Object source) {
+			}
+		});
+
+		final List<Object> handled = new ArrayList<Object>();
+		DataCursor<ParallelTextLoadTest.Line> cursor = marshaller.openCursor();
+		cursor.forEach(new DataCursor.Handler<Object>() {
+			@Override
+			public void handle(Object record) {
+				handled.add(record);
+			}
+		});
+		assertEquals(2, handled.size());
+		assertEquals(1, loads[0]);
+		cursor.close();
+		assertEquals(1, loads[0]);
+	}
+
+	@Test
+	public void testEmptyFile() throws DataAccessException {
+		DataCursor<ParallelTextLoadTest.Line> cursor = new FileMarshaller(ParallelTextLoadTest.Line.class, this.file).openCursor();
+		assertNull(cursor.next());
+		cursor.close();
+	}
+
+	@Test
+	public void testColumnarCursor() throws DataAccessException {
+		FileMarshaller marshaller = new FileMarshaller(ColumnarFileTest.Sample.class, this.file);
+		marshaller.setColumnarFormat(true);
+		List<ColumnarFileTest.Sample> data = new ArrayList<ColumnarFileTest.Sample>();
+		for (int i = 0; i < 50; i++) {
+			data.add(new ColumnarFileTest.Sample(i));
+		}
+		marshaller.save(data);
+
+		DataCursor<ColumnarFileTest.Sample> cursor = marshaller.openCursor();
+		int count = 0;
+		ColumnarFileTest.Sample item;
+		while ((item = cursor.next()) != null) {
+			assertEquals(data.get(count++).toString(), item.toString());
+		}
+		cursor.close();
+		assertEquals(50, count);
+	}
+
+}
@@ -0,0 +1,95 @@
+package gov.faa.ang.swac.datalayer.storage.fileio;
+
+import static org.junit.Assert.*;
+import gov.faa.ang.swac.datalayer.DataAccessException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GroupCommitAppendTest {
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		this.file = File.createTempFile("groupcommit", null);
+		this.file.deleteOnExit();
+	}
+
+	@After
+	public void tearDown() {
+		this.file.delete();
+	}
+
+	private void appendAll(FileMarshaller marshaller, int n) throws DataAccessException {
+		for (int i = 0; i < n; i++) {
+			marshaller.append(new ParallelTextLoadTest.Line(i));
+		}
+	}
+
+	private List<ParallelTextLoadTest.Line> load() throws DataAccessException {
+		List<ParallelTextLoadTest.Line> loaded = new ArrayList<ParallelTextLoadTest.Line>();
+		new FileMarshaller(ParallelTextLoadTest.Line.class, this.file).load(loaded);
+		return loaded;
+	}
+
+	@Test
+	public void testGroupCommitMatchesPerRecordFlush() throws DataAccessException {
+		FileMarshaller marshaller = new FileMarshaller(ParallelTextLoadTest.Line.class, this.file);
+		appendAll(marshaller, 20000);
+		marshaller.close();
+		List<ParallelTextLoadTest.Line> expected = load();
+		long expectedLength = this.file.length();
+
+		marshaller = new FileMarshaller(ParallelTextLoadTest.Line.class, this.file);
+		marshaller.setAppendFlushRecords(1000);
+		marshaller.setAppendFlushChars(1 << 16);
+		appendAll(marshaller, 20000);
+		marshaller.close();
+
+		assertEquals(expectedLength, this.file.length());
+		List<ParallelTextLoadTest.Line> loaded = load();
+		assertEquals(expected.size(), loaded.size());
+		for (int i = 0; i < loaded.size(); i++) {
+			assertEquals(i, loaded.get(i).id);
+			assertEquals(expected.get(i).text, loaded.get(i).text);
+		}
+	}
+
+	@Test
+	public void testTimedFlushBeforeClose() throws DataAccessException, InterruptedException {
+		FileMarshaller marshaller = new FileMarshaller(ParallelTextLoadTest.Line.class, this.file);
+		marshaller.setAppendFlushMillis(50);
+		appendAll(marshaller, 10);
+
+		// The writer flushes within the interval even though nothing more is appended
+		long deadline = System.currentTimeMillis() + 5000;
+		while (load().size() < 10 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertEquals(10, load().size());
+
+		marshaller.close();
+		assertEquals(10, load().size());
+	}
+
+	@Test
+	public void testWriteAfterClose() throws DataAccessException {
+		FileMarshaller marshaller = new FileMarshaller(ParallelTextLoadTest.Line.class, this.file);
+		marshaller.setAppendFlushRecords(100);
+		appendAll(marshaller, 5);
+		marshaller.close();
+		assertEquals(5, load().size());
+
+		// Appending after close starts a new file
+		appendAll(marshaller, 3);
+		marshaller.close();
+		assertEquals(3, load().size());
+	}
+}
@@ -0,0 +1,174 @@
+package gov.faa.ang.swac.datalayer.storage.fileio;
+
+import static org.junit.Assert.*;
+import gov.faa.ang.swac.datalayer.DataAccessException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelTextLoadTest {
+
+	public static class Line implements LineDelimited, WithHeader {
+		int id;
+		String text;
+
+		public Line() {
+		}
+
+		Line(int id) {
+			this.id = id;
+			this.text = "record-" + id + "-" + Integer.toHexString(id * 31);
+		}
+
+		@Override
+		public long readHeader(BufferedReader reader) throws IOException {
+			HeaderUtils.readHeaderHashComment(reader);
+			return -1;
+		}
+
+		@Override
+		public void writeHeader(PrintWriter writer, long numRecords) throws IOException {
+			writer.println("#id,text");
+			writer.println("#two header lines");
+		}
+
+		@Override
+		public void readItem(BufferedReader reader) throws IOException {
+			String line = reader.readLine();
+			int comma = line.indexOf(',');
+			if (comma < 0) {
+				throw new IOException("Malformed line: " + line);
+			}
+			this.id = Integer.parseInt(line.substring(0, comma));
+			this.text = line.substring(comma + 1);
+		}
+
+		@Override
+		public void writeItem(PrintWriter writer) throws IOException {
+			writer.println(this.id + "," + this.text);
+		}
+	}
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		this.file = File.createTempFile("paralleltext", null);
+		this.file.deleteOnExit();
+	}
+
+	@After
+	public void tearDown() {
+		this.file.delete();
+	}
+
+	private void write(String text) throws IOException {
+		FileOutputStream out = new FileOutputStream(this.file);
+		try {
+			out.write(text.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	private List<Line> load(int parallelism, boolean faultTolerant) throws DataAccessException {
+		FileMarshaller marshaller = new FileMarshaller(Line.class, this.file, faultTolerant, null);
+		marshaller.setLoadParallelism(parallelism);
+		List<Line> loaded = new ArrayList<Line>();
+		marshaller.load(loaded);
+		return loaded;
+	}
+
+	@Test
+	public void testParallelMatchesSerial() throws DataAccessException {
+		List<Line> data = new ArrayList<Line>();
+		for (int i = 0; i < 400000; i++) {
+			data.add(new Line(i));
+		}
+		new FileMarshaller(Line.class, this.file).save(data);
+		assertTrue(this.file.length() >= FileMarshaller.PARALLEL_LOAD_MIN_BYTES);
+
+		List<Line> serial = load(1, false);
+		List<Line> parallel = load(4, false);
+		assertEquals(data.size(), serial.size());
+		assertEquals(data.size(), parallel.size());
+		for (int i = 0; i < data.size(); i++) {
+			assertEquals(i, parallel.get(i).id);
+			assertEquals(serial.get(i).text, parallel.get(i).text);
+		}
+	}
+
+	@Test
+	public void testParseErrorInParallelLoad() throws IOException, DataAccessException {
+		StringBuilder text = new StringBuilder("#header\n");
+		for (int i = 0; i < 600000; i++) {
+			text.append(i == 450000 ? "bad line" : i + ",record-" + i + "-padding").append('\n');
+		}
+		write(text.toString());
+		assertTrue(this.file.length() >= FileMarshaller.PARALLEL_LOAD_MIN_BYTES);
+
+		try {
+			load(4, false);
+			fail("Expected a parsing error");
+		} catch (DataAccessException ex) {
+			assertTrue(ex.getMessage().startsWith("Parsing error"));
+		}
+		List<Line> loaded = load(4, true);
+		assertEquals(599999, loaded.size());
+		assertEquals(450001, loaded.get(450000).id);
+	}
+
+	@Test
+	public void testSkipLines() throws IOException {
+		write("#a\r\n#b\rc,1\nd,2\n");
+		FileInputStream in = new FileInputStream(this.file);
+		try {
+			FileChannel channel = in.getChannel();
+			assertEquals(0, TextFileChunks.skipLines(channel, 0, 0));
+			assertEquals(4, TextFileChunks.skipLines(channel, 0, 1));
+			assertEquals(7, TextFileChunks.skipLines(channel, 0, 2));
+			assertEquals(11, TextFileChunks.skipLines(channel, 0, 3));
+			assertEquals(15, TextFileChunks.skipLines(channel, 0, 10));
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testSplitAtLineEnds() throws IOException {
+		write("aaaa\r\nbb\ncccccc\nd\n\neeeeeeee");
+		FileInputStream in = new FileInputStream(this.file);
+		try {
+			FileChannel channel = in.getChannel();
+			long size = channel.size();
+			List<long[]> chunks = TextFileChunks.split(channel, 6, size, 3);
+			assertEquals(6, chunks.get(0)[0]);
+			assertEquals(size, chunks.get(chunks.size() - 1)[1]);
+			for (int i = 0; i < chunks.size(); i++) {
+				assertTrue(chunks.get(i)[1] > chunks.get(i)[0]);
+				if (i > 0) {
+					assertEquals(chunks.get(i - 1)[1], chunks.get(i)[0]);
+				}
+				if (i < chunks.size() - 1) {
+					ByteBuffer b = ByteBuffer.allocate(1);
+					channel.read(b, chunks.get(i)[1] - 1);
+					assertEquals('\n', b.get(0));
+				}
+			}
+		} finally {
+			in.close();
+		}
+	}
+}
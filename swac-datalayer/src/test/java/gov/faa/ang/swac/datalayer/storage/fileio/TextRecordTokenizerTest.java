@@ -0,0 +1,95 @@
+package gov.faa.ang.swac.datalayer.storage.fileio;
+
+import static org.junit.Assert.*;
+import gov.faa.ang.swac.datalayer.storage.fileio.TextRecordTokenizer.Format;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class TextRecordTokenizerTest {
+
+	private static final String[] LINES = {
+		"20926200,20091005,AMF262,91044,ORIGINAL_FLIGHT,20091006 23:49:24,COMPUTED,70.0,169.0,SMX,-120.45744444444445,261,P,,,2094/7228 2115/7246",
+		"-40910 , 20091006,V_KFTY_13 ,13,VFR,,,,,,FTY,,33.77913888888889,-84.5213611111111,841,1,,,,,,-,G,,10,KFTY,,D VFR,,,N,,,",
+		"  a  ,\tb\t, c ,,  ",
+		",,,",
+		"",
+		" ",
+		"x",
+		"1.,.5,-.25,-,.,1.2.3,0012,-0,2147483648,-2147483648,99999999999999999999.5",
+		"19991231,20241301,20240230 24:59:59,20240230 25:00:00,18991231,2010010,20100101 1:00:00",
+		"1e5,Infinity,NaN,+1,0x10, 12 34 ,\u000B7\u000B",
+	};
+
+	@Test
+	public void testSplitEquivalence() {
+		TextRecordTokenizer t = new TextRecordTokenizer();
+		for (String line : LINES) {
+			String[] expected = line.split("\\s*,\\s*");
+			t.reset(line);
+			assertEquals(line, expected.length, t.size());
+			for (int i = 0; i < expected.length; i++) {
+				assertEquals(expected[i], t.raw(i));
+				assertEquals(expected[i].isEmpty(), t.isEmpty(i));
+				String trimmed = expected[i].trim();
+				assertEquals(trimmed.isEmpty() ? null : trimmed, t.getString(i));
+			}
+			assertTrue(t.isEmpty(expected.length));
+		}
+	}
+
+	@Test
+	public void testFormatEquivalence() {
+		TextRecordTokenizer t = new TextRecordTokenizer();
+		for (String line : LINES) {
+			t.reset(line);
+			for (int i = 0; i < t.size(); i++) {
+				String field = t.raw(i);
+				for (Format format : Format.values()) {
+					assertEquals(format.name() + " \"" + field + "\"", Pattern.matches(format.toString(), field), t.matches(i, format));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testNumbers() {
+		TextRecordTokenizer t = new TextRecordTokenizer();
+		for (String line : LINES) {
+			t.reset(line);
+			for (int i = 0; i < t.size(); i++) {
+				String field = t.raw(i);
+				if (t.matches(i, Format.INTEGER)) {
+					try {
+						assertEquals(Integer.parseInt(field.trim()), t.getInt(i));
+					} catch (NumberFormatException ex) {
+						try {
+							t.getInt(i);
+							fail("Expected overflow: " + field);
+						} catch (NumberFormatException expected) {
+							// Same as before
+						}
+					}
+				}
+				if (t.matches(i, Format.FLOAT)) {
+					assertEquals(Double.doubleToLongBits(Double.parseDouble(field.trim())), Double.doubleToLongBits(t.getDouble(i)));
+				}
+			}
+		}
+
+		// Exhaustive over short decimals, where the fast path is taken
+		t.reset("0");
+		for (int n = 0; n < 200000; n += 7) {
+			for (int scale = 0; scale < 6; scale++) {
+				String s = Integer.toString(n);
+				while (s.length() <= scale) {
+					s = "0" + s;
+				}
+				s = s.substring(0, s.length() - scale) + "." + s.substring(s.length() - scale);
+				t.reset("-" + s);
+				assertEquals(s, Double.doubleToLongBits(Double.parseDouble("-" + s)), Double.doubleToLongBits(t.getDouble(0)));
+			}
+		}
+	}
+}
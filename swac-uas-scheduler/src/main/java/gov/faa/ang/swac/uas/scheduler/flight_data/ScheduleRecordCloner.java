@@ -1,6 +1,7 @@
 package gov.faa.ang.swac.uas.scheduler.flight_data;
 
 import gov.faa.ang.swac.common.datatypes.Timestamp;
+import gov.faa.ang.swac.common.flightmodeling.ClonedScheduleRecord;
 import gov.faa.ang.swac.common.flightmodeling.ScheduleRecord;
 import gov.faa.ang.swac.uas.scheduler.mathematics.statistics.HQRandom;
 
@@ -16,6 +17,18 @@ public class ScheduleRecordCloner
         this.hqr = generator;
     }
 
+    /**
+     * @return a cloner drawing time shifts from the given substream of this cloner's generator
+     */
+    public ScheduleRecordCloner substream(long index)
+    {
+        return new ScheduleRecordCloner(this.hqr.substream(index));
+    }
+
+    /**
+     * Clone a record with independently drawn time shifts. Clones are {@link ClonedScheduleRecord}s that refer
+     * back to schedRecIn, so the base record must not be modified while they are in use.
+     */
     public List<ScheduleRecord> cloneScheduleRecord(
         ScheduleRecord schedRecIn, 
         int nClones,
@@ -23,56 +36,24 @@ public class ScheduleRecordCloner
     {
         List<ScheduleRecord> cloneList = new ArrayList<ScheduleRecord>(nClones);
 
+        // Shared by all clones of this record
+        String flightPlanType = "CLONE_"+schedRecIn.idNum;
+        
         for (int i = 0; i < nClones; ++i)
         {
+            // Select a time shift in minutes from a normal (Gaussian) 
+            // distribution with mean=0, standard deviation given:
+            final double timeShiftMins = 
+                this.hqr.randomNormal(0,timeShiftSigmaMins);
+
             cloneList.add(
-                newClonedScheduleRecord(
+                new ClonedScheduleRecord(
                     schedRecIn,
-                    i,
-                    timeShiftSigmaMins));
+                    schedRecIn.idNum + (i+1),
+                    flightPlanType,
+                    Timestamp.minutesToMillis(timeShiftMins)));
         }
 
         return cloneList;
     }
-
-    private ScheduleRecord newClonedScheduleRecord(
-        ScheduleRecord schedRec, 
-        int iClone,
-        double timeShiftSigmaMins)
-    {
-        ScheduleRecord schedRecClone = new ScheduleRecord(schedRec);
-
-        // Update the ID of the clone
-        schedRecClone.idNum = schedRec.idNum + (iClone+1);
-        schedRecClone.flightPlanType = "CLONE_"+schedRec.idNum;
-        
-        // Select a time shift in minutes from a normal (Gaussian) 
-        // distribution with mean=0, standard deviation given:
-        final double timeShiftMins = 
-            this.hqr.randomNormal(0,timeShiftSigmaMins);
-
-        // Shift all timestamps in the clone
-        schedRecClone.gateOutTime       = shift(schedRec.gateOutTime,timeShiftMins);
-        schedRecClone.runwayOffTime     = shift(schedRec.runwayOffTime,timeShiftMins);
-        schedRecClone.runwayOnTime      = shift(schedRec.runwayOnTime,timeShiftMins);
-        schedRecClone.gateInTime        = shift(schedRec.gateInTime,timeShiftMins);
-        schedRecClone.scheduledDepTime  = shift(schedRec.scheduledDepTime,timeShiftMins);
-        schedRecClone.scheduledArrTime  = shift(schedRec.scheduledArrTime,timeShiftMins);
-                
-        return schedRecClone;
-    }
-
-    private static Timestamp shift(
-        Timestamp time, 
-        double shift)
-    { 
-        if (time != null)
-        {
-            return time.minuteAdd(shift);
-        }
-        
-        return null;
-    }
-
-
 }
@@ -6,13 +6,21 @@ import gov.faa.ang.swac.uas.scheduler.forecast.clone.ForecastCloner;
 import gov.faa.ang.swac.uas.scheduler.vfr.VfrSchedRecCreator;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
 
 public class ForecastProcessor
 {
+	private static final Logger logger = LogManager.getLogger(ForecastProcessor.class);
+	
 	private Map<MissionAirportPairKey,List<ScheduleRecord>> scheduleMap;
     private Map<MissionAirportPairKey,Integer> tafData;
     private VfrSchedRecCreator vfrCreator;
     private ForecastCloner cloner;
+    private int parallelism = 1;
 
     public ForecastProcessor(
     		Map<MissionAirportPairKey,List<ScheduleRecord>> scheduleMap,
@@ -26,59 +34,205 @@ public class ForecastProcessor
         this.vfrCreator         = vfrCreator;        
     }
 
+    public int getParallelism()
+    {
+        return this.parallelism;
+    }
+
+    /**
+     * @param parallelism number of worker threads used to process mission/airport pairs; 0 uses one per
+     * available processor. The result does not depend on this value.
+     */
+    public void setParallelism(int parallelism)
+    {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Clone (or remove) base flights and pad with VFR flights for every mission/airport pair in the TAF data.
+     * 
+     * Each pair is processed independently: its cloner and VFR creator draw from a random substream indexed by
+     * the pair's position in the TAF data, and VFR id numbers are reserved up front in that same order. Pairs are
+     * partitioned across a fork/join pool and the per-pair results are concatenated in TAF order, so the schedule
+     * is identical for any degree of parallelism.
+     */
     public List<ScheduleRecord> process(
         int baseFiscalYear, 
         int forecastFiscalYear,
         Timestamp startTime, 
         Timestamp endTime)
     {
-        List<ScheduleRecord> resultList = new ArrayList<ScheduleRecord>();
+        List<MissionAirportPairKey> keys = new ArrayList<MissionAirportPairKey>(this.tafData.keySet());
+        int nKeys = keys.size();
         
-        for (MissionAirportPairKey missionAirportPair : this.tafData.keySet())
+        // Reserve VFR ids serially so that numbering follows TAF order regardless of which thread runs a pair
+        VfrSchedRecCreator[] vfrCreators = new VfrSchedRecCreator[nKeys];
+        for (int i = 0; i < nKeys; i++)
         {
-        	int nForecastFlights = this.tafData.get(missionAirportPair);
-        	List<ScheduleRecord> baseFlights = this.scheduleMap.get(missionAirportPair);
-        	if (baseFlights == null) {
-        		baseFlights = new ArrayList<ScheduleRecord>();
-        	}
-        	
-            // Clone flights
-        	List<ScheduleRecord> forecastFlights = this.cloneFlights(
-                baseFlights, 
-                nForecastFlights); 
-        	
-            resultList.addAll(forecastFlights);
+            MissionAirportPairKey missionAirportPair = keys.get(i);
+            int nForecastFlights = this.tafData.get(missionAirportPair);
+            int nVfrToAdd = nForecastFlights - ForecastCloner.forecastFlightCount(
+                this.baseFlightCount(missionAirportPair), 
+                nForecastFlights);
+            if (0 < nVfrToAdd)
+            {
+                vfrCreators[i] = this.vfrCreator.substream(i);
+                this.vfrCreator.reserveIds(missionAirportPair, nVfrToAdd);
+            }
+        }
+        
+        @SuppressWarnings("unchecked")
+        List<ScheduleRecord>[] results = new List[nKeys];
+        boolean[] vfrFailed = new boolean[nKeys];
+        
+        int nThreads = this.parallelism > 0 ? this.parallelism : Runtime.getRuntime().availableProcessors();
+        if (nThreads <= 1 || nKeys <= 1)
+        {
+            for (int i = 0; i < nKeys; i++)
+            {
+                this.processPair(i, keys.get(i), vfrCreators[i], results, vfrFailed);
+            }
+        }
+        else
+        {
+            int threshold = Math.max(1, nKeys / (nThreads * 8));
+            ForkJoinPool pool = new ForkJoinPool(nThreads);
+            try
+            {
+                pool.invoke(new ProcessRange(keys, vfrCreators, results, vfrFailed, 0, nKeys, threshold));
+            }
+            finally
+            {
+                pool.shutdown();
+            }
+        }
+        
+        List<ScheduleRecord> resultList = new ArrayList<ScheduleRecord>();
+        for (int i = 0; i < nKeys; i++)
+        {
+            resultList.addAll(results[i]);
+            results[i] = null;
             
-            // Pad VFRs to make up the gap
-            if (forecastFlights.size() < nForecastFlights) {
-            	// Create VFR Flights 
-            	List<ScheduleRecord> vfrFlights = this.createVfrFlights(
-            			missionAirportPair,
-                        forecastFlights, 
-                        nForecastFlights); 
-            	
-                resultList.addAll(vfrFlights);
+            if (vfrFailed[i])
+            {
+                // Default VFRs take ids after every reserved id, in TAF order
+                logger.error("Error trying to populate enhanced VFR records. Defaulting to normal VFR.");
+                MissionAirportPairKey missionAirportPair = keys.get(i);
+                int nForecastFlights = this.tafData.get(missionAirportPair);
+                int nVfrToAdd = nForecastFlights - ForecastCloner.forecastFlightCount(
+                    this.baseFlightCount(missionAirportPair), 
+                    nForecastFlights);
+                resultList.addAll(this.vfrCreator.populateDefaultMissionAirportPair(missionAirportPair, nVfrToAdd));
             }
         }
 
         return resultList;
     }
+    
+    private int baseFlightCount(MissionAirportPairKey missionAirportPair)
+    {
+        List<ScheduleRecord> baseFlights = this.scheduleMap.get(missionAirportPair);
+        return baseFlights == null ? 0 : baseFlights.size();
+    }
+    
+    private void processPair(
+        int index,
+        MissionAirportPairKey missionAirportPair,
+        VfrSchedRecCreator pairVfrCreator,
+        List<ScheduleRecord>[] results,
+        boolean[] vfrFailed)
+    {
+        int nForecastFlights = this.tafData.get(missionAirportPair);
+        List<ScheduleRecord> baseFlights = this.scheduleMap.get(missionAirportPair);
+        if (baseFlights == null) {
+            baseFlights = new ArrayList<ScheduleRecord>();
+        }
+        
+        // Clone flights
+        List<ScheduleRecord> forecastFlights = this.cloneFlights(
+            this.cloner.substream(index),
+            baseFlights, 
+            nForecastFlights); 
+        
+        // Pad VFRs to make up the gap
+        if (forecastFlights.size() < nForecastFlights) {
+            if (pairVfrCreator == null) {
+                throw new IllegalStateException("No VFR ids reserved for " + missionAirportPair);
+            }
+            try {
+                // Create VFR Flights 
+                forecastFlights.addAll(this.createVfrFlights(
+                    pairVfrCreator,
+                    missionAirportPair,
+                    forecastFlights, 
+                    nForecastFlights));
+            } catch (IllegalStateException ex) {
+                logger.debug(ex.getMessage(), ex);
+                vfrFailed[index] = true;
+            }
+        }
+        
+        results[index] = forecastFlights;
+    }
+    
+    private class ProcessRange extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        
+        private final List<MissionAirportPairKey> keys;
+        private final VfrSchedRecCreator[] vfrCreators;
+        private final List<ScheduleRecord>[] results;
+        private final boolean[] vfrFailed;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        
+        ProcessRange(List<MissionAirportPairKey> keys, VfrSchedRecCreator[] vfrCreators, List<ScheduleRecord>[] results, 
+                boolean[] vfrFailed, int from, int to, int threshold)
+        {
+            this.keys = keys;
+            this.vfrCreators = vfrCreators;
+            this.results = results;
+            this.vfrFailed = vfrFailed;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            if (this.to - this.from <= this.threshold)
+            {
+                for (int i = this.from; i < this.to; i++)
+                {
+                    processPair(i, this.keys.get(i), this.vfrCreators[i], this.results, this.vfrFailed);
+                }
+            }
+            else
+            {
+                int mid = (this.from + this.to) >>> 1;
+                invokeAll(
+                    new ProcessRange(this.keys, this.vfrCreators, this.results, this.vfrFailed, this.from, mid, this.threshold),
+                    new ProcessRange(this.keys, this.vfrCreators, this.results, this.vfrFailed, mid, this.to, this.threshold));
+            }
+        }
+    }
 
-	private List<ScheduleRecord> cloneFlights(List<ScheduleRecord> baseFlights, int nForecastFlights) {
+	private List<ScheduleRecord> cloneFlights(ForecastCloner pairCloner, List<ScheduleRecord> baseFlights, int nForecastFlights) {
 		if (baseFlights.size() == 0) {
 			return new ArrayList<ScheduleRecord>();
 		}
 		
-		cloner.clearFlightLists();
-        cloner.cloneFlights(baseFlights, nForecastFlights);
+        pairCloner.cloneFlights(baseFlights, nForecastFlights);
         
         List<ScheduleRecord> forecastFlights = new ArrayList<ScheduleRecord>();
-        forecastFlights.addAll(cloner.getClonedFlights());
-        if (cloner.getRemovedFlights().size() == 0) {
+        forecastFlights.addAll(pairCloner.getClonedFlights());
+        if (pairCloner.getRemovedFlights().size() == 0) {
         	forecastFlights.addAll(baseFlights);
         } else {
         	for (ScheduleRecord baseFlight : baseFlights) {
-        		if (!cloner.hasRemoved(baseFlight)) {
+        		if (!pairCloner.hasRemoved(baseFlight)) {
         			forecastFlights.add(baseFlight);
         		}
         	}
@@ -87,13 +241,18 @@ public class ForecastProcessor
 	}
 	
 	public List<ScheduleRecord> createVfrFlights(MissionAirportPairKey missionAirportPair, List<ScheduleRecord> forecastFlights, int nForecastFlights) 
+    {
+		return this.createVfrFlights(this.vfrCreator, missionAirportPair, forecastFlights, nForecastFlights);
+    }
+	
+	private List<ScheduleRecord> createVfrFlights(VfrSchedRecCreator pairVfrCreator, MissionAirportPairKey missionAirportPair, List<ScheduleRecord> forecastFlights, int nForecastFlights) 
     {
 		List<ScheduleRecord> schedRecList = new ArrayList<ScheduleRecord>();
 		
         int nVfrToAdd = nForecastFlights - forecastFlights.size();
         if (0 < nVfrToAdd) 
         {
-        	schedRecList.addAll(this.vfrCreator.populateMissionAirportPair(missionAirportPair,nVfrToAdd));
+        	schedRecList.addAll(pairVfrCreator.populateMissionAirportPair(missionAirportPair,nVfrToAdd));
         }
         
         return schedRecList;
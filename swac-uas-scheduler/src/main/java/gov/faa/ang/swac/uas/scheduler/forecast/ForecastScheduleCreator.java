@@ -78,6 +78,7 @@ public class ForecastScheduleCreator
     private int     numHoursFromGMT;
     private int     numDaysToForecast;
     private double	nominalTaxiTimeMinutes;
+    private int     forecastParallelism = 1;
     
     // outputData:
     private List<ScheduleRecord> outputScheduleFile;
@@ -160,6 +161,16 @@ public class ForecastScheduleCreator
         this.numDaysToForecast = val;
     }
     
+    public int getForecastParallelism()
+    {
+        return this.forecastParallelism;
+    }
+
+    public void setForecastParallelism(int forecastParallelism)
+    {
+        this.forecastParallelism = forecastParallelism;
+    }
+    
     public double getNominalTaxiTimeMinutes()
     {
         return this.nominalTaxiTimeMinutes;
@@ -250,6 +261,7 @@ public class ForecastScheduleCreator
             allTafData,
             forecastCloner,    
             vfrLoader);
+        processor.setParallelism(this.forecastParallelism);
         this.outputScheduleFile = processor.process(
             baseFiscalYear,
             forecastFiscalYear,
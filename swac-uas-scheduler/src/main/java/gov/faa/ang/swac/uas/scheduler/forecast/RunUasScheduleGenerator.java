@@ -75,6 +75,7 @@ public final class RunUasScheduleGenerator extends CloneableAbstractTask {
     private int numHoursFromGMT;
     private int numDaysToForecast;
     private double	nominalTaxiTimeMinutes;
+    private int forecastParallelism = 1;
     // processor:
     private ForecastScheduleCreator scheduleGenerator;
     // outputData:
@@ -88,6 +89,7 @@ public final class RunUasScheduleGenerator extends CloneableAbstractTask {
         this.cloneTimeShiftStDev = b.cloneTimeShiftStDev;
         this.numHoursFromGMT = b.numHoursFromGMT;
         this.numDaysToForecast = b.numDaysToForecast;
+        this.forecastParallelism = b.forecastParallelism;
         this.nominalTaxiTimeMinutes = b.nominalTaxiTimeMinutes;
     }
 
@@ -139,6 +141,14 @@ public final class RunUasScheduleGenerator extends CloneableAbstractTask {
         this.numHoursFromGMT = val;
     }
 
+    public int getForecastParallelism() {
+        return this.forecastParallelism;
+    }
+
+    public void setForecastParallelism(int val) {
+        this.forecastParallelism = val;
+    }
+
     public int getNumDaysToForecast() {
         return this.numDaysToForecast;
     }
@@ -182,6 +192,7 @@ public final class RunUasScheduleGenerator extends CloneableAbstractTask {
             this.scheduleGenerator.setCloneTimeShiftStDev(this.cloneTimeShiftStDev);
             this.scheduleGenerator.setNumHoursFromGMT(this.numHoursFromGMT);
             this.scheduleGenerator.setNumDaysToForecast(this.numDaysToForecast);
+            this.scheduleGenerator.setForecastParallelism(this.forecastParallelism);
             this.scheduleGenerator.setNominalTaxiTimeMinutes(this.nominalTaxiTimeMinutes);
             this.scheduleGenerator.setForecastClonerRandom((long) forecastClonerRandomSeed);
             this.scheduleGenerator.setScheduleClonerRandom((long) scheduleClonerRandomSeed);
@@ -241,6 +252,8 @@ public final class RunUasScheduleGenerator extends CloneableAbstractTask {
             // Get the new schedule records
             List<ScheduleRecord> forecastSchedRecList = this.scheduleGenerator.getOutputScheduleFile();
 
+            // Clones are saved unexpanded: writing them to file reads the base records, and consumers that read the
+            // fields (e.g. FlightPlan) materialize them
             logger.debug("saving forecast schedule records...");
             this.forecastSchedule.save(forecastSchedRecList);
 
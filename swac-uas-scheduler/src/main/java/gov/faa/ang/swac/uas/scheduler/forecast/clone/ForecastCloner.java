@@ -35,6 +35,37 @@ public class ForecastCloner
         this.removedFlights = new LinkedHashMap<Integer,ScheduleRecord>();
     }
 
+    /**
+     * Create a cloner with empty flight lists that draws from the given substream of this cloner's generators.
+     * Substreams are independent of how many draws have been taken from this cloner, so each mission/airport
+     * pair can be cloned by its own instance in any order.
+     */
+    public ForecastCloner substream(long index)
+    {
+        ForecastCloner retVal = new ForecastCloner(
+            this.hqRandomFC.substream(index),
+            this.schedRecCloner.substream(index));
+        retVal.timeShiftStdDevMins = this.timeShiftStdDevMins;
+        return retVal;
+    }
+
+    /**
+     * @return the number of flights remaining after cloning (or removing) flights for a pair with the given base
+     * and forecast counts; cloning is capped at maxClonesPerPair.
+     */
+    public static int forecastFlightCount(int nBaseFlights, int nForecastFlights)
+    {
+        if (nBaseFlights == 0)
+        {
+            return 0;
+        }
+        if (nBaseFlights < nForecastFlights)
+        {
+            return nBaseFlights + Math.min(maxClonesPerPair, nForecastFlights - nBaseFlights);
+        }
+        return nForecastFlights;
+    }
+
     public List<ScheduleRecord> getClonedFlights()
     {
         return this.clonedFlights;
@@ -0,0 +1,111 @@
+package gov.faa.ang.swac.uas.scheduler.mathematics.statistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Discrete sampler using Vose's alias method: O(n) to build, O(1) per draw. Each draw consumes exactly one
+ * nextDouble() from the caller's generator. Instances are immutable, so one table can be shared by any number
+ * of threads as long as each brings its own Random.
+ *
+ * @param <T> the type of item sampled
+ */
+public class AliasSampler<T>
+{
+	private final List<T> items;
+	private final double[] prob;
+	private final int[] alias;
+
+	/**
+	 * @param items items to sample
+	 * @param weights non-negative weights, one per item; they need not sum to one
+	 */
+	public AliasSampler(List<T> items, double[] weights)
+	{
+		int n = items.size();
+		if (n == 0 || weights.length != n)
+		{
+			throw new IllegalArgumentException("Expected one weight per item: items=" + n + "; weights=" + weights.length);
+		}
+
+		double total = 0;
+		for (double weight : weights)
+		{
+			total += weight;
+		}
+		if (!(total > 0))
+		{
+			throw new IllegalArgumentException("Weights must have a positive sum");
+		}
+
+		this.items = Collections.unmodifiableList(new ArrayList<T>(items));
+		this.prob = new double[n];
+		this.alias = new int[n];
+
+		double[] scaled = new double[n];
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int nSmall = 0;
+		int nLarge = 0;
+		for (int i = 0; i < n; i++)
+		{
+			scaled[i] = weights[i] * n / total;
+			if (scaled[i] < 1.0)
+			{
+				small[nSmall++] = i;
+			}
+			else
+			{
+				large[nLarge++] = i;
+			}
+		}
+
+		while (nSmall > 0 && nLarge > 0)
+		{
+			int s = small[--nSmall];
+			int l = large[--nLarge];
+			this.prob[s] = scaled[s];
+			this.alias[s] = l;
+			scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+			if (scaled[l] < 1.0)
+			{
+				small[nSmall++] = l;
+			}
+			else
+			{
+				large[nLarge++] = l;
+			}
+		}
+		// Whatever remains is numerically 1
+		while (nLarge > 0)
+		{
+			int l = large[--nLarge];
+			this.prob[l] = 1.0;
+			this.alias[l] = l;
+		}
+		while (nSmall > 0)
+		{
+			int s = small[--nSmall];
+			this.prob[s] = 1.0;
+			this.alias[s] = s;
+		}
+	}
+
+	public T sample(Random rand)
+	{
+		double u = rand.nextDouble() * this.prob.length;
+		int column = (int) u;
+		if (column >= this.prob.length)
+		{
+			column = this.prob.length - 1;
+		}
+		return (u - column) < this.prob[column] ? this.items.get(column) : this.items.get(this.alias[column]);
+	}
+
+	public int size()
+	{
+		return this.items.size();
+	}
+}
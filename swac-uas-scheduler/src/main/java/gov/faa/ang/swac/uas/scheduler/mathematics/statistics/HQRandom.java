@@ -1,8 +1,6 @@
 package gov.faa.ang.swac.uas.scheduler.mathematics.statistics;
 
 import java.util.Random;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 //The authors of Numerical Recipes: 
 // The Art of Scientific Computing propose a random number generator 
@@ -16,14 +14,17 @@ import java.util.concurrent.locks.ReentrantLock;
 //
 // Their suggested C implementation is trivially portable to Java, 
 // and a suggested implementation is given below. In this case, 
-// we subclass java.util.Random, and also make the generator thread-safe. 
-// If thread safety is not required, then the Lock could be removed. 
+// we subclass java.util.Random. The generator is NOT thread-safe: every 
+// instance is confined to the task that created it. Parallel workers must 
+// each draw from their own stream obtained via split() or substream(long). 
 
 public class HQRandom extends Random {
 
 	private static final long serialVersionUID = 1L;
 	
-	private Lock l = new ReentrantLock();
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
 	private long u = 0L;
 	private long v = 4101842887655102017L;
 	private long w = 1L;
@@ -51,20 +52,15 @@ public class HQRandom extends Random {
 	}
 
 	private void initInternalState(long seed) {
-		l.lock();
-		try {
-			u = 0L;
-			v = 4101842887655102017L;
-			w = 1L;
-			u = seed ^ v;
-			nextLong();
-			v = u;
-			nextLong();
-			w = v;
-			nextLong(); 
-		} finally {
-			l.unlock();
-		}
+		u = 0L;
+		v = 4101842887655102017L;
+		w = 1L;
+		u = seed ^ v;
+		nextLong();
+		v = u;
+		nextLong();
+		w = v;
+		nextLong(); 
 	}
 
 	private void saveInternalState() {
@@ -89,27 +85,61 @@ public class HQRandom extends Random {
 	}
 
 	public long nextLong() {
-		l.lock();
-		try {
-			u = u * 2862933555777941757L + 7046029254386353087L;
-			v ^= v >>> 17;
-			v ^= v << 31;
-			v ^= v >>> 8;
-			w = 4294957665L * (w & 0xffffffffL) + (w >>> 32);
-			long x = u ^ (u << 21);
-			x ^= x >>> 35;
-			x ^= x << 4;
-			long ret = (x + v) ^ w;
-			return ret;
-		} finally {
-			l.unlock();
-		}
+		u = u * 2862933555777941757L + 7046029254386353087L;
+		v ^= v >>> 17;
+		v ^= v << 31;
+		v ^= v >>> 8;
+		w = 4294957665L * (w & 0xffffffffL) + (w >>> 32);
+		long x = u ^ (u << 21);
+		x ^= x >>> 35;
+		x ^= x << 4;
+		return (x + v) ^ w;
 	}
 
 	protected int next(int bits) {
 		return (int) (nextLong() >>> (64-bits));
 	}
 
+	/**
+	 * Fills the array with the same values that successive calls to nextDouble() would return.
+	 */
+	public void nextDoubles(double[] output) {
+		for (int i = 0; i < output.length; i++) {
+			long hi = nextLong() >>> 38; // next(26)
+			long lo = nextLong() >>> 37; // next(27)
+			output[i] = ((hi << 27) + lo) * DOUBLE_UNIT;
+		}
+	}
+
+	/**
+	 * Returns a new generator seeded from the next value of this stream. The child stream is independent of
+	 * this one; this stream advances by one draw, so a sequence of splits is reproducible from the same seed.
+	 */
+	public HQRandom split() {
+		return new HQRandom(mix64(nextLong() + GOLDEN_GAMMA));
+	}
+
+	/**
+	 * Returns the substream with the given index, derived from the last saved state of this generator without
+	 * advancing it. The same (state, index) pair always yields the same stream, so work partitioned by index
+	 * draws identical numbers regardless of how many threads process it or in which order.
+	 * 
+	 * The combined generator has no cheap jump polynomial (the XORShift and MWC components would each need
+	 * their own), so substreams jump by re-seeding from a SplitMix64 hash of the saved state and the index.
+	 */
+	public HQRandom substream(long index) {
+		long seed = mix64(lastSavedU + GOLDEN_GAMMA * (index + 1));
+		seed = mix64(seed ^ lastSavedV);
+		seed = mix64(seed ^ lastSavedW);
+		return new HQRandom(seed);
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
 	public double randomNormal(double mean, double stDev) {
 		double t1 = nextDouble(); // random number with a fixed seed
 		double t2 = nextDouble();
@@ -1,6 +1,7 @@
 package gov.faa.ang.swac.uas.scheduler.vfr;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,23 +20,55 @@ import gov.faa.ang.swac.uas.scheduler.airport_data.AirportData;
 import gov.faa.ang.swac.uas.scheduler.forecast.MissionAirportPairKey;
 import gov.faa.ang.swac.uas.scheduler.input.UasVfrRecord;
 import gov.faa.ang.swac.uas.scheduler.input.Waypoint;
+import gov.faa.ang.swac.uas.scheduler.mathematics.statistics.AliasSampler;
 import gov.faa.ang.swac.uas.scheduler.mathematics.statistics.HQRandom;
 
 public class EnhancedVfrSchedRecCreator extends VfrSchedRecCreator {
 	private static final Logger logger = LogManager.getLogger(EnhancedVfrSchedRecCreator.class);
 	
 	private Map<MissionAirportPairKey, List<UasVfrRecord>> vfrMap;
+	private Map<MissionAirportPairKey, AliasSampler<UasVfrRecord>> samplers;
 	private long samplingRandomSeed;
 	private int idCounter;
+	private boolean deferFallback = false;
 	
 	public EnhancedVfrSchedRecCreator(Timestamp startTime, int i, int j, double nominalTaxiTimeMinutes,
 			VFRLocalTimeGenerator vfrLocalTimeGenerator, Map<MissionAirportPairKey, List<UasVfrRecord>> vfrMap, int idCounter, long samplingRandomSeed) {
 		super(startTime, i, j, nominalTaxiTimeMinutes, vfrLocalTimeGenerator);
 		this.vfrMap = vfrMap;
+		this.samplers = buildSamplers(vfrMap);
 		this.idCounter = idCounter;
 		this.samplingRandomSeed = samplingRandomSeed;
 	}
 	
+	private EnhancedVfrSchedRecCreator(EnhancedVfrSchedRecCreator source, VFRLocalTimeGenerator vfrLocalTimeGenerator) {
+		super(source, vfrLocalTimeGenerator);
+		this.vfrMap = source.vfrMap;
+		this.samplers = source.samplers;
+		this.idCounter = source.idCounter;
+		this.samplingRandomSeed = source.samplingRandomSeed;
+		this.deferFallback = true;
+	}
+	
+	/**
+	 * Substreams do not fall back to default VFR records on error: the ids for those records were not reserved,
+	 * so the failure is thrown to the caller as an IllegalStateException to be handled by the parent creator.
+	 */
+	@Override
+	public VfrSchedRecCreator substream(long index) {
+		return new EnhancedVfrSchedRecCreator(this, this.vfrLocalTimeGenerator.substream(index));
+	}
+	
+	@Override
+	public void reserveIds(MissionAirportPairKey missionAirportPair, int nVfrToAdd) {
+		List<UasVfrRecord> list = this.vfrMap.get(missionAirportPair);
+		if (list == null || list.isEmpty()) {
+			super.reserveIds(missionAirportPair, nVfrToAdd);
+		} else {
+			this.idCounter += nVfrToAdd * this.idNumInc;
+		}
+	}
+	
 	@Override
 	public List<ScheduleRecord> populateMissionAirportPair(
         MissionAirportPairKey missionAirportPair,
@@ -43,16 +76,17 @@ public class EnhancedVfrSchedRecCreator extends VfrSchedRecCreator {
     {
 		List<UasVfrRecord> list = this.vfrMap.get(missionAirportPair);
 		if (list == null || list.isEmpty()) {
-			return super.populateMissionAirportPair(missionAirportPair, nVfrToAdd);
+			return populateDefaultMissionAirportPair(missionAirportPair, nVfrToAdd);
 		}
 		
 		try {
 			List<ScheduleRecord> results = new ArrayList<ScheduleRecord>();
-			Sampler sampler = new Sampler(list, samplingRandomSeed);
+			AliasSampler<UasVfrRecord> sampler = this.samplers.get(missionAirportPair);
+			HQRandom rand = new HQRandom(samplingRandomSeed);
 
 	        for (int i = 0; i < nVfrToAdd; ++i)
 	        {
-	        	UasVfrRecord vfrRec = sampler.sample();
+	        	UasVfrRecord vfrRec = sampler.sample(rand);
 	            ScheduleRecord schedRec = createScheduleRecord(missionAirportPair, idCounter, vfrRec); // always departure so we populate arrival info
 	            idCounter += this.idNumInc;
 	            
@@ -61,37 +95,39 @@ public class EnhancedVfrSchedRecCreator extends VfrSchedRecCreator {
 	
 	        return results;
 		} catch (Exception ex) {
+			if (this.deferFallback) {
+				throw new IllegalStateException("Error trying to populate enhanced VFR records for " + missionAirportPair, ex);
+			}
 			logger.error("Error trying to populate enhanced VFR records. Defaulting to normal VFR.");
-			return super.populateMissionAirportPair(missionAirportPair, nVfrToAdd);
+			return populateDefaultMissionAirportPair(missionAirportPair, nVfrToAdd);
 		}
     }
 
-	private class Sampler {
-		private List<UasVfrRecord> list;
-		private double[] cumDistr;
-		private HQRandom rand;
-		
-		public Sampler(List<UasVfrRecord> list, long seed) {
-			this.list = list;
-			this.cumDistr = new double[list.size()];
-			this.rand = new HQRandom(seed);
-			
-			cumDistr[0] = list.get(0).fraction;
-			for (int i = 1; i < cumDistr.length; i++) {
-				cumDistr[i] = cumDistr[i-1] + list.get(i).fraction;
+	/**
+	 * Alias tables for every VFR record set, built once per creator and shared (read-only) with its substreams.
+	 * Weights reproduce the distribution of the original cumulative scan: records are taken in file order, any
+	 * cumulative fraction beyond 1 is unreachable, and mass left below 1 goes to the first record.
+	 */
+	private static Map<MissionAirportPairKey, AliasSampler<UasVfrRecord>> buildSamplers(Map<MissionAirportPairKey, List<UasVfrRecord>> vfrMap) {
+		Map<MissionAirportPairKey, AliasSampler<UasVfrRecord>> samplers = new HashMap<MissionAirportPairKey, AliasSampler<UasVfrRecord>>();
+		for (Map.Entry<MissionAirportPairKey, List<UasVfrRecord>> entry : vfrMap.entrySet()) {
+			List<UasVfrRecord> list = entry.getValue();
+			if (list == null || list.isEmpty()) {
+				continue;
 			}
-		}
-		
-		public UasVfrRecord sample() {
-			double draw = rand.nextDouble();
-			for (int i = 0; i < cumDistr.length; i++) {
-				if (draw < cumDistr[i]) {
-					return list.get(i);
-				}
+			
+			double[] weights = new double[list.size()];
+			double previous = 0;
+			for (int i = 0; i < weights.length; i++) {
+				double cumulative = Math.min(1.0, previous + list.get(i).fraction);
+				weights[i] = Math.max(0, cumulative - previous);
+				previous = Math.max(previous, cumulative);
 			}
-			// Whammy...return the first one by default
-			return list.get(0);
+			weights[0] += 1.0 - previous;
+			
+			samplers.put(entry.getKey(), new AliasSampler<UasVfrRecord>(list, weights));
 		}
+		return samplers;
 	}
 	
 	protected ScheduleRecord createScheduleRecord(
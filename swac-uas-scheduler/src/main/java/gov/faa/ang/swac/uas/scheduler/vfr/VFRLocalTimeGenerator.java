@@ -34,6 +34,20 @@ public class VFRLocalTimeGenerator
         this.hqRandomVFR = generator;
     }
 
+    /**
+     * Create a generator with the same distribution that draws from the given substream of this generator's
+     * random number stream.
+     * 
+     * @param index
+     * @return a VFR local time generator for the substream
+     */
+    public VFRLocalTimeGenerator substream(long index)
+    {
+        VFRLocalTimeGenerator retVal = new VFRLocalTimeGenerator(this.hqRandomVFR.substream(index));
+        retVal.setTrapezoidalVars(this.x1, this.x2, this.x3, this.x4);
+        return retVal;
+    }
+
     /**
      * Create a random local time for VFR flights based on a trapezoid distribution.
      * 
@@ -34,6 +34,43 @@ public class VfrSchedRecCreator
         this.idNumInc = increment;
         this.nominalTaxiTimeMinutes = nominalTaxiTimeMinutes;
     }
+
+    /**
+     * Copy positioned at the source's current id number, drawing local times from the given generator
+     */
+    protected VfrSchedRecCreator(VfrSchedRecCreator source, VFRLocalTimeGenerator vfrLocalTimeGenerator)
+    {
+        this.vfrLocalTimeGenerator = vfrLocalTimeGenerator;
+        this.localDate = source.localDate;
+        this.nextIdNum = source.nextIdNum;
+        this.idNumInc = source.idNumInc;
+        this.nominalTaxiTimeMinutes = source.nominalTaxiTimeMinutes;
+    }
+
+    /**
+     * Create a creator that draws local times from the given substream and numbers its flights starting from
+     * this creator's current id. Follow with {@link #reserveIds} so the next substream starts after the ids
+     * the returned creator will use.
+     * 
+     * @param index
+     * @return a VFR creator for the substream
+     */
+    public VfrSchedRecCreator substream(long index)
+    {
+        return new VfrSchedRecCreator(this, this.vfrLocalTimeGenerator.substream(index));
+    }
+
+    /**
+     * Advance the id numbering past the ids that populateMissionAirportPair would assign for the given pair,
+     * without creating any records.
+     * 
+     * @param missionAirportPair
+     * @param nVfrToAdd
+     */
+    public void reserveIds(MissionAirportPairKey missionAirportPair, int nVfrToAdd)
+    {
+        this.nextIdNum += nVfrToAdd * 2 * this.idNumInc;
+    }
     
     public void setLocalDate(Timestamp localDate)
     {
@@ -48,6 +85,16 @@ public class VfrSchedRecCreator
     public List<ScheduleRecord> populateMissionAirportPair(
         MissionAirportPairKey missionAirportPair,
         int nVfrToAdd)
+    {
+        return populateDefaultMissionAirportPair(missionAirportPair, nVfrToAdd);
+    }
+
+    /**
+     * Populate a departure and an arrival record at each end of the pair for every VFR flight to add.
+     */
+    public List<ScheduleRecord> populateDefaultMissionAirportPair(
+        MissionAirportPairKey missionAirportPair,
+        int nVfrToAdd)
     {
         List<ScheduleRecord> results = new ArrayList<ScheduleRecord>();
 
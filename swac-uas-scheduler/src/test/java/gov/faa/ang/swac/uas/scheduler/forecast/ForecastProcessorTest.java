@@ -0,0 +1,111 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.uas.scheduler.forecast;
+
+import static org.junit.Assert.*;
+
+import gov.faa.ang.swac.common.datatypes.Timestamp;
+import gov.faa.ang.swac.common.flightmodeling.ScheduleRecord;
+import gov.faa.ang.swac.uas.scheduler.airport_data.AirportData;
+import gov.faa.ang.swac.uas.scheduler.airport_data.AirportDataPair;
+import gov.faa.ang.swac.uas.scheduler.flight_data.ScheduleRecordCloner;
+import gov.faa.ang.swac.uas.scheduler.forecast.clone.ForecastCloner;
+import gov.faa.ang.swac.uas.scheduler.forecast.trip_distribution.ForecastTripDistAirportDataCount.MissionType;
+import gov.faa.ang.swac.uas.scheduler.input.UasVfrRecord;
+import gov.faa.ang.swac.uas.scheduler.mathematics.statistics.HQRandom;
+import gov.faa.ang.swac.uas.scheduler.vfr.EnhancedVfrSchedRecCreator;
+import gov.faa.ang.swac.uas.scheduler.vfr.VFRLocalTimeGenerator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ForecastProcessorTest {
+
+	private static final Timestamp START_TIME = new Timestamp(1262336400000L); // 2010-01-01 09:00Z
+
+	private Map<MissionAirportPairKey, List<ScheduleRecord>> scheduleMap;
+	private Map<MissionAirportPairKey, Integer> tafData;
+
+	@Before
+	public void setUp()
+	{
+		List<AirportData> airports = new ArrayList<AirportData>();
+		for (int i = 0; i < 8; i++) {
+			airports.add(new AirportData("A" + i, "KA" + i, 30.0 + i, -90.0 - i, 100, 1, "US", -5.0, "ZTL"));
+		}
+
+		this.scheduleMap = new LinkedHashMap<MissionAirportPairKey, List<ScheduleRecord>>();
+		this.tafData = new LinkedHashMap<MissionAirportPairKey, Integer>();
+
+		HQRandom random = new HQRandom(1L);
+		int idNum = 1;
+		for (AirportData origin : airports) {
+			for (AirportData destination : airports) {
+				MissionAirportPairKey key = new MissionAirportPairKey(MissionType.CARGO_DELIVERY, new AirportDataPair(origin, destination));
+
+				List<ScheduleRecord> baseFlights = new ArrayList<ScheduleRecord>();
+				int nBase = random.nextInt(6);
+				for (int i = 0; i < nBase; i++) {
+					ScheduleRecord rec = new ScheduleRecord();
+					rec.idNum = 1000 * idNum++;
+					rec.gateOutTime = START_TIME.minuteAdd(random.nextInt(600));
+					rec.runwayOffTime = rec.gateOutTime.minuteAdd(10);
+					baseFlights.add(rec);
+				}
+				if (!baseFlights.isEmpty()) {
+					this.scheduleMap.put(key, baseFlights);
+				}
+				this.tafData.put(key, random.nextInt(150));
+			}
+		}
+	}
+
+	private List<ScheduleRecord> process(int parallelism)
+	{
+		ForecastCloner cloner = new ForecastCloner(new HQRandom(19551105L), new ScheduleRecordCloner(new HQRandom(13453453L)));
+		cloner.setCloneTimeShiftStDev(30.0);
+		EnhancedVfrSchedRecCreator vfrCreator = new EnhancedVfrSchedRecCreator(START_TIME, -1000000, -1, 10.0,
+				new VFRLocalTimeGenerator(new HQRandom(134345L)), new LinkedHashMap<MissionAirportPairKey, List<UasVfrRecord>>(), -10000000, 7207);
+
+		ForecastProcessor processor = new ForecastProcessor(this.scheduleMap, this.tafData, cloner, vfrCreator);
+		processor.setParallelism(parallelism);
+		return processor.process(2010, 2025, START_TIME, START_TIME.dayAdd(1));
+	}
+
+	@Test
+	public void testIndependentOfParallelism()
+	{
+		List<ScheduleRecord> serial = process(1);
+		List<ScheduleRecord> parallel = process(4);
+
+		assertFalse(serial.isEmpty());
+		assertEquals(serial.size(), parallel.size());
+		for (int i = 0; i < serial.size(); i++) {
+			assertEquals(serial.get(i).toString(), parallel.get(i).toString());
+		}
+	}
+
+	@Test
+	public void testVfrIdsUnique()
+	{
+		Set<Integer> vfrIds = new HashSet<Integer>();
+		for (ScheduleRecord rec : process(4)) {
+			if ("VFR".equals(rec.flightPlanType)) {
+				assertTrue(vfrIds.add(rec.idNum));
+			}
+		}
+		assertFalse(vfrIds.isEmpty());
+	}
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.uas.scheduler.forecast.trip_distribution;
+
+import static org.junit.Assert.*;
+
+import gov.faa.ang.swac.common.datatypes.Timestamp;
+import gov.faa.ang.swac.common.flightmodeling.ScheduleRecord;
+import gov.faa.ang.swac.datalayer.DataAccessException;
+import gov.faa.ang.swac.datalayer.storage.MemoryMarshaller;
+import gov.faa.ang.swac.datalayer.storage.StaticDataMarshaller;
+import gov.faa.ang.swac.uas.scheduler.airport_data.AirportData;
+import gov.faa.ang.swac.uas.scheduler.airport_data.AirportDataMap;
+import gov.faa.ang.swac.uas.scheduler.forecast.MissionAirportPairKey;
+import gov.faa.ang.swac.uas.scheduler.forecast.trip_distribution.ForecastTripDistAirportDataCount.MissionType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ForecastTripDistributionDataLoaderTest {
+
+	private static final Timestamp SCHEDULE_DAY = new Timestamp(1262304000000L); // 2010-01-01
+	private static final long HOUR = 3600000L;
+
+	private StaticDataMarshaller schedule;
+	private AirportDataMap airports;
+
+	@Before
+	public void setUp() throws DataAccessException
+	{
+		this.airports = new AirportDataMap();
+		this.airports.addAirport(new AirportData("AAA", "KAAA", 30.0, -90.0, 100, 1, "US", -5.0, "ZTL"));
+		this.airports.addAirport(new AirportData("BBB", "KBBB", 31.0, -91.0, 100, 1, "US", -5.0, "ZTL"));
+
+		List<ScheduleRecord> records = new ArrayList<ScheduleRecord>();
+		for (int i = 0; i < 10; i++) {
+			ScheduleRecord rec = new ScheduleRecord();
+			rec.idNum = i;
+			rec.depAprtEtms = "AAA";
+			rec.arrAprtEtms = "BBB";
+			rec.atoUserClass = MissionType.AIR_TAXI.userClass();
+			rec.runwayOffTime = new Timestamp(SCHEDULE_DAY.getTime() + i * HOUR);
+			rec.runwayOnTime = new Timestamp(rec.runwayOffTime.getTime() + (i + 1) * 60000L);
+			records.add(rec);
+		}
+		MemoryMarshaller source = new MemoryMarshaller(ScheduleRecord.class, "schedule");
+		source.save(records);
+		this.schedule = new StaticDataMarshaller(source);
+	}
+
+	private List<ScheduleRecord> runScenario(Timestamp baseDate) throws DataAccessException
+	{
+		List<ScheduleRecord> input = new ArrayList<ScheduleRecord>();
+		this.schedule.load(input);
+		Map<MissionAirportPairKey, List<ScheduleRecord>> map = ForecastTripDistributionDataLoader.load(
+				input, this.airports, baseDate, new Timestamp(baseDate.getTime() + 24 * HOUR));
+		List<ScheduleRecord> output = new ArrayList<ScheduleRecord>();
+		for (List<ScheduleRecord> flights : map.values()) {
+			output.addAll(flights);
+		}
+		return output;
+	}
+
+	private static void assertRedated(List<ScheduleRecord> records, Timestamp baseDate)
+	{
+		assertEquals(10, records.size());
+		for (ScheduleRecord rec : records) {
+			assertEquals(baseDate.getTime() + rec.idNum * HOUR, rec.runwayOffTime.getTime());
+			assertEquals((rec.idNum + 1) * 60000L, rec.runwayOnTime.getTime() - rec.runwayOffTime.getTime());
+		}
+	}
+
+	@Test
+	public void testScenariosWithDifferentBaseDates() throws DataAccessException
+	{
+		Timestamp firstDate = new Timestamp(SCHEDULE_DAY.getTime() + 10 * 24 * HOUR);
+		Timestamp secondDate = new Timestamp(SCHEDULE_DAY.getTime() + 40 * 24 * HOUR);
+
+		List<ScheduleRecord> first = runScenario(firstDate);
+		assertRedated(first, firstDate);
+
+		// The second scenario starts from the parsed schedule, not from the records the first one re-dated
+		List<ScheduleRecord> second = runScenario(secondDate);
+		assertRedated(second, secondDate);
+		assertRedated(first, firstDate);
+		for (ScheduleRecord rec : first) {
+			assertFalse(second.contains(rec));
+		}
+
+		List<ScheduleRecord> cached = new ArrayList<ScheduleRecord>();
+		this.schedule.load(cached);
+		for (ScheduleRecord rec : cached) {
+			assertEquals(SCHEDULE_DAY.getTime() + rec.idNum * HOUR, rec.runwayOffTime.getTime());
+		}
+	}
+}
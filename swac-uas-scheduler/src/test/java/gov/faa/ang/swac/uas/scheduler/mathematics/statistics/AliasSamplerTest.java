@@ -0,0 +1,56 @@
+/**
+ * Copyright "TBD", Metron Aviation & CSSI.  All rights reserved.
+ *
+ * This computer Software was developed with the sponsorship of the U.S. Government
+ * under Contract No. DTFAWA-10-D-00033, which has a copyright license in accordance with AMS 3.5-13.(c)(1).
+ */
+
+package gov.faa.ang.swac.uas.scheduler.mathematics.statistics;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AliasSamplerTest {
+
+    @Test
+    public void frequenciesMatchWeights() {
+		List<String> items = Arrays.asList("a", "b", "c", "d");
+		double[] weights = new double[] { 0.1, 0.2, 0.0, 0.7 };
+		AliasSampler<String> sampler = new AliasSampler<String>(items, weights);
+
+		HQRandom random = new HQRandom(7207L);
+		int nDraws = 200000;
+		int[] counts = new int[items.size()];
+		for (int i = 0; i < nDraws; i++) {
+			counts[items.indexOf(sampler.sample(random))]++;
+		}
+
+		assertEquals(0, counts[2]);
+		for (int i = 0; i < items.size(); i++) {
+			assertEquals(weights[i], counts[i] / (double) nDraws, 0.01);
+		}
+	}
+
+    @Test
+    public void unnormalizedWeights() {
+		AliasSampler<String> sampler = new AliasSampler<String>(Arrays.asList("a", "b"), new double[] { 3.0, 1.0 });
+		HQRandom random = new HQRandom(1L);
+		int nDraws = 100000;
+		int a = 0;
+		for (int i = 0; i < nDraws; i++) {
+			if ("a".equals(sampler.sample(random))) {
+				a++;
+			}
+		}
+		assertEquals(0.75, a / (double) nDraws, 0.01);
+	}
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyItems() {
+		new AliasSampler<String>(Arrays.<String>asList(), new double[0]);
+	}
+}
@@ -7,6 +7,8 @@
 
 package gov.faa.ang.swac.uas.scheduler.mathematics.statistics;
 
+import static org.junit.Assert.*;
+
 import org.apache.log4j.BasicConfigurator;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
@@ -59,4 +61,52 @@ public class HQRandomTest {
 			}
 		}
 	}
+
+    @Test
+    public void nextDoublesMatchesNextDouble() {
+		HQRandom expected = new HQRandom(123456789L);
+		HQRandom actual = new HQRandom(123456789L);
+		double[] values = new double[100];
+		actual.nextDoubles(values);
+		for (double value : values) {
+			assertEquals(expected.nextDouble(), value, 0.0);
+		}
+		assertEquals(expected.nextLong(), actual.nextLong());
+	}
+
+    @Test
+    public void resetReproducesStream() {
+		HQRandom random = new HQRandom(42L);
+		long[] first = new long[10];
+		for (int i = 0; i < first.length; i++) {
+			first[i] = random.nextLong();
+		}
+		random.resetStreamToLastSavedState();
+		for (int i = 0; i < first.length; i++) {
+			assertEquals(first[i], random.nextLong());
+		}
+	}
+
+    @Test
+    public void substreamsAreDeterministic() {
+		HQRandom parent = new HQRandom(42L);
+		long[] state = parent.getInternalState();
+		long a = parent.substream(7).nextLong();
+		// Deriving a substream does not advance the parent
+		assertArrayEquals(state, parent.getInternalState());
+		parent.nextLong();
+		assertEquals(a, parent.substream(7).nextLong());
+		assertEquals(a, new HQRandom(42L).substream(7).nextLong());
+		assertTrue(a != parent.substream(8).nextLong());
+	}
+
+    @Test
+    public void splitIsReproducible() {
+		HQRandom p1 = new HQRandom(42L);
+		HQRandom p2 = new HQRandom(42L);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(p1.split().nextLong(), p2.split().nextLong());
+		}
+		assertEquals(p1.nextLong(), p2.nextLong());
+	}
 }